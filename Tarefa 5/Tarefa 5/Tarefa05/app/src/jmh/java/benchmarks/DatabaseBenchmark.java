@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cabbieManager.Cabbie;
+import databaseManager.Database;
+import datagen.BulkDataGenerator;
+
+/**
+ * {@link Database#insert(Object)}, {@link Database#update(Object)} and loading
+ * the database file, with a generated dataset of {@link #rides} rides plus
+ * their payments, one cabbie per 50 rides and one passenger per 10 rides.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DatabaseBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int rides;
+
+    private File file;
+    private Database database;
+    private Cabbie existing;
+    private Cabbie fresh;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.file = Files.createTempFile("database", ".xml").toFile();
+        this.database = new Database(this.file, false);
+        // Trava o banco para escrita até o fim da geração; roda antes de qualquer medição
+        new BulkDataGenerator(42).generateInto(this.database, Math.max(1, this.rides / 50),
+                Math.max(1, this.rides / 10), this.rides);
+
+        this.existing = this.database.getCabbies().get(0);
+        this.fresh = new Cabbie();
+        this.fresh.register();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.file.delete();
+    }
+
+    @Benchmark
+    public Database insert() throws Exception {
+        this.database.insert(this.fresh);
+        // Desfaz a inserção para o tamanho não crescer a cada chamada; remover o último é O(1)
+        List<Cabbie> cabbies = this.database.getCabbies();
+        cabbies.remove(cabbies.size() - 1);
+        return this.database;
+    }
+
+    @Benchmark
+    public Database update() throws Exception {
+        this.database.update(this.existing);
+        return this.database;
+    }
+
+    @Benchmark
+    public Database load() {
+        return new Database(this.file, true);
+    }
+}
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cabbieManager.Location;
+import cabbieManager.PaymentOption;
+
+/**
+ * {@link Location#valueOfName(String)} and
+ * {@link PaymentOption#valueOfName(String)}, for the first and last values of
+ * each enum.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({ "Aeroporto", "Estadio" })
+    public String locationName;
+
+    @Param({ "Cartão de Crédito", "Pix" })
+    public String paymentOptionName;
+
+    @Benchmark
+    public Location locationValueOfName() {
+        return Location.valueOfName(this.locationName);
+    }
+
+    @Benchmark
+    public PaymentOption paymentOptionValueOfName() {
+        return PaymentOption.valueOfName(this.paymentOptionName);
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+
+/**
+ * {@link Ride#calculateDistance()} and {@link RidePayment#calculateValue()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RideBenchmark {
+
+    @Param({ "Pix", "Cartão de Crédito" })
+    public String paymentMethod;
+
+    private Ride ride;
+    private RidePayment payment;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.ride = new Ride("passengerId");
+        this.ride.requestRide("Shopping", "Estação de Trem");
+        this.payment = new RidePayment(this.ride.getRideId(), this.ride.getStartTime(), this.ride.getRideDistance(),
+                this.paymentMethod);
+    }
+
+    @Benchmark
+    public float calculateDistance() throws Exception {
+        return this.ride.calculateDistance();
+    }
+
+    @Benchmark
+    public float calculateValue() {
+        return this.payment.calculateValue();
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import cabbieManager.Location;
+import cabbieManager.Ride;
+import serialization.EntitySerializer;
+import serialization.Serializers;
+
+/**
+ * Heap taken by rides read back from the binary serializer, in bytes per ride.
+ * It is not a JMH benchmark, since JMH measures time and allocation rates, not
+ * retained heap; run it with {@code ./gradlew footprint} on two commits to
+ * compare them.
+ *
+ * The rides reference {@value #PASSENGERS} passengers and {@value #CABBIES}
+ * cabbies by id, as in the generated data sets. The result is the growth of
+ * the used heap after a full GC, before and after reading the rides, divided
+ * by the number of rides.
+ */
+public class RideFootprint {
+
+    static final int RIDES = 1_000_000;
+    static final int PASSENGERS = 100_000;
+    static final int CABBIES = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        int rides = args.length > 0 ? Integer.parseInt(args[0]) : RIDES;
+        byte[] binary = write(rides);
+
+        long before = usedAfterGc();
+        List<Ride> loaded = read(binary, rides);
+        long after = usedAfterGc();
+
+        long bytes = after - before;
+        System.out.printf("%d corridas: %d MB, %d bytes por corrida%n", loaded.size(), bytes >> 20,
+                bytes / loaded.size());
+    }
+
+    // Gera as corridas e devolve só a forma binária, para elas não ficarem no heap
+    private static byte[] write(int rides) throws Exception {
+        Random random = new Random(42);
+        String[] passengers = ids(PASSENGERS);
+        String[] cabbies = ids(CABBIES);
+        String[] vehicles = ids(CABBIES);
+        Location[] locations = Location.values();
+        EntitySerializer<Ride> serializer = Serializers.get(Ride.class);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(rides * 160);
+        DataOutputStream out = new DataOutputStream(buffer);
+        for (int i = 0; i < rides; i++) {
+            int cabbie = random.nextInt(CABBIES);
+            Ride ride = new Ride(passengers[random.nextInt(PASSENGERS)]);
+            ride.setRideId(UUID.randomUUID().toString());
+            ride.setCabbieId(cabbies[cabbie]);
+            ride.setVehicleId(vehicles[cabbie]);
+            ride.setPickupLocation(locations[random.nextInt(locations.length)]);
+            ride.setDropLocation(locations[random.nextInt(locations.length)]);
+            ride.setStartTime(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(random.nextInt(525_600)));
+            ride.setDistance(1 + random.nextInt(300) / 10f);
+            ride.setStatus("FINALIZADA");
+            serializer.writeBinary(ride, out);
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static List<Ride> read(byte[] binary, int rides) throws Exception {
+        EntitySerializer<Ride> serializer = Serializers.get(Ride.class);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(binary));
+        List<Ride> loaded = new ArrayList<>(rides);
+        for (int i = 0; i < rides; i++) {
+            loaded.add(serializer.readBinary(in));
+        }
+        return loaded;
+    }
+
+    private static String[] ids(int count) {
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = UUID.randomUUID().toString();
+        }
+        return ids;
+    }
+
+    private static long usedAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        // Algumas coletas seguidas, até o heap usado parar de cair
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            long current = memory.getHeapMemoryUsage().getUsed();
+            if (current >= used) {
+                break;
+            }
+            used = current;
+        }
+        return used;
+    }
+}
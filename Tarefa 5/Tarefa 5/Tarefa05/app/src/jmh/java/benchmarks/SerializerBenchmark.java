@@ -0,0 +1,194 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cabbieManager.RidePayment;
+import serialization.EntitySerializer;
+import serialization.Serializers;
+
+/**
+ * Generated serializers against JAXB, in records per second over a batch of
+ * {@value #RECORDS} payments. {@link Cold} measures the first record of a
+ * fresh JVM, including building the JAXB context.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    static final int RECORDS = 1000;
+
+    private final List<RidePayment> payments = new ArrayList<>(RECORDS);
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private final EntitySerializer<RidePayment> serializer = Serializers.get(RidePayment.class);
+
+    private Marshaller marshaller;
+    private Unmarshaller unmarshaller;
+    private byte[] jaxbXml;
+    private byte[] generatedXml;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            this.payments.add(new RidePayment("ride" + i, LocalDateTime.of(2024, 1, 1, i % 24, 0), 1 + i % 30,
+                    i % 2 == 0 ? "Pix" : "Cartão de Crédito"));
+        }
+        JAXBContext context = JAXBContext.newInstance(RidePayment.class);
+        this.marshaller = context.createMarshaller();
+        this.marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        this.unmarshaller = context.createUnmarshaller();
+
+        this.out.reset();
+        this.marshaller.marshal(this.payments.get(0), this.out);
+        this.jaxbXml = this.out.toByteArray();
+        this.generatedXml = this.writeXml();
+        this.binary = this.writeBinary();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int jaxbWrite() throws Exception {
+        this.out.reset();
+        for (RidePayment payment : this.payments) {
+            this.marshaller.marshal(payment, this.out);
+        }
+        return this.out.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int generatedXmlWrite() throws Exception {
+        return this.writeXml().length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int generatedBinaryWrite() throws Exception {
+        return this.writeBinary().length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long jaxbRead() throws Exception {
+        long total = 0;
+        for (int i = 0; i < RECORDS; i++) {
+            total += ((RidePayment) this.unmarshaller.unmarshal(new ByteArrayInputStream(this.jaxbXml)))
+                    .getAmountCents();
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long generatedXmlRead() throws Exception {
+        long total = 0;
+        XMLStreamReader in = this.inputFactory.createXMLStreamReader(new ByteArrayInputStream(this.generatedXml));
+        in.nextTag();
+        for (int i = 0; i < RECORDS; i++) {
+            in.nextTag();
+            total += this.serializer.readXml(in).getAmountCents();
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long generatedBinaryRead() throws Exception {
+        long total = 0;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(this.binary));
+        for (int i = 0; i < RECORDS; i++) {
+            total += this.serializer.readBinary(in).getAmountCents();
+        }
+        return total;
+    }
+
+    private byte[] writeXml() throws Exception {
+        this.out.reset();
+        XMLStreamWriter writer = this.outputFactory.createXMLStreamWriter(this.out, "UTF-8");
+        writer.writeStartElement("payments");
+        for (RidePayment payment : this.payments) {
+            this.serializer.writeXml(payment, writer);
+        }
+        writer.writeEndElement();
+        writer.close();
+        return this.out.toByteArray();
+    }
+
+    private byte[] writeBinary() throws Exception {
+        this.out.reset();
+        DataOutputStream data = new DataOutputStream(this.out);
+        for (RidePayment payment : this.payments) {
+            this.serializer.writeBinary(payment, data);
+        }
+        data.flush();
+        return this.out.toByteArray();
+    }
+
+    /**
+     * Time to serialize the first payment in a new JVM.
+     */
+    @State(Scope.Thread)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public static class Cold {
+
+        private RidePayment payment;
+
+        @Setup
+        public void setUp() throws Exception {
+            this.payment = new RidePayment("ride", LocalDateTime.of(2024, 1, 1, 10, 0), 5.24f, "Pix");
+        }
+
+        @Benchmark
+        public int jaxb() throws Exception {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            JAXBContext.newInstance(RidePayment.class).createMarshaller().marshal(this.payment, out);
+            return out.size();
+        }
+
+        @Benchmark
+        public int generated() throws Exception {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+            Serializers.get(RidePayment.class).writeXml(this.payment, writer);
+            writer.close();
+            return out.size();
+        }
+    }
+}
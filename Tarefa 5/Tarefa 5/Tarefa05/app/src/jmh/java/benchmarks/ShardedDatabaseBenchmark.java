@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cabbieManager.Passenger;
+import databaseManager.ShardedDatabase;
+
+/**
+ * Write throughput of {@link ShardedDatabase#insert(Object)} with 8 writer
+ * threads and {@link #shards} shards. Each iteration starts with empty shards,
+ * so the cost of saving the files does not grow during the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class ShardedDatabaseBenchmark {
+
+    @Param({ "1", "2", "4", "8" })
+    public int shards;
+
+    private final AtomicLong ids = new AtomicLong();
+    private File directory;
+    private ShardedDatabase database;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        this.directory = Files.createTempDirectory("shards").toFile();
+        this.database = new ShardedDatabase(this.directory, this.shards, false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        this.database.close();
+        for (int i = 0; i < this.shards; i++) {
+            File shard = new File(this.directory, "shard-" + i);
+            new File(shard, "database.xml").delete();
+            shard.delete();
+        }
+        this.directory.delete();
+    }
+
+    @Benchmark
+    public Passenger insert() throws Exception {
+        Passenger passenger = new Passenger();
+        passenger.setPassengerId("passageiro-" + this.ids.incrementAndGet());
+        this.database.insert(passenger);
+        return passenger;
+    }
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Passenger;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import cabbieManager.Vehicle;
+
+/**
+ * JAXB marshalling of one entity of each type, with the marshaller created
+ * once per trial as {@code Database} would reuse it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlBenchmark {
+
+    @Param({ "cabbie", "passenger", "vehicle", "ride", "payment" })
+    public String entity;
+
+    private Object object;
+    private Marshaller marshaller;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+
+    @Setup
+    public void setUp() throws Exception {
+        switch (this.entity) {
+            case "cabbie":
+                Cabbie cabbie = new Cabbie();
+                cabbie.register();
+                this.object = cabbie;
+                break;
+            case "passenger":
+                Passenger passenger = new Passenger();
+                passenger.register();
+                this.object = passenger;
+                break;
+            case "vehicle":
+                Vehicle vehicle = new Vehicle("cabbieId");
+                vehicle.registerVehicle();
+                this.object = vehicle;
+                break;
+            case "ride":
+                Ride ride = new Ride("passengerId");
+                ride.requestRide("Shopping", "Estação de Trem");
+                this.object = ride;
+                break;
+            default:
+                this.object = new RidePayment("rideId", LocalDateTime.of(2024, 1, 1, 10, 0), 5.24f, "Pix");
+        }
+        this.marshaller = JAXBContext.newInstance(this.object.getClass()).createMarshaller();
+    }
+
+    @Benchmark
+    public int marshal() throws Exception {
+        this.out.reset();
+        this.marshaller.marshal(this.object, this.out);
+        return this.out.size();
+    }
+}
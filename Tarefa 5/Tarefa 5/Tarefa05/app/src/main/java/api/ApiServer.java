@@ -0,0 +1,306 @@
+package api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Passenger;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import databaseManager.Database;
+import databaseManager.RideHistoryIndex;
+import exceptions.CabbieManagerException;
+import exceptions.InvalidPaymentMethodException;
+import exceptions.VersionConflictException;
+import logging.Log;
+import logging.Logger;
+import service.CabbieManagerService;
+
+/**
+ * Embedded HTTP/JSON API of the ride workflow, bound to the loopback
+ * interface. Every exchange is handled on its own virtual thread.
+ *
+ * Parameters go in the query string or in a form-encoded body:
+ * <ul>
+ * <li>{@code POST /passengers} and {@code POST /cabbies} register a new
+ * passenger or cabbie with generated information</li>
+ * <li>{@code GET /cabbies/{id}} returns a cabbie</li>
+ * <li>{@code POST /rides?passengerId&pickup&drop} requests a ride</li>
+ * <li>{@code GET /rides/{id}} returns a ride and its status</li>
+ * <li>{@code POST /rides/{id}/accept?cabbieId&vehicleId},
+ * {@code POST /rides/{id}/start}, {@code POST /rides/{id}/complete} and
+ * {@code POST /rides/{id}/pay?method} move the ride forward</li>
+ * <li>{@code GET /passengers/{id}/rides?from&to} and
+ * {@code GET /cabbies/{id}/rides?from&to} return the ride history ordered by
+ * start time, optionally only the rides started from {@code from} (inclusive)
+ * to {@code to} (exclusive), given as ISO date-times</li>
+ * </ul>
+ *
+ * Errors are answered with {@code {"error": "..."}}: 400 for invalid input,
+ * 404 for unknown paths or ids and 409 for an operation that does not fit the
+ * state of the ride.
+ */
+public class ApiServer implements AutoCloseable {
+
+    private static final Logger LOG = Log.getLogger(ApiServer.class);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final CabbieManagerService service;
+    private final Database database;
+    private final RideHistoryIndex history;
+
+    private ApiServer(HttpServer server, ExecutorService executor, CabbieManagerService service,
+            Database database) {
+        this.server = server;
+        this.executor = executor;
+        this.service = service;
+        this.database = database;
+        this.history = RideHistoryIndex.attach(database);
+    }
+
+    /**
+     * Starts the API.
+     *
+     * @param port     the local port, or 0 to pick a free one
+     * @param service  runs the ride operations
+     * @param database the database of the service, used for the queries
+     * @return the running server
+     * @throws IOException if the port cannot be bound
+     */
+    public static ApiServer start(int port, CabbieManagerService service, Database database) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        ApiServer api = new ApiServer(server, executor, service, database);
+        server.createContext("/", api::handle);
+        server.setExecutor(executor);
+        server.start();
+        return api;
+    }
+
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.close();
+        this.database.removeChangeListener(this.history);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                this.route(exchange);
+            } catch (ExecutionException e) {
+                this.fail(exchange, e.getCause());
+            } catch (IllegalStateException | IllegalArgumentException | CabbieManagerException e) {
+                this.fail(exchange, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.error(exchange, 503, "Interrupted");
+            } catch (RuntimeException e) {
+                // Qualquer outro erro vira 500, em vez de derrubar a conexão
+                this.fail(exchange, e);
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange)
+            throws IOException, ExecutionException, InterruptedException, CabbieManagerException {
+        String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+        boolean post = "POST".equals(exchange.getRequestMethod());
+        boolean get = "GET".equals(exchange.getRequestMethod());
+        if (!post && !get) {
+            this.error(exchange, 405, "Method not allowed");
+            return;
+        }
+        Map<String, String> params = params(exchange);
+
+        switch (path[0]) {
+            case "passengers":
+                if (post && path.length == 1) {
+                    Passenger passenger = new Passenger();
+                    passenger.register();
+                    this.database.insert(passenger);
+                    this.respond(exchange, 201, json -> json.beginObject()
+                            .name("passengerId").value(passenger.getPassengerId())
+                            .name("name").value(passenger.getName())
+                            .endObject());
+                    return;
+                }
+                if (get && path.length == 3 && path[2].equals("rides")) {
+                    String passengerId = path[1];
+                    this.history(exchange, this.history.ridesOfPassenger(passengerId, dateTime(params, "from"),
+                            dateTime(params, "to")));
+                    return;
+                }
+                break;
+            case "cabbies":
+                if (post && path.length == 1) {
+                    Cabbie cabbie = new Cabbie();
+                    cabbie.register();
+                    this.database.insert(cabbie);
+                    this.respond(exchange, 201, json -> json.value(cabbie));
+                    return;
+                }
+                if (get && path.length == 2) {
+                    Cabbie cabbie = this.database.findCabbie(path[1]);
+                    if (cabbie != null) {
+                        this.respond(exchange, 200, json -> json.value(cabbie));
+                        return;
+                    }
+                }
+                if (get && path.length == 3 && path[2].equals("rides")) {
+                    String cabbieId = path[1];
+                    this.history(exchange, this.history.ridesOfCabbie(cabbieId, dateTime(params, "from"),
+                            dateTime(params, "to")));
+                    return;
+                }
+                break;
+            case "rides":
+                if (post && path.length == 1) {
+                    Ride ride = this.service.requestRide(required(params, "passengerId"), required(params, "pickup"),
+                            required(params, "drop")).get();
+                    this.respond(exchange, 201, json -> json.value(ride));
+                    return;
+                }
+                if (get && path.length == 2) {
+                    Ride ride = this.database.findRide(path[1]);
+                    if (ride != null) {
+                        this.respond(exchange, 200, json -> json.value(ride));
+                        return;
+                    }
+                }
+                if (post && path.length == 3) {
+                    this.operation(exchange, path[1], path[2], params);
+                    return;
+                }
+                break;
+            default:
+        }
+        this.error(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+    }
+
+    private void operation(HttpExchange exchange, String rideId, String operation, Map<String, String> params)
+            throws IOException, ExecutionException, InterruptedException {
+        Ride ride;
+        switch (operation) {
+            case "accept":
+                ride = this.service.acceptRide(rideId, required(params, "cabbieId"), required(params, "vehicleId"))
+                        .get();
+                break;
+            case "start":
+                ride = this.service.startRide(rideId).get();
+                break;
+            case "complete":
+                ride = this.service.completeRide(rideId).get();
+                break;
+            case "pay":
+                RidePayment payment = this.service.pay(rideId, required(params, "method")).get();
+                this.respond(exchange, 201, json -> json.value(payment));
+                return;
+            default:
+                this.error(exchange, 404, "Unknown operation: " + operation);
+                return;
+        }
+        this.respond(exchange, 200, json -> json.value(ride));
+    }
+
+    private void history(HttpExchange exchange, List<Ride> rides) throws IOException {
+        this.respond(exchange, 200, json -> {
+            json.beginArray();
+            for (Ride ride : rides) {
+                json.value(ride);
+            }
+            json.endArray();
+        });
+    }
+
+    private void fail(HttpExchange exchange, Throwable cause) throws IOException {
+        if (cause instanceof IllegalStateException || cause instanceof VersionConflictException) {
+            this.error(exchange, 409, cause.getMessage());
+        } else if (cause instanceof IllegalArgumentException || cause instanceof CabbieManagerException
+                || cause instanceof InvalidPaymentMethodException) {
+            this.error(exchange, 400, cause.getMessage());
+        } else {
+            LOG.error(() -> "Erro ao atender " + exchange.getRequestURI(), cause);
+            this.error(exchange, 500, "Internal error");
+        }
+    }
+
+    private void error(HttpExchange exchange, int status, String message) throws IOException {
+        this.respond(exchange, status, json -> json.beginObject().name("error").value(message).endObject());
+    }
+
+    // Envia a resposta em partes, escrevendo o JSON direto no corpo
+    private void respond(HttpExchange exchange, int status, Body body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        try (JsonWriter json = new JsonWriter(exchange.getResponseBody())) {
+            body.write(json);
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static LocalDateTime dateTime(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date-time for " + name + ": " + value);
+        }
+    }
+
+    private static Map<String, String> params(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parse(exchange.getRequestURI().getRawQuery(), params);
+        try (InputStream in = exchange.getRequestBody()) {
+            parse(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parse(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+}
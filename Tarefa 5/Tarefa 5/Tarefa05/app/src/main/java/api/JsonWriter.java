@@ -0,0 +1,211 @@
+package api;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+
+/**
+ * Streaming JSON encoder. Values are written straight to the underlying
+ * stream as they are given, so a response never has to be built in memory
+ * first.
+ *
+ * The writer only checks where commas go; it is up to the caller to open and
+ * close objects and arrays in the right order.
+ */
+public class JsonWriter implements Closeable {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    // Se o próximo valor do objeto ou lista atual precisa de vírgula antes
+    private boolean comma;
+
+    public JsonWriter(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        this.separate();
+        this.out.write('{');
+        this.comma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        this.out.write('}');
+        this.comma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        this.separate();
+        this.out.write('[');
+        this.comma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        this.out.write(']');
+        this.comma = true;
+        return this;
+    }
+
+    /**
+     * Writes the name of the next member of the current object.
+     *
+     * @param name the member name
+     * @return this writer
+     * @throws IOException if the stream fails
+     */
+    public JsonWriter name(String name) throws IOException {
+        this.separate();
+        this.string(name);
+        this.out.write(':');
+        this.comma = false;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        this.separate();
+        if (value == null) {
+            this.out.write("null");
+        } else {
+            this.string(value);
+        }
+        this.comma = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        this.separate();
+        this.out.write(Long.toString(value));
+        this.comma = true;
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        this.separate();
+        // JSON não tem NaN nem infinito
+        this.out.write(Double.isFinite(value) ? Double.toString(value) : "null");
+        this.comma = true;
+        return this;
+    }
+
+    // Sem alargar para double, que escreveria 11.31f como 11.3100004196167
+    public JsonWriter value(float value) throws IOException {
+        this.separate();
+        this.out.write(Float.isFinite(value) ? Float.toString(value) : "null");
+        this.comma = true;
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        this.separate();
+        this.out.write(value ? "true" : "false");
+        this.comma = true;
+        return this;
+    }
+
+    public JsonWriter value(LocalDateTime value) throws IOException {
+        return this.value(value == null ? null : value.toString());
+    }
+
+    public JsonWriter value(Ride ride) throws IOException {
+        return this.beginObject()
+                .name("rideId").value(ride.getRideId())
+                .name("passengerId").value(ride.getPassengerId())
+                .name("cabbieId").value(ride.getCabbieId())
+                .name("vehicleId").value(ride.getVehicleId())
+                .name("pickupLocation").value(ride.getPickLocation() == null ? null : ride.getPickLocation().getName())
+                .name("dropLocation").value(ride.getDropLocation() == null ? null : ride.getDropLocation().getName())
+                .name("startTime").value(ride.getStartTime())
+                .name("distance").value(ride.getDistance())
+                .name("status").value(ride.getStatus())
+                .endObject();
+    }
+
+    public JsonWriter value(Cabbie cabbie) throws IOException {
+        return this.beginObject()
+                .name("cabbieId").value(cabbie.getCabbieId())
+                .name("name").value(cabbie.getName())
+                .name("licenseNumber").value(cabbie.getLicenseNumber())
+                .name("rate").value(cabbie.getRate())
+                .name("isBusy").value(cabbie.getIsBusy())
+                .endObject();
+    }
+
+    public JsonWriter value(RidePayment payment) throws IOException {
+        return this.beginObject()
+                .name("paymentId").value(payment.getPaymentId())
+                .name("rideId").value(payment.getRideId())
+                .name("paymentMethod").value(payment.getPaymentMethod() == null ? null
+                        : payment.getPaymentMethod().getName())
+                .name("amountCents").value(payment.getAmountCents())
+                .name("amount").value(RidePayment.formatCents(payment.getAmountCents()))
+                .endObject();
+    }
+
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+
+    private void separate() throws IOException {
+        if (this.comma) {
+            this.out.write(',');
+        }
+    }
+
+    private void string(String value) throws IOException {
+        this.out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            this.out.write(value, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    this.out.write("\\\"");
+                    break;
+                case '\\':
+                    this.out.write("\\\\");
+                    break;
+                case '\n':
+                    this.out.write("\\n");
+                    break;
+                case '\r':
+                    this.out.write("\\r");
+                    break;
+                case '\t':
+                    this.out.write("\\t");
+                    break;
+                default:
+                    this.out.write("\\u00");
+                    this.out.write(HEX[c >> 4]);
+                    this.out.write(HEX[c & 0xF]);
+            }
+        }
+        this.out.write(value, start, value.length() - start);
+        this.out.write('"');
+    }
+}
@@ -0,0 +1,180 @@
+package api;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import cabbieManager.Location;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+/**
+ * Load generator for {@link ApiServer}. Each client is a virtual thread that
+ * registers a passenger and a cabbie and then takes its rides through the
+ * whole workflow, one request at a time, measuring every request.
+ *
+ * Run it with {@code LoadTestClient <port> [clients] [rides per client]}
+ * against a server started with {@code Main api <port>}.
+ */
+public class LoadTestClient {
+
+    private static final LatencyHistogram LATENCY = Metrics.histogram("cabbie_loadtest_request_seconds",
+            "Latência das requisições do teste de carga da API");
+
+    private final URI base;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public LoadTestClient(int port) {
+        this.base = URI.create("http://localhost:" + port);
+    }
+
+    /**
+     * Result of a load test run.
+     */
+    public static class Result {
+        private final long requests;
+        private final long errors;
+        private final long elapsedNanos;
+        private final LatencyHistogram.Snapshot latency;
+
+        Result(long requests, long errors, long elapsedNanos, LatencyHistogram.Snapshot latency) {
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+        }
+
+        public long getRequests() {
+            return this.requests;
+        }
+
+        public long getErrors() {
+            return this.errors;
+        }
+
+        public long getElapsedNanos() {
+            return this.elapsedNanos;
+        }
+
+        public double getRequestsPerSecond() {
+            return this.elapsedNanos == 0 ? 0 : this.requests * 1e9 / this.elapsedNanos;
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return this.latency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Requisições: %d (%d erros) em %.2fs, %.0f req/s%nLatência: %s", this.requests,
+                    this.errors, this.elapsedNanos / 1e9, this.getRequestsPerSecond(), this.latency);
+        }
+    }
+
+    /**
+     * Runs the clients until each one has taken its rides.
+     *
+     * @param clients        the number of concurrent clients
+     * @param ridesPerClient the number of rides of each client
+     * @return the result
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public Result run(int clients, int ridesPerClient) throws InterruptedException {
+        this.requests.set(0);
+        this.errors.set(0);
+        LATENCY.snapshotAndReset();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                int index = i;
+                tasks.add(executor.submit(() -> {
+                    this.client(index, ridesPerClient);
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    this.errors.incrementAndGet();
+                }
+            }
+        }
+        return new Result(this.requests.get(), this.errors.get(), System.nanoTime() - start, LATENCY.snapshot());
+    }
+
+    private void client(int index, int rides) throws IOException, InterruptedException {
+        String passengerId = field(this.post("/passengers"), "passengerId");
+        String cabbieId = field(this.post("/cabbies"), "cabbieId");
+        if (passengerId == null || cabbieId == null) {
+            return;
+        }
+
+        Location[] locations = Location.values();
+        for (int i = 0; i < rides; i++) {
+            Location pickup = locations[(index + i) % locations.length];
+            Location drop = locations[(index + i + 1) % locations.length];
+            String rideId = field(this.post("/rides?passengerId=" + passengerId + "&pickup="
+                    + encode(pickup.getName()) + "&drop=" + encode(drop.getName())), "rideId");
+            if (rideId == null) {
+                continue;
+            }
+            this.post("/rides/" + rideId + "/accept?cabbieId=" + cabbieId + "&vehicleId=veiculo-" + cabbieId);
+            this.post("/rides/" + rideId + "/start");
+            this.post("/rides/" + rideId + "/complete");
+            this.post("/rides/" + rideId + "/pay?method=Pix");
+        }
+    }
+
+    // Retorna o corpo da resposta, ou null se a requisição falhou
+    private String post(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(this.base.resolve(path))
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
+        LATENCY.recordSince(start);
+        this.requests.incrementAndGet();
+        if (response.statusCode() >= 300) {
+            this.errors.incrementAndGet();
+            return null;
+        }
+        return response.body();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String field(String json, String name) {
+        if (json == null) {
+            return null;
+        }
+        Matcher matcher = Pattern.compile("\"" + name + "\":\"([^\"]*)\"").matcher(json);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(args[0]);
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int rides = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        System.out.println(new LoadTestClient(port).run(clients, rides));
+    }
+}
@@ -1,22 +1,54 @@
 package cabbieManager;
 
+import codegen.GenerateSerializer;
 import com.google.common.base.Objects;
 import exceptions.InvalidPhoneNumberException;
+import logging.Log;
+import logging.Logger;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import utils.CabbieInfoGenerator;
+import utils.CompactId;
 
+@GenerateSerializer
 @XmlRootElement(name = "cabbie")
-public class Cabbie extends Person {
-    private String cabbieId;
+public class Cabbie extends Person implements Versioned {
+    private static final Logger LOG = Log.getLogger(Cabbie.class);
+
+    // Id guardado como dois longs quando é um UUID (ver CompactId)
+    private long cabbieIdHigh;
+    private long cabbieIdLow;
+    private String cabbieIdText;
     private float rate;
     private String licenseNumber;
     private boolean isBusy;
     private String name;
+    private long version;
 
     public Cabbie() {
     }
 
+    /**
+     * Copies a cabbie, with its version, so it can be changed and passed to
+     * {@link databaseManager.Database#update(Object)} without touching the
+     * stored instance.
+     *
+     * @param other the cabbie to copy
+     */
+    public Cabbie(Cabbie other) {
+        super.name = ((Person) other).name;
+        this.email = other.email;
+        this.phone = other.phone;
+        this.cabbieIdHigh = other.cabbieIdHigh;
+        this.cabbieIdLow = other.cabbieIdLow;
+        this.cabbieIdText = other.cabbieIdText;
+        this.rate = other.rate;
+        this.licenseNumber = other.licenseNumber;
+        this.isBusy = other.isBusy;
+        this.name = other.name;
+        this.version = other.version;
+    }
+
     /**
      * Registers a cabbie by generating random information.
      * This method assigns a random name, email, phone number, cabbie ID, rate and
@@ -24,15 +56,23 @@ public class Cabbie extends Person {
      */
     @Override
     public void register() {
-        CabbieInfoGenerator cab = new CabbieInfoGenerator();
-        this.name = cab.getName();
+        this.register(new CabbieInfoGenerator());
+    }
+
+    /**
+     * Registers a cabbie with the information of the given generator.
+     *
+     * @param cab the generator holding the cabbie information
+     */
+    public void register(CabbieInfoGenerator cab) {
+        this.setName(cab.getName());
         this.email = cab.getEmail();
         this.phone = cab.getPhone();
-        this.cabbieId = cab.getCabbieId();
+        this.setCabbieId(cab.getCabbieId());
         this.rate = cab.getRate();
-        this.licenseNumber = cab.getLicenseNumber();
+        this.setLicenseNumber(cab.getLicenseNumber());
         this.isBusy = false;
-        System.out.println("Pessoa motorista " + this.cabbieId + " (" + this.name + ") criada com sucesso");
+        LOG.debug(() -> "Pessoa motorista " + this.getCabbieId() + " (" + this.name + ") criada com sucesso");
     }
 
     /**
@@ -61,7 +101,7 @@ public class Cabbie extends Person {
 
         switch (field) {
             case "name":
-                this.name = newValue;
+                this.setName(newValue);
                 break;
             case "email":
                 this.email = newValue;
@@ -70,13 +110,13 @@ public class Cabbie extends Person {
                 this.setPhone(newValue); // Valida o telefone
                 break;
             case "cabbieId":
-                this.cabbieId = newValue;
+                this.setCabbieId(newValue);
                 break;
             case "rate":
                 this.rate = Float.parseFloat(newValue); // Converte para float
                 break;
             case "licenseNumber":
-                this.licenseNumber = newValue;
+                this.setLicenseNumber(newValue);
                 break;
             case "isBusy":
                 this.isBusy = Boolean.parseBoolean(newValue); // Converte para boolean
@@ -87,7 +127,7 @@ public class Cabbie extends Person {
         }
 
         if (validField) {
-            System.out.println("Campo " + field + " foi atualizado com sucesso!");
+            LOG.debug(() -> "Campo " + field + " foi atualizado com sucesso!");
         }
     }
 
@@ -98,11 +138,23 @@ public class Cabbie extends Person {
      */
     @XmlElement(name = "cabbieId")
     public String getCabbieId() {
-        return this.cabbieId;
+        return CompactId.toString(this.cabbieIdHigh, this.cabbieIdLow, this.cabbieIdText);
     }
 
     public void setCabbieId(String cabbieId) {
-        this.cabbieId = cabbieId;
+        this.cabbieIdHigh = CompactId.high(cabbieId);
+        this.cabbieIdLow = CompactId.low(cabbieId);
+        this.cabbieIdText = CompactId.text(cabbieId);
+    }
+
+    /**
+     * Compares the id of the cabbie without building its string form.
+     *
+     * @param cabbieId the id to compare with
+     * @return whether the cabbie has this id
+     */
+    public boolean hasCabbieId(String cabbieId) {
+        return CompactId.matches(this.cabbieIdHigh, this.cabbieIdLow, this.cabbieIdText, cabbieId);
     }
 
     @XmlElement(name = "name")
@@ -155,6 +207,16 @@ public class Cabbie extends Person {
         this.phone = phone;
     }
 
+    @Override
+    public long getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Returns a string representation of the object.
      *
@@ -164,7 +226,7 @@ public class Cabbie extends Person {
      */
     @Override
     public String toString() {
-        return "Cabbie: " + this.cabbieId + " (" + this.name + ")";
+        return "Cabbie: " + this.getCabbieId() + " (" + this.name + ")";
     }
 
     @Override
@@ -174,6 +236,7 @@ public class Cabbie extends Person {
         }
 
         Cabbie other = (Cabbie) o;
-        return Objects.equal(this.cabbieId, other.getCabbieId());
+        return this.cabbieIdHigh == other.cabbieIdHigh && this.cabbieIdLow == other.cabbieIdLow
+                && Objects.equal(this.cabbieIdText, other.cabbieIdText);
     }
 }
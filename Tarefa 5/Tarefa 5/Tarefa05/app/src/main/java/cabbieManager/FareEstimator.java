@@ -0,0 +1,107 @@
+package cabbieManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fare estimates in bulk, without building {@link Ride} or {@link RidePayment}
+ * objects.
+ */
+public class FareEstimator {
+
+    /** Tamanho do bloco abaixo do qual o reprecificador não divide mais a tarefa. */
+    static final int REPRICE_THRESHOLD = 4096;
+
+    /**
+     * A tariff, as a function of distance, period and payment option. Used to run
+     * what-if analysis over historical payments.
+     */
+    @FunctionalInterface
+    public interface Pricer {
+        long priceCents(float distance, boolean night, PaymentOption option);
+    }
+
+    private FareEstimator() {
+    }
+
+    /**
+     * Returns the fare from a pickup point to every known destination.
+     *
+     * @param pickup        the pickup location
+     * @param time          the time the ride would start
+     * @param paymentOption the payment option
+     * @return the fares in cents, indexed by {@link Location#ordinal()}; the entry
+     *         for the pickup itself and for unreachable destinations is
+     *         {@link FareTable#NO_ROUTE}
+     */
+    public static long[] quoteAll(Location pickup, LocalDateTime time, PaymentOption paymentOption) {
+        FareTable table = FareTable.getDefault();
+        boolean night = FareTable.isNight(time);
+
+        Location[] destinations = Location.values();
+        long[] quotes = new long[destinations.length];
+        for (int i = 0; i < destinations.length; i++) {
+            quotes[i] = destinations[i] == pickup ? FareTable.NO_ROUTE
+                    : table.quote(pickup, destinations[i], night, paymentOption);
+        }
+        return quotes;
+    }
+
+    /**
+     * Re-prices a collection of payments with the current tariff.
+     *
+     * @param payments the payments to re-price
+     * @return the new fares in cents, in the same order as {@code payments}
+     */
+    public static long[] repriceAll(List<RidePayment> payments) {
+        return repriceAll(payments, FareTable::priceCents);
+    }
+
+    /**
+     * Re-prices a collection of payments with the given tariff, splitting the work
+     * across the common fork/join pool.
+     *
+     * @param payments the payments to re-price; must support fast random access
+     * @param pricer   the tariff to apply
+     * @return the new fares in cents, in the same order as {@code payments}
+     */
+    public static long[] repriceAll(List<RidePayment> payments, Pricer pricer) {
+        long[] result = new long[payments.size()];
+        ForkJoinPool.commonPool().invoke(new RepriceTask(payments, pricer, result, 0, result.length));
+        return result;
+    }
+
+    private static class RepriceTask extends RecursiveAction {
+        private final List<RidePayment> payments;
+        private final Pricer pricer;
+        private final long[] result;
+        private final int from;
+        private final int to;
+
+        RepriceTask(List<RidePayment> payments, Pricer pricer, long[] result, int from, int to) {
+            this.payments = payments;
+            this.pricer = pricer;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= REPRICE_THRESHOLD) {
+                for (int i = this.from; i < this.to; i++) {
+                    RidePayment payment = this.payments.get(i);
+                    this.result[i] = this.pricer.priceCents(payment.getRideDistance(),
+                            FareTable.isNight(payment.getRideStartTime()), payment.getPaymentMethod());
+                }
+                return;
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new RepriceTask(this.payments, this.pricer, this.result, this.from, middle),
+                    new RepriceTask(this.payments, this.pricer, this.result, middle, this.to));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package cabbieManager;
+
+import java.time.LocalDateTime;
+
+import routing.RoadGraph;
+
+/**
+ * Tariff compiled into flat primitive tables.
+ *
+ * Prices are kept in cents. Prices per distance band are indexed by
+ * {@code night * BANDS + band}, and the final fare for every pickup/drop pair,
+ * period and payment option is precomputed from the road graph, so quoting a
+ * ride is one array read. Neither
+ * {@link #priceCents(float, boolean, PaymentOption)} nor
+ * {@link #quote(Location, Location, boolean, PaymentOption)} allocates.
+ */
+public class FareTable {
+
+    /** Largura de cada faixa de distância, em km. */
+    public static final float BAND_WIDTH_KM = 5f;
+
+    /**
+     * Number of distance bands: five 5 km bands up to 25 km plus an overflow band
+     * for longer rides, which keeps the rates of the last regular band.
+     */
+    public static final int BANDS = 6;
+
+    // Índice 0 = diurno, 1 = noturno; a última faixa é a de excedente (> 25 km)
+    private static final long[] INITIAL_PRICE_CENTS = {
+            500, 400, 350, 300, 250, 250,
+            600, 500, 450, 400, 350, 350 };
+    private static final long[] PRICE_PER_KM_CENTS = {
+            200, 250, 300, 400, 350, 350,
+            250, 300, 350, 450, 400, 400 };
+
+    /** Valor devolvido por {@link #quote} quando não há rota entre os locais. */
+    public static final long NO_ROUTE = -1;
+
+    private static final long NIGHT_END = 6L * 3600 * 1_000_000_000L;
+    private static final long NIGHT_START = 18L * 3600 * 1_000_000_000L;
+
+    private static final Location[] LOCATIONS = Location.values();
+    private static final PaymentOption[] OPTIONS = PaymentOption.values();
+
+    private static volatile FareTable defaultTable;
+
+    private final RoadGraph graph;
+    private final int graphVersion;
+    private final long[] quotes;
+
+    private FareTable(RoadGraph graph) {
+        this.graph = graph;
+        this.graphVersion = graph.getVersion();
+
+        int n = LOCATIONS.length;
+        this.quotes = new long[n * n * 2 * OPTIONS.length];
+        for (Location pickup : LOCATIONS) {
+            for (Location drop : LOCATIONS) {
+                float distance = graph.distance(pickup, drop);
+                for (int night = 0; night < 2; night++) {
+                    for (PaymentOption option : OPTIONS) {
+                        this.quotes[quoteIndex(pickup, drop, night == 1, option)] = Float.isInfinite(distance)
+                                ? NO_ROUTE
+                                : priceCents(distance, night == 1, option);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the table compiled for the default {@link RoadGraph}, recompiling
+     * it when the graph was replaced or its roads changed.
+     *
+     * @return the current fare table
+     */
+    public static FareTable getDefault() {
+        RoadGraph graph = RoadGraph.getDefault();
+        FareTable table = defaultTable;
+        if (table == null || table.graph != graph || table.graphVersion != graph.getVersion()) {
+            table = new FareTable(graph);
+            defaultTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * Compiles a fare table for the given road graph.
+     *
+     * @param graph the road graph used for the pair quotes
+     * @return the compiled table
+     */
+    public static FareTable compile(RoadGraph graph) {
+        return new FareTable(graph);
+    }
+
+    /**
+     * Returns the fare of a ride in cents.
+     *
+     * The distance is taken to the nearest 10 m, so the whole calculation runs in
+     * integer cents and is rounded half up only at the per-km charge and at the
+     * payment fee.
+     *
+     * @param distance the ride distance in km
+     * @param night    whether the ride started at night
+     * @param option   the payment option
+     * @return the fare in cents, including the payment option fee
+     */
+    public static long priceCents(float distance, boolean night, PaymentOption option) {
+        int index = (night ? BANDS : 0) + band(distance);
+        long hundredthsOfKm = Math.round(distance * 100.0);
+        long distanceCents = (hundredthsOfKm * PRICE_PER_KM_CENTS[index] + 50) / 100;
+        return option.calculatePaymentFee(INITIAL_PRICE_CENTS[index] + distanceCents);
+    }
+
+    /**
+     * Returns the precompiled fare between two locations.
+     *
+     * @param pickup the pickup location
+     * @param drop   the drop location
+     * @param night  whether the ride starts at night
+     * @param option the payment option
+     * @return the fare in cents, or {@link #NO_ROUTE} if there is no route
+     */
+    public long quote(Location pickup, Location drop, boolean night, PaymentOption option) {
+        return this.quotes[quoteIndex(pickup, drop, night, option)];
+    }
+
+    /**
+     * Returns the distance band of a ride: 0 for up to 5 km, 1 for up to 10 km
+     * and so on, with every ride longer than 25 km in the overflow band.
+     *
+     * @param distance the ride distance in km
+     * @return the band index, between 0 and {@code BANDS - 1}
+     */
+    public static int band(float distance) {
+        if (!(distance > 0)) {
+            return 0;
+        }
+        double band = Math.ceil(distance / (double) BAND_WIDTH_KM) - 1;
+        return band >= BANDS - 1 ? BANDS - 1 : (int) band;
+    }
+
+    /**
+     * Returns whether a ride started at night, that is before 06:00 or after
+     * 18:00.
+     *
+     * @param startTime the start time of the ride
+     * @return true if the night tariff applies
+     */
+    public static boolean isNight(LocalDateTime startTime) {
+        long nanoOfDay = startTime.toLocalTime().toNanoOfDay();
+        return nanoOfDay < NIGHT_END || nanoOfDay > NIGHT_START;
+    }
+
+    private static int quoteIndex(Location pickup, Location drop, boolean night, PaymentOption option) {
+        int pair = pickup.ordinal() * LOCATIONS.length + drop.ordinal();
+        return ((pair << 1) + (night ? 1 : 0)) * OPTIONS.length + option.ordinal();
+    }
+}
@@ -1,5 +1,8 @@
 package cabbieManager;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.xml.bind.annotation.XmlEnum;
 import javax.xml.bind.annotation.XmlType;
 
@@ -18,6 +21,14 @@ public enum Location {
     BIBLIOTECA(3, 19, "Biblioteca"),
     ESTADIO(22, 25, "Estadio");
 
+    private static final Map<String, Location> BY_NAME = new HashMap<>();
+
+    static {
+        for (Location location : Location.values()) {
+            BY_NAME.put(location.name, location);
+        }
+    }
+
     private final int x;
     private final int y;
     private final String name;
@@ -35,12 +46,11 @@ public enum Location {
      * @return the Location enum value of the given name
      */
     public static Location valueOfName(String name) throws IllegalArgumentException {
-        for (Location location : Location.values()) {
-            if (location.name.equals(name)) {
-                return location;
-            }
+        Location location = name == null ? null : BY_NAME.get(name);
+        if (location == null) {
+            throw new IllegalArgumentException("Invalid location name: " + name);
         }
-        throw new IllegalArgumentException("Invalid location name: " + name);
+        return location;
     }
     
     
@@ -1,16 +1,50 @@
 //DUPLA: Vitor Hugo Guilherme Cirilo  RA:251724     Gabriel Jeronimo da Silva  RA:247112
 
 package cabbieManager;
-//import java.io.File;
 
+import java.io.File;
+
+import api.ApiServer;
+import cdc.ChangeLog;
 import databaseManager.Database;
+import logging.Level;
+import logging.Log;
+import metrics.MetricsServer;
+import service.CabbieManagerService;
+import settlement.SettlementPipeline;
+import settlement.StubPaymentGateway;
+import simulation.Simulation;
+import simulation.SimulationConfig;
+import simulation.SimulationReport;
 
 public class Main {
     public static void main(String[] args) throws Exception {
+        // simulate [passageiros] [motoristas] [corridas por passageiro] [virtual|eventos]
+        if (args.length > 0 && args[0].equals("simulate")) {
+            simulate(args);
+            return;
+        }
+        // api [porta]
+        if (args.length > 0 && args[0].equals("api")) {
+            serve(args);
+            return;
+        }
+
         // Aqui você deve realizar a simulação do funcionamento do sistema.
         // ----------------------------------------------------------------
         // File file = new File("Tarefa05 - Feita\\Tarefa05\\app\\data\\database.xml");
+        // A simulação mostra as mensagens de depuração, a não ser que -Dlog.level seja informado
+        if (System.getProperty("log.level") == null) {
+            Log.setLevel(Level.DEBUG);
+        }
+
         Database db = new Database();
+        db.registerMetrics();
+        SettlementPipeline settlement = new SettlementPipeline(new StubPaymentGateway());
+
+        // Expõe as métricas em http://localhost:<porta>/metrics quando -Dmetrics.port é informado
+        String metricsPort = System.getProperty("metrics.port");
+        MetricsServer metricsServer = metricsPort == null ? null : MetricsServer.start(Integer.parseInt(metricsPort));
 
         // Create Instances
 
@@ -22,6 +56,7 @@ public class Main {
 
         Vehicle v = new Vehicle(cab.getCabbieId());
         v.registerVehicle();
+        Log.flush();
         System.out.println("AQRUI:" + v);
 
         // Save Instances into the XML database
@@ -58,6 +93,7 @@ public class Main {
         RidePayment payment = new RidePayment(ride.getRideId(), ride.getStartTime(), ride.getRideDistance(),
                 "Cartão de Crédito");
         payment.processPayment();
+        settlement.submit(payment);
 
         db.insert(payment);
 
@@ -86,6 +122,7 @@ public class Main {
         RidePayment payment2 = new RidePayment(ride_2.getRideId(), ride_2.getStartTime(), ride_2.getRideDistance(),
                 "Pix");
         payment2.processPayment();
+        settlement.submit(payment2);
 
         db.insert(payment2);
 
@@ -96,11 +133,14 @@ public class Main {
         db.update(ride);
         db.update(cab);
 
+        Log.flush();
         System.out.println("-----------------------------------");
         System.out.println("Fechando e reabrindo banco de dados\n");
 
         db = new Database(true);
+        db.registerMetrics();
 
+        Log.flush();
         System.out.println("Printando dados:");
         System.out.println(db.getCabbies());
         System.out.println(db.getRides());
@@ -125,9 +165,10 @@ public class Main {
         db.update(ride_3);
 
         // Payment
-        RidePayment payment3 = new RidePayment(ride_2.getRideId(), ride_2.getStartTime(), ride_2.getRideDistance(),
+        RidePayment payment3 = new RidePayment(ride_3.getRideId(), ride_3.getStartTime(), ride_3.getRideDistance(),
                 "Pix");
-        payment2.processPayment();
+        payment3.processPayment();
+        settlement.submit(payment3);
 
         db.insert(payment3);
 
@@ -137,5 +178,69 @@ public class Main {
 
         db.update(ride);
         db.update(cab);
+
+        settlement.close();
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+        Log.flush();
+        System.out.println("Liquidação dos pagamentos: " + settlement.getStatus(payment.getPaymentId()) + ", "
+                + settlement.getStatus(payment2.getPaymentId()) + ", " + settlement.getStatus(payment3.getPaymentId()));
+    }
+
+    /**
+     * Runs the city simulation instead of the scripted walk-through and prints
+     * its report. The data goes to {@code data/simulation.xml}, so the main
+     * database is left untouched.
+     *
+     * @param args "simulate", then optionally the number of passengers, of
+     *             cabbies, of rides per passenger and the mode ("virtual" or
+     *             "eventos")
+     */
+    private static void simulate(String[] args) throws Exception {
+        SimulationConfig config = new SimulationConfig();
+        if (args.length > 1) {
+            config.setPassengers(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            config.setCabbies(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            config.setRidesPerPassenger(Integer.parseInt(args[3]));
+        }
+        if (args.length > 4 && args[4].equals("eventos")) {
+            config.setMode(SimulationConfig.Mode.DISCRETE_EVENT);
+        }
+
+        Database db = new Database(new File("Tarefa05/app/data/simulation.xml"), false);
+        SimulationReport report = new Simulation(config, db).run();
+
+        Log.flush();
+        System.out.println(report);
+    }
+
+    /**
+     * Serves the HTTP/JSON API of the rides until the process is stopped.
+     * With {@code -Dcdc.file=<path>} every change is also appended to a
+     * {@link ChangeLog} that a {@link cdc.ReadReplica} can follow.
+     *
+     * @param args "api", then optionally the port (8080 by default)
+     */
+    private static void serve(String[] args) throws Exception {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        Database db = new Database(true);
+        db.registerMetrics();
+        // Publica as alterações em um log de CDC quando -Dcdc.file é informado, para uma ReadReplica seguir
+        String cdcFile = System.getProperty("cdc.file");
+        if (cdcFile != null) {
+            db.addChangeListener(new ChangeLog(new File(cdcFile)));
+        }
+        SettlementPipeline settlement = new SettlementPipeline(new StubPaymentGateway());
+        CabbieManagerService service = new CabbieManagerService(db, settlement);
+
+        ApiServer server = ApiServer.start(port, service, db);
+        Log.flush();
+        System.out.println("API em http://localhost:" + server.getPort() + "/rides");
+        Thread.currentThread().join();
     }
 }
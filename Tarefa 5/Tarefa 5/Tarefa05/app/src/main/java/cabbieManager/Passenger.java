@@ -3,16 +3,27 @@ package cabbieManager;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import codegen.GenerateSerializer;
 import com.google.common.base.Objects;
 
+import logging.Log;
+import logging.Logger;
+import utils.CompactId;
 import utils.PassengerInfoGenerator;
 
+@GenerateSerializer
 @XmlRootElement(name="passenger")
-public class Passenger extends Person{
-    private String passengerId;
+public class Passenger extends Person implements Versioned {
+    private static final Logger LOG = Log.getLogger(Passenger.class);
+
+    // Id guardado como dois longs quando é um UUID (ver CompactId)
+    private long passengerIdHigh;
+    private long passengerIdLow;
+    private String passengerIdText;
     private String email;
     private String name;
     private String phone;
+    private long version;
 
     public Passenger() {
     }
@@ -24,13 +35,20 @@ public class Passenger extends Person{
      */
     @Override
     public void register() {
+        this.register(new PassengerInfoGenerator());
+    }
 
-        PassengerInfoGenerator pass = new PassengerInfoGenerator();
-        this.email = pass.getEmail();
-        this.name = pass.getName();
-        this.phone = pass.getPhone();
-        this.passengerId = pass.getPassengerId();
-        System.out.println("Pessoa passageira " + this.passengerId + " (" + this.name + ") criada com sucesso");
+    /**
+     * Registers a passenger with the information of the given generator.
+     *
+     * @param pass the generator holding the passenger information
+     */
+    public void register(PassengerInfoGenerator pass) {
+        this.setEmail(pass.getEmail());
+        this.setName(pass.getName());
+        this.setPhone(pass.getPhone());
+        this.setPassengerId(pass.getPassengerId());
+        LOG.debug(() -> "Pessoa passageira " + this.getPassengerId() + " (" + this.name + ") criada com sucesso");
     
     }
 
@@ -57,24 +75,24 @@ public class Passenger extends Person{
 
         switch (field) {
             case "name":
-                this.name = newValue;
+                this.setName(newValue);
                 break;
             case "email":
-                this.email = newValue;
+                this.setEmail(newValue);
                 break;
             case "phone":
-                this.phone = newValue;
+                this.setPhone(newValue);
                 break;
             case "passengerId":
-                this.passengerId = newValue;
+                this.setPassengerId(newValue);
                 break;
             default:
-                System.out.println("Campo inválido");
+                LOG.warn(() -> "Campo inválido: " + field);
                 validField = false;       
         }
 
         if (validField) {
-            System.out.println("Campo " + field + " atualizado com sucesso!");
+            LOG.debug(() -> "Campo " + field + " atualizado com sucesso!");
         }
 
         return;
@@ -115,10 +133,32 @@ public class Passenger extends Person{
      */
     @XmlElement(name = "passengerId")
     public String getPassengerId() {
-        return this.passengerId;
+        return CompactId.toString(this.passengerIdHigh, this.passengerIdLow, this.passengerIdText);
     }
     public void setPassengerId(String passengerId){
-        this.passengerId = passengerId;
+        this.passengerIdHigh = CompactId.high(passengerId);
+        this.passengerIdLow = CompactId.low(passengerId);
+        this.passengerIdText = CompactId.text(passengerId);
+    }
+
+    /**
+     * Compares the id of the passenger without building its string form.
+     *
+     * @param passengerId the id to compare with
+     * @return whether the passenger has this id
+     */
+    public boolean hasPassengerId(String passengerId) {
+        return CompactId.matches(this.passengerIdHigh, this.passengerIdLow, this.passengerIdText, passengerId);
+    }
+
+    @Override
+    public long getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     /**
@@ -130,7 +170,7 @@ public class Passenger extends Person{
      */
     @Override
     public String toString() {
-        return "Passenger: " + this.email + this.name + this.phone + this.passengerId;
+        return "Passenger: " + this.email + this.name + this.phone + this.getPassengerId();
     }
 
     @Override
@@ -140,6 +180,7 @@ public class Passenger extends Person{
         }
         
         Passenger pas = (Passenger) o;
-        return Objects.equal(this.passengerId, pas.getPassengerId());
+        return this.passengerIdHigh == pas.passengerIdHigh && this.passengerIdLow == pas.passengerIdLow
+                && Objects.equal(this.passengerIdText, pas.passengerIdText);
     }
 }
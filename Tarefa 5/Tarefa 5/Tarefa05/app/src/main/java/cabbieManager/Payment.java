@@ -2,6 +2,7 @@ package cabbieManager;
 public interface Payment {
     
     public float calculateValue();
+    public long calculateValueCents();
     public void processPayment();
     
 }
@@ -2,18 +2,19 @@ package cabbieManager;
 
 public enum PaymentOption {
 
-    CREDIT_CARD("Cartão de Crédito", 1.06f),
-    CASH("Dinheiro", 1.0f),
-    DEBIT_CARD("Cartão de Débito", 1.04f),
-    VOUCHER("Voucher", 1.03f),
-    PIX("Pix", 1.01f);
+    CREDIT_CARD("Cartão de Crédito", 10600),
+    CASH("Dinheiro", 10000),
+    DEBIT_CARD("Cartão de Débito", 10400),
+    VOUCHER("Voucher", 10300),
+    PIX("Pix", 10100);
 
     private final String name;
-    private final float fee;
+    // Multiplicador da taxa em pontos-base (10000 = 1.0)
+    private final long feeBasisPoints;
 
-    PaymentOption(String name, float fee) {
+    PaymentOption(String name, long feeBasisPoints) {
         this.name = name;
-        this.fee = fee;
+        this.feeBasisPoints = feeBasisPoints;
     }
 
     /**
@@ -31,12 +32,21 @@ public enum PaymentOption {
     }
 
     /**
-     * Calculates the payment fee for a given value.
+     * Returns the name of the payment option, as accepted by
+     * {@link #valueOfName(String)}.
+     * @return The name of the payment option.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Applies the payment fee to a given value, rounding half up to the cent.
      *
-     * @param value The value to calculate the fee for.
-     * @return The calculated payment fee.
+     * @param cents The value to calculate the fee for, in cents.
+     * @return The value with the payment fee, in cents.
      */
-    float calculatePaymentFee(float value) {
-        return value * fee;
+    long calculatePaymentFee(long cents) {
+        return (cents * feeBasisPoints + 5000) / 10000;
     }
 }
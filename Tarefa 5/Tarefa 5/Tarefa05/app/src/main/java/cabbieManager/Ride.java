@@ -1,32 +1,58 @@
 package cabbieManager;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
+import codegen.GenerateSerializer;
 import com.google.common.base.Objects;
 
+import events.RideStatusEvent;
 import exceptions.InvalidLocationException;
 import exceptions.InvalidRideDistanceException;
 import exceptions.NullRideStartTimeException;
+import jdk.jfr.EventType;
+import logging.Log;
+import logging.Logger;
+import metrics.Metrics;
+import routing.LocationRegistry;
+import routing.NamedPoint;
+import routing.RoadGraph;
+import utils.CompactId;
+import utils.Ids;
+import utils.InternPool;
 import utils.LocalDateTimeAdapter;
 
+@GenerateSerializer
 @XmlRootElement(name = "ride")
-public class Ride {
-
-    private String rideId;
-    private String passengerId;
-    private String cabbieId;
-    private String vehicleId;
+public class Ride implements Versioned {
+
+    private static final Logger LOG = Log.getLogger(Ride.class);
+    // Consultado antes de criar o evento, para não alocar nada com o JFR desligado
+    private static final EventType STATUS_EVENT = EventType.getEventType(RideStatusEvent.class);
+
+    // Ids guardados como dois longs quando são UUIDs (ver CompactId)
+    private long rideIdHigh;
+    private long rideIdLow;
+    private String rideIdText;
+    private long passengerIdHigh;
+    private long passengerIdLow;
+    private String passengerIdText;
+    private long cabbieIdHigh;
+    private long cabbieIdLow;
+    private String cabbieIdText;
+    private long vehicleIdHigh;
+    private long vehicleIdLow;
+    private String vehicleIdText;
     private String status;
 
     private Location pickupLocation;
     private Location dropLocation;
     private LocalDateTime startTime;
     private float distance;
+    private long version;
 
     // Construtor sem parâmetros
     public Ride() {
@@ -34,7 +60,35 @@ public class Ride {
 
     // Construtor com o ID de passageiro
     public Ride(String passengerId) {
-        this.passengerId = passengerId;
+        this.setPassengerId(passengerId);
+    }
+
+    /**
+     * Copies a ride, with its version, so it can be changed and passed to
+     * {@link databaseManager.Database#update(Object)} without touching the
+     * stored instance.
+     *
+     * @param other the ride to copy
+     */
+    public Ride(Ride other) {
+        this.rideIdHigh = other.rideIdHigh;
+        this.rideIdLow = other.rideIdLow;
+        this.rideIdText = other.rideIdText;
+        this.passengerIdHigh = other.passengerIdHigh;
+        this.passengerIdLow = other.passengerIdLow;
+        this.passengerIdText = other.passengerIdText;
+        this.cabbieIdHigh = other.cabbieIdHigh;
+        this.cabbieIdLow = other.cabbieIdLow;
+        this.cabbieIdText = other.cabbieIdText;
+        this.vehicleIdHigh = other.vehicleIdHigh;
+        this.vehicleIdLow = other.vehicleIdLow;
+        this.vehicleIdText = other.vehicleIdText;
+        this.status = other.status;
+        this.pickupLocation = other.pickupLocation;
+        this.dropLocation = other.dropLocation;
+        this.startTime = other.startTime;
+        this.distance = other.distance;
+        this.version = other.version;
     }
 
     /**
@@ -53,7 +107,7 @@ public class Ride {
      */
     public void requestRide(String pickupLocation, String dropLocation)
             throws InvalidLocationException, NullRideStartTimeException, IllegalArgumentException {
-        this.rideId = UUID.randomUUID().toString();
+        this.setRideId(Ids.next());
 
         // Valida os locais de origem e destino
         this.pickupLocation = this.returnLocation(pickupLocation);
@@ -66,20 +120,54 @@ public class Ride {
             throw new IllegalArgumentException("Invalid location name: " + dropLocation);
         }
 
+        this.start(pickupLocation, dropLocation);
+    }
+
+    /**
+     * Requests a ride between two raw coordinates.
+     * 
+     * Each coordinate is snapped to the nearest point of the default
+     * {@link LocationRegistry}, and the ride is routed through that point's
+     * road graph node.
+     * 
+     * @param pickupX the x-coordinate where the passenger wants to be picked up
+     * @param pickupY the y-coordinate where the passenger wants to be picked up
+     * @param dropX   the x-coordinate where the passenger wants to be dropped off
+     * @param dropY   the y-coordinate where the passenger wants to be dropped off
+     * 
+     *                Lança InvalidLocationException se alguma coordenada for
+     *                inválida.
+     */
+    public void requestRide(double pickupX, double pickupY, double dropX, double dropY)
+            throws InvalidLocationException, NullRideStartTimeException {
+        this.setRideId(Ids.next());
+
+        LocationRegistry registry = LocationRegistry.getDefault();
+        NamedPoint pickup = registry.nearest(pickupX, pickupY);
+        NamedPoint drop = registry.nearest(dropX, dropY);
+
+        this.pickupLocation = pickup.getLocation();
+        this.dropLocation = drop.getLocation();
+
+        this.start(this.pickupLocation.getName(), this.dropLocation.getName());
+    }
+
+    private void start(String pickupLocation, String dropLocation) throws NullRideStartTimeException {
         this.startTime = LocalDateTime.now();
         if (this.startTime == null) {
             throw new NullRideStartTimeException("O horário de início da corrida não pode ser nulo.");
         }
 
-        System.out.println("Corrida chamada por passageiro " + this.passengerId + " de " + pickupLocation + " para "
+        LOG.debug(() -> "Corrida chamada por passageiro " + this.getPassengerId() + " de " + pickupLocation + " para "
                 + dropLocation);
+        Metrics.RIDES_REQUESTED.inc();
         this.updateRideStatus("CHAMADA", null, null);
 
         // Tratando a exceção que pode ser lançada ao calcular a distância
         try {
             this.distance = this.calculateDistance(); // Calcula a distância
         } catch (InvalidRideDistanceException e) {
-            System.err.println("Erro ao calcular a distância: " + e.getMessage());
+            LOG.warn(() -> "Erro ao calcular a distância: " + e.getMessage());
             this.distance = 0; // Ou tome a ação necessária em caso de erro
         }
     }
@@ -96,37 +184,48 @@ public class Ride {
      * @throws InvalidLocationException se a localização for inválida
      */
     private Location returnLocation(String locationName) throws InvalidLocationException {
-        return Location.valueOfName(locationName);
+        NamedPoint point = LocationRegistry.getDefault().get(locationName);
+        return point == null ? null : point.getLocation();
     }
 
     /**
      * Calculates the distance between the pickup and drop locations.
      * 
-     * The distance is calculated as the Euclidean distance between the two points.
+     * The distance is the shortest road distance between the two points, read
+     * from the precomputed tables of the default {@link RoadGraph}.
      * 
      * @return the calculated distance.
      * 
      *         Lança InvalidRideDistanceException se a distância for zero ou
-     *         negativa.
+     *         negativa, ou se não houver rota entre os locais.
      */
     public float calculateDistance() throws InvalidRideDistanceException {
-        int x_pickup = pickupLocation.getX();
-        int y_pickup = pickupLocation.getY();
-
-        int x_drop = dropLocation.getX();
-        int y_drop = dropLocation.getY();
-
-        float distance = (float) Math.sqrt(Math.pow(x_drop - x_pickup, 2) + Math.pow(y_drop - y_pickup, 2));
-        distance = Math.round(distance * 100) / 100.0f;
+        long start = System.nanoTime();
+        float distance = RoadGraph.getDefault().distance(this.pickupLocation, this.dropLocation);
+        Metrics.DISTANCE_LATENCY.recordSince(start);
 
         if (distance <= 0) {
             throw new InvalidRideDistanceException("A distância da corrida não pode ser zero ou negativa.");
         }
+        if (Float.isInfinite(distance)) {
+            throw new InvalidRideDistanceException("Não existe rota entre " + this.pickupLocation.getName() + " e "
+                    + this.dropLocation.getName());
+        }
 
-        System.out.println("Distância calculada: " + distance);
+        LOG.debug(() -> "Distância calculada: " + distance);
         return distance;
     }
 
+    /**
+     * Estimates the travel time between the pickup and drop locations using the
+     * fastest route of the default {@link RoadGraph}.
+     * 
+     * @return the estimated travel time in minutes
+     */
+    public double estimateDuration() {
+        return RoadGraph.getDefault().eta(this.pickupLocation, this.dropLocation);
+    }
+
     /**
      * Atualiza o status da corrida.
      * 
@@ -140,19 +239,33 @@ public class Ride {
      *                  "ACEITA"
      */
     public void updateRideStatus(String status, String cabbieId, String vehicleId) {
-        this.status = status;
+        String previousStatus = this.status;
+        this.setStatus(status);
 
         if ("ACEITA".equals(status)) {
-            this.cabbieId = cabbieId;
-            this.vehicleId = vehicleId;
-            System.out.println("Corrida aceita por motorista " + this.cabbieId);
+            this.setCabbieId(cabbieId);
+            this.setVehicleId(vehicleId);
+            Metrics.RIDES_ACCEPTED.inc();
+            LOG.debug(() -> "Corrida aceita por motorista " + cabbieId);
         } else {
-            System.out.println("Status da corrida: " + this.status);
+            LOG.debug(() -> "Status da corrida: " + status);
+        }
+
+        if (STATUS_EVENT.isEnabled()) {
+            RideStatusEvent event = new RideStatusEvent();
+            if (event.shouldCommit()) {
+                event.rideId = this.getRideId();
+                event.previousStatus = previousStatus;
+                event.status = status;
+                event.cabbieId = this.getCabbieId();
+                event.commit();
+            }
         }
     }
 
     public void completeRide() {
-        System.out.println("Corrida finalizada");
+        Metrics.RIDES_COMPLETED.inc();
+        LOG.debug(() -> "Corrida finalizada");
     }
 
     @XmlElement(name = "pickupLocation")
@@ -175,11 +288,23 @@ public class Ride {
 
     @XmlElement(name = "rideId")
     public String getRideId() {
-        return this.rideId;
+        return CompactId.toString(this.rideIdHigh, this.rideIdLow, this.rideIdText);
     }
 
     public void setRideId(String rideId) {
-        this.rideId = rideId;
+        this.rideIdHigh = CompactId.high(rideId);
+        this.rideIdLow = CompactId.low(rideId);
+        this.rideIdText = CompactId.text(rideId);
+    }
+
+    /**
+     * Compares the id of the ride without building its string form.
+     *
+     * @param rideId the id to compare with
+     * @return whether the ride has this id
+     */
+    public boolean hasRideId(String rideId) {
+        return CompactId.matches(this.rideIdHigh, this.rideIdLow, this.rideIdText, rideId);
     }
 
     @XmlJavaTypeAdapter(value = LocalDateTimeAdapter.class)
@@ -199,29 +324,43 @@ public class Ride {
 
     @XmlElement(name = "passengerId")
     public String getPassengerId() {
-        return passengerId;
+        return CompactId.toString(this.passengerIdHigh, this.passengerIdLow, this.passengerIdText);
     }
 
     public void setPassengerId(String passengerId) {
-        this.passengerId = passengerId;
+        this.passengerIdHigh = CompactId.high(passengerId);
+        this.passengerIdLow = CompactId.low(passengerId);
+        this.passengerIdText = CompactId.text(passengerId);
+    }
+
+    public boolean hasPassengerId(String passengerId) {
+        return CompactId.matches(this.passengerIdHigh, this.passengerIdLow, this.passengerIdText, passengerId);
     }
 
     @XmlElement(name = "cabbieId")
     public String getCabbieId() {
-        return cabbieId;
+        return CompactId.toString(this.cabbieIdHigh, this.cabbieIdLow, this.cabbieIdText);
     }
 
     public void setCabbieId(String cabbieId) {
-        this.cabbieId = cabbieId;
+        this.cabbieIdHigh = CompactId.high(cabbieId);
+        this.cabbieIdLow = CompactId.low(cabbieId);
+        this.cabbieIdText = CompactId.text(cabbieId);
+    }
+
+    public boolean hasCabbieId(String cabbieId) {
+        return CompactId.matches(this.cabbieIdHigh, this.cabbieIdLow, this.cabbieIdText, cabbieId);
     }
 
     @XmlElement(name = "vehicleId")
     public String getVehicleId() {
-        return vehicleId;
+        return CompactId.toString(this.vehicleIdHigh, this.vehicleIdLow, this.vehicleIdText);
     }
 
     public void setVehicleId(String vehicleId) {
-        this.vehicleId = vehicleId;
+        this.vehicleIdHigh = CompactId.high(vehicleId);
+        this.vehicleIdLow = CompactId.low(vehicleId);
+        this.vehicleIdText = CompactId.text(vehicleId);
     }
 
     @XmlElement(name = "Status")
@@ -230,7 +369,7 @@ public class Ride {
     }
 
     public void setStatus(String status) {
-        this.status = status;
+        this.status = InternPool.getDefault().intern(status);
     }
 
     @XmlElement(name = "distance")
@@ -242,6 +381,16 @@ public class Ride {
         this.distance = distance;
     }
 
+    @Override
+    public long getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == this) {
@@ -249,11 +398,12 @@ public class Ride {
         }
 
         Ride ride = (Ride) o;
-        return Objects.equal(this.rideId, ride.getRideId());
+        return this.rideIdHigh == ride.rideIdHigh && this.rideIdLow == ride.rideIdLow
+                && Objects.equal(this.rideIdText, ride.rideIdText);
     }
 
     @Override
     public String toString() {
-        return "Ride: " + this.rideId;
+        return "Ride: " + this.getRideId();
     }
 }
@@ -1,27 +1,47 @@
 package cabbieManager;
 
-import java.util.UUID;
+import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
+import codegen.GenerateSerializer;
+import jdk.jfr.EventType;
+import logging.Level;
+import logging.Log;
+import logging.Logger;
+import metrics.Metrics;
+import utils.CompactId;
+import utils.Ids;
 import utils.LocalDateTimeAdapter;
 
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 
+import events.PaymentCalculationEvent;
 import exceptions.InvalidPaymentMethodException;
 import exceptions.InvalidRideDistanceException;
 import exceptions.NullRideStartTimeException;
 
+@GenerateSerializer
 @XmlRootElement(name = "PaymentMethod")
-public class RidePayment implements Payment {
-
-    private String paymentId;
-    private String rideId;
+public class RidePayment implements Payment, Versioned {
+
+    private static final Logger LOG = Log.getLogger(RidePayment.class);
+    // Consultado antes de criar o evento, para não alocar nada com o JFR desligado
+    private static final EventType CALCULATION_EVENT = EventType.getEventType(PaymentCalculationEvent.class);
+
+    // Ids guardados como dois longs quando são UUIDs (ver CompactId)
+    private long paymentIdHigh;
+    private long paymentIdLow;
+    private String paymentIdText;
+    private long rideIdHigh;
+    private long rideIdLow;
+    private String rideIdText;
     private LocalDateTime rideStartTime;
     private float rideDistance;
-    private float amount;
+    private long amountCents;
     private PaymentOption paymentMethod;
+    private long version;
 
     public RidePayment() {
     }
@@ -36,8 +56,8 @@ public class RidePayment implements Payment {
             throw new InvalidRideDistanceException("Ride distance must be greater than zero");
         }
 
-        this.paymentId = UUID.randomUUID().toString();
-        this.rideId = rideId;
+        this.setPaymentId(Ids.next());
+        this.setRideId(rideId);
         this.rideStartTime = rideStartTime;
         this.rideDistance = rideDistance;
         
@@ -47,62 +67,92 @@ public class RidePayment implements Payment {
             throw new InvalidPaymentMethodException("Invalid payment method: " + paymentMethod);
         }
 
-        System.out.println("Forma de pagamento selecionada: " + paymentMethod);
-        this.amount = this.calculateValue();
+        LOG.debug(() -> "Forma de pagamento selecionada: " + paymentMethod);
+        this.amountCents = this.calculateValueCents();
     }
 
     private PaymentOption selectPaymentMethod(String paymentMethod) {
         return PaymentOption.valueOfName(paymentMethod);
     }
 
-    public float calculateValue() {
-        final float[] PRECO_INICIAL_DIURNO = { 5.00f, 4.00f, 3.50f, 3.00f, 2.50f };
-        final float[] PRECO_POR_KM_DIURNO = { 2.00f, 2.50f, 3.00f, 4.00f, 3.50f };
-        final float[] PRECO_INICIAL_NOTURNO = { 6.00f, 5.00f, 4.50f, 4.00f, 3.50f };
-        final float[] PRECO_POR_KM_NOTURNO = { 2.50f, 3.00f, 3.50f, 4.50f, 4.0f };
-        final float DISTANCIAS_LIMITE[] = { 5, 10, 15, 20, 25 };
-
-        int faixa = -1;
-        for (int i = 0; i < DISTANCIAS_LIMITE.length; i++) {
-            if (this.rideDistance <= DISTANCIAS_LIMITE[i]) {
-                faixa = i;
-                break;
-            }
+    /**
+     * Calculates the fare of the ride from the compiled {@link FareTable},
+     * without changing the amount of the payment.
+     *
+     * @return the fare in cents
+     */
+    public long calculateValueCents() {
+        long start = System.nanoTime();
+        PaymentCalculationEvent event = null;
+        if (CALCULATION_EVENT.isEnabled()) {
+            event = new PaymentCalculationEvent();
+            event.begin();
         }
 
-        float precoInicial = isHorarioNoturno() ? PRECO_INICIAL_NOTURNO[faixa] : PRECO_INICIAL_DIURNO[faixa];
-        float precoPorKm = isHorarioNoturno() ? PRECO_POR_KM_NOTURNO[faixa] : PRECO_POR_KM_DIURNO[faixa];
-
-        float _amount = this.paymentMethod.calculatePaymentFee(precoInicial + (this.rideDistance * precoPorKm));
-        this.amount = Math.round(_amount * 100) / 100.0f;
-
-        return this.amount;
+        boolean night = FareTable.isNight(this.rideStartTime);
+        long cents = FareTable.priceCents(this.rideDistance, night, this.paymentMethod);
+
+        Metrics.FARE_LATENCY.recordSince(start);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.paymentId = this.getPaymentId();
+                event.rideId = this.getRideId();
+                event.distance = this.rideDistance;
+                event.night = night;
+                event.paymentOption = this.paymentMethod.name();
+                event.amountCents = cents;
+                event.commit();
+            }
+        }
+        return cents;
     }
 
-    private boolean isHorarioNoturno() {
-        return this.rideStartTime.toLocalTime().isBefore(LocalTime.of(6, 0))
-                || this.rideStartTime.toLocalTime().isAfter(LocalTime.of(18, 0));
+    /**
+     * Calculates the fare of the ride, for display.
+     *
+     * @return the fare in reais
+     */
+    public float calculateValue() {
+        return this.calculateValueCents() / 100.0f;
     }
 
     public void processPayment() {
-        System.out.println("Valor da corrida definido: " + this.amount);
+        Metrics.revenueCents(this.paymentMethod).add(this.amountCents);
+        if (LOG.isEnabled(Level.DEBUG)) {
+            LOG.debug(() -> "Valor da corrida definido: " + formatCents(this.amountCents));
+        }
     }
 
     // Getters e Setters
     public String getPaymentId() {
-        return paymentId;
+        return CompactId.toString(this.paymentIdHigh, this.paymentIdLow, this.paymentIdText);
     }
 
     public void setPaymentId(String paymentId) {
-        this.paymentId = paymentId;
+        this.paymentIdHigh = CompactId.high(paymentId);
+        this.paymentIdLow = CompactId.low(paymentId);
+        this.paymentIdText = CompactId.text(paymentId);
     }
 
     public String getRideId() {
-        return rideId;
+        return CompactId.toString(this.rideIdHigh, this.rideIdLow, this.rideIdText);
     }
 
     public void setRideId(String rideId) {
-        this.rideId = rideId;
+        this.rideIdHigh = CompactId.high(rideId);
+        this.rideIdLow = CompactId.low(rideId);
+        this.rideIdText = CompactId.text(rideId);
+    }
+
+    /**
+     * Compares the id of the paid ride without building its string form.
+     *
+     * @param rideId the id to compare with
+     * @return whether this payment is for this ride
+     */
+    public boolean hasRideId(String rideId) {
+        return CompactId.matches(this.rideIdHigh, this.rideIdLow, this.rideIdText, rideId);
     }
 
     @XmlJavaTypeAdapter(value = LocalDateTimeAdapter.class)
@@ -122,12 +172,29 @@ public class RidePayment implements Payment {
         this.rideDistance = rideDistance;
     }
 
+    @XmlElement(name = "amountCents")
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
+    }
+
+    @XmlTransient
     public float getAmount() {
-        return amount;
+        return amountCents / 100.0f;
     }
 
-    public void setAmount(float amount) {
-        this.amount = amount;
+    /**
+     * Formats a value in cents as reais, without going through floating point.
+     *
+     * @param cents the value in cents
+     * @return the value formatted as "R$ 12.34"
+     */
+    public static String formatCents(long cents) {
+        long abs = Math.abs(cents);
+        return (cents < 0 ? "-R$ " : "R$ ") + (abs / 100) + "." + (abs % 100 < 10 ? "0" : "") + (abs % 100);
     }
 
     public PaymentOption getPaymentMethod() {
@@ -137,4 +204,14 @@ public class RidePayment implements Payment {
     public void setPaymentMethod(PaymentOption paymentMethod) {
         this.paymentMethod = paymentMethod;
     }
+
+    @Override
+    public long getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
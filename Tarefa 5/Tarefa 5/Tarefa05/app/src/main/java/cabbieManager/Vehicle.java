@@ -1,24 +1,38 @@
 package cabbieManager;
+import codegen.GenerateSerializer;
 import com.google.common.base.Objects;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import logging.Log;
+import logging.Logger;
+import utils.CompactId;
+import utils.InternPool;
 import utils.VehicleInfoGenerator;
 
+@GenerateSerializer
 @XmlRootElement(name="vehicle")
-public class Vehicle {
-    private String vehicleId;
+public class Vehicle implements Versioned {
+    private static final Logger LOG = Log.getLogger(Vehicle.class);
+
+    // Ids guardados como dois longs quando são UUIDs (ver CompactId)
+    private long vehicleIdHigh;
+    private long vehicleIdLow;
+    private String vehicleIdText;
     private String registrationNumber;
     private String model;
     private int year;
-    private String cabbieId;
+    private long cabbieIdHigh;
+    private long cabbieIdLow;
+    private String cabbieIdText;
+    private long version;
 
     public Vehicle(){
         
     }
 
     public Vehicle(String cabbieId) {
-        this.cabbieId = cabbieId;
+        this.setCabbieId(cabbieId);
     }
 
     /**
@@ -26,13 +40,21 @@ public class Vehicle {
      * This method assigns a random ID, registration number, model and year to the vehicle.
      */
     public void registerVehicle() {
-        VehicleInfoGenerator veh = new VehicleInfoGenerator();
-        this.vehicleId = veh.getVehicleId();
+        this.registerVehicle(new VehicleInfoGenerator());
+    }
+
+    /**
+     * Registers a vehicle with the information of the given generator.
+     *
+     * @param veh the generator holding the vehicle information
+     */
+    public void registerVehicle(VehicleInfoGenerator veh) {
+        this.setVehicleId(veh.getVehicleId());
         this.registrationNumber = veh.getRegistrationNumber();
-        this.model = veh.getModel();
+        this.setModel(veh.getModel());
         this.year = veh.getYear();
 
-        System.out.println("Veículo " + this.vehicleId + " (" + this.model + " " + this.year + ") criado com sucesso");
+        LOG.debug(() -> "Veículo " + this.getVehicleId() + " (" + this.model + " " + this.year + ") criado com sucesso");
     }
 
     /**
@@ -57,25 +79,25 @@ public class Vehicle {
 
         switch (field) {
             case "vehicleId":
-                this.vehicleId = newValue;
+                this.setVehicleId(newValue);
                 break;
             case "registrationNumber":
                 this.registrationNumber = newValue;
                 break;
             case "model":
-                this.model = newValue;
+                this.setModel(newValue);
                 break;
             case "year":
                 this.year = Integer.parseInt(newValue);
                 break;
             default:
                 validField = false;
-                System.out.println("Campo inválido, tente novametne");
+                LOG.warn(() -> "Campo inválido, tente novamente: " + field);
                 break;
         }
 
         if (validField) {
-            System.out.println("Campo " + field + " alterado com sucesso");
+            LOG.debug(() -> "Campo " + field + " alterado com sucesso");
         }
 
 
@@ -89,11 +111,23 @@ public class Vehicle {
      */
     @XmlElement(name = "vehicleId")
     public String getVehicleId() {
-        return this.vehicleId;
+        return CompactId.toString(this.vehicleIdHigh, this.vehicleIdLow, this.vehicleIdText);
     }
 
     public void setVehicleId(String vehicleId) {
-        this.vehicleId = vehicleId;
+        this.vehicleIdHigh = CompactId.high(vehicleId);
+        this.vehicleIdLow = CompactId.low(vehicleId);
+        this.vehicleIdText = CompactId.text(vehicleId);
+    }
+
+    /**
+     * Compares the id of the vehicle without building its string form.
+     *
+     * @param vehicleId the id to compare with
+     * @return whether the vehicle has this id
+     */
+    public boolean hasVehicleId(String vehicleId) {
+        return CompactId.matches(this.vehicleIdHigh, this.vehicleIdLow, this.vehicleIdText, vehicleId);
     }
 
     @XmlElement(name = "registrationNumber")
@@ -110,7 +144,7 @@ public class Vehicle {
     }
 
     public void setModel(String model) {
-        this.model = model;
+        this.model = InternPool.getDefault().intern(model);
     }
     @XmlElement(name = "year")
     public int getYear() {
@@ -122,11 +156,13 @@ public class Vehicle {
     }
     @XmlElement(name = "cabbieId")
     public String getCabbieId() {
-        return cabbieId;
+        return CompactId.toString(this.cabbieIdHigh, this.cabbieIdLow, this.cabbieIdText);
     }
 
     public void setCabbieId(String cabbieId) {
-        this.cabbieId = cabbieId;
+        this.cabbieIdHigh = CompactId.high(cabbieId);
+        this.cabbieIdLow = CompactId.low(cabbieId);
+        this.cabbieIdText = CompactId.text(cabbieId);
     }
 
     /**
@@ -137,7 +173,17 @@ public class Vehicle {
      */
 
     public String toString() {
-        return this.vehicleId + " " + this.model + " " + this.year;
+        return this.getVehicleId() + " " + this.model + " " + this.year;
+    }
+
+    @Override
+    public long getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     @Override
@@ -147,6 +193,7 @@ public class Vehicle {
         }
         
         Vehicle pas = (Vehicle) o;
-        return Objects.equal(this.vehicleId, pas.getVehicleId());
+        return this.vehicleIdHigh == pas.vehicleIdHigh && this.vehicleIdLow == pas.vehicleIdLow
+                && Objects.equal(this.vehicleIdText, pas.vehicleIdText);
     }
 }
@@ -0,0 +1,18 @@
+package cabbieManager;
+
+/**
+ * An entity whose stored copy carries a version number, used by
+ * {@link databaseManager.Database#update(Object)} to detect lost updates.
+ */
+public interface Versioned {
+
+    /**
+     * Returns the version this copy was read at; 0 for a copy that was never
+     * updated in the database.
+     *
+     * @return the version
+     */
+    public long getVersion();
+
+    public void setVersion(long version);
+}
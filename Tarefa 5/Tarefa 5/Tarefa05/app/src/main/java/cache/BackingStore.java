@@ -0,0 +1,32 @@
+package cache;
+
+import exceptions.CabbieManagerException;
+
+/**
+ * Store behind an {@link EntityCache}, read on a miss and written on every
+ * put.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the entities
+ */
+public interface BackingStore<K, V> {
+
+    /**
+     * Reads an entity.
+     *
+     * @param key the key of the entity
+     * @return the entity, or null if the store has none with this key
+     * @throws CabbieManagerException if the store cannot be read
+     */
+    public V load(K key) throws CabbieManagerException;
+
+    /**
+     * Writes an entity, inserting it if the store does not have it yet.
+     *
+     * @param key   the key of the entity
+     * @param value the entity
+     * @throws CabbieManagerException if the store rejects the entity
+     */
+    public void store(K key, V value) throws CabbieManagerException;
+
+}
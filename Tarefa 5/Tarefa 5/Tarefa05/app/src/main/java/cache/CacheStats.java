@@ -0,0 +1,79 @@
+package cache;
+
+/**
+ * Counters of an {@link EntityCache} at one point in time.
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long loads;
+    private final long evictions;
+    private final long evictedWeight;
+    private final long rejections;
+
+    CacheStats(long hits, long misses, long loads, long evictions, long evictedWeight, long rejections) {
+        this.hits = hits;
+        this.misses = misses;
+        this.loads = loads;
+        this.evictions = evictions;
+        this.evictedWeight = evictedWeight;
+        this.rejections = rejections;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Returns how many misses were read from the backing store and found.
+     *
+     * @return the number of loaded entities
+     */
+    public long getLoads() {
+        return this.loads;
+    }
+
+    /**
+     * Returns how many entries left the cache to make room, including new
+     * entries that lost the admission check.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    public long getEvictedWeight() {
+        return this.evictedWeight;
+    }
+
+    /**
+     * Returns how many new entries were not admitted because they were used
+     * less often than the entry they would replace.
+     *
+     * @return the number of rejected entries
+     */
+    public long getRejections() {
+        return this.rejections;
+    }
+
+    /**
+     * Returns the fraction of lookups that found the entity in the cache.
+     *
+     * @return the hit ratio, or 1 if there were no lookups
+     */
+    public double getHitRatio() {
+        long requests = this.hits + this.misses;
+        return requests == 0 ? 1 : (double) this.hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRatio=%.3f loads=%d evictions=%d rejections=%d", this.hits,
+                this.misses, this.getHitRatio(), this.loads, this.evictions, this.rejections);
+    }
+}
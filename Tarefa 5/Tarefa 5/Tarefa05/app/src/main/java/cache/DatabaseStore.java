@@ -0,0 +1,55 @@
+package cache;
+
+import java.util.function.BiFunction;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Passenger;
+import cabbieManager.Ride;
+import cabbieManager.Vehicle;
+import databaseManager.Database;
+import exceptions.CabbieManagerException;
+
+/**
+ * {@link BackingStore} of one entity type of a {@link Database}, keyed by the
+ * entity id. A stored entity is updated if the database already has it and
+ * inserted otherwise, atomically, so concurrent puts of a new key insert it
+ * once.
+ *
+ * @param <V> the type of the entities
+ */
+public class DatabaseStore<V> implements BackingStore<String, V> {
+
+    private final Database database;
+    private final BiFunction<Database, String, V> finder;
+
+    public DatabaseStore(Database database, BiFunction<Database, String, V> finder) {
+        this.database = database;
+        this.finder = finder;
+    }
+
+    public static DatabaseStore<Cabbie> cabbies(Database database) {
+        return new DatabaseStore<>(database, Database::findCabbie);
+    }
+
+    public static DatabaseStore<Vehicle> vehicles(Database database) {
+        return new DatabaseStore<>(database, Database::findVehicle);
+    }
+
+    public static DatabaseStore<Passenger> passengers(Database database) {
+        return new DatabaseStore<>(database, Database::findPassenger);
+    }
+
+    public static DatabaseStore<Ride> rides(Database database) {
+        return new DatabaseStore<>(database, Database::findRide);
+    }
+
+    @Override
+    public V load(String key) {
+        return this.finder.apply(this.database, key);
+    }
+
+    @Override
+    public void store(String key, V value) throws CabbieManagerException {
+        this.database.upsert(value);
+    }
+}
@@ -0,0 +1,459 @@
+package cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToLongFunction;
+
+import exceptions.CabbieManagerException;
+import metrics.Metrics;
+
+/**
+ * Bounded cache of hot entities in front of a {@link BackingStore}, using the
+ * W-TinyLFU policy.
+ *
+ * New entries go to a small LRU window (1% of the weight). Entries leaving
+ * the window compete for the main space, a segmented LRU split into probation
+ * (20%) and protected (80%) parts: when the main space is full, the newcomer
+ * is only admitted if a {@link FrequencySketch} says it was used more often
+ * than the entry it would evict. A scan over many entries used once therefore
+ * cannot flush the entries used all the time, such as the active cabbies.
+ *
+ * The cache is bounded by total weight, given by a weigher (1 per entry by
+ * default), and split by key hash into segments, each with its own lock,
+ * policy and sketch. Lookups that miss read the store outside the lock, so two
+ * threads missing the same key at once may both read it. Puts write the store
+ * first and only then the cache.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the entities
+ */
+public class EntityCache<K, V> {
+
+    private static final int MAXIMUM_SEGMENTS = 16;
+    // Peso mínimo de cada segmento, para a janela e a área principal terem espaço
+    private static final long MINIMUM_SEGMENT_WEIGHT = 64;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentShift;
+    private final ToIntBiFunction<K, V> weigher;
+    private final BackingStore<K, V> store;
+    private final long maximumWeight;
+
+    /**
+     * Creates a cache that holds at most a number of entries.
+     *
+     * @param maximumSize the maximum number of entries
+     * @param store       the store read on misses and written on puts
+     */
+    public EntityCache(long maximumSize, BackingStore<K, V> store) {
+        this(maximumSize, (key, value) -> 1, store);
+    }
+
+    /**
+     * Creates a cache bounded by the total weight of its entries.
+     *
+     * @param maximumWeight the maximum total weight
+     * @param weigher       the weight of an entry, such as its size in bytes
+     * @param store         the store read on misses and written on puts
+     */
+    public EntityCache(long maximumWeight, ToIntBiFunction<K, V> weigher, BackingStore<K, V> store) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("The maximum weight must be positive: " + maximumWeight);
+        }
+        int count = 1;
+        while (count < MAXIMUM_SEGMENTS && maximumWeight / (count * 2) >= MINIMUM_SEGMENT_WEIGHT) {
+            count *= 2;
+        }
+        this.segments = newSegments(count);
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+        for (int i = 0; i < count; i++) {
+            this.segments[i] = new Segment<>(maximumWeight / count);
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.store = store;
+    }
+
+    /**
+     * Exposes the counters, size and weight of this cache as gauges in the
+     * {@link Metrics} registry.
+     *
+     * @param name the name of the cache, used as the "cache" label
+     */
+    public void registerMetrics(String name) {
+        Metrics.counter("cabbie_cache_hits_total", "Buscas encontradas no cache", "cache", name,
+                () -> this.stats().getHits());
+        Metrics.counter("cabbie_cache_misses_total", "Buscas não encontradas no cache", "cache", name,
+                () -> this.stats().getMisses());
+        Metrics.counter("cabbie_cache_evictions_total", "Entradas removidas do cache para abrir espaço", "cache",
+                name, () -> this.stats().getEvictions());
+        Metrics.gauge("cabbie_cache_hit_ratio_permille", "Buscas encontradas no cache, por mil buscas", "cache",
+                name, () -> Math.round(this.stats().getHitRatio() * 1000));
+        Metrics.gauge("cabbie_cache_entries", "Entradas no cache", "cache", name, this::size);
+        Metrics.gauge("cabbie_cache_weight", "Peso total das entradas do cache", "cache", name, this::weight);
+    }
+
+    /**
+     * Returns an entity, reading it from the store if it is not cached.
+     *
+     * @param key the key of the entity
+     * @return the entity, or null if the store has none with this key
+     * @throws CabbieManagerException if the store cannot be read
+     */
+    public V get(K key) throws CabbieManagerException {
+        int hash = spread(key.hashCode());
+        Segment<K, V> segment = this.segmentFor(hash);
+        V value = segment.get(key, hash);
+        if (value != null) {
+            return value;
+        }
+
+        V loaded = this.store.load(key);
+        if (loaded == null) {
+            return null;
+        }
+        return segment.put(key, hash, loaded, this.weigher.applyAsInt(key, loaded), true);
+    }
+
+    /**
+     * Returns an entity only if it is cached.
+     *
+     * @param key the key of the entity
+     * @return the entity, or null if it is not cached
+     */
+    public V getIfPresent(K key) {
+        int hash = spread(key.hashCode());
+        return this.segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * Writes an entity to the store and then caches it.
+     *
+     * @param key   the key of the entity
+     * @param value the entity
+     * @throws CabbieManagerException if the store rejects the entity; the cache
+     *                                is not changed
+     */
+    public void put(K key, V value) throws CabbieManagerException {
+        this.store.store(key, value);
+        int hash = spread(key.hashCode());
+        this.segmentFor(hash).put(key, hash, value, this.weigher.applyAsInt(key, value), false);
+    }
+
+    /**
+     * Removes an entity from the cache, but not from the store.
+     *
+     * @param key the key of the entity
+     */
+    public void invalidate(K key) {
+        int hash = spread(key.hashCode());
+        this.segmentFor(hash).invalidate(key);
+    }
+
+    public long getMaximumWeight() {
+        return this.maximumWeight;
+    }
+
+    public long size() {
+        return this.sum(segment -> segment.map.size());
+    }
+
+    public long weight() {
+        return this.sum(Segment::weight);
+    }
+
+    /**
+     * Returns the counters of every segment added together.
+     *
+     * @return the statistics of the cache
+     */
+    public CacheStats stats() {
+        long[] totals = new long[6];
+        for (Segment<K, V> segment : this.segments) {
+            segment.lock.lock();
+            try {
+                totals[0] += segment.hits;
+                totals[1] += segment.misses;
+                totals[2] += segment.loads;
+                totals[3] += segment.evictions;
+                totals[4] += segment.evictedWeight;
+                totals[5] += segment.rejections;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new CacheStats(totals[0], totals[1], totals[2], totals[3], totals[4], totals[5]);
+    }
+
+    private long sum(ToLongFunction<Segment<K, V>> value) {
+        long total = 0;
+        for (Segment<K, V> segment : this.segments) {
+            segment.lock.lock();
+            try {
+                total += value.applyAsLong(segment);
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return this.segments.length == 1 ? this.segments[0] : this.segments[hash >>> this.segmentShift];
+    }
+
+    // Arrays genéricos não podem ser criados diretamente
+    @SuppressWarnings("unchecked")
+    private static <K, V> Segment<K, V>[] newSegments(int count) {
+        return (Segment<K, V>[]) new Segment<?, ?>[count];
+    }
+
+    private static int spread(int x) {
+        x ^= x >>> 17;
+        x *= 0xed5ad4bb;
+        x ^= x >>> 11;
+        x *= 0xac4c1b51;
+        x ^= x >>> 15;
+        return x;
+    }
+
+    private enum Area {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    private static class Node<K, V> {
+        final K key;
+        final int hash;
+        V value;
+        int weight;
+        Area area;
+        Node<K, V> previous;
+        Node<K, V> next;
+
+        Node(K key, int hash) {
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+
+    // Lista LRU intrusiva: o primeiro é o menos usado recentemente
+    private static class AccessQueue<K, V> {
+        private final Node<K, V> head = new Node<>(null, 0);
+        long weight;
+
+        AccessQueue() {
+            this.head.previous = this.head;
+            this.head.next = this.head;
+        }
+
+        Node<K, V> first() {
+            return this.head.next == this.head ? null : this.head.next;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.previous = this.head.previous;
+            node.next = this.head;
+            this.head.previous.next = node;
+            this.head.previous = node;
+            this.weight += node.weight;
+        }
+
+        void remove(Node<K, V> node) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            this.weight -= node.weight;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            this.remove(node);
+            this.addLast(node);
+        }
+    }
+
+    private static class Segment<K, V> {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<K, Node<K, V>> map = new HashMap<>();
+        final AccessQueue<K, V> window = new AccessQueue<>();
+        final AccessQueue<K, V> probation = new AccessQueue<>();
+        final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+        final FrequencySketch sketch;
+
+        final long maximumWindow;
+        final long maximumMain;
+        final long maximumProtected;
+
+        long hits;
+        long misses;
+        long loads;
+        long evictions;
+        long evictedWeight;
+        long rejections;
+
+        Segment(long maximumWeight) {
+            this.maximumWindow = Math.max(1, maximumWeight / 100);
+            this.maximumMain = Math.max(1, maximumWeight - this.maximumWindow);
+            this.maximumProtected = this.maximumMain * 80 / 100;
+            this.sketch = new FrequencySketch((int) Math.min(maximumWeight, 1024));
+        }
+
+        long weight() {
+            return this.window.weight + this.probation.weight + this.protectedQueue.weight;
+        }
+
+        V get(K key, int hash) {
+            this.lock.lock();
+            try {
+                this.sketch.increment(hash);
+                Node<K, V> node = this.map.get(key);
+                if (node == null) {
+                    this.misses++;
+                    return null;
+                }
+                this.hits++;
+                this.onAccess(node);
+                return node.value;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * Caches an entry.
+         *
+         * @return the cached value, which is the existing one if the key was
+         *         cached and onlyIfAbsent is set
+         */
+        V put(K key, int hash, V value, int weight, boolean onlyIfAbsent) {
+            this.lock.lock();
+            try {
+                Node<K, V> node = this.map.get(key);
+                if (node != null) {
+                    if (onlyIfAbsent) {
+                        return node.value;
+                    }
+                    AccessQueue<K, V> queue = this.queueOf(node);
+                    queue.remove(node);
+                    node.value = value;
+                    node.weight = weight;
+                    queue.addLast(node);
+                    this.onAccess(node);
+                } else {
+                    if (onlyIfAbsent) {
+                        this.loads++;
+                    } else {
+                        this.sketch.increment(hash);
+                    }
+                    node = new Node<>(key, hash);
+                    node.value = value;
+                    node.weight = weight;
+                    node.area = Area.WINDOW;
+                    this.map.put(key, node);
+                    this.window.addLast(node);
+                    this.sketch.ensureCapacity(this.map.size());
+                }
+                this.evict();
+                return value;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void invalidate(K key) {
+            this.lock.lock();
+            try {
+                Node<K, V> node = this.map.remove(key);
+                if (node != null) {
+                    this.queueOf(node).remove(node);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private AccessQueue<K, V> queueOf(Node<K, V> node) {
+            switch (node.area) {
+                case WINDOW:
+                    return this.window;
+                case PROBATION:
+                    return this.probation;
+                default:
+                    return this.protectedQueue;
+            }
+        }
+
+        private void onAccess(Node<K, V> node) {
+            switch (node.area) {
+                case WINDOW:
+                    this.window.moveToLast(node);
+                    break;
+                case PROBATION:
+                    // Usada de novo em período de experiência: vai para a área protegida
+                    this.probation.remove(node);
+                    node.area = Area.PROTECTED;
+                    this.protectedQueue.addLast(node);
+                    while (this.protectedQueue.weight > this.maximumProtected) {
+                        Node<K, V> demoted = this.protectedQueue.first();
+                        this.protectedQueue.remove(demoted);
+                        demoted.area = Area.PROBATION;
+                        this.probation.addLast(demoted);
+                    }
+                    break;
+                default:
+                    this.protectedQueue.moveToLast(node);
+                    break;
+            }
+        }
+
+        private void evict() {
+            while (this.window.weight > this.maximumWindow) {
+                Node<K, V> candidate = this.window.first();
+                this.window.remove(candidate);
+                this.admit(candidate);
+            }
+            // Uma entrada da área principal pode ter ficado mais pesada ao ser substituída
+            while (this.probation.weight + this.protectedQueue.weight > this.maximumMain) {
+                this.drop(this.victim());
+            }
+        }
+
+        // Decide se a entrada que saiu da janela entra na área principal
+        private void admit(Node<K, V> candidate) {
+            if (candidate.weight > this.maximumMain) {
+                this.drop(candidate);
+                return;
+            }
+            if (this.probation.weight + this.protectedQueue.weight + candidate.weight > this.maximumMain) {
+                Node<K, V> victim = this.victim();
+                if (this.sketch.frequency(candidate.hash) <= this.sketch.frequency(victim.hash)) {
+                    this.rejections++;
+                    this.drop(candidate);
+                    return;
+                }
+                while (this.probation.weight + this.protectedQueue.weight + candidate.weight > this.maximumMain) {
+                    this.drop(this.victim());
+                }
+            }
+            candidate.area = Area.PROBATION;
+            this.probation.addLast(candidate);
+        }
+
+        private Node<K, V> victim() {
+            Node<K, V> victim = this.probation.first();
+            return victim != null ? victim : this.protectedQueue.first();
+        }
+
+        // Tira a entrada do cache, inclusive da sua fila se ainda estiver em uma
+        private void drop(Node<K, V> node) {
+            if (node.previous != null) {
+                this.queueOf(node).remove(node);
+            }
+            this.map.remove(node.key);
+            this.evictions++;
+            this.evictedWeight += node.weight;
+        }
+    }
+}
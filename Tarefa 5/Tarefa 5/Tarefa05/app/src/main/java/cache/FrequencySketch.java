@@ -0,0 +1,108 @@
+package cache;
+
+/**
+ * Count-min sketch with 4-bit counters that estimates how often each key was
+ * seen recently, the "TinyLFU" part of {@link EntityCache}.
+ *
+ * Each key has four counters, one in each of four longs of the table, and its
+ * frequency is the smallest of them. When the number of increments reaches
+ * ten times the size of the table, every counter is halved, so old
+ * popularity fades. The table grows with the number of cached entries.
+ *
+ * Not thread-safe: each segment of the cache has its own sketch, used under
+ * the lock of the segment.
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAXIMUM_TABLE = 1 << 24;
+
+    private long[] table;
+    private int sampleSize;
+    private int size;
+
+    FrequencySketch(int expectedEntries) {
+        this.resize(expectedEntries);
+    }
+
+    /**
+     * Grows the table if it is smaller than the number of entries, discarding
+     * the counts.
+     *
+     * @param entries the number of entries of the segment
+     */
+    void ensureCapacity(int entries) {
+        if (entries > this.table.length && this.table.length < MAXIMUM_TABLE) {
+            this.resize(entries);
+        }
+    }
+
+    /**
+     * Returns the estimated number of recent occurrences of a key.
+     *
+     * @param hash the spread hash of the key
+     * @return the frequency, from 0 to 15
+     */
+    int frequency(int hash) {
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = this.indexOf(hash, i);
+            int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Counts an occurrence of a key.
+     *
+     * @param hash the spread hash of the key
+     */
+    void increment(int hash) {
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= this.incrementAt(this.indexOf(hash, i), start + i);
+        }
+        if (added && ++this.size == this.sampleSize) {
+            this.reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((this.table[index] & mask) != mask) {
+            this.table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    // Divide todos os contadores por dois
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < this.table.length; i++) {
+            odd += Long.bitCount(this.table[i] & ONE_MASK);
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        this.size = (this.size >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & (this.table.length - 1);
+    }
+
+    private void resize(int entries) {
+        int length = Integer.highestOneBit(Math.max(8, Math.min(entries, MAXIMUM_TABLE) - 1) << 1);
+        this.table = new long[length];
+        this.sampleSize = 10 * length;
+        this.size = 0;
+    }
+}
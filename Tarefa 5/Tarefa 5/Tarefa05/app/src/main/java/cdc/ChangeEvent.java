@@ -0,0 +1,82 @@
+package cdc;
+
+import databaseManager.ChangeListener;
+
+/**
+ * One record of a {@link ChangeLog}: an entity as it was before and after an
+ * insert or update of a {@link databaseManager.Database}.
+ */
+public class ChangeEvent {
+    private final long sequence;
+    private final long timestampMillis;
+    private final ChangeListener.Type type;
+    private final String entityType;
+    private final String entityId;
+    private final Object before;
+    private final Object after;
+
+    public ChangeEvent(long sequence, long timestampMillis, ChangeListener.Type type, String entityType,
+            String entityId, Object before, Object after) {
+        this.sequence = sequence;
+        this.timestampMillis = timestampMillis;
+        this.type = type;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * Returns the position of the change in the log, starting at 1.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Returns when the change was made in the primary database.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTimestampMillis() {
+        return this.timestampMillis;
+    }
+
+    public ChangeListener.Type getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the XML element name of the entity, such as "ride".
+     *
+     * @return the entity type
+     */
+    public String getEntityType() {
+        return this.entityType;
+    }
+
+    public String getEntityId() {
+        return this.entityId;
+    }
+
+    /**
+     * Returns the entity as it was logged before this change.
+     *
+     * @return the previous state, or null for an insert or an entity that was
+     *         not logged before
+     */
+    public Object getBefore() {
+        return this.before;
+    }
+
+    public Object getAfter() {
+        return this.after;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + this.sequence + " " + this.type + " " + this.entityType + " " + this.entityId;
+    }
+}
@@ -0,0 +1,382 @@
+package cdc;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Passenger;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import cabbieManager.Vehicle;
+import databaseManager.ChangeListener;
+import logging.Log;
+import logging.Logger;
+import metrics.Counter;
+import metrics.Metrics;
+import serialization.EntitySerializer;
+import serialization.Serializers;
+
+/**
+ * Change-data-capture feed of a {@link databaseManager.Database}: appends
+ * every insert and update to a file that other processes can tail with a
+ * {@link ChangeLogReader}.
+ *
+ * Each record holds the entity before and after the change, in the binary
+ * form of its {@link EntitySerializer}. The "before" image is the entity the
+ * update replaced, so it is only recorded when the database is updated with a
+ * copy; an update of the stored instance itself has no "before" image.
+ *
+ * Changes are queued while the database holds its write lock, which gives
+ * them the order in which they were applied. Only the "after" image is taken
+ * then, since the stored entity may later be changed in place; the replaced
+ * entity is no longer stored, so a background thread serializes it and writes
+ * the records in batches, and writers never wait for the file.
+ *
+ * A change that cannot be logged fails the whole log, so a replica never
+ * silently misses a change: this happens when the entity cannot be
+ * serialized, when the bounded queue is full, since waiting for room would
+ * stall every reader of the database, or when the background thread cannot
+ * write. The change that failed and every later one throw an
+ * {@link IllegalStateException} to the database writer, after the database
+ * already applied them, and {@link #flush()} and {@link #close()} report the
+ * failure; the replicas must then be rebuilt from a copy of the database.
+ *
+ * Record layout: length of the rest (int), sequence (long), timestamp (long),
+ * type (byte), entity type (UTF), entity id (UTF), then the before and after
+ * images, each as a length (int, -1 if absent) and its bytes.
+ */
+public class ChangeLog implements ChangeListener, AutoCloseable {
+
+    private static final Logger LOG = Log.getLogger(ChangeLog.class);
+
+    private static final Counter EVENTS = Metrics.counter("cabbie_cdc_events_total",
+            "Alterações gravadas no log de CDC");
+    private static final Counter BYTES = Metrics.counter("cabbie_cdc_bytes_written_total",
+            "Bytes gravados no log de CDC");
+
+    /** Alterações aguardando gravação, por padrão. */
+    public static final int DEFAULT_CAPACITY = 65_536;
+
+    private static final Change STOP = new Change(0, 0, null, null, null, null, null);
+
+    private final File file;
+    private final OutputStream out;
+    private final LinkedBlockingQueue<Change> queue;
+    private final Thread writer;
+
+    // Protegido pela trava de escrita do banco, que chama onChange
+    private long sequence;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = this.lock.newCondition();
+    private long written;
+    private long queued;
+    private volatile Throwable failure;
+
+    /**
+     * Opens a log, continuing the file if it exists. A record cut short by a
+     * crash at the end of the file is discarded.
+     *
+     * @param file the log file
+     * @throws IOException if the file cannot be read or opened
+     */
+    public ChangeLog(File file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens a log that holds at most the given number of changes waiting to be
+     * written.
+     *
+     * @param file     the log file
+     * @param capacity the maximum number of changes waiting to be written
+     * @throws IOException if the file cannot be read or opened
+     */
+    public ChangeLog(File file, int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+        this.file = file;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        long end = 0;
+        if (file.exists()) {
+            try (ChangeLogReader reader = new ChangeLogReader(file)) {
+                ChangeLogReader.Record record;
+                while ((record = reader.nextRecord()) != null) {
+                    this.sequence = record.sequence;
+                }
+                end = reader.getPosition();
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(end);
+            }
+        }
+        this.written = this.sequence;
+        this.queued = this.sequence;
+        this.out = new BufferedOutputStream(new FileOutputStream(file, true), 1 << 16);
+
+        this.writer = new Thread(this::run, "cdc-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the sequence number of the last change given to this log.
+     *
+     * @return the last sequence number, or 0 if the log is empty
+     */
+    public long getSequence() {
+        this.lock.lock();
+        try {
+            return this.queued;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void onChange(Type type, Object entity) {
+        this.onChange(type, null, entity);
+    }
+
+    /**
+     * Queues a change without waiting.
+     *
+     * @throws IllegalStateException if this change cannot be logged, or the log
+     *                               already failed; the log stays failed
+     */
+    @Override
+    public void onChange(Type type, Object previous, Object entity) {
+        this.checkFailure();
+        String entityType;
+        String entityId;
+        byte[] after;
+        try {
+            EntitySerializer<Object> serializer = serializer(entity);
+            entityType = serializer.getElementName();
+            entityId = idOf(entity);
+            after = image(serializer, entity);
+        } catch (IOException | IllegalArgumentException e) {
+            throw this.fail(new IllegalStateException("Could not log the change of " + entity + " in " + this.file,
+                    e));
+        }
+
+        long next = this.sequence + 1;
+        Change change = new Change(next, System.currentTimeMillis(), type, entityType, entityId, previous, after);
+        // Esperar por espaço seguraria a trava de escrita do banco e pararia também os leitores
+        if (!this.queue.offer(change)) {
+            throw this.fail(new IllegalStateException("The change log " + this.file + " has "
+                    + this.queue.size() + " changes waiting to be written"));
+        }
+        this.sequence = next;
+
+        this.lock.lock();
+        try {
+            this.queued = next;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private IllegalStateException fail(IllegalStateException e) {
+        LOG.error(() -> "Log de CDC em " + this.file + " interrompido", e);
+        if (this.failure == null) {
+            this.failure = e;
+        }
+        return e;
+    }
+
+    private void checkFailure() {
+        Throwable cause = this.failure;
+        if (cause != null) {
+            throw new IllegalStateException("The change log " + this.file + " failed", cause);
+        }
+    }
+
+    /**
+     * Waits until every change given to this log so far is in the file.
+     *
+     * @throws IOException          if the log failed to write a change
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public void flush() throws IOException, InterruptedException {
+        this.lock.lock();
+        try {
+            long target = this.queued;
+            while (this.written < target && this.writer.isAlive()) {
+                this.progress.await();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        this.throwFailure();
+    }
+
+    /**
+     * Writes the pending changes and closes the file. Detach the log from the
+     * database first.
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        if (this.writer.isAlive()) {
+            this.queue.put(STOP);
+        }
+        this.writer.join();
+        this.out.close();
+        this.throwFailure();
+    }
+
+    private void throwFailure() throws IOException {
+        Throwable cause = this.failure;
+        if (cause != null) {
+            throw new IOException("The change log " + this.file + " failed", cause);
+        }
+    }
+
+    private void run() {
+        List<Change> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch);
+
+                boolean stop = false;
+                int records = 0;
+                long bytes = 0;
+                for (Change change : batch) {
+                    if (change == STOP) {
+                        stop = true;
+                        break;
+                    }
+                    byte[] record = record(change);
+                    this.out.write(record);
+                    records++;
+                    bytes += record.length;
+                }
+                this.out.flush();
+                batch.clear();
+                EVENTS.add(records);
+                BYTES.add(bytes);
+
+                this.lock.lock();
+                try {
+                    this.written += records;
+                    this.progress.signalAll();
+                } finally {
+                    this.lock.unlock();
+                }
+                if (stop) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            LOG.error(() -> "Erro ao gravar o log de CDC em " + this.file, e);
+            this.failure = e;
+            // Descarta o que não será mais gravado; as próximas alterações recebem o erro
+            this.queue.clear();
+        } finally {
+            this.lock.lock();
+            try {
+                this.progress.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    private static byte[] record(Change change) throws IOException {
+        byte[] before = change.before == null ? null : image(serializer(change.before), change.before);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + change.after.length * 2);
+        DataOutputStream data = new DataOutputStream(buffer);
+        data.writeInt(0);
+        data.writeLong(change.sequence);
+        data.writeLong(change.timestamp);
+        data.writeByte(change.type.ordinal());
+        data.writeUTF(change.entityType);
+        data.writeUTF(change.entityId == null ? "" : change.entityId);
+        writeImage(data, before);
+        writeImage(data, change.after);
+        byte[] record = buffer.toByteArray();
+        int length = record.length - 4;
+        record[0] = (byte) (length >>> 24);
+        record[1] = (byte) (length >>> 16);
+        record[2] = (byte) (length >>> 8);
+        record[3] = (byte) length;
+        return record;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EntitySerializer<Object> serializer(Object entity) {
+        return (EntitySerializer<Object>) Serializers.get(entity.getClass());
+    }
+
+    private static byte[] image(EntitySerializer<Object> serializer, Object entity) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        serializer.writeBinary(entity, new DataOutputStream(buffer));
+        return buffer.toByteArray();
+    }
+
+    private static void writeImage(DataOutputStream data, byte[] image) throws IOException {
+        if (image == null) {
+            data.writeInt(-1);
+        } else {
+            data.writeInt(image.length);
+            data.write(image);
+        }
+    }
+
+    static String idOf(Object entity) {
+        if (entity instanceof Cabbie) {
+            return ((Cabbie) entity).getCabbieId();
+        } else if (entity instanceof Passenger) {
+            return ((Passenger) entity).getPassengerId();
+        } else if (entity instanceof Vehicle) {
+            return ((Vehicle) entity).getVehicleId();
+        } else if (entity instanceof Ride) {
+            return ((Ride) entity).getRideId();
+        } else if (entity instanceof RidePayment) {
+            return ((RidePayment) entity).getPaymentId();
+        }
+        throw new IllegalArgumentException("Unsupported entity type: " + entity.getClass().getName());
+    }
+
+    // Alteração aguardando gravação; a imagem anterior é serializada pela thread de gravação
+    private static class Change {
+        final long sequence;
+        final long timestamp;
+        final Type type;
+        final String entityType;
+        final String entityId;
+        final Object before;
+        final byte[] after;
+
+        Change(long sequence, long timestamp, Type type, String entityType, String entityId, Object before,
+                byte[] after) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.type = type;
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.before = before;
+            this.after = after;
+        }
+    }
+}
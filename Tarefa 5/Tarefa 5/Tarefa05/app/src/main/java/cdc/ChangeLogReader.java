@@ -0,0 +1,135 @@
+package cdc;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import databaseManager.ChangeListener;
+import serialization.EntitySerializer;
+import serialization.Serializers;
+
+/**
+ * Reads the records of a {@link ChangeLog} file while it is being written.
+ * {@link #next()} returns null when there is no complete record yet, and can
+ * be called again later to pick up the records appended since.
+ */
+public class ChangeLogReader implements AutoCloseable {
+
+    private static final ChangeListener.Type[] TYPES = ChangeListener.Type.values();
+
+    private final RandomAccessFile file;
+    private long position;
+
+    // Registro com as imagens ainda em bytes
+    static class Record {
+        long sequence;
+        long timestampMillis;
+        ChangeListener.Type type;
+        String entityType;
+        String entityId;
+        byte[] before;
+        byte[] after;
+    }
+
+    public ChangeLogReader(File file) throws IOException {
+        this(file, 0);
+    }
+
+    /**
+     * Opens a log file at a position returned by {@link #getPosition()}.
+     *
+     * @param file     the log file
+     * @param position the offset of a record in the file
+     * @throws IOException if the file cannot be opened
+     */
+    public ChangeLogReader(File file, long position) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.position = position;
+    }
+
+    /**
+     * Returns the offset of the next record to read.
+     *
+     * @return the position in bytes
+     */
+    public long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Returns how many bytes of the file were not read yet.
+     *
+     * @return the lag in bytes
+     * @throws IOException if the file cannot be read
+     */
+    public long getRemaining() throws IOException {
+        return Math.max(0, this.file.length() - this.position);
+    }
+
+    /**
+     * Reads the next complete record.
+     *
+     * @return the change, or null if the file has no complete record after the
+     *         current position yet
+     * @throws IOException if the file cannot be read or has an unknown entity
+     */
+    public ChangeEvent next() throws IOException {
+        Record record = this.nextRecord();
+        if (record == null) {
+            return null;
+        }
+        EntitySerializer<?> serializer = Serializers.forElement(record.entityType);
+        if (serializer == null) {
+            throw new IOException("Unknown entity type in change log: " + record.entityType);
+        }
+        return new ChangeEvent(record.sequence, record.timestampMillis, record.type, record.entityType,
+                record.entityId, decode(serializer, record.before), decode(serializer, record.after));
+    }
+
+    Record nextRecord() throws IOException {
+        long available = this.file.length() - this.position;
+        if (available < 4) {
+            return null;
+        }
+        this.file.seek(this.position);
+        int length = this.file.readInt();
+        if (length < 0 || available - 4 < length) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        this.file.readFully(bytes);
+        this.position += 4 + length;
+
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes));
+        Record record = new Record();
+        record.sequence = data.readLong();
+        record.timestampMillis = data.readLong();
+        record.type = TYPES[data.readByte()];
+        record.entityType = data.readUTF();
+        record.entityId = data.readUTF();
+        record.before = readImage(data);
+        record.after = readImage(data);
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+
+    private static byte[] readImage(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] image = new byte[length];
+        data.readFully(image);
+        return image;
+    }
+
+    private static Object decode(EntitySerializer<?> serializer, byte[] image) throws IOException {
+        return image == null ? null : serializer.readBinary(new DataInputStream(new ByteArrayInputStream(image)));
+    }
+}
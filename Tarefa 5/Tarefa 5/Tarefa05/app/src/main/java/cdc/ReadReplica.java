@@ -0,0 +1,263 @@
+package cdc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Passenger;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import cabbieManager.Vehicle;
+import logging.Log;
+import logging.Logger;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import serialization.Serializers;
+
+/**
+ * Read-only copy of a database, kept up to date by tailing its
+ * {@link ChangeLog}. It can run in another process, so analytics and support
+ * queries do not load the primary.
+ *
+ * The replica applies changes in log order and exposes how far behind it is:
+ * the sequence number it reached, the bytes of the log it has not read yet,
+ * and a histogram of the time between a change in the primary and its
+ * application here.
+ */
+public class ReadReplica implements AutoCloseable {
+
+    private static final Logger LOG = Log.getLogger(ReadReplica.class);
+
+    private static final Counter APPLIED = Metrics.counter("cabbie_replica_events_applied_total",
+            "Alterações aplicadas pela réplica de leitura");
+    private static final LatencyHistogram LAG = Metrics.histogram("cabbie_replica_lag_seconds",
+            "Atraso entre a alteração no primário e sua aplicação na réplica");
+
+    private final ChangeLogReader reader;
+    // Entidades por tipo (nome do elemento XML) e por id
+    private final Map<String, Map<String, Object>> tables = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition applied = this.lock.newCondition();
+    private volatile long appliedSequence;
+
+    private volatile boolean closed;
+    private Thread tailer;
+
+    public ReadReplica(File logFile) throws IOException {
+        this.reader = new ChangeLogReader(logFile);
+    }
+
+    /**
+     * Exposes the applied sequence and the unread bytes of the log as gauges in
+     * the {@link Metrics} registry.
+     */
+    public void registerMetrics() {
+        Metrics.gauge("cabbie_replica_sequence", "Última alteração aplicada pela réplica", () -> this.appliedSequence);
+        Metrics.gauge("cabbie_replica_lag_bytes", "Bytes do log de CDC ainda não lidos pela réplica",
+                this::getLagBytes);
+    }
+
+    /**
+     * Applies every complete record of the log that was not applied yet.
+     *
+     * @return the number of applied changes
+     * @throws IOException if the log cannot be read
+     */
+    public int catchUp() throws IOException {
+        this.lock.lock();
+        try {
+            int count = 0;
+            ChangeEvent event;
+            while ((event = this.reader.next()) != null) {
+                this.apply(event);
+                count++;
+            }
+            if (count > 0) {
+                APPLIED.add(count);
+                this.applied.signalAll();
+            }
+            return count;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Starts following the log on a background thread.
+     *
+     * @param pollMillis how long to wait before looking again when the log has
+     *                   no new records
+     */
+    public void start(long pollMillis) {
+        this.tailer = new Thread(() -> {
+            while (!this.closed) {
+                try {
+                    if (this.catchUp() == 0) {
+                        Thread.sleep(pollMillis);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    LOG.error(() -> "Erro ao ler o log de CDC", e);
+                    return;
+                }
+            }
+        }, "read-replica");
+        this.tailer.setDaemon(true);
+        this.tailer.start();
+    }
+
+    /**
+     * Waits until the replica has applied a change.
+     *
+     * @param sequence the sequence number of the change
+     * @param timeout  the maximum time to wait
+     * @param unit     the unit of the timeout
+     * @return whether the change was applied in time
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public boolean awaitSequence(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        this.lock.lock();
+        try {
+            while (this.appliedSequence < sequence) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = this.applied.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public long getAppliedSequence() {
+        return this.appliedSequence;
+    }
+
+    /**
+     * Returns how many bytes of the log were not applied yet.
+     *
+     * @return the lag in bytes, or 0 if the log cannot be read
+     */
+    public long getLagBytes() {
+        try {
+            return this.reader.getRemaining();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public Ride getRide(String rideId) {
+        return (Ride) this.table(Ride.class).get(rideId);
+    }
+
+    public Cabbie getCabbie(String cabbieId) {
+        return (Cabbie) this.table(Cabbie.class).get(cabbieId);
+    }
+
+    public Passenger getPassenger(String passengerId) {
+        return (Passenger) this.table(Passenger.class).get(passengerId);
+    }
+
+    public Vehicle getVehicle(String vehicleId) {
+        return (Vehicle) this.table(Vehicle.class).get(vehicleId);
+    }
+
+    /**
+     * Returns the rides of a passenger.
+     *
+     * @param passengerId the id of the passenger
+     * @return the rides, in no particular order
+     */
+    public List<Ride> ridesOfPassenger(String passengerId) {
+        List<Ride> rides = new ArrayList<>();
+        for (Object entity : this.table(Ride.class).values()) {
+            Ride ride = (Ride) entity;
+            if (ride.hasPassengerId(passengerId)) {
+                rides.add(ride);
+            }
+        }
+        return rides;
+    }
+
+    public int countRides() {
+        return this.table(Ride.class).size();
+    }
+
+    /**
+     * Sums the amount of every replicated payment.
+     *
+     * @return the total revenue in cents
+     */
+    public long totalRevenueCents() {
+        long total = 0;
+        for (Object entity : this.table(RidePayment.class).values()) {
+            total += ((RidePayment) entity).getAmountCents();
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        this.closed = true;
+        if (this.tailer != null) {
+            this.tailer.interrupt();
+            this.tailer.join();
+        }
+        this.lock.lock();
+        try {
+            this.reader.close();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void apply(ChangeEvent event) {
+        Map<String, Object> table = this.tables.computeIfAbsent(event.getEntityType(),
+                t -> new ConcurrentHashMap<>());
+        if (event.getAfter() != null) {
+            table.put(event.getEntityId(), event.getAfter());
+        }
+        this.appliedSequence = event.getSequence();
+        LAG.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - event.getTimestampMillis()));
+    }
+
+    private Map<String, Object> table(Class<?> type) {
+        return this.tables.computeIfAbsent(Serializers.get(type).getElementName(), t -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Follows a change log and prints the state of the replica every second.
+     *
+     * @param args the path of the change log
+     */
+    public static void main(String[] args) throws Exception {
+        try (ReadReplica replica = new ReadReplica(new File(args[0]))) {
+            replica.registerMetrics();
+            long start = System.nanoTime();
+            int caughtUp = replica.catchUp();
+            System.out.printf("Réplica alcançou %d alterações em %.2fs%n", caughtUp,
+                    (System.nanoTime() - start) / 1e9);
+
+            replica.start(10);
+            while (true) {
+                Thread.sleep(1000);
+                Log.flush();
+                System.out.println("Réplica: sequência " + replica.getAppliedSequence() + ", "
+                        + replica.countRides() + " corridas, " + replica.getLagBytes() + " bytes de atraso, "
+                        + LAG.snapshot());
+            }
+        }
+    }
+}
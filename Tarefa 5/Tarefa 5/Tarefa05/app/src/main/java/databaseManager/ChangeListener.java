@@ -0,0 +1,36 @@
+package databaseManager;
+
+/**
+ * Receives every change made to a {@link Database}.
+ *
+ * Listeners are called with the write lock of the database held, right after
+ * the change, so they see the changes in the order they were applied. They
+ * must be quick and must not call back into the database.
+ */
+public interface ChangeListener {
+
+    public enum Type {
+        INSERT, UPDATE
+    }
+
+    /**
+     * Called after an entity was inserted or updated.
+     *
+     * @param type   the kind of change
+     * @param entity the entity, as stored after the change
+     */
+    public void onChange(Type type, Object entity);
+
+    /**
+     * Called after an entity was inserted or updated, with the entity it
+     * replaced. By default it ignores the previous entity.
+     *
+     * @param type     the kind of change
+     * @param previous the entity replaced by an update, or null for an insert or
+     *                 for an update of the stored instance itself
+     * @param entity   the entity, as stored after the change
+     */
+    public default void onChange(Type type, Object previous, Object entity) {
+        this.onChange(type, entity);
+    }
+}
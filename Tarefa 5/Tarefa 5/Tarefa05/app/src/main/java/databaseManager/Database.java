@@ -1,49 +1,379 @@
 package databaseManager;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 import cabbieManager.Cabbie;
 import cabbieManager.Passenger;
+import cabbieManager.PaymentOption;
 import cabbieManager.Ride;
 import cabbieManager.RidePayment;
 import cabbieManager.Vehicle;
+import cabbieManager.Versioned;
 // import exceptions.CabbieManagerException;
+import events.DatabaseLoadEvent;
+import events.DatabaseSaveEvent;
 import exceptions.UnsupportedObjectTypeException;
+import exceptions.VersionConflictException;
+import logging.Log;
+import logging.Logger;
+import metrics.Metrics;
+import serialization.Codec;
+import serialization.EntitySerializer;
+import serialization.Serializers;
 
+/**
+ * XML-file store of every entity.
+ *
+ * The operations of this class are safe to call from many threads: writers
+ * take a write lock only to change the lists, and concurrent writes share file
+ * saves, so a write returns once a save containing it has finished. The lists
+ * returned by the getters are the live lists and are not synchronized; they
+ * are meant for single-threaded code.
+ *
+ * The file is read and written with the generated serializers; its layout is
+ * the one JAXB gives to the annotations of this class, so files written by
+ * either can be read by the other.
+ */
 @XmlRootElement(name = "database")
 public class Database {
+    private static final Logger LOG = Log.getLogger(Database.class);
+
+    // Entidades copiadas por vez sob a trava de leitura pelos streams
+    private static final int STREAM_CHUNK = 4096;
+
     private List<Cabbie> cabbies = new ArrayList<>();
     private List<Passenger> passengers = new ArrayList<>();
     private List<Vehicle> vehicles = new ArrayList<>();
     private List<Ride> rides = new ArrayList<>();
     private List<RidePayment> payments = new ArrayList<>();
 
-    private final File file = new File("Tarefa05/app/data/database.xml");
+    private final File file;
+
+    // Travas usadas com ReentrantLock em vez de synchronized para não prender threads virtuais na gravação
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock saveLock = new ReentrantLock();
+    // Número de alterações feitas (protegido por lock) e já gravadas no arquivo (protegido por saveLock)
+    private long modifications;
+    private long savedModifications;
+
+    private final CopyOnWriteArrayList<ChangeListener> listeners = new CopyOnWriteArrayList<>();
 
     public Database() {
+        this(false);
     }
 
     public Database(boolean load) {
+        this(new File("Tarefa05/app/data/database.xml"), load);
+    }
+
+    /**
+     * Creates a database stored in the given file.
+     *
+     * @param file the XML file of the database
+     * @param load whether to read the file now, if it exists
+     */
+    public Database(File file, boolean load) {
+        this.file = file;
         if (load) {
             this.load();
         }
     }
 
+    // Cópia das listas para gravar o arquivo sem segurar a trava
+    private Database(File file, Database source) {
+        this.file = file;
+        this.cabbies = new ArrayList<>(source.cabbies);
+        this.passengers = new ArrayList<>(source.passengers);
+        this.vehicles = new ArrayList<>(source.vehicles);
+        this.rides = new ArrayList<>(source.rides);
+        this.payments = new ArrayList<>(source.payments);
+    }
+
+    @XmlTransient
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Registers a listener of the inserts and updates of this database. A
+     * listener already registered is not added again.
+     *
+     * @param listener the listener
+     */
+    public void addChangeListener(ChangeListener listener) {
+        this.listeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Registers a listener and first calls it with an insert of every entity
+     * already stored. Both happen under the write lock, so the listener sees
+     * each entity once in its current state and then every change that
+     * follows, with none lost or replayed out of order in between.
+     *
+     * @param listener the listener
+     */
+    public void addChangeListenerWithReplay(ChangeListener listener) {
+        this.lock.writeLock().lock();
+        try {
+            for (List<?> list : List.of(this.cabbies, this.passengers, this.vehicles, this.rides, this.payments)) {
+                for (Object entity : list) {
+                    listener.onChange(ChangeListener.Type.INSERT, null, entity);
+                }
+            }
+            this.listeners.addIfAbsent(listener);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    // Chamado com a trava de escrita
+    private void changed(ChangeListener.Type type, Object previous, Object entity) {
+        for (ChangeListener listener : this.listeners) {
+            listener.onChange(type, previous, entity);
+        }
+    }
+
+    /**
+     * Exposes the number of busy and free cabbies of this database as gauges in
+     * the {@link Metrics} registry. The cabbies are only counted when the metrics
+     * are scraped.
+     */
+    public void registerMetrics() {
+        Metrics.gauge("cabbie_cabbies", "Motoristas cadastrados por estado", "state", "busy",
+                () -> this.countCabbies(true));
+        Metrics.gauge("cabbie_cabbies", "Motoristas cadastrados por estado", "state", "free",
+                () -> this.countCabbies(false));
+    }
+
+    private long countCabbies(boolean busy) {
+        this.lock.readLock().lock();
+        try {
+            long count = 0;
+            for (int i = 0; i < this.cabbies.size(); i++) {
+                if (this.cabbies.get(i).getIsBusy() == busy) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a cabbie by id.
+     *
+     * @param cabbieId the id of the cabbie
+     * @return the cabbie, or null if there is none with this id
+     */
+    public Cabbie findCabbie(String cabbieId) {
+        this.lock.readLock().lock();
+        try {
+            for (int i = 0; i < this.cabbies.size(); i++) {
+                if (this.cabbies.get(i).hasCabbieId(cabbieId)) {
+                    return this.cabbies.get(i);
+                }
+            }
+            return null;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a passenger by id.
+     *
+     * @param passengerId the id of the passenger
+     * @return the passenger, or null if there is none with this id
+     */
+    public Passenger findPassenger(String passengerId) {
+        this.lock.readLock().lock();
+        try {
+            for (int i = 0; i < this.passengers.size(); i++) {
+                if (this.passengers.get(i).hasPassengerId(passengerId)) {
+                    return this.passengers.get(i);
+                }
+            }
+            return null;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a vehicle by id.
+     *
+     * @param vehicleId the id of the vehicle
+     * @return the vehicle, or null if there is none with this id
+     */
+    public Vehicle findVehicle(String vehicleId) {
+        this.lock.readLock().lock();
+        try {
+            for (int i = 0; i < this.vehicles.size(); i++) {
+                if (this.vehicles.get(i).hasVehicleId(vehicleId)) {
+                    return this.vehicles.get(i);
+                }
+            }
+            return null;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a ride by id.
+     *
+     * @param rideId the id of the ride
+     * @return the ride, or null if there is none with this id
+     */
+    public Ride findRide(String rideId) {
+        this.lock.readLock().lock();
+        try {
+            for (int i = 0; i < this.rides.size(); i++) {
+                if (this.rides.get(i).hasRideId(rideId)) {
+                    return this.rides.get(i);
+                }
+            }
+            return null;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the rides that match a condition.
+     *
+     * @param filter the condition
+     * @return a copy of the matching rides, in insertion order
+     */
+    public List<Ride> findRides(Predicate<Ride> filter) {
+        List<Ride> found = new ArrayList<>();
+        this.lock.readLock().lock();
+        try {
+            for (int i = 0; i < this.rides.size(); i++) {
+                if (filter.test(this.rides.get(i))) {
+                    found.add(this.rides.get(i));
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Finds the payments that match a condition.
+     *
+     * @param filter the condition
+     * @return a copy of the matching payments, in insertion order
+     */
+    public List<RidePayment> findPayments(Predicate<RidePayment> filter) {
+        List<RidePayment> found = new ArrayList<>();
+        this.lock.readLock().lock();
+        try {
+            for (int i = 0; i < this.payments.size(); i++) {
+                if (filter.test(this.payments.get(i))) {
+                    found.add(this.payments.get(i));
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    public int countRides() {
+        this.lock.readLock().lock();
+        try {
+            return this.rides.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public int countPayments() {
+        this.lock.readLock().lock();
+        try {
+            return this.payments.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Streams the first rides, in insertion order, copying a few thousand at
+     * a time under the read lock instead of the whole list. Rides are never
+     * removed, so the same count gives the same rides, though a ride updated
+     * meanwhile may be seen in its new version.
+     *
+     * @param count the number of rides, at most {@link #countRides()}
+     * @return the stream of rides
+     */
+    public Stream<Ride> streamRides(int count) {
+        return this.stream(() -> this.rides, count);
+    }
+
+    /**
+     * Streams the first payments, in insertion order, in the same way as
+     * {@link #streamRides(int)}.
+     *
+     * @param count the number of payments, at most {@link #countPayments()}
+     * @return the stream of payments
+     */
+    public Stream<RidePayment> streamPayments(int count) {
+        return this.stream(() -> this.payments, count);
+    }
+
+    // Lê o campo a cada bloco, porque load troca as listas
+    private <T> Stream<T> stream(Supplier<List<T>> data, int count) {
+        int chunks = (count + STREAM_CHUNK - 1) / STREAM_CHUNK;
+        return IntStream.range(0, chunks).boxed().flatMap(chunk -> {
+            int from = chunk * STREAM_CHUNK;
+            this.lock.readLock().lock();
+            try {
+                List<T> list = data.get();
+                int to = Math.min(Math.min(count, list.size()), from + STREAM_CHUNK);
+                return from < to ? new ArrayList<>(list.subList(from, to)).stream() : Stream.empty();
+            } finally {
+                this.lock.readLock().unlock();
+            }
+        });
+    }
+
     @XmlElementWrapper(name = "passengers")
     @XmlElement(name = "passenger")
     public List<Passenger> getPassengers() {
@@ -74,85 +404,416 @@ public class Database {
         return this.payments;
     }
 
+    /**
+     * Sums the amount of every stored payment.
+     *
+     * @return the total revenue in cents
+     */
+    public long totalRevenueCents() {
+        this.lock.readLock().lock();
+        try {
+            long total = 0;
+            for (int i = 0; i < this.payments.size(); i++) {
+                total += this.payments.get(i).getAmountCents();
+            }
+            return total;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sums the amount of every stored payment per payment option.
+     *
+     * @return the revenue in cents, indexed by {@link PaymentOption#ordinal()}
+     */
+    public long[] revenueCentsByOption() {
+        long[] totals = new long[PaymentOption.values().length];
+        this.lock.readLock().lock();
+        try {
+            for (int i = 0; i < this.payments.size(); i++) {
+                RidePayment payment = this.payments.get(i);
+                totals[payment.getPaymentMethod().ordinal()] += payment.getAmountCents();
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return totals;
+    }
+
     public void insert(Object object) throws UnsupportedObjectTypeException {
+            long start = System.nanoTime();
 
-            if (object instanceof Cabbie) {
-                this.cabbies.add((Cabbie) object);
-            } else if (object instanceof Passenger) {
-                this.passengers.add((Passenger) object);
-            } else if (object instanceof Vehicle) {
-                this.vehicles.add((Vehicle) object);
-            } else if (object instanceof Ride) {
-                this.rides.add((Ride) object);
-            } else if (object instanceof RidePayment) {
-                this.payments.add((RidePayment) object);
-            } else {
-                throw new UnsupportedObjectTypeException(
-                        "Trying to insert unsupported object type for database insertion");
+            long version;
+            this.lock.writeLock().lock();
+            try {
+                this.add(object);
+                version = ++this.modifications;
+            } finally {
+                this.lock.writeLock().unlock();
             }
+            Metrics.DATABASE_INSERTS.inc();
+
+            this.save(version);
+            Metrics.DATABASE_INSERT_LATENCY.recordSince(start);
+
+    }
+
+    /**
+     * Inserts many objects and writes the file once, instead of once per object
+     * as {@link #insert(Object)} does.
+     *
+     * @param objects the objects to insert
+     * @throws UnsupportedObjectTypeException if an object has an unsupported
+     *                                        type; the objects before it are kept
+     *                                        in memory but the file is not written
+     */
+    public void insertAll(Collection<?> objects) throws UnsupportedObjectTypeException {
+        this.insertAll(objects.iterator());
+    }
+
+    /**
+     * Inserts the objects of an iterator and writes the file once.
+     *
+     * The write lock is held while the iterator runs, so an iterator that
+     * produces its objects lazily blocks every reader and writer of this
+     * database until it ends.
+     *
+     * @param objects the objects to insert
+     * @return the number of objects inserted
+     * @throws UnsupportedObjectTypeException if an object has an unsupported
+     *                                        type; the objects before it are kept
+     *                                        in memory but the file is not written
+     */
+    public int insertAll(Iterator<?> objects) throws UnsupportedObjectTypeException {
+        long start = System.nanoTime();
+        long version;
+        int count = 0;
+        this.lock.writeLock().lock();
+        try {
+            while (objects.hasNext()) {
+                this.add(objects.next());
+                count++;
+            }
+            version = ++this.modifications;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        Metrics.DATABASE_INSERTS.add(count);
 
-            this.save();
-        
+        this.save(version);
+        Metrics.DATABASE_INSERT_LATENCY.recordSince(start);
+        return count;
     }
 
-    private <T> void update(T newItem, List<T> data) {
+    private void add(Object object) throws UnsupportedObjectTypeException {
+        if (object instanceof Cabbie) {
+            this.cabbies.add((Cabbie) object);
+        } else if (object instanceof Passenger) {
+            this.passengers.add((Passenger) object);
+        } else if (object instanceof Vehicle) {
+            this.vehicles.add((Vehicle) object);
+        } else if (object instanceof Ride) {
+            this.rides.add((Ride) object);
+        } else if (object instanceof RidePayment) {
+            this.payments.add((RidePayment) object);
+        } else {
+            throw new UnsupportedObjectTypeException(
+                    "Trying to insert unsupported object type for database insertion");
+        }
+        this.changed(ChangeListener.Type.INSERT, null, object);
+    }
+
+    // Chamado com a trava de escrita: confere a versão de todas as cópias antes de trocar alguma
+    private <T extends Versioned> boolean update(T newItem, List<T> data) throws VersionConflictException {
+        T previous = null;
         for (int i = 0; i < data.size(); i++) {
-            Object item = data.get(i);
+            T item = data.get(i);
 
             if (item.equals(newItem)) {
+                if (item != newItem && item.getVersion() != newItem.getVersion()) {
+                    throw new VersionConflictException("Stale copy of " + newItem + ": version "
+                            + newItem.getVersion() + ", stored version " + item.getVersion());
+                }
+                if (previous == null) {
+                    previous = item;
+                }
+            }
+        }
+        if (previous == null) {
+            return false;
+        }
+
+        newItem.setVersion(newItem.getVersion() + 1);
+        for (int i = 0; i < data.size(); i++) {
+            if (data.get(i).equals(newItem)) {
                 data.set(i, newItem);
             }
         }
+        this.changed(ChangeListener.Type.UPDATE, previous == newItem ? null : previous, newItem);
+        return true;
+    }
+
+    /**
+     * Replaces the stored copy of an entity.
+     *
+     * The copy given must have the version of the stored one, which means
+     * nobody else updated the entity since it was read; its version is then
+     * incremented. A stale copy is rejected instead of overwriting a newer
+     * update. Passing the stored instance itself skips this check and changes
+     * it in place, where readers and saves can see it half updated, so code
+     * that runs concurrently must update a copy, such as {@link Ride#Ride(Ride)}.
+     * Nothing is saved when no stored entity has the id of the copy.
+     *
+     * @param object the new copy of the entity
+     * @throws VersionConflictException if the entity was updated since this copy
+     *                                  was read; nothing is changed
+     */
+    public void update(Object object) throws VersionConflictException {
+        long start = System.nanoTime();
+        long version;
+        this.lock.writeLock().lock();
+        try {
+            if (!this.replace(object)) {
+                return;
+            }
+            version = ++this.modifications;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        Metrics.DATABASE_UPDATES.inc();
+        this.save(version);
+        Metrics.DATABASE_UPDATE_LATENCY.recordSince(start);
     }
 
-    public void update(Object object) {
+    /**
+     * Updates an entity if one with its id is stored and inserts it otherwise,
+     * both under the same lock, so concurrent callers with a new entity insert
+     * it only once.
+     *
+     * @param object the entity
+     * @throws VersionConflictException       if the stored entity was updated
+     *                                        since this copy was read
+     * @throws UnsupportedObjectTypeException if the object has an unsupported
+     *                                        type
+     */
+    public void upsert(Object object) throws VersionConflictException, UnsupportedObjectTypeException {
+        long start = System.nanoTime();
+        long version;
+        boolean updated;
+        this.lock.writeLock().lock();
+        try {
+            updated = this.replace(object);
+            if (!updated) {
+                this.add(object);
+            }
+            version = ++this.modifications;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        if (updated) {
+            Metrics.DATABASE_UPDATES.inc();
+        } else {
+            Metrics.DATABASE_INSERTS.inc();
+        }
+        this.save(version);
+        (updated ? Metrics.DATABASE_UPDATE_LATENCY : Metrics.DATABASE_INSERT_LATENCY).recordSince(start);
+    }
+
+    // Chamado com a trava de escrita; falso se nenhuma entidade tem o id do objeto
+    private boolean replace(Object object) throws VersionConflictException {
         if (object instanceof Cabbie) {
-            this.update((Cabbie) object, this.cabbies);
+            return this.update((Cabbie) object, this.cabbies);
         } else if (object instanceof Passenger) {
-            this.update((Passenger) object, this.passengers);
+            return this.update((Passenger) object, this.passengers);
         } else if (object instanceof Vehicle) {
-            this.update((Vehicle) object, this.vehicles);
+            return this.update((Vehicle) object, this.vehicles);
         } else if (object instanceof Ride) {
-            this.update((Ride) object, this.rides);
+            return this.update((Ride) object, this.rides);
         } else if (object instanceof RidePayment) {
-            this.update((RidePayment) object, this.payments);
-        } else {
-            return;
+            return this.update((RidePayment) object, this.payments);
         }
-        this.save();
+        return false;
     }
 
-    private void save() {
+    /**
+     * Writes the file unless a save that already includes the given
+     * modification has finished. Writers that arrive during a save wait for it
+     * and then share the next one.
+     *
+     * @param version the modification that must be in the file
+     */
+    private void save(long version) {
+        this.saveLock.lock();
         try {
-            JAXBContext context = JAXBContext.newInstance(Database.class);
-            Marshaller marshaller = context.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            OutputStream outputStream = new FileOutputStream(this.file);
-            marshaller.marshal(this, outputStream);
-            outputStream.close();
-        } catch (JAXBException | IOException e) {
-            e.printStackTrace();
+            if (this.savedModifications >= version) {
+                return;
+            }
+
+            Database snapshot;
+            long captured;
+            this.lock.readLock().lock();
+            try {
+                snapshot = new Database(this.file, this);
+                captured = this.modifications;
+            } finally {
+                this.lock.readLock().unlock();
+            }
+
+            snapshot.write();
+            this.savedModifications = captured;
+        } finally {
+            this.saveLock.unlock();
+        }
+    }
+
+    private void write() {
+        long start = System.nanoTime();
+        DatabaseSaveEvent event = new DatabaseSaveEvent();
+        event.begin();
+        try {
+            CountingOutputStream outputStream = new CountingOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(this.file)));
+            try {
+                XMLStreamWriter out = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8");
+                out.writeStartDocument("UTF-8", "1.0");
+                out.writeStartElement("database");
+                writeList(out, "cabbies", "cabbie", this.cabbies, Serializers.get(Cabbie.class));
+                writeList(out, "passengers", "passenger", this.passengers, Serializers.get(Passenger.class));
+                writeList(out, "payments", "payment", this.payments, Serializers.get(RidePayment.class));
+                writeList(out, "rides", "ride", this.rides, Serializers.get(Ride.class));
+                writeList(out, "vehicles", "vehicle", this.vehicles, Serializers.get(Vehicle.class));
+                out.writeEndElement();
+                out.writeEndDocument();
+                out.close();
+            } finally {
+                outputStream.close();
+            }
+
+            Metrics.DATABASE_SAVES.inc();
+            Metrics.DATABASE_BYTES_WRITTEN.add(outputStream.getCount());
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.cabbies = this.cabbies.size();
+                event.passengers = this.passengers.size();
+                event.vehicles = this.vehicles.size();
+                event.rides = this.rides.size();
+                event.payments = this.payments.size();
+                event.bytes = outputStream.getCount();
+                event.commit();
+            }
+        } catch (XMLStreamException | IOException e) {
+            LOG.error(() -> "Erro ao gravar o banco de dados em " + this.file, e);
         }
+        Metrics.DATABASE_SAVE_LATENCY.recordSince(start);
     }
 
     private void load() {
+        long start = System.nanoTime();
         if (file.exists()) {
+            DatabaseLoadEvent event = new DatabaseLoadEvent();
+            event.begin();
             try {
-                JAXBContext context = JAXBContext.newInstance(Database.class);
-                Unmarshaller unmarshaller = context.createUnmarshaller();
+                Database db = new Database(this.file, false);
+                InputStream inputStream = new BufferedInputStream(new FileInputStream(this.file));
+                try {
+                    XMLStreamReader in = XMLInputFactory.newInstance().createXMLStreamReader(inputStream);
+                    in.nextTag();
+                    while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        switch (in.getLocalName()) {
+                            case "cabbies":
+                                readList(in, db.cabbies, Serializers.get(Cabbie.class));
+                                break;
+                            case "passengers":
+                                readList(in, db.passengers, Serializers.get(Passenger.class));
+                                break;
+                            case "payments":
+                                readList(in, db.payments, Serializers.get(RidePayment.class));
+                                break;
+                            case "rides":
+                                readList(in, db.rides, Serializers.get(Ride.class));
+                                break;
+                            case "vehicles":
+                                readList(in, db.vehicles, Serializers.get(Vehicle.class));
+                                break;
+                            default:
+                                Codec.skipElement(in);
+                        }
+                    }
+                    in.close();
+                } finally {
+                    inputStream.close();
+                }
 
-                InputStream inputStream = new FileInputStream(this.file);
-                Database db = (Database) unmarshaller.unmarshal(inputStream);
-                inputStream.close();
+                this.lock.writeLock().lock();
+                try {
+                    this.cabbies = db.getCabbies();
+                    this.passengers = db.getPassengers();
+                    this.rides = db.getRides();
+                    this.vehicles = db.getVehicles();
+                    this.payments = db.getPayments();
+                } finally {
+                    this.lock.writeLock().unlock();
+                }
 
-                this.cabbies = db.getCabbies();
-                this.passengers = db.getPassengers();
-                this.rides = db.getRides();
-                this.vehicles = db.getVehicles();
-                this.payments = db.getPayments();
-            } catch (JAXBException | IOException e) {
-                e.printStackTrace();
+                event.end();
+                if (event.shouldCommit()) {
+                    event.cabbies = this.cabbies.size();
+                    event.passengers = this.passengers.size();
+                    event.vehicles = this.vehicles.size();
+                    event.rides = this.rides.size();
+                    event.payments = this.payments.size();
+                    event.bytes = this.file.length();
+                    event.commit();
+                }
+            } catch (XMLStreamException | IOException e) {
+                LOG.error(() -> "Erro ao carregar o banco de dados de " + this.file, e);
             }
         }
+        Metrics.DATABASE_LOAD_LATENCY.recordSince(start);
+    }
+
+    // Grava uma lista como os @XmlElementWrapper/@XmlElement dos getters
+    private static <T> void writeList(XMLStreamWriter out, String wrapper, String element, List<T> list,
+            EntitySerializer<T> serializer) throws XMLStreamException {
+        out.writeStartElement(wrapper);
+        for (T item : list) {
+            serializer.writeXml(item, element, out);
+        }
+        out.writeEndElement();
+    }
+
+    // Lê os elementos de uma lista; o leitor termina na tag de fechamento da lista
+    private static <T> void readList(XMLStreamReader in, List<T> list, EntitySerializer<T> serializer)
+            throws XMLStreamException {
+        while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            list.add(serializer.readXml(in));
+        }
+    }
+
+    // Conta os bytes gravados no arquivo
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+
+        long getCount() {
+            return this.count;
+        }
     }
 }
\ No newline at end of file
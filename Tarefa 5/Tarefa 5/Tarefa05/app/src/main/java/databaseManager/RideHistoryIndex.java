@@ -0,0 +1,200 @@
+package databaseManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import cabbieManager.Ride;
+
+/**
+ * Rides of each passenger and of each cabbie ordered by start time, so the
+ * history of one person in a time range is found in O(log n + k) instead of
+ * scanning and sorting every ride.
+ *
+ * The index follows a {@link Database} as a {@link ChangeListener}: inserted
+ * rides are added, and an updated ride is moved when its passenger, cabbie or
+ * start time changed, such as when a cabbie accepts it. Status changes need no
+ * work, since the index holds the rides themselves.
+ */
+public class RideHistoryIndex implements ChangeListener {
+
+    // Ordem das corridas: horário de início e, no mesmo horário, id
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry entry) -> entry.startTime)
+            .thenComparing(entry -> entry.rideId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Map<String, NavigableSet<Entry>> byPassenger = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Entry>> byCabbie = new ConcurrentHashMap<>();
+    // Entrada atual de cada corrida, com as chaves com que foi indexada
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Chaves de uma corrida no momento em que foi indexada
+    private static class Entry {
+        final LocalDateTime startTime;
+        final String rideId;
+        final String passengerId;
+        final String cabbieId;
+        final Ride ride;
+
+        Entry(LocalDateTime startTime, String rideId, String passengerId, String cabbieId, Ride ride) {
+            this.startTime = startTime == null ? LocalDateTime.MIN : startTime;
+            this.rideId = rideId;
+            this.passengerId = passengerId;
+            this.cabbieId = cabbieId;
+            this.ride = ride;
+        }
+
+        Entry(Ride ride) {
+            this(ride.getStartTime(), ride.getRideId(), ride.getPassengerId(), ride.getCabbieId(), ride);
+        }
+
+        boolean sameKeys(Entry other) {
+            return this.startTime.equals(other.startTime) && Objects.equals(this.passengerId, other.passengerId)
+                    && Objects.equals(this.cabbieId, other.cabbieId);
+        }
+    }
+
+    /**
+     * Creates an index of the rides of a database and keeps it up to date with
+     * the changes that follow.
+     *
+     * @param database the database
+     * @return the index
+     */
+    public static RideHistoryIndex attach(Database database) {
+        RideHistoryIndex index = new RideHistoryIndex();
+        // Lê as corridas atuais e registra sob a mesma trava, para nenhuma alteração ficar entre as duas etapas
+        database.addChangeListenerWithReplay(index);
+        return index;
+    }
+
+    @Override
+    public void onChange(Type type, Object entity) {
+        if (entity instanceof Ride) {
+            this.add((Ride) entity);
+        }
+    }
+
+    /**
+     * Indexes a ride, or moves it if its passenger, cabbie or start time
+     * changed since it was indexed.
+     *
+     * @param ride the ride
+     */
+    public void add(Ride ride) {
+        String id = ride.getRideId();
+        if (id == null) {
+            return;
+        }
+        this.entries.compute(id, (rideId, previous) -> {
+            // Lê as chaves dentro do compute, para a última atualização da corrida sempre vencer
+            Entry entry = new Entry(ride);
+            if (previous != null && previous.sameKeys(entry) && previous.ride == ride) {
+                return previous;
+            }
+            if (previous != null) {
+                remove(this.byPassenger, previous.passengerId, previous);
+                remove(this.byCabbie, previous.cabbieId, previous);
+            }
+            add(this.byPassenger, entry.passengerId, entry);
+            add(this.byCabbie, entry.cabbieId, entry);
+            return entry;
+        });
+    }
+
+    /**
+     * Returns the rides of a passenger that started in a time range.
+     *
+     * @param passengerId the id of the passenger
+     * @param from        the start of the range, inclusive
+     * @param to          the end of the range, exclusive
+     * @return the rides, ordered by start time
+     */
+    public List<Ride> ridesOfPassenger(String passengerId, LocalDateTime from, LocalDateTime to) {
+        return range(this.byPassenger.get(passengerId), from, to);
+    }
+
+    /**
+     * Returns every ride of a passenger.
+     *
+     * @param passengerId the id of the passenger
+     * @return the rides, ordered by start time
+     */
+    public List<Ride> ridesOfPassenger(String passengerId) {
+        return range(this.byPassenger.get(passengerId), null, null);
+    }
+
+    /**
+     * Returns the rides of a cabbie that started in a time range.
+     *
+     * @param cabbieId the id of the cabbie
+     * @param from     the start of the range, inclusive
+     * @param to       the end of the range, exclusive
+     * @return the rides, ordered by start time
+     */
+    public List<Ride> ridesOfCabbie(String cabbieId, LocalDateTime from, LocalDateTime to) {
+        return range(this.byCabbie.get(cabbieId), from, to);
+    }
+
+    /**
+     * Returns every ride accepted by a cabbie.
+     *
+     * @param cabbieId the id of the cabbie
+     * @return the rides, ordered by start time
+     */
+    public List<Ride> ridesOfCabbie(String cabbieId) {
+        return range(this.byCabbie.get(cabbieId), null, null);
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    private static List<Ride> range(NavigableSet<Entry> rides, LocalDateTime from, LocalDateTime to) {
+        List<Ride> found = new ArrayList<>();
+        if (rides == null) {
+            return found;
+        }
+        NavigableSet<Entry> range = rides;
+        if (from != null && to != null) {
+            if (!from.isBefore(to)) {
+                return found;
+            }
+            range = rides.subSet(bound(from), true, bound(to), false);
+        } else if (from != null) {
+            range = rides.tailSet(bound(from), true);
+        } else if (to != null) {
+            range = rides.headSet(bound(to), false);
+        }
+        for (Entry entry : range) {
+            found.add(entry.ride);
+        }
+        return found;
+    }
+
+    // Entrada sem id, que fica antes de todas as corridas do mesmo horário
+    private static Entry bound(LocalDateTime time) {
+        return new Entry(time, null, null, null, null);
+    }
+
+    private static void add(Map<String, NavigableSet<Entry>> index, String key, Entry entry) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+        }
+    }
+
+    private static void remove(Map<String, NavigableSet<Entry>> index, String key, Entry entry) {
+        if (key != null) {
+            NavigableSet<Entry> rides = index.get(key);
+            if (rides != null) {
+                rides.remove(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package databaseManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Passenger;
+import cabbieManager.PaymentOption;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import cabbieManager.Vehicle;
+import exceptions.UnsupportedObjectTypeException;
+import exceptions.VersionConflictException;
+import logging.Log;
+import logging.Logger;
+import metrics.Metrics;
+
+/**
+ * Router in front of several {@link Database} instances, each with its own
+ * file and its own writer thread, so writes to different shards run in
+ * parallel instead of sharing one lock and one file.
+ *
+ * Passengers and their rides are placed by a hash of the passenger id, and
+ * cabbies and their vehicles by a hash of the cabbie id. A payment goes to the
+ * shard of its ride, so the data of a passenger stays together. The shard of
+ * each ride is not kept in memory: a payment is placed next to a ride of the
+ * same {@link #insertAll(Collection)}, by the passenger id given to
+ * {@link #insertPaymentAsync(RidePayment, String)}, or else by looking its
+ * ride up in every shard. Lookups by passenger or cabbie go to one shard;
+ * other queries, including lookups by ride id, are sent to every shard and
+ * the results are combined.
+ *
+ * Every operation of a shard runs on its thread, in the order it was
+ * submitted. Inserts waiting in the queue of a shard are written together,
+ * with a single save of its file.
+ */
+public class ShardedDatabase implements AutoCloseable {
+
+    private static final Logger LOG = Log.getLogger(ShardedDatabase.class);
+
+    private final Shard[] shards;
+
+    /**
+     * Creates the shards in subdirectories of a directory.
+     *
+     * @param directory the data directory; shard i is stored in
+     *                  {@code shard-i/database.xml}
+     * @param shards    the number of shards
+     * @param load      whether to read the files of the shards now, if they
+     *                  exist
+     */
+    public ShardedDatabase(File directory, int shards, boolean load) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("At least one shard is required: " + shards);
+        }
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            File shardDirectory = new File(directory, "shard-" + i);
+            shardDirectory.mkdirs();
+            this.shards[i] = new Shard(i, new Database(new File(shardDirectory, "database.xml"), load));
+        }
+    }
+
+    public int getShardCount() {
+        return this.shards.length;
+    }
+
+    /**
+     * Returns the database of a shard, for code that works on one shard at a
+     * time. Writes to it bypass the writer thread of the shard.
+     *
+     * @param index the index of the shard
+     * @return the database of the shard
+     */
+    public Database getShard(int index) {
+        return this.shards[index].database;
+    }
+
+    /**
+     * Exposes the number of operations waiting for each shard as gauges in the
+     * {@link Metrics} registry.
+     */
+    public void registerMetrics() {
+        for (Shard shard : this.shards) {
+            Metrics.gauge("cabbie_shard_queue_depth", "Operações aguardando a thread do shard", "shard",
+                    String.valueOf(shard.index), shard.queue::size);
+        }
+    }
+
+    /**
+     * Returns the shard that stores an entity. The ride of a payment is looked
+     * up in every shard, and a payment whose ride is in none goes to the shard
+     * given by a hash of its ride id.
+     *
+     * @param object the entity
+     * @return the index of the shard
+     * @throws UnsupportedObjectTypeException if the database does not store
+     *                                        this type
+     */
+    public int shardOf(Object object) throws UnsupportedObjectTypeException {
+        if (object instanceof RidePayment) {
+            return this.shardOfRide(((RidePayment) object).getRideId()).join();
+        }
+        return this.place(object);
+    }
+
+    // Shard de tudo que não é pagamento, calculado só a partir da própria entidade
+    private int place(Object object) throws UnsupportedObjectTypeException {
+        if (object instanceof Passenger) {
+            return this.hash(((Passenger) object).getPassengerId());
+        } else if (object instanceof Ride) {
+            return this.hash(((Ride) object).getPassengerId());
+        } else if (object instanceof Cabbie) {
+            return this.hash(((Cabbie) object).getCabbieId());
+        } else if (object instanceof Vehicle) {
+            return this.hash(((Vehicle) object).getCabbieId());
+        }
+        throw new UnsupportedObjectTypeException("Trying to insert unsupported object type for database insertion");
+    }
+
+    /**
+     * Inserts an entity in its shard and waits until the shard has saved it.
+     *
+     * @param object the entity
+     * @throws UnsupportedObjectTypeException if the database does not store
+     *                                        this type
+     */
+    public void insert(Object object) throws UnsupportedObjectTypeException {
+        join(this.insertAsync(object));
+    }
+
+    /**
+     * Queues the insertion of an entity in its shard.
+     *
+     * @param object the entity
+     * @return a future completed once the shard has saved the entity
+     * @throws UnsupportedObjectTypeException if the database does not store
+     *                                        this type
+     */
+    public CompletableFuture<Void> insertAsync(Object object) throws UnsupportedObjectTypeException {
+        if (object instanceof RidePayment) {
+            return this.shardOfRide(((RidePayment) object).getRideId())
+                    .thenCompose(shard -> this.shards[shard].insert(object));
+        }
+        return this.shards[this.place(object)].insert(object);
+    }
+
+    /**
+     * Queues the insertion of a payment in the shard of the passenger of its
+     * ride, without looking the ride up.
+     *
+     * @param payment     the payment
+     * @param passengerId the id of the passenger of the ride of the payment
+     * @return a future completed once the shard has saved the payment
+     */
+    public CompletableFuture<Void> insertPaymentAsync(RidePayment payment, String passengerId) {
+        return this.shards[this.hash(passengerId)].insert(payment);
+    }
+
+    /**
+     * Inserts many entities, with one save per shard, and waits for every
+     * shard. Nothing is queued if an entity has an unsupported type.
+     *
+     * @param objects the entities
+     * @throws UnsupportedObjectTypeException if the database does not store
+     *                                        the type of an entity
+     */
+    public void insertAll(Collection<?> objects) throws UnsupportedObjectTypeException {
+        List<List<Object>> batches = new ArrayList<>(this.shards.length);
+        for (int i = 0; i < this.shards.length; i++) {
+            batches.add(new ArrayList<>());
+        }
+        // As corridas primeiro, para os pagamentos da mesma coleção irem para o shard delas sem busca
+        Map<String, Integer> rideShards = new HashMap<>();
+        for (Object object : objects) {
+            if (object instanceof Ride) {
+                int shard = this.place(object);
+                rideShards.put(((Ride) object).getRideId(), shard);
+                batches.get(shard).add(object);
+            }
+        }
+        for (Object object : objects) {
+            if (object instanceof RidePayment) {
+                Integer shard = rideShards.get(((RidePayment) object).getRideId());
+                batches.get(shard != null ? shard : this.shardOf(object)).add(object);
+            } else if (!(object instanceof Ride)) {
+                batches.get(this.place(object)).add(object);
+            }
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < this.shards.length; i++) {
+            if (!batches.get(i).isEmpty()) {
+                List<Object> batch = batches.get(i);
+                futures.add(this.shards[i].submit(database -> {
+                    database.insertAll(batch);
+                    return null;
+                }));
+            }
+        }
+        join(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])));
+    }
+
+    /**
+     * Replaces the stored copy of an entity in its shard, as
+     * {@link Database#update(Object)} does.
+     *
+     * @param object the new copy of the entity
+     * @throws VersionConflictException if the entity was updated since this copy
+     *                                  was read
+     */
+    public void update(Object object) throws VersionConflictException {
+        int shard;
+        try {
+            shard = this.shardOf(object);
+        } catch (UnsupportedObjectTypeException e) {
+            // Database.update ignora tipos que não armazena
+            return;
+        }
+        try {
+            this.shards[shard].submit(database -> {
+                database.update(object);
+                return null;
+            }).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof VersionConflictException) {
+                throw (VersionConflictException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public Cabbie findCabbie(String cabbieId) {
+        return this.shards[this.hash(cabbieId)].submit(database -> database.findCabbie(cabbieId)).join();
+    }
+
+    public Ride findRide(String rideId) {
+        for (Ride ride : this.scatter(database -> database.findRide(rideId))) {
+            if (ride != null) {
+                return ride;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the rides of a passenger, which are all in one shard.
+     *
+     * @param passengerId the id of the passenger
+     * @return the rides, in insertion order
+     */
+    public List<Ride> findRidesOfPassenger(String passengerId) {
+        return this.shards[this.hash(passengerId)]
+                .submit(database -> database.findRides(ride -> ride.hasPassengerId(passengerId))).join();
+    }
+
+    /**
+     * Finds the rides that match a condition in every shard.
+     *
+     * @param filter the condition, tested concurrently by the shard threads
+     * @return the matching rides, grouped by shard
+     */
+    public List<Ride> findRides(Predicate<Ride> filter) {
+        List<Ride> found = new ArrayList<>();
+        for (List<Ride> rides : this.scatter(database -> database.findRides(filter))) {
+            found.addAll(rides);
+        }
+        return found;
+    }
+
+    public long totalRevenueCents() {
+        long total = 0;
+        for (long revenue : this.scatter(Database::totalRevenueCents)) {
+            total += revenue;
+        }
+        return total;
+    }
+
+    /**
+     * Sums the amount of every payment of every shard per payment option.
+     *
+     * @return the revenue in cents, indexed by {@link PaymentOption#ordinal()}
+     */
+    public long[] revenueCentsByOption() {
+        long[] totals = new long[PaymentOption.values().length];
+        for (long[] revenue : this.scatter(Database::revenueCentsByOption)) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += revenue[i];
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Stops the shard threads after the operations already queued. Operations
+     * submitted afterwards fail right away.
+     *
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    @Override
+    public void close() throws InterruptedException {
+        for (Shard shard : this.shards) {
+            shard.stop();
+        }
+        for (Shard shard : this.shards) {
+            shard.thread.join();
+        }
+    }
+
+    // Executa uma consulta em todos os shards ao mesmo tempo e junta os resultados na ordem dos shards
+    private <R> List<R> scatter(Function<Database, R> query) {
+        List<CompletableFuture<R>> futures = new ArrayList<>(this.shards.length);
+        for (Shard shard : this.shards) {
+            futures.add(shard.submit(query::apply));
+        }
+        List<R> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<R> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    // Procura a corrida em todos os shards; as inserções já enfileiradas em cada um são vistas pela busca
+    private CompletableFuture<Integer> shardOfRide(String rideId) {
+        if (rideId == null) {
+            return CompletableFuture.completedFuture(this.hash(null));
+        }
+        List<CompletableFuture<Boolean>> found = new ArrayList<>(this.shards.length);
+        for (Shard shard : this.shards) {
+            found.add(shard.submit(database -> database.findRide(rideId) != null));
+        }
+        return CompletableFuture.allOf(found.toArray(new CompletableFuture[0])).thenApply(done -> {
+            for (int i = 0; i < found.size(); i++) {
+                if (found.get(i).join()) {
+                    return i;
+                }
+            }
+            return this.hash(rideId);
+        });
+    }
+
+    private int hash(String key) {
+        return key == null ? 0 : Math.floorMod(key.hashCode(), this.shards.length);
+    }
+
+    private static void join(CompletableFuture<?> future) throws UnsupportedObjectTypeException {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UnsupportedObjectTypeException) {
+                throw (UnsupportedObjectTypeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Operação de um shard; as inserções ficam em object para serem agrupadas
+    private static class Operation {
+        final Object object;
+        final ShardTask<?> task;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        Operation(Object object, ShardTask<?> task) {
+            this.object = object;
+            this.task = task;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ShardTask<R> {
+        R run(Database database) throws Exception;
+    }
+
+    private static class Shard {
+        static final Operation STOP = new Operation(null, null);
+
+        final int index;
+        final Database database;
+        final LinkedBlockingQueue<Operation> queue = new LinkedBlockingQueue<>();
+        final Thread thread;
+        // Protege closed junto com a fila, para nenhuma operação entrar depois de STOP
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean closed;
+
+        Shard(int index, Database database) {
+            this.index = index;
+            this.database = database;
+            this.thread = new Thread(this::run, "database-shard-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        CompletableFuture<Void> insert(Object object) {
+            Operation operation = new Operation(object, null);
+            this.enqueue(operation);
+            return operation.future.thenApply(result -> null);
+        }
+
+        @SuppressWarnings("unchecked")
+        <R> CompletableFuture<R> submit(ShardTask<R> task) {
+            Operation operation = new Operation(null, task);
+            this.enqueue(operation);
+            return (CompletableFuture<R>) operation.future;
+        }
+
+        void stop() {
+            this.lock.lock();
+            try {
+                if (!this.closed) {
+                    this.closed = true;
+                    this.queue.add(STOP);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private void enqueue(Operation operation) {
+            this.lock.lock();
+            try {
+                if (this.closed) {
+                    operation.future.completeExceptionally(this.closedException());
+                } else {
+                    this.queue.add(operation);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private IllegalStateException closedException() {
+            return new IllegalStateException("Shard " + this.index + " is closed");
+        }
+
+        private void run() {
+            List<Operation> batch = new ArrayList<>();
+            List<Operation> inserts = new ArrayList<>();
+            boolean stopped = false;
+            while (!stopped) {
+                try {
+                    batch.add(this.queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                this.queue.drainTo(batch);
+
+                for (Operation operation : batch) {
+                    if (operation == STOP || stopped) {
+                        stopped = true;
+                        if (operation != STOP) {
+                            operation.future.completeExceptionally(this.closedException());
+                        }
+                    } else if (operation.task == null) {
+                        inserts.add(operation);
+                    } else {
+                        // As inserções anteriores são gravadas antes, para a tarefa vê-las
+                        this.insert(inserts);
+                        try {
+                            operation.future.complete(operation.task.run(this.database));
+                        } catch (Throwable e) {
+                            // Qualquer erro fica na operação, para quem a enviou; a thread continua atendendo o shard
+                            operation.future.completeExceptionally(e);
+                        }
+                    }
+                }
+                this.insert(inserts);
+                batch.clear();
+            }
+
+            // Interrompida: falha o que ainda estava na fila, em vez de deixar quem espera travado
+            this.stop();
+            for (Operation operation : this.queue) {
+                if (operation != STOP) {
+                    operation.future.completeExceptionally(this.closedException());
+                }
+            }
+            this.queue.clear();
+        }
+
+        // Grava as inserções pendentes com um único salvamento do arquivo
+        private void insert(List<Operation> inserts) {
+            if (inserts.isEmpty()) {
+                return;
+            }
+            List<Object> objects = new ArrayList<>(inserts.size());
+            for (Operation operation : inserts) {
+                objects.add(operation.object);
+            }
+            try {
+                this.database.insertAll(objects);
+                for (Operation operation : inserts) {
+                    operation.future.complete(null);
+                }
+            } catch (Throwable e) {
+                LOG.error(() -> "Erro ao inserir no shard " + this.index, e);
+                for (Operation operation : inserts) {
+                    operation.future.completeExceptionally(e);
+                }
+            }
+            inserts.clear();
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package datagen;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Location;
+import cabbieManager.Passenger;
+import cabbieManager.PaymentOption;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import cabbieManager.Vehicle;
+import databaseManager.Database;
+import exceptions.CabbieManagerException;
+import exceptions.InvalidPaymentMethodException;
+import routing.RoadGraph;
+import utils.CabbieInfoGenerator;
+import utils.PassengerInfoGenerator;
+import utils.VehicleInfoGenerator;
+
+/**
+ * Generates large synthetic datasets of cabbies, vehicles, passengers, rides
+ * and payments for load testing.
+ *
+ * The work is cut into chunks of at most {@link #getChunkSize()} entities, and
+ * each chunk gets its own {@link SplittableRandom} split from the seed before
+ * any chunk runs. Chunks are then generated in parallel, and the same seed and
+ * settings always produce the same chunks no matter how many cores run them.
+ * Ids are derived from the seed and the entity number, so rides can refer to
+ * cabbies and passengers generated by other chunks.
+ */
+public class BulkDataGenerator {
+
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    private static final int CABBIE = 1;
+    private static final int VEHICLE = 2;
+    private static final int PASSENGER = 3;
+    private static final int RIDE = 4;
+    private static final int PAYMENT = 5;
+
+    // Quantas vezes sortear o destino antes de desistir de uma rota válida
+    private static final int DROP_ATTEMPTS = 16;
+
+    private final long seed;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private Distribution<Location> pickupDistribution = Distribution.uniform(Location.values());
+    private Distribution<Location> dropDistribution = Distribution.uniform(Location.values());
+    private Distribution<Integer> hourDistribution = defaultHours();
+    private Distribution<PaymentOption> paymentDistribution = defaultPaymentOptions();
+    private LocalDate firstDay = LocalDate.of(2024, 1, 1);
+    private int days = 30;
+
+    public BulkDataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Hours of the day weighted by a typical demand curve, with peaks in the
+     * morning and evening rush hours.
+     *
+     * @return the distribution of ride start hours
+     */
+    public static Distribution<Integer> defaultHours() {
+        double[] weights = { 1, 0.6, 0.4, 0.3, 0.4, 1, 3, 6, 7, 4, 3, 3, 4, 4, 3, 3, 4, 6, 7, 6, 4, 3, 2, 1.5 };
+        Integer[] hours = new Integer[24];
+        for (int hour = 0; hour < hours.length; hour++) {
+            hours[hour] = hour;
+        }
+        return new Distribution<>(hours, weights);
+    }
+
+    /**
+     * Payment options weighted by how often each one is chosen.
+     *
+     * @return the distribution of payment options
+     */
+    public static Distribution<PaymentOption> defaultPaymentOptions() {
+        return new Distribution<>(
+                new PaymentOption[] { PaymentOption.PIX, PaymentOption.CREDIT_CARD, PaymentOption.DEBIT_CARD,
+                        PaymentOption.CASH, PaymentOption.VOUCHER },
+                new double[] { 35, 30, 15, 15, 5 });
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public void setPickupDistribution(Distribution<Location> pickupDistribution) {
+        this.pickupDistribution = pickupDistribution;
+    }
+
+    public void setDropDistribution(Distribution<Location> dropDistribution) {
+        this.dropDistribution = dropDistribution;
+    }
+
+    /**
+     * Sets the distribution of the hour of the day, from 0 to 23, at which rides
+     * start.
+     *
+     * @param hourDistribution the distribution of start hours
+     */
+    public void setHourDistribution(Distribution<Integer> hourDistribution) {
+        this.hourDistribution = hourDistribution;
+    }
+
+    public void setPaymentDistribution(Distribution<PaymentOption> paymentDistribution) {
+        this.paymentDistribution = paymentDistribution;
+    }
+
+    /**
+     * Sets the period in which rides start.
+     *
+     * @param firstDay the first day of the period
+     * @param days     the number of days of the period
+     */
+    public void setPeriod(LocalDate firstDay, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("The period must have at least one day");
+        }
+        this.firstDay = firstDay;
+        this.days = days;
+    }
+
+    /**
+     * Generates a dataset and hands each chunk to {@code sink} as soon as it is
+     * ready. Chunks are generated in parallel, so the sink is called from
+     * several threads and in no particular order.
+     *
+     * Every cabbie gets one vehicle, and every ride is finished and paid.
+     *
+     * @param cabbies    the number of cabbies
+     * @param passengers the number of passengers
+     * @param rides      the number of rides
+     * @param sink       receives the chunks; must be thread-safe
+     * @return the number of generated objects
+     */
+    public long generate(int cabbies, int passengers, int rides, Consumer<DataChunk> sink) {
+        if (rides > 0 && (cabbies <= 0 || passengers <= 0)) {
+            throw new IllegalArgumentException("Rides need at least one cabbie and one passenger");
+        }
+
+        List<Task> tasks = this.plan(cabbies, passengers, rides);
+        return IntStream.range(0, tasks.size()).parallel().mapToLong(i -> {
+            DataChunk chunk = this.run(tasks.get(i), i, cabbies, passengers);
+            sink.accept(chunk);
+            return chunk.size();
+        }).sum();
+    }
+
+    /**
+     * Generates a dataset into a database and writes its file once. The objects
+     * are inserted in chunk order, so the file only depends on the seed and the
+     * settings. Each chunk goes into the database as soon as it and the chunks
+     * before it are ready, with only a few chunks generated ahead in parallel,
+     * so the dataset is never held twice in memory. The database stays locked
+     * for writing until the generation ends, since the chunks are produced
+     * inside {@link Database#insertAll(Iterator)}: run it before other threads
+     * use the database.
+     *
+     * @param database   the database to fill
+     * @param cabbies    the number of cabbies
+     * @param passengers the number of passengers
+     * @param rides      the number of rides
+     * @return the number of generated objects
+     * @throws CabbieManagerException if the database rejects an object
+     */
+    public long generateInto(Database database, int cabbies, int passengers, int rides)
+            throws CabbieManagerException {
+        if (rides > 0 && (cabbies <= 0 || passengers <= 0)) {
+            throw new IllegalArgumentException("Rides need at least one cabbie and one passenger");
+        }
+
+        // Segura a trava de escrita do banco durante toda a geração
+        return database.insertAll(new ChunkIterator(this.plan(cabbies, passengers, rides), cabbies, passengers));
+    }
+
+    /**
+     * Generates a dataset into a directory, writing each chunk to its own
+     * database file named {@code part-NNNNN.xml} as soon as it is ready.
+     *
+     * @param directory  the directory of the files; it is created if needed
+     * @param cabbies    the number of cabbies
+     * @param passengers the number of passengers
+     * @param rides      the number of rides
+     * @return the number of generated objects
+     */
+    public long generateToDirectory(File directory, int cabbies, int passengers, int rides) {
+        directory.mkdirs();
+        return this.generate(cabbies, passengers, rides, chunk -> {
+            File file = new File(directory, String.format("part-%05d.xml", chunk.getIndex()));
+            try {
+                new Database(file, false).insertAll(chunk.getAll());
+            } catch (CabbieManagerException e) {
+                throw new IllegalStateException("Erro ao gravar " + file, e);
+            }
+        });
+    }
+
+    // Divide cada tipo de entidade em fatias e sorteia um gerador para cada uma, sempre na mesma ordem
+    private List<Task> plan(int cabbies, int passengers, int rides) {
+        SplittableRandom root = new SplittableRandom(this.seed);
+        List<Task> tasks = new ArrayList<>();
+        this.plan(tasks, root, CABBIE, cabbies);
+        this.plan(tasks, root, PASSENGER, passengers);
+        this.plan(tasks, root, RIDE, rides);
+        return tasks;
+    }
+
+    private void plan(List<Task> tasks, SplittableRandom root, int kind, int count) {
+        for (int first = 0; first < count; first += this.chunkSize) {
+            tasks.add(new Task(kind, first, Math.min(first + this.chunkSize, count), root.split()));
+        }
+    }
+
+    private DataChunk run(Task task, int index, int cabbies, int passengers) {
+        DataChunk chunk = new DataChunk(index);
+        SplittableRandom random = task.random;
+
+        for (int i = task.first; i < task.last; i++) {
+            if (task.kind == CABBIE) {
+                String cabbieId = this.id(CABBIE, i);
+                Cabbie cabbie = new Cabbie();
+                cabbie.register(new CabbieInfoGenerator(random, () -> cabbieId));
+                chunk.getCabbies().add(cabbie);
+
+                String vehicleId = this.id(VEHICLE, i);
+                Vehicle vehicle = new Vehicle(cabbieId);
+                vehicle.registerVehicle(new VehicleInfoGenerator(random, () -> vehicleId));
+                chunk.getVehicles().add(vehicle);
+            } else if (task.kind == PASSENGER) {
+                String passengerId = this.id(PASSENGER, i);
+                Passenger passenger = new Passenger();
+                passenger.register(new PassengerInfoGenerator(random, () -> passengerId));
+                chunk.getPassengers().add(passenger);
+            } else {
+                this.ride(chunk, random, i, cabbies, passengers);
+            }
+        }
+        return chunk;
+    }
+
+    private void ride(DataChunk chunk, SplittableRandom random, int index, int cabbies, int passengers) {
+        RoadGraph graph = RoadGraph.getDefault();
+        Location pickup = this.pickupDistribution.sample(random);
+        Location drop = this.dropDistribution.sample(random);
+        for (int attempt = 1; attempt < DROP_ATTEMPTS && !routable(graph, pickup, drop); attempt++) {
+            drop = this.dropDistribution.sample(random);
+        }
+        if (!routable(graph, pickup, drop)) {
+            return;
+        }
+
+        int cabbie = random.nextInt(cabbies);
+        LocalDateTime startTime = this.firstDay.plusDays(random.nextInt(this.days))
+                .atTime(this.hourDistribution.sample(random), random.nextInt(60), random.nextInt(60));
+
+        Ride ride = new Ride(this.id(PASSENGER, random.nextInt(passengers)));
+        ride.setRideId(this.id(RIDE, index));
+        ride.setCabbieId(this.id(CABBIE, cabbie));
+        ride.setVehicleId(this.id(VEHICLE, cabbie));
+        ride.setPickupLocation(pickup);
+        ride.setDropLocation(drop);
+        ride.setStartTime(startTime);
+        ride.setDistance(graph.distance(pickup, drop));
+        ride.setStatus("FINALIZADA");
+        chunk.getRides().add(ride);
+
+        try {
+            RidePayment payment = new RidePayment(ride.getRideId(), startTime, ride.getDistance(),
+                    this.paymentDistribution.sample(random).getName());
+            payment.setPaymentId(this.id(PAYMENT, index));
+            chunk.getPayments().add(payment);
+        } catch (CabbieManagerException | InvalidPaymentMethodException e) {
+            // Não acontece: a distância é positiva e a forma de pagamento vem do próprio enum
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean routable(RoadGraph graph, Location pickup, Location drop) {
+        float distance = graph.distance(pickup, drop);
+        return distance > 0 && !Float.isInfinite(distance);
+    }
+
+    // UUID versão 4 derivado da semente; a parte baixa carrega o número da entidade, então nunca se repete
+    private String id(int kind, long index) {
+        long msb = mix(this.seed + kind * 0x9E3779B97F4A7C15L + index * 0xBF58476D1CE4E5B9L);
+        msb = (msb & 0xFFFFFFFFFFFF0FFFL) | 0x4000L;
+        long lsb = 0x8000000000000000L | ((long) kind << 56) | index;
+        return new UUID(msb, lsb).toString();
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Entrega os objetos em ordem de fatia, gerando poucas fatias à frente em paralelo
+    private class ChunkIterator implements Iterator<Object> {
+        private final List<Task> tasks;
+        private final int cabbies;
+        private final int passengers;
+        private final int lookahead = Runtime.getRuntime().availableProcessors() * 2;
+        private final ArrayDeque<CompletableFuture<DataChunk>> ahead = new ArrayDeque<>();
+        private int submitted;
+        private Iterator<Object> current = Collections.emptyIterator();
+
+        ChunkIterator(List<Task> tasks, int cabbies, int passengers) {
+            this.tasks = tasks;
+            this.cabbies = cabbies;
+            this.passengers = passengers;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!this.current.hasNext()) {
+                this.fill();
+                if (this.ahead.isEmpty()) {
+                    return false;
+                }
+                this.current = this.ahead.poll().join().getAll().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Object next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.current.next();
+        }
+
+        private void fill() {
+            while (this.ahead.size() < this.lookahead && this.submitted < this.tasks.size()) {
+                int index = this.submitted++;
+                Task task = this.tasks.get(index);
+                this.ahead.add(CompletableFuture.supplyAsync(
+                        () -> BulkDataGenerator.this.run(task, index, this.cabbies, this.passengers)));
+            }
+        }
+    }
+
+    private static class Task {
+        private final int kind;
+        private final int first;
+        private final int last;
+        private final SplittableRandom random;
+
+        Task(int kind, int first, int last, SplittableRandom random) {
+            this.kind = kind;
+            this.first = first;
+            this.last = last;
+            this.random = random;
+        }
+    }
+}
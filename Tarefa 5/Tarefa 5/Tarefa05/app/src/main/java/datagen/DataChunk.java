@@ -0,0 +1,72 @@
+package datagen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Passenger;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import cabbieManager.Vehicle;
+
+/**
+ * One slice of a generated dataset. Chunks are numbered in generation order and
+ * the same seed always produces the same chunks.
+ */
+public class DataChunk {
+
+    private final int index;
+    private final List<Cabbie> cabbies = new ArrayList<>();
+    private final List<Vehicle> vehicles = new ArrayList<>();
+    private final List<Passenger> passengers = new ArrayList<>();
+    private final List<Ride> rides = new ArrayList<>();
+    private final List<RidePayment> payments = new ArrayList<>();
+
+    DataChunk(int index) {
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    public List<Cabbie> getCabbies() {
+        return this.cabbies;
+    }
+
+    public List<Vehicle> getVehicles() {
+        return this.vehicles;
+    }
+
+    public List<Passenger> getPassengers() {
+        return this.passengers;
+    }
+
+    public List<Ride> getRides() {
+        return this.rides;
+    }
+
+    public List<RidePayment> getPayments() {
+        return this.payments;
+    }
+
+    /**
+     * Returns every object of the chunk, in the order they should be inserted.
+     *
+     * @return the objects of the chunk
+     */
+    public List<Object> getAll() {
+        List<Object> all = new ArrayList<>(this.size());
+        all.addAll(this.cabbies);
+        all.addAll(this.vehicles);
+        all.addAll(this.passengers);
+        all.addAll(this.rides);
+        all.addAll(this.payments);
+        return all;
+    }
+
+    public int size() {
+        return this.cabbies.size() + this.vehicles.size() + this.passengers.size() + this.rides.size()
+                + this.payments.size();
+    }
+}
@@ -0,0 +1,81 @@
+package datagen;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Discrete distribution over a fixed set of values, sampled by binary search
+ * over the cumulative weights.
+ *
+ * @param <T> the type of the values
+ */
+public class Distribution<T> {
+
+    private final Object[] values;
+    private final double[] cumulative;
+
+    /**
+     * Creates a distribution where each value is drawn with a probability
+     * proportional to its weight.
+     *
+     * @param values  the values
+     * @param weights the weight of each value; must not be negative and must not
+     *                all be zero
+     * @throws IllegalArgumentException if the arrays differ in length or the
+     *                                  weights are invalid
+     */
+    public Distribution(T[] values, double[] weights) throws IllegalArgumentException {
+        if (values.length == 0 || values.length != weights.length) {
+            throw new IllegalArgumentException("Values and weights must have the same, non-zero length");
+        }
+        this.values = Arrays.copyOf(values, values.length, Object[].class);
+        this.cumulative = new double[weights.length];
+
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0 || Double.isNaN(weights[i])) {
+                throw new IllegalArgumentException("Weights cannot be negative: " + weights[i]);
+            }
+            total += weights[i];
+            this.cumulative[i] = total;
+        }
+        if (total <= 0 || Double.isInfinite(total)) {
+            throw new IllegalArgumentException("Weights must have a positive, finite sum");
+        }
+    }
+
+    /**
+     * Creates a distribution where every value is equally likely.
+     *
+     * @param <T>    the type of the values
+     * @param values the values
+     * @return the distribution
+     */
+    public static <T> Distribution<T> uniform(T[] values) {
+        double[] weights = new double[values.length];
+        Arrays.fill(weights, 1);
+        return new Distribution<>(values, weights);
+    }
+
+    /**
+     * Draws one value.
+     *
+     * @param random the source of randomness
+     * @return the drawn value
+     */
+    @SuppressWarnings("unchecked")
+    public T sample(RandomGenerator random) {
+        double target = random.nextDouble() * this.cumulative[this.cumulative.length - 1];
+        int low = 0;
+        int high = this.cumulative.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.cumulative[middle] > target) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return (T) this.values[low];
+    }
+}
@@ -0,0 +1,25 @@
+package events;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Entity counts shared by the database file events.
+ */
+abstract class DatabaseEvent extends Event {
+
+    @Label("Cabbies")
+    public int cabbies;
+
+    @Label("Passengers")
+    public int passengers;
+
+    @Label("Vehicles")
+    public int vehicles;
+
+    @Label("Rides")
+    public int rides;
+
+    @Label("Payments")
+    public int payments;
+}
@@ -0,0 +1,24 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one read of the database file. The event duration
+ * covers I/O and unmarshalling.
+ */
+@Name("cabbieManager.DatabaseLoad")
+@Label("Database Load")
+@Category({ "Cabbie Manager", "Database" })
+@Description("Leitura do arquivo XML do banco de dados")
+@StackTrace(false)
+public class DatabaseLoadEvent extends DatabaseEvent {
+
+    @Label("Bytes Read")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,24 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one write of the database file. The event duration
+ * covers marshalling and I/O.
+ */
+@Name("cabbieManager.DatabaseSave")
+@Label("Database Save")
+@Category({ "Cabbie Manager", "Database" })
+@Description("Gravação do arquivo XML do banco de dados")
+@StackTrace(false)
+public class DatabaseSaveEvent extends DatabaseEvent {
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,37 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one fare calculation.
+ */
+@Name("cabbieManager.PaymentCalculation")
+@Label("Payment Calculation")
+@Category({ "Cabbie Manager", "Payments" })
+@Description("Cálculo do valor de uma corrida")
+@StackTrace(false)
+public class PaymentCalculationEvent extends Event {
+
+    @Label("Payment Id")
+    public String paymentId;
+
+    @Label("Ride Id")
+    public String rideId;
+
+    @Label("Distance (km)")
+    public float distance;
+
+    @Label("Night Tariff")
+    public boolean night;
+
+    @Label("Payment Option")
+    public String paymentOption;
+
+    @Label("Amount (cents)")
+    public long amountCents;
+}
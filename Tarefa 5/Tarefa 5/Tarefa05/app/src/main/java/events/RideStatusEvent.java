@@ -0,0 +1,31 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a ride status transition.
+ */
+@Name("cabbieManager.RideStatus")
+@Label("Ride Status Change")
+@Category({ "Cabbie Manager", "Dispatch" })
+@Description("Mudança de status de uma corrida")
+@StackTrace(false)
+public class RideStatusEvent extends Event {
+
+    @Label("Ride Id")
+    public String rideId;
+
+    @Label("Previous Status")
+    public String previousStatus;
+
+    @Label("Status")
+    public String status;
+
+    @Label("Cabbie Id")
+    public String cabbieId;
+}
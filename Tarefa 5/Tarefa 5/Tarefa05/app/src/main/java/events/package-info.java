@@ -0,0 +1,14 @@
+/**
+ * Java Flight Recorder events emitted by the persistence, dispatch and payment
+ * code.
+ *
+ * All events are enabled by default with no threshold, and can be switched off
+ * or given a threshold per event name ({@code cabbieManager.DatabaseSave},
+ * {@code cabbieManager.DatabaseLoad}, {@code cabbieManager.RideStatus},
+ * {@code cabbieManager.PaymentCalculation}) in a JFR settings file or on the
+ * command line, e.g.
+ * {@code -XX:StartFlightRecording:cabbieManager.PaymentCalculation#enabled=false}.
+ * When an event is disabled, {@code shouldCommit()} is false and none of its
+ * fields are filled in.
+ */
+package events;
@@ -0,0 +1,7 @@
+package exceptions;
+
+public class VersionConflictException extends CabbieManagerException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package logging;
+
+/**
+ * Destination of log records.
+ */
+public interface Appender {
+
+    public void append(LogRecord record);
+
+    /**
+     * Blocks until every record appended so far has been written.
+     */
+    public void flush();
+}
@@ -0,0 +1,124 @@
+package logging;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appender that hands records to a background thread through a bounded ring
+ * buffer, so logging threads never wait on the console.
+ *
+ * When the buffer is full new records are dropped and counted instead of
+ * blocking the caller. WARN and ERROR records go to {@code err}, the others to
+ * {@code out}.
+ */
+public class AsyncAppender implements Appender {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    private final ArrayBlockingQueue<LogRecord> buffer;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long written;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition drained = this.lock.newCondition();
+
+    public AsyncAppender() {
+        this(DEFAULT_CAPACITY, System.out, System.err);
+    }
+
+    public AsyncAppender(int capacity, PrintStream out, PrintStream err) {
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.out = out;
+        this.err = err;
+
+        Thread writer = new Thread(this::run, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void append(LogRecord record) {
+        if (this.buffer.offer(record)) {
+            this.appended.incrementAndGet();
+        } else {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void flush() {
+        long target = this.appended.get();
+        this.lock.lock();
+        try {
+            while (this.written < target) {
+                this.drained.await(100, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many records were dropped because the buffer was full.
+     *
+     * @return the number of dropped records
+     */
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    private void run() {
+        List<LogRecord> batch = new ArrayList<>(256);
+        while (true) {
+            try {
+                batch.add(this.buffer.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            this.buffer.drainTo(batch, 255);
+
+            for (LogRecord record : batch) {
+                this.write(record);
+            }
+            this.out.flush();
+            this.err.flush();
+
+            this.lock.lock();
+            try {
+                this.written += batch.size();
+                this.drained.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(LogRecord record) {
+        PrintStream stream = record.getLevel().compareTo(Level.WARN) >= 0 ? this.err : this.out;
+        stream.println(TIME_FORMAT.format(Instant.ofEpochMilli(record.getTimeMillis())) + " "
+                + record.getLevel() + " [" + record.getThreadName() + "] " + record.getLoggerName() + " - "
+                + record.getMessage());
+        if (record.getError() != null) {
+            record.getError().printStackTrace(stream);
+        }
+    }
+}
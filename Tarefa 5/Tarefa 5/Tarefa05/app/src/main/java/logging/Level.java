@@ -0,0 +1,13 @@
+package logging;
+
+/**
+ * Log levels, from the most to the least verbose.
+ */
+public enum Level {
+    TRACE,
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    OFF
+}
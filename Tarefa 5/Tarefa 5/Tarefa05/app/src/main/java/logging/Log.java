@@ -0,0 +1,87 @@
+package logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entry point of the logging facade: hands out loggers and holds the global
+ * level and appender.
+ *
+ * The level defaults to INFO and can be set with the {@code log.level} system
+ * property. Records go to an {@link AsyncAppender} that is flushed on JVM
+ * shutdown.
+ */
+public final class Log {
+
+    private static final Map<String, Logger> LOGGERS = new ConcurrentHashMap<>();
+
+    private static volatile int threshold = initialLevel().ordinal();
+    private static volatile Appender appender;
+
+    private Log() {
+    }
+
+    /**
+     * Returns the logger named after the given class.
+     *
+     * @param type the class that logs
+     * @return the logger
+     */
+    public static Logger getLogger(Class<?> type) {
+        return LOGGERS.computeIfAbsent(type.getSimpleName(), Logger::new);
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level.ordinal();
+    }
+
+    public static Level getLevel() {
+        return Level.values()[threshold];
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold && level != Level.OFF;
+    }
+
+    /**
+     * Replaces the appender, e.g. to capture records in tests.
+     *
+     * @param newAppender the new appender
+     */
+    public static synchronized void setAppender(Appender newAppender) {
+        appender = newAppender;
+    }
+
+    /**
+     * Blocks until every record logged so far has been written.
+     */
+    public static void flush() {
+        Appender current = appender;
+        if (current != null) {
+            current.flush();
+        }
+    }
+
+    static Appender getAppender() {
+        Appender current = appender;
+        if (current == null) {
+            synchronized (Log.class) {
+                if (appender == null) {
+                    appender = new AsyncAppender();
+                    Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+                }
+                current = appender;
+            }
+        }
+        return current;
+    }
+
+    private static Level initialLevel() {
+        String level = System.getProperty("log.level");
+        try {
+            return level == null ? Level.INFO : Level.valueOf(level.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+}
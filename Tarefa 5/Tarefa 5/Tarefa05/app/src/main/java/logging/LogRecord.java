@@ -0,0 +1,46 @@
+package logging;
+
+/**
+ * One formatted log message, as handed to an {@link Appender}.
+ */
+public class LogRecord {
+    private final long timeMillis;
+    private final Level level;
+    private final String threadName;
+    private final String loggerName;
+    private final String message;
+    private final Throwable error;
+
+    LogRecord(long timeMillis, Level level, String threadName, String loggerName, String message, Throwable error) {
+        this.timeMillis = timeMillis;
+        this.level = level;
+        this.threadName = threadName;
+        this.loggerName = loggerName;
+        this.message = message;
+        this.error = error;
+    }
+
+    public long getTimeMillis() {
+        return this.timeMillis;
+    }
+
+    public Level getLevel() {
+        return this.level;
+    }
+
+    public String getThreadName() {
+        return this.threadName;
+    }
+
+    public String getLoggerName() {
+        return this.loggerName;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    public Throwable getError() {
+        return this.error;
+    }
+}
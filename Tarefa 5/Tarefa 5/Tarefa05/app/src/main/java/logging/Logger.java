@@ -0,0 +1,52 @@
+package logging;
+
+import java.util.function.Supplier;
+
+/**
+ * Named logger. Messages are given as suppliers, so nothing is formatted
+ * unless the level is enabled; enabled messages are formatted on the calling
+ * thread and written by the {@link Log} appender.
+ */
+public final class Logger {
+    private final String name;
+
+    Logger(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public boolean isEnabled(Level level) {
+        return Log.isEnabled(level);
+    }
+
+    public void trace(Supplier<String> message) {
+        this.log(Level.TRACE, message, null);
+    }
+
+    public void debug(Supplier<String> message) {
+        this.log(Level.DEBUG, message, null);
+    }
+
+    public void info(Supplier<String> message) {
+        this.log(Level.INFO, message, null);
+    }
+
+    public void warn(Supplier<String> message) {
+        this.log(Level.WARN, message, null);
+    }
+
+    public void error(Supplier<String> message, Throwable error) {
+        this.log(Level.ERROR, message, error);
+    }
+
+    private void log(Level level, Supplier<String> message, Throwable error) {
+        if (!Log.isEnabled(level)) {
+            return;
+        }
+        Log.getAppender().append(new LogRecord(System.currentTimeMillis(), level, Thread.currentThread().getName(),
+                this.name, message.get(), error));
+    }
+}
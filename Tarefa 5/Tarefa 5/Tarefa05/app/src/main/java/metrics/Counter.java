@@ -0,0 +1,33 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter backed by a {@link LongAdder}, so concurrent increments
+ * land on separate cells instead of contending on one value.
+ */
+public class Counter extends Metric {
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name, String help, String labels) {
+        super(name, help, labels);
+    }
+
+    public void inc() {
+        this.value.increment();
+    }
+
+    public void add(long amount) {
+        this.value.add(amount);
+    }
+
+    @Override
+    public long get() {
+        return this.value.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+}
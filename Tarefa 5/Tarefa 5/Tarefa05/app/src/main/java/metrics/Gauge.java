@@ -0,0 +1,30 @@
+package metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Gauge whose value is computed by a supplier at scrape time, so it costs
+ * nothing on the code paths that change it.
+ */
+public class Gauge extends Metric {
+    private volatile LongSupplier supplier;
+
+    Gauge(String name, String help, String labels, LongSupplier supplier) {
+        super(name, help, labels);
+        this.supplier = supplier;
+    }
+
+    void setSupplier(LongSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public long get() {
+        return this.supplier.getAsLong();
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+}
@@ -0,0 +1,207 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, log-linear latency histogram in nanoseconds.
+ *
+ * Values below 128 ns get one bucket each; above that every power of two is
+ * split into 64 linear sub-buckets, so any recorded value is reported within
+ * about 1.6% of its real value. The whole range of a {@code long} fits in a
+ * few thousand counters allocated once, and {@link #record(long)} does not
+ * allocate.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final String name;
+    private final String help;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+    // Soma exata das amostras, para o _sum da exposição; os baldes só dão valores aproximados
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Percentiles of a histogram at one point in time, in nanoseconds.
+     */
+    public static class Snapshot {
+        private final long count;
+        private final long p50;
+        private final long p99;
+        private final long p999;
+        private final long max;
+        private final long sum;
+
+        Snapshot(long count, long p50, long p99, long p999, long max, long sum) {
+            this.count = count;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+            this.sum = sum;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getP50() {
+            return this.p50;
+        }
+
+        public long getP99() {
+            return this.p99;
+        }
+
+        public long getP999() {
+            return this.p999;
+        }
+
+        public long getMax() {
+            return this.max;
+        }
+
+        /**
+         * Returns the sum of every sample, so rates of the mean can be computed
+         * from two snapshots.
+         *
+         * @return the sum in nanoseconds
+         */
+        public long getSum() {
+            return this.sum;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + this.count + " p50=" + format(this.p50) + " p99=" + format(this.p99) + " p999="
+                    + format(this.p999) + " max=" + format(this.max);
+        }
+
+        private static String format(long nanos) {
+            if (nanos < 10_000) {
+                return nanos + "ns";
+            }
+            if (nanos < 10_000_000) {
+                return (nanos / 1_000) + "us";
+            }
+            return (nanos / 1_000_000) + "ms";
+        }
+    }
+
+    LatencyHistogram(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getHelp() {
+        return this.help;
+    }
+
+    /**
+     * Records one sample.
+     *
+     * @param nanos the measured latency in nanoseconds; negative values count as
+     *              zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        this.counts.incrementAndGet(index(value));
+        this.sum.add(value);
+
+        long currentMax = this.max.get();
+        while (value > currentMax && !this.max.compareAndSet(currentMax, value)) {
+            currentMax = this.max.get();
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, as returned by
+     * {@link System#nanoTime()}.
+     *
+     * @param startNanos the start of the measured operation
+     */
+    public void recordSince(long startNanos) {
+        this.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the current percentiles without resetting the histogram.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = this.counts.get(i);
+        }
+        return summarize(copy, this.max.get(), this.sum.sum());
+    }
+
+    /**
+     * Returns the current percentiles and clears the histogram, so the next
+     * snapshot only covers new samples.
+     *
+     * @return the snapshot taken before clearing
+     */
+    public Snapshot snapshotAndReset() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = this.counts.getAndSet(i, 0);
+        }
+        return summarize(copy, this.max.getAndSet(0), this.sum.sumThenReset());
+    }
+
+    private static Snapshot summarize(long[] counts, long max, long sum) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0);
+        }
+
+        return new Snapshot(total, Math.min(percentile(counts, total, 0.50), max),
+                Math.min(percentile(counts, total, 0.99), max), Math.min(percentile(counts, total, 0.999), max), max,
+                sum);
+    }
+
+    private static long percentile(long[] counts, long total, double quantile) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return highestValue(counts.length - 1);
+    }
+
+    static int index(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    // Maior valor que cai no balde, como no HdrHistogram
+    static long highestValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
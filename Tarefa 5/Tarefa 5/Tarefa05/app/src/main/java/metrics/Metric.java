@@ -0,0 +1,48 @@
+package metrics;
+
+/**
+ * A single time series exposed by the {@link Metrics} registry.
+ */
+public abstract class Metric {
+    private final String name;
+    private final String help;
+    private final String labels;
+
+    Metric(String name, String help, String labels) {
+        this.name = name;
+        this.help = help;
+        this.labels = labels;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getHelp() {
+        return this.help;
+    }
+
+    /**
+     * Returns the label set in Prometheus syntax, e.g. {@code {option="PIX"}}, or
+     * an empty string.
+     *
+     * @return the rendered labels
+     */
+    public String getLabels() {
+        return this.labels;
+    }
+
+    /**
+     * Returns the Prometheus metric type, "counter" or "gauge".
+     *
+     * @return the metric type
+     */
+    public abstract String getType();
+
+    /**
+     * Returns the current value.
+     *
+     * @return the value
+     */
+    public abstract long get();
+}
@@ -0,0 +1,278 @@
+package metrics;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import cabbieManager.PaymentOption;
+
+/**
+ * Process-wide registry of operational counters, gauges and latency
+ * histograms, rendered in the Prometheus text format by {@link #scrape()}.
+ */
+public final class Metrics {
+
+    // Família (nome) -> séries (rótulos -> métrica)
+    private static final Map<String, Map<String, Metric>> FAMILIES = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+
+    private static ScheduledExecutorService resetScheduler;
+    private static ScheduledFuture<?> periodicReset;
+
+    public static final Counter RIDES_REQUESTED = counter("cabbie_rides_requested_total",
+            "Corridas chamadas por passageiros");
+    public static final Counter RIDES_ACCEPTED = counter("cabbie_rides_accepted_total",
+            "Corridas aceitas por motoristas");
+    public static final Counter RIDES_COMPLETED = counter("cabbie_rides_completed_total",
+            "Corridas finalizadas");
+
+    public static final Counter DATABASE_INSERTS = counter("cabbie_database_inserts_total",
+            "Objetos inseridos no banco de dados");
+    public static final Counter DATABASE_UPDATES = counter("cabbie_database_updates_total",
+            "Objetos atualizados no banco de dados");
+    public static final Counter DATABASE_SAVES = counter("cabbie_database_saves_total",
+            "Gravações do arquivo do banco de dados");
+    public static final Counter DATABASE_BYTES_WRITTEN = counter("cabbie_database_bytes_written_total",
+            "Bytes gravados no arquivo do banco de dados");
+
+    public static final LatencyHistogram DATABASE_INSERT_LATENCY = histogram("cabbie_database_insert_seconds",
+            "Latência de Database.insert");
+    public static final LatencyHistogram DATABASE_UPDATE_LATENCY = histogram("cabbie_database_update_seconds",
+            "Latência de Database.update");
+    public static final LatencyHistogram DATABASE_SAVE_LATENCY = histogram("cabbie_database_save_seconds",
+            "Latência da gravação do arquivo do banco de dados");
+    public static final LatencyHistogram DATABASE_LOAD_LATENCY = histogram("cabbie_database_load_seconds",
+            "Latência da leitura do arquivo do banco de dados");
+    public static final LatencyHistogram DISTANCE_LATENCY = histogram("cabbie_ride_distance_seconds",
+            "Latência de Ride.calculateDistance");
+    public static final LatencyHistogram FARE_LATENCY = histogram("cabbie_ride_fare_seconds",
+            "Latência do cálculo do valor da corrida");
+
+    private static final Counter[] REVENUE_CENTS = new Counter[PaymentOption.values().length];
+
+    static {
+        for (PaymentOption option : PaymentOption.values()) {
+            REVENUE_CENTS[option.ordinal()] = counter("cabbie_revenue_cents_total",
+                    "Receita dos pagamentos processados, em centavos", "payment_option", option.name());
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the revenue counter of a payment option.
+     *
+     * @param option the payment option
+     * @return the counter, in cents
+     */
+    public static Counter revenueCents(PaymentOption option) {
+        return REVENUE_CENTS[option.ordinal()];
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if needed.
+     *
+     * @param name the metric name
+     * @param help the description shown in the exposition
+     * @return the counter
+     */
+    public static Counter counter(String name, String help) {
+        return counter(name, help, null, null);
+    }
+
+    /**
+     * Returns the counter with the given name and label, creating it if needed.
+     *
+     * @param name       the metric name
+     * @param help       the description shown in the exposition
+     * @param labelName  the label name, or null
+     * @param labelValue the label value, or null
+     * @return the counter
+     */
+    public static Counter counter(String name, String help, String labelName, String labelValue) {
+        String labels = renderLabels(labelName, labelValue);
+        return (Counter) family(name).computeIfAbsent(labels, l -> new Counter(name, help, l));
+    }
+
+    /**
+     * Registers a labelled counter whose total is read at scrape time.
+     * Registering the same series again replaces its supplier.
+     *
+     * @param name       the metric name
+     * @param help       the description shown in the exposition
+     * @param labelName  the label name, or null
+     * @param labelValue the label value, or null
+     * @param supplier   reads the current total, which must never decrease
+     * @return the counter
+     */
+    public static SuppliedCounter counter(String name, String help, String labelName, String labelValue,
+            LongSupplier supplier) {
+        String labels = renderLabels(labelName, labelValue);
+        SuppliedCounter counter = (SuppliedCounter) family(name).computeIfAbsent(labels,
+                l -> new SuppliedCounter(name, help, l, supplier));
+        counter.setSupplier(supplier);
+        return counter;
+    }
+
+    /**
+     * Registers a gauge computed at scrape time. Registering the same name again
+     * replaces its supplier.
+     *
+     * @param name     the metric name
+     * @param help     the description shown in the exposition
+     * @param supplier computes the current value
+     * @return the gauge
+     */
+    public static Gauge gauge(String name, String help, LongSupplier supplier) {
+        return gauge(name, help, null, null, supplier);
+    }
+
+    /**
+     * Registers a labelled gauge computed at scrape time. Registering the same
+     * series again replaces its supplier.
+     *
+     * @param name       the metric name
+     * @param help       the description shown in the exposition
+     * @param labelName  the label name, or null
+     * @param labelValue the label value, or null
+     * @param supplier   computes the current value
+     * @return the gauge
+     */
+    public static Gauge gauge(String name, String help, String labelName, String labelValue,
+            LongSupplier supplier) {
+        String labels = renderLabels(labelName, labelValue);
+        Gauge gauge = (Gauge) family(name).computeIfAbsent(labels, l -> new Gauge(name, help, l, supplier));
+        gauge.setSupplier(supplier);
+        return gauge;
+    }
+
+    /**
+     * Returns the latency histogram with the given name, creating it if needed.
+     *
+     * @param name the metric name
+     * @param help the description shown in the exposition
+     * @return the histogram
+     */
+    public static LatencyHistogram histogram(String name, String help) {
+        return HISTOGRAMS.computeIfAbsent(name, n -> new LatencyHistogram(name, help));
+    }
+
+    /**
+     * Returns one line per latency histogram with its count and p50, p99, p999
+     * and max.
+     *
+     * @return the dump text
+     */
+    public static String dumpLatencies() {
+        StringBuilder out = new StringBuilder();
+        for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+            out.append(histogram.getName()).append(": ").append(histogram.snapshot()).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Clears every latency histogram.
+     */
+    public static void resetLatencies() {
+        for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+            histogram.snapshotAndReset();
+        }
+    }
+
+    /**
+     * Clears every latency histogram at a fixed period, so percentiles describe
+     * recent behaviour instead of the whole process lifetime. Calling it again
+     * replaces the previous period.
+     *
+     * @param period the reset period
+     */
+    public static synchronized void startPeriodicReset(Duration period) {
+        if (resetScheduler == null) {
+            resetScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-reset");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (periodicReset != null) {
+            periodicReset.cancel(false);
+        }
+        long millis = period.toMillis();
+        periodicReset = resetScheduler.scheduleAtFixedRate(Metrics::resetLatencies, millis, millis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic reset started by {@link #startPeriodicReset(Duration)}.
+     */
+    public static synchronized void stopPeriodicReset() {
+        if (periodicReset != null) {
+            periodicReset.cancel(false);
+            periodicReset = null;
+        }
+    }
+
+    /**
+     * Renders every registered metric in the Prometheus text exposition format.
+     * Latency histograms are rendered as summaries, in seconds.
+     *
+     * @return the exposition text
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map<String, Metric> family : FAMILIES.values()) {
+            Metric[] series;
+            synchronized (family) {
+                series = family.values().toArray(new Metric[0]);
+            }
+            if (series.length == 0) {
+                continue;
+            }
+
+            out.append("# HELP ").append(series[0].getName()).append(' ').append(series[0].getHelp()).append('\n');
+            out.append("# TYPE ").append(series[0].getName()).append(' ').append(series[0].getType()).append('\n');
+            for (Metric metric : series) {
+                out.append(metric.getName()).append(metric.getLabels()).append(' ').append(metric.get()).append('\n');
+            }
+        }
+
+        for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            String name = histogram.getName();
+            out.append("# HELP ").append(name).append(' ').append(histogram.getHelp()).append('\n');
+            out.append("# TYPE ").append(name).append(" summary\n");
+            appendQuantile(out, name, "0.5", snapshot.getP50());
+            appendQuantile(out, name, "0.99", snapshot.getP99());
+            appendQuantile(out, name, "0.999", snapshot.getP999());
+            appendQuantile(out, name, "1", snapshot.getMax());
+            out.append(name).append("_sum ").append(snapshot.getSum() / 1e9).append('\n');
+            out.append(name).append("_count ").append(snapshot.getCount()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void appendQuantile(StringBuilder out, String name, String quantile, long nanos) {
+        out.append(name).append("{quantile=\"").append(quantile).append("\"} ").append(nanos / 1e9).append('\n');
+    }
+
+    private static Map<String, Metric> family(String name) {
+        return FAMILIES.computeIfAbsent(name, n -> Collections.synchronizedMap(new LinkedHashMap<>()));
+    }
+
+    private static String renderLabels(String labelName, String labelValue) {
+        if (labelName == null) {
+            return "";
+        }
+        String escaped = labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return "{" + labelName + "=\"" + escaped + "\"}";
+    }
+}
@@ -0,0 +1,30 @@
+package metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Counter whose total is kept elsewhere and read by a supplier at scrape time,
+ * such as the statistics of a cache. The supplier must never decrease.
+ */
+public class SuppliedCounter extends Metric {
+    private volatile LongSupplier supplier;
+
+    SuppliedCounter(String name, String help, String labels, LongSupplier supplier) {
+        super(name, help, labels);
+        this.supplier = supplier;
+    }
+
+    void setSupplier(LongSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public long get() {
+        return this.supplier.getAsLong();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+}
@@ -0,0 +1,59 @@
+package reconciliation;
+
+import cabbieManager.RidePayment;
+
+/**
+ * One problem found by a {@link ReconciliationJob}.
+ */
+public class Mismatch {
+
+    private final MismatchType type;
+    private final String paymentId;
+    private final String rideId;
+    private final long paidCents;
+    private final long expectedCents;
+
+    Mismatch(MismatchType type, String paymentId, String rideId, long paidCents, long expectedCents) {
+        this.type = type;
+        this.paymentId = paymentId;
+        this.rideId = rideId;
+        this.paidCents = paidCents;
+        this.expectedCents = expectedCents;
+    }
+
+    public MismatchType getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the id of the payment.
+     *
+     * @return the id, or null for {@link MismatchType#UNPAID_RIDE}
+     */
+    public String getPaymentId() {
+        return this.paymentId;
+    }
+
+    public String getRideId() {
+        return this.rideId;
+    }
+
+    public long getPaidCents() {
+        return this.paidCents;
+    }
+
+    /**
+     * Returns the fare recomputed from the payment.
+     *
+     * @return the fare in cents, or 0 when it could not be computed
+     */
+    public long getExpectedCents() {
+        return this.expectedCents;
+    }
+
+    @Override
+    public String toString() {
+        return this.type + " pagamento " + this.paymentId + " corrida " + this.rideId + ": pago "
+                + RidePayment.formatCents(this.paidCents) + ", esperado " + RidePayment.formatCents(this.expectedCents);
+    }
+}
@@ -0,0 +1,21 @@
+package reconciliation;
+
+/**
+ * Kinds of problems found by a {@link ReconciliationJob}.
+ */
+public enum MismatchType {
+    /** The payment is missing its ride, start time, distance or payment option. */
+    INVALID_PAYMENT,
+    /** The paid amount differs from the fare recomputed from the payment. */
+    AMOUNT_MISMATCH,
+    /** Another payment was already made for the same ride. */
+    DUPLICATE_PAYMENT,
+    /** The paid ride does not exist. */
+    UNKNOWN_RIDE,
+    /** The payment was charged for a distance other than the ride's. */
+    DISTANCE_MISMATCH,
+    /** The payment was charged for a start time other than the ride's. */
+    START_TIME_MISMATCH,
+    /** A finished ride has no payment. */
+    UNPAID_RIDE
+}
@@ -0,0 +1,318 @@
+package reconciliation;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import cabbieManager.FareEstimator;
+import cabbieManager.FareTable;
+import cabbieManager.PaymentOption;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import databaseManager.Database;
+import logging.Log;
+import logging.Logger;
+import metrics.Counter;
+import metrics.Metrics;
+
+/**
+ * Checks every ride payment against the tariff and against its ride: the paid
+ * amount must match the fare recomputed from the payment, the ride must exist
+ * with the same distance and start time, no ride may be paid twice, and every
+ * finished ride must be paid.
+ *
+ * Rides and payments are streamed, not loaded. The job splits the ride ids
+ * into hash partitions and makes one pass over both streams per partition, so
+ * memory only holds the rides and paid ride ids of one partition at a time.
+ * Each pass runs as a parallel stream in the job's own fork/join pool.
+ */
+public class ReconciliationJob {
+
+    private static final Logger LOG = Log.getLogger(ReconciliationJob.class);
+
+    /** Corridas mantidas em memória por passada, por padrão. */
+    public static final long DEFAULT_RIDES_PER_PASS = 2_000_000;
+    /** Divergências guardadas como exemplo no relatório, por padrão. */
+    public static final int DEFAULT_MAX_SAMPLES = 1000;
+
+    private static final String FINISHED = "FINALIZADA";
+
+    private static final Counter PAYMENTS = Metrics.counter("cabbie_reconciliation_payments_total",
+            "Pagamentos conferidos pela conciliação");
+    private static final Counter[] MISMATCHES = new Counter[MismatchType.values().length];
+
+    static {
+        for (MismatchType type : MismatchType.values()) {
+            MISMATCHES[type.ordinal()] = Metrics.counter("cabbie_reconciliation_mismatches_total",
+                    "Divergências encontradas pela conciliação", "mismatch_type", type.name());
+        }
+    }
+
+    private final FareEstimator.Pricer pricer;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long ridesPerPass = DEFAULT_RIDES_PER_PASS;
+    private int maxSamples = DEFAULT_MAX_SAMPLES;
+
+    /**
+     * Creates a job that checks the payments against the current tariff.
+     */
+    public ReconciliationJob() {
+        this(FareTable::priceCents);
+    }
+
+    /**
+     * Creates a job that checks the payments against the given tariff.
+     *
+     * @param pricer the tariff the payments should have followed
+     */
+    public ReconciliationJob(FareEstimator.Pricer pricer) {
+        this.pricer = pricer;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be greater than zero");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public long getRidesPerPass() {
+        return this.ridesPerPass;
+    }
+
+    /**
+     * Sets how many rides a pass may hold in memory. The job makes as many
+     * passes as needed to stay within this number.
+     *
+     * @param ridesPerPass the rides per pass
+     */
+    public void setRidesPerPass(long ridesPerPass) {
+        if (ridesPerPass <= 0) {
+            throw new IllegalArgumentException("Rides per pass must be greater than zero");
+        }
+        this.ridesPerPass = ridesPerPass;
+    }
+
+    public int getMaxSamples() {
+        return this.maxSamples;
+    }
+
+    public void setMaxSamples(int maxSamples) {
+        if (maxSamples < 0) {
+            throw new IllegalArgumentException("Max samples cannot be negative");
+        }
+        this.maxSamples = maxSamples;
+    }
+
+    /**
+     * Reconciles the payments of a database with its rides. The rides and
+     * payments stored when the run starts are streamed from the database on
+     * every pass, not copied; entities inserted during the run are left out.
+     *
+     * @param database the database
+     * @return the report
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public ReconciliationReport run(Database database) throws InterruptedException {
+        int rides = database.countRides();
+        int payments = database.countPayments();
+        return this.run(() -> database.streamRides(rides), () -> database.streamPayments(payments), rides);
+    }
+
+    /**
+     * Reconciles a stream of payments with a stream of rides. Both suppliers
+     * are called once per pass and must return the same elements every time.
+     *
+     * @param rides         opens the stream of rides
+     * @param payments      opens the stream of payments
+     * @param expectedRides about how many rides there are, to choose the number
+     *                      of passes
+     * @return the report
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public ReconciliationReport run(Supplier<? extends Stream<Ride>> rides,
+            Supplier<? extends Stream<RidePayment>> payments, long expectedRides) throws InterruptedException {
+        int passes = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(1, (expectedRides + this.ridesPerPass - 1) / this.ridesPerPass));
+        int capacity = (int) Math.min(this.ridesPerPass, Math.max(16, expectedRides / passes));
+        Run run = new Run();
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            for (int pass = 0; pass < passes; pass++) {
+                int current = pass;
+                LOG.debug(() -> "Conciliação: passada " + (current + 1) + " de " + passes);
+                // Dentro do pool, os streams paralelos da passada usam as threads dele
+                execute(pool, () -> run.pass(rides, payments, passes, current, capacity));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        ReconciliationReport report = run.report(passes, System.nanoTime() - start);
+        LOG.info(() -> "Conciliação concluída: " + report.getPayments() + " pagamentos, "
+                + report.getMismatches() + " divergências");
+        return report;
+    }
+
+    private static void execute(ForkJoinPool pool, Runnable task) throws InterruptedException {
+        try {
+            pool.submit(task).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Partição de uma corrida; espalha o hash para não depender só dos bits baixos
+    static int partition(String rideId, int passes) {
+        int hash = rideId.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), passes);
+    }
+
+    // Totais de uma execução, somados por todas as passadas
+    private class Run {
+        private final LongAdder payments = new LongAdder();
+        private final LongAdder paidCents = new LongAdder();
+        private final LongAdder expectedCents = new LongAdder();
+        private final LongAdder[] counts = new LongAdder[MismatchType.values().length];
+        private final AtomicInteger sampled = new AtomicInteger();
+        private final ConcurrentLinkedQueue<Mismatch> samples = new ConcurrentLinkedQueue<>();
+
+        Run() {
+            for (int i = 0; i < this.counts.length; i++) {
+                this.counts[i] = new LongAdder();
+            }
+        }
+
+        void pass(Supplier<? extends Stream<Ride>> rides, Supplier<? extends Stream<RidePayment>> payments,
+                int passes, int pass, int capacity) {
+            Map<String, Ride> ridesById = new ConcurrentHashMap<>(capacity);
+            try (Stream<Ride> stream = rides.get()) {
+                stream.parallel().forEach(ride -> {
+                    String rideId = ride.getRideId();
+                    if (rideId != null && partition(rideId, passes) == pass) {
+                        ridesById.put(rideId, ride);
+                    }
+                });
+            }
+
+            Set<String> paid = ConcurrentHashMap.newKeySet(capacity);
+            try (Stream<RidePayment> stream = payments.get()) {
+                stream.parallel().forEach(payment -> {
+                    String rideId = payment.getRideId();
+                    // Pagamentos sem corrida são conferidos só na primeira passada
+                    if (rideId == null ? pass == 0 : partition(rideId, passes) == pass) {
+                        this.check(payment, rideId, ridesById, paid);
+                    }
+                });
+            }
+
+            ridesById.entrySet().parallelStream().forEach(entry -> {
+                if (FINISHED.equals(entry.getValue().getStatus()) && !paid.contains(entry.getKey())) {
+                    this.record(MismatchType.UNPAID_RIDE, null, entry.getKey(), 0, 0);
+                }
+            });
+        }
+
+        private void check(RidePayment payment, String rideId, Map<String, Ride> ridesById, Set<String> paid) {
+            PAYMENTS.inc();
+            this.payments.increment();
+            long amount = payment.getAmountCents();
+            this.paidCents.add(amount);
+
+            String paymentId = payment.getPaymentId();
+            LocalDateTime startTime = payment.getRideStartTime();
+            float distance = payment.getRideDistance();
+            PaymentOption option = payment.getPaymentMethod();
+
+            long expected = 0;
+            if (rideId == null || startTime == null || option == null || !(distance > 0)) {
+                this.record(MismatchType.INVALID_PAYMENT, paymentId, rideId, amount, expected);
+            } else {
+                expected = ReconciliationJob.this.pricer.priceCents(distance, FareTable.isNight(startTime), option);
+                this.expectedCents.add(expected);
+                if (amount != expected) {
+                    this.record(MismatchType.AMOUNT_MISMATCH, paymentId, rideId, amount, expected);
+                }
+            }
+            if (rideId == null) {
+                return;
+            }
+
+            if (!paid.add(rideId)) {
+                this.record(MismatchType.DUPLICATE_PAYMENT, paymentId, rideId, amount, expected);
+            }
+            Ride ride = ridesById.get(rideId);
+            if (ride == null) {
+                this.record(MismatchType.UNKNOWN_RIDE, paymentId, rideId, amount, expected);
+                return;
+            }
+            if (Float.compare(ride.getDistance(), distance) != 0) {
+                this.record(MismatchType.DISTANCE_MISMATCH, paymentId, rideId, amount, expected);
+            }
+            if (startTime != null && !startTime.equals(ride.getStartTime())) {
+                this.record(MismatchType.START_TIME_MISMATCH, paymentId, rideId, amount, expected);
+            }
+        }
+
+        private void record(MismatchType type, String paymentId, String rideId, long paidCents,
+                long expectedCents) {
+            this.counts[type.ordinal()].increment();
+            MISMATCHES[type.ordinal()].inc();
+            // Lê antes de incrementar, para o contador não crescer sem limite
+            if (this.sampled.get() < ReconciliationJob.this.maxSamples
+                    && this.sampled.getAndIncrement() < ReconciliationJob.this.maxSamples) {
+                this.samples.add(new Mismatch(type, paymentId, rideId, paidCents, expectedCents));
+            }
+        }
+
+        ReconciliationReport report(int passes, long elapsedNanos) {
+            long[] totals = new long[this.counts.length];
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] = this.counts[i].sum();
+            }
+            return new ReconciliationReport(this.payments.sum(), this.paidCents.sum(), this.expectedCents.sum(),
+                    totals, new ArrayList<>(this.samples), passes, elapsedNanos);
+        }
+    }
+
+    /**
+     * Reconciles a database file and prints the report.
+     *
+     * @param args the path of the database file and, optionally, the rides per
+     *             pass
+     */
+    public static void main(String[] args) throws Exception {
+        Database database = new Database(new File(args[0]), true);
+        ReconciliationJob job = new ReconciliationJob();
+        if (args.length > 1) {
+            job.setRidesPerPass(Long.parseLong(args[1]));
+        }
+
+        ReconciliationReport report = job.run(database);
+        Log.flush();
+        System.out.println(report);
+        report.getSamples().stream().limit(20).forEach(mismatch -> System.out.println("  " + mismatch));
+    }
+}
@@ -0,0 +1,116 @@
+package reconciliation;
+
+import java.util.List;
+
+import cabbieManager.RidePayment;
+
+/**
+ * Outcome of a {@link ReconciliationJob} run.
+ *
+ * Every mismatch is counted, but only the first ones found are kept as
+ * samples, so the report stays small however many payments are wrong.
+ */
+public class ReconciliationReport {
+
+    private final long payments;
+    private final long paidCents;
+    private final long expectedCents;
+    private final long[] counts;
+    private final List<Mismatch> samples;
+    private final int passes;
+    private final long elapsedNanos;
+
+    ReconciliationReport(long payments, long paidCents, long expectedCents, long[] counts, List<Mismatch> samples,
+            int passes, long elapsedNanos) {
+        this.payments = payments;
+        this.paidCents = paidCents;
+        this.expectedCents = expectedCents;
+        this.counts = counts;
+        this.samples = samples;
+        this.passes = passes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getPayments() {
+        return this.payments;
+    }
+
+    public long getPaidCents() {
+        return this.paidCents;
+    }
+
+    /**
+     * Returns the sum of the fares recomputed from the valid payments.
+     *
+     * @return the expected revenue in cents
+     */
+    public long getExpectedCents() {
+        return this.expectedCents;
+    }
+
+    /**
+     * Returns the number of mismatches of one kind.
+     *
+     * @param type the kind of mismatch
+     * @return the number found
+     */
+    public long getCount(MismatchType type) {
+        return this.counts[type.ordinal()];
+    }
+
+    /**
+     * Returns the number of mismatches of every kind. A payment may have more
+     * than one.
+     *
+     * @return the number found
+     */
+    public long getMismatches() {
+        long total = 0;
+        for (long count : this.counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the first mismatches found, up to the limit of the job.
+     *
+     * @return the samples, in no particular order
+     */
+    public List<Mismatch> getSamples() {
+        return this.samples;
+    }
+
+    public int getPasses() {
+        return this.passes;
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Returns the payments checked per second.
+     *
+     * @return the throughput of the run
+     */
+    public double getThroughput() {
+        return this.elapsedNanos == 0 ? 0 : this.payments * 1e9 / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("Conciliação: ").append(this.payments).append(" pagamentos em ").append(this.passes)
+                .append(this.passes == 1 ? " passada, " : " passadas, ").append(this.elapsedNanos / 1_000_000)
+                .append(" ms (").append(String.format("%.1f", this.getThroughput())).append(" pagamentos/s)\n");
+        text.append("  pago ").append(RidePayment.formatCents(this.paidCents)).append(", esperado ")
+                .append(RidePayment.formatCents(this.expectedCents));
+        for (MismatchType type : MismatchType.values()) {
+            if (this.getCount(type) > 0) {
+                text.append("\n  ").append(type).append(": ").append(this.getCount(type));
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,360 @@
+package routing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import cabbieManager.Location;
+import exceptions.InvalidLocationException;
+
+/**
+ * Runtime registry of named points and free coordinates.
+ *
+ * Points are indexed three ways: a hash map for exact name lookup, a trie of
+ * lower-case names for autocomplete and a uniform grid for snapping a raw
+ * coordinate to the nearest known point. Every point also remembers the road
+ * graph node ({@link Location}) closest to it, which is what rides are routed
+ * through.
+ */
+public class LocationRegistry {
+
+    /** Lado padrão das células da grade, na mesma unidade das coordenadas. */
+    public static final double DEFAULT_CELL_SIZE = 1.0;
+
+    private static volatile LocationRegistry defaultRegistry;
+
+    private final double cellSize;
+    private final Map<String, NamedPoint> byName = new ConcurrentHashMap<>();
+    private final Map<Long, List<NamedPoint>> grid = new HashMap<>();
+    private final TrieNode trie = new TrieNode();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Limites da grade ocupada, em células
+    private int minCellX = Integer.MAX_VALUE;
+    private int minCellY = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int maxCellY = Integer.MIN_VALUE;
+    private int size;
+
+    private static final class TrieNode {
+        final TreeMap<Character, TrieNode> children = new TreeMap<>();
+        List<NamedPoint> points;
+    }
+
+    public LocationRegistry() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public LocationRegistry(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be greater than zero");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Returns the registry used by {@link cabbieManager.Ride}, seeded with every
+     * {@link Location}.
+     *
+     * @return the default registry
+     */
+    public static LocationRegistry getDefault() {
+        LocationRegistry registry = defaultRegistry;
+        if (registry == null) {
+            synchronized (LocationRegistry.class) {
+                if (defaultRegistry == null) {
+                    defaultRegistry = withLocations();
+                }
+                registry = defaultRegistry;
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Builds a new registry containing every {@link Location}.
+     *
+     * @return the seeded registry
+     */
+    public static LocationRegistry withLocations() {
+        LocationRegistry registry = new LocationRegistry();
+        for (Location location : Location.values()) {
+            registry.register(location.getName(), location.getX(), location.getY());
+        }
+        return registry;
+    }
+
+    /**
+     * Registers a point, replacing any point previously registered with the same
+     * name.
+     *
+     * @param name the name of the point, or null for a free coordinate
+     * @param x    the x-coordinate
+     * @param y    the y-coordinate
+     * @return the registered point
+     */
+    public NamedPoint register(String name, double x, double y) {
+        if (!Double.isFinite(x) || !Double.isFinite(y)) {
+            throw new IllegalArgumentException("Invalid coordinate: (" + x + ", " + y + ")");
+        }
+
+        NamedPoint point = new NamedPoint(name, x, y, closestNode(x, y));
+
+        this.lock.writeLock().lock();
+        try {
+            if (name != null) {
+                NamedPoint previous = this.byName.put(name, point);
+                if (previous != null) {
+                    this.removeFromIndexes(previous);
+                }
+                this.trieInsert(point);
+            }
+
+            int cx = this.cell(x);
+            int cy = this.cell(y);
+            this.grid.computeIfAbsent(cellKey(cx, cy), k -> new ArrayList<>(2)).add(point);
+            this.minCellX = Math.min(this.minCellX, cx);
+            this.minCellY = Math.min(this.minCellY, cy);
+            this.maxCellX = Math.max(this.maxCellX, cx);
+            this.maxCellY = Math.max(this.maxCellY, cy);
+            this.size++;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        return point;
+    }
+
+    /**
+     * Removes the point registered with the given name.
+     *
+     * @param name the name of the point
+     * @return the removed point, or null if there was none
+     */
+    public NamedPoint remove(String name) {
+        this.lock.writeLock().lock();
+        try {
+            NamedPoint point = this.byName.remove(name);
+            if (point != null) {
+                this.removeFromIndexes(point);
+            }
+            return point;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the point registered with exactly the given name.
+     *
+     * @param name the name of the point
+     * @return the point, or null if the name is unknown
+     */
+    public NamedPoint get(String name) {
+        return name == null ? null : this.byName.get(name);
+    }
+
+    /**
+     * Returns up to {@code limit} named points whose name starts with the given
+     * prefix, ignoring case, in alphabetical order.
+     *
+     * @param prefix the typed prefix
+     * @param limit  the maximum number of suggestions
+     * @return the matching points
+     */
+    public List<NamedPoint> autocomplete(String prefix, int limit) {
+        List<NamedPoint> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+
+        this.lock.readLock().lock();
+        try {
+            TrieNode node = this.trie;
+            String key = prefix.toLowerCase(Locale.ROOT);
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node != null) {
+                collect(node, result, limit);
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Snaps a raw coordinate to the nearest registered point.
+     *
+     * The grid is searched in rings of cells around the coordinate, starting
+     * at the first ring that reaches an occupied cell and stopping as soon as
+     * no unvisited cell can hold a closer point. Only the cells of each ring
+     * inside the occupied area are visited, so a coordinate far from every
+     * point costs no more than one inside the area.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the nearest point
+     * @throws InvalidLocationException if the coordinate is not finite or the
+     *                                  registry is empty
+     */
+    public NamedPoint nearest(double x, double y) throws InvalidLocationException {
+        if (!Double.isFinite(x) || !Double.isFinite(y)) {
+            throw new InvalidLocationException("Coordenada inválida: (" + x + ", " + y + ")");
+        }
+
+        this.lock.readLock().lock();
+        try {
+            if (this.size == 0) {
+                throw new InvalidLocationException("Nenhum local cadastrado");
+            }
+
+            // Em long: uma coordenada distante satura a célula em Integer.MAX_VALUE
+            long cx = this.cell(x);
+            long cy = this.cell(y);
+            long maxRing = Math.max(Math.max(Math.abs(cx - this.minCellX), Math.abs(cx - this.maxCellX)),
+                    Math.max(Math.abs(cy - this.minCellY), Math.abs(cy - this.maxCellY)));
+            // Os anéis que não alcançam a área ocupada estão vazios: começa pelo primeiro que a toca
+            long firstRing = Math.max(0, Math.max(Math.max(this.minCellX - cx, cx - this.maxCellX),
+                    Math.max(this.minCellY - cy, cy - this.maxCellY)));
+
+            NamedPoint best = null;
+            for (long ring = firstRing; ring <= maxRing; ring++) {
+                // Só as células do anel dentro da área ocupada
+                long fromX = Math.max(cx - ring, this.minCellX);
+                long toX = Math.min(cx + ring, this.maxCellX);
+                long fromY = Math.max(cy - ring, this.minCellY);
+                long toY = Math.min(cy + ring, this.maxCellY);
+                for (long i = fromX; i <= toX; i++) {
+                    if (i == cx - ring || i == cx + ring) {
+                        for (long j = fromY; j <= toY; j++) {
+                            best = this.closer(i, j, x, y, best);
+                        }
+                    } else {
+                        if (cy - ring >= fromY) {
+                            best = this.closer(i, cy - ring, x, y, best);
+                        }
+                        if (cy + ring <= toY) {
+                            best = this.closer(i, cy + ring, x, y, best);
+                        }
+                    }
+                }
+
+                // Qualquer célula do próximo anel fica a pelo menos ring * cellSize
+                double reach = ring * this.cellSize;
+                if (best != null && best.distanceSquared(x, y) <= reach * reach) {
+                    break;
+                }
+            }
+            return best;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    // O ponto mais próximo entre o melhor até agora e os da célula (i, j)
+    private NamedPoint closer(long i, long j, double x, double y, NamedPoint best) {
+        List<NamedPoint> bucket = this.grid.get(cellKey((int) i, (int) j));
+        if (bucket == null) {
+            return best;
+        }
+        double bestDistance = best == null ? Double.POSITIVE_INFINITY : best.distanceSquared(x, y);
+        for (int k = 0; k < bucket.size(); k++) {
+            NamedPoint candidate = bucket.get(k);
+            double distance = candidate.distanceSquared(x, y);
+            // Longe demais a distância vira infinito; mesmo assim algum ponto é escolhido
+            if (best == null || distance < bestDistance) {
+                bestDistance = distance;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of registered points.
+     *
+     * @return the number of points
+     */
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.size;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void removeFromIndexes(NamedPoint point) {
+        List<NamedPoint> bucket = this.grid.get(cellKey(this.cell(point.getX()), this.cell(point.getY())));
+        if (bucket != null && bucket.remove(point)) {
+            this.size--;
+        }
+
+        TrieNode node = this.trie;
+        String key = point.getName().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node != null && node.points != null) {
+            node.points.remove(point);
+        }
+    }
+
+    private void trieInsert(NamedPoint point) {
+        TrieNode node = this.trie;
+        String key = point.getName().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new TrieNode());
+        }
+        if (node.points == null) {
+            node.points = new ArrayList<>(1);
+        }
+        node.points.add(point);
+    }
+
+    private static void collect(TrieNode node, List<NamedPoint> result, int limit) {
+        if (node.points != null) {
+            for (NamedPoint point : node.points) {
+                if (result.size() >= limit) {
+                    return;
+                }
+                result.add(point);
+            }
+        }
+        for (TrieNode child : node.children.values()) {
+            if (result.size() >= limit) {
+                return;
+            }
+            collect(child, result, limit);
+        }
+    }
+
+    private static Location closestNode(double x, double y) {
+        Location closest = null;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        for (Location location : Location.values()) {
+            double dx = location.getX() - x;
+            double dy = location.getY() - y;
+            double distance = dx * dx + dy * dy;
+            if (distance < closestDistance) {
+                closestDistance = distance;
+                closest = location;
+            }
+        }
+        return closest;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / this.cellSize);
+    }
+
+    private static long cellKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
@@ -0,0 +1,53 @@
+package routing;
+
+import cabbieManager.Location;
+
+/**
+ * A point registered in the {@link LocationRegistry}: a name, free coordinates
+ * and the road graph node ({@link Location}) closest to it.
+ */
+public class NamedPoint {
+    private final String name;
+    private final double x;
+    private final double y;
+    private final Location node;
+
+    NamedPoint(String name, double x, double y, Location node) {
+        this.name = name;
+        this.x = x;
+        this.y = y;
+        this.node = node;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public double getX() {
+        return this.x;
+    }
+
+    public double getY() {
+        return this.y;
+    }
+
+    /**
+     * Returns the road graph node used to route rides from or to this point.
+     *
+     * @return the closest {@link Location}
+     */
+    public Location getLocation() {
+        return this.node;
+    }
+
+    double distanceSquared(double px, double py) {
+        double dx = this.x - px;
+        double dy = this.y - py;
+        return dx * dx + dy * dy;
+    }
+
+    @Override
+    public String toString() {
+        return this.name + " (" + this.x + ", " + this.y + ")";
+    }
+}
@@ -0,0 +1,294 @@
+package routing;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import cabbieManager.Location;
+
+/**
+ * Weighted road graph over the {@link Location} points.
+ *
+ * All-pairs shortest distances and travel times are precomputed with
+ * Floyd-Warshall, so {@link #distance(Location, Location)} and
+ * {@link #eta(Location, Location)} are a single table read. Changing an edge
+ * publishes a new pair of tables; readers never see a half-updated table.
+ */
+public class RoadGraph {
+
+    /** Velocidade média usada quando o arquivo de rotas não informa o tempo. */
+    public static final double AVERAGE_SPEED_KMH = 30.0;
+
+    private static volatile RoadGraph defaultGraph;
+
+    private final Location[] nodes = Location.values();
+    private final int size = nodes.length;
+
+    // Pesos das arestas diretas (km e minutos), +inf quando não há estrada
+    private final double[] edgeKm;
+    private final double[] edgeMinutes;
+
+    private volatile Tables tables;
+    private volatile int version;
+
+    private static final class Tables {
+        final double[] km;
+        final double[] minutes;
+        final float[] roundedKm;
+
+        Tables(double[] km, double[] minutes) {
+            this.km = km;
+            this.minutes = minutes;
+            this.roundedKm = new float[km.length];
+            for (int i = 0; i < km.length; i++) {
+                this.roundedKm[i] = Double.isInfinite(km[i]) ? Float.POSITIVE_INFINITY
+                        : Math.round((float) km[i] * 100) / 100.0f;
+            }
+        }
+    }
+
+    private RoadGraph() {
+        this.edgeKm = new double[size * size];
+        this.edgeMinutes = new double[size * size];
+        Arrays.fill(this.edgeKm, Double.POSITIVE_INFINITY);
+        Arrays.fill(this.edgeMinutes, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < size; i++) {
+            this.edgeKm[i * size + i] = 0;
+            this.edgeMinutes[i * size + i] = 0;
+        }
+    }
+
+    /**
+     * Returns the graph used by {@link cabbieManager.Ride}. Unless another graph
+     * was installed with {@link #setDefault(RoadGraph)}, this is the straight-line
+     * graph built by {@link #euclidean()}.
+     *
+     * @return the default road graph
+     */
+    public static RoadGraph getDefault() {
+        RoadGraph graph = defaultGraph;
+        if (graph == null) {
+            synchronized (RoadGraph.class) {
+                if (defaultGraph == null) {
+                    defaultGraph = euclidean();
+                }
+                graph = defaultGraph;
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Replaces the default road graph.
+     *
+     * @param graph the new default graph
+     */
+    public static void setDefault(RoadGraph graph) {
+        defaultGraph = graph;
+    }
+
+    /**
+     * Builds a complete graph where every pair of locations is linked by a
+     * straight road, reproducing the old Euclidean distances.
+     *
+     * @return the straight-line road graph
+     */
+    public static RoadGraph euclidean() {
+        RoadGraph graph = new RoadGraph();
+        for (Location from : graph.nodes) {
+            for (Location to : graph.nodes) {
+                if (from != to) {
+                    double km = Math.hypot(to.getX() - from.getX(), to.getY() - from.getY());
+                    graph.putEdge(from, to, km, toMinutes(km));
+                }
+            }
+        }
+        graph.rebuild();
+        return graph;
+    }
+
+    /**
+     * Loads a road graph from a text file.
+     *
+     * Each non-empty line that does not start with '#' describes a two-way road
+     * in the format {@code origem;destino;km[;minutos]}, using the location names
+     * accepted by {@link Location#valueOfName(String)}. When the travel time is
+     * omitted it is derived from {@link #AVERAGE_SPEED_KMH}.
+     *
+     * @param file the file to read
+     * @return the loaded road graph
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if a line is malformed or names an unknown
+     *                                  location
+     */
+    public static RoadGraph load(File file) throws IOException, IllegalArgumentException {
+        RoadGraph graph = new RoadGraph();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] parts = line.split(";");
+                if (parts.length < 3 || parts.length > 4) {
+                    throw new IllegalArgumentException("Invalid road at line " + lineNumber + ": " + line);
+                }
+
+                Location from = Location.valueOfName(parts[0].trim());
+                Location to = Location.valueOfName(parts[1].trim());
+                double km = Double.parseDouble(parts[2].trim());
+                double minutes = parts.length == 4 ? Double.parseDouble(parts[3].trim()) : toMinutes(km);
+                if (km < 0 || minutes < 0) {
+                    throw new IllegalArgumentException("Negative road weight at line " + lineNumber + ": " + line);
+                }
+
+                graph.putEdge(from, to, km, minutes);
+                graph.putEdge(to, from, km, minutes);
+            }
+        }
+        graph.rebuild();
+        return graph;
+    }
+
+    /**
+     * Returns the shortest road distance between two locations, rounded to two
+     * decimal places.
+     *
+     * @param from the origin
+     * @param to   the destination
+     * @return the distance in km, or {@link Float#POSITIVE_INFINITY} if there is
+     *         no route
+     */
+    public float distance(Location from, Location to) {
+        return this.tables.roundedKm[from.ordinal() * size + to.ordinal()];
+    }
+
+    /**
+     * Returns the travel time of the fastest route between two locations.
+     *
+     * @param from the origin
+     * @param to   the destination
+     * @return the travel time in minutes, or {@link Double#POSITIVE_INFINITY} if
+     *         there is no route
+     */
+    public double eta(Location from, Location to) {
+        return this.tables.minutes[from.ordinal() * size + to.ordinal()];
+    }
+
+    /**
+     * Sets the weight of the two-way road between two locations and updates the
+     * distance tables.
+     *
+     * When the road only gets shorter (or faster) the tables are relaxed through
+     * the changed edge in O(n²); otherwise they are recomputed from scratch.
+     *
+     * @param a       one end of the road
+     * @param b       the other end of the road
+     * @param km      the road length in km
+     * @param minutes the travel time in minutes
+     */
+    public synchronized void setEdge(Location a, Location b, double km, double minutes) {
+        if (km < 0 || minutes < 0) {
+            throw new IllegalArgumentException("Road weight cannot be negative");
+        }
+
+        int ab = a.ordinal() * size + b.ordinal();
+        boolean decreased = km <= this.edgeKm[ab] && minutes <= this.edgeMinutes[ab];
+
+        this.putEdge(a, b, km, minutes);
+        this.putEdge(b, a, km, minutes);
+
+        if (decreased) {
+            Tables current = this.tables;
+            double[] newKm = current.km.clone();
+            double[] newMinutes = current.minutes.clone();
+            relax(newKm, a.ordinal(), b.ordinal(), km);
+            relax(newMinutes, a.ordinal(), b.ordinal(), minutes);
+            this.tables = new Tables(newKm, newMinutes);
+            this.version++;
+        } else {
+            this.rebuild();
+        }
+    }
+
+    /**
+     * Removes the road between two locations and recomputes the tables.
+     *
+     * @param a one end of the road
+     * @param b the other end of the road
+     */
+    public synchronized void removeEdge(Location a, Location b) {
+        this.putEdge(a, b, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+        this.putEdge(b, a, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+        this.rebuild();
+    }
+
+    /**
+     * Returns a counter that changes every time the tables are rebuilt, so that
+     * derived caches know when to refresh.
+     *
+     * @return the table version
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    private void putEdge(Location from, Location to, double km, double minutes) {
+        if (from == to) {
+            return;
+        }
+        this.edgeKm[from.ordinal() * size + to.ordinal()] = km;
+        this.edgeMinutes[from.ordinal() * size + to.ordinal()] = minutes;
+    }
+
+    private synchronized void rebuild() {
+        this.tables = new Tables(floydWarshall(this.edgeKm), floydWarshall(this.edgeMinutes));
+        this.version++;
+    }
+
+    private double[] floydWarshall(double[] edges) {
+        double[] dist = edges.clone();
+        for (int k = 0; k < size; k++) {
+            for (int i = 0; i < size; i++) {
+                double ik = dist[i * size + k];
+                if (Double.isInfinite(ik)) {
+                    continue;
+                }
+                for (int j = 0; j < size; j++) {
+                    double candidate = ik + dist[k * size + j];
+                    if (candidate < dist[i * size + j]) {
+                        dist[i * size + j] = candidate;
+                    }
+                }
+            }
+        }
+        return dist;
+    }
+
+    // Atualiza todos os pares usando a aresta a-b (nos dois sentidos)
+    private void relax(double[] dist, int a, int b, double weight) {
+        for (int i = 0; i < size; i++) {
+            double ia = dist[i * size + a];
+            double ib = dist[i * size + b];
+            for (int j = 0; j < size; j++) {
+                double viaAB = ia + weight + dist[b * size + j];
+                double viaBA = ib + weight + dist[a * size + j];
+                double best = Math.min(viaAB, viaBA);
+                if (best < dist[i * size + j]) {
+                    dist[i * size + j] = best;
+                }
+            }
+        }
+    }
+
+    private static double toMinutes(double km) {
+        return km / AVERAGE_SPEED_KMH * 60.0;
+    }
+}
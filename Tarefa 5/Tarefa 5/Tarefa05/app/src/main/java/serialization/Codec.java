@@ -0,0 +1,126 @@
+package serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Value conversions shared by the generated serializers. Null values are left
+ * out of the XML form, as JAXB does, and are written as an absent flag, a -1
+ * length or a -1 ordinal in the binary form.
+ */
+public final class Codec {
+
+    private Codec() {
+    }
+
+    public static void writeElement(XMLStreamWriter out, String name, String text) throws XMLStreamException {
+        if (text == null) {
+            return;
+        }
+        out.writeStartElement(name);
+        out.writeCharacters(text);
+        out.writeEndElement();
+    }
+
+    /**
+     * Skips the element the reader is on, including its children.
+     *
+     * @param in the reader, on a start tag; left on the matching end tag
+     * @throws XMLStreamException if the XML is malformed
+     */
+    public static void skipElement(XMLStreamReader in) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = in.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    public static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    public static String text(LocalDateTime value) {
+        return value == null ? null : value.toString();
+    }
+
+    public static LocalDateTime parseDateTime(String text) {
+        return LocalDateTime.parse(text.trim());
+    }
+
+    /**
+     * Writes a string as its length in bytes followed by its UTF-8 bytes, so
+     * unlike {@link DataOutput#writeUTF(String)} it has no 64 KB limit.
+     *
+     * @param out   the output
+     * @param value the string, or null
+     * @throws IOException if the output fails
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        out.writeInt(value == null ? -1 : value.ordinal());
+    }
+
+    public static <E extends Enum<E>> E readEnum(DataInput in, E[] values) throws IOException {
+        int ordinal = in.readInt();
+        if (ordinal >= values.length) {
+            throw new IOException("Invalid enum ordinal: " + ordinal);
+        }
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    public static int readEnumOrdinal(DataInput in) throws IOException {
+        return in.readInt();
+    }
+
+    public static void writeDateTime(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    public static LocalDateTime readDateTime(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+}
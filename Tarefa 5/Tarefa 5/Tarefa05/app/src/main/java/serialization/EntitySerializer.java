@@ -0,0 +1,61 @@
+package serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Reads and writes one entity type without reflection. Implementations are
+ * generated at compile time for the classes annotated with
+ * {@code @GenerateSerializer}; use {@link Serializers} to find them.
+ *
+ * The XML form is the one JAXB writes for the entity. The binary form is the
+ * entity's properties in the same order, with no names or framing, so it can
+ * only be read back by a serializer generated from the same class.
+ *
+ * @param <T> the entity type
+ */
+public interface EntitySerializer<T> {
+
+    public Class<T> getType();
+
+    /**
+     * Returns the name of the root element of the XML form.
+     *
+     * @return the element name
+     */
+    public String getElementName();
+
+    public default void writeXml(T value, XMLStreamWriter out) throws XMLStreamException {
+        this.writeXml(value, this.getElementName(), out);
+    }
+
+    /**
+     * Writes one entity as an element with the given name, as JAXB does for
+     * an entity in a list with its own element name.
+     *
+     * @param value       the entity
+     * @param elementName the name of the element
+     * @param out         the writer
+     * @throws XMLStreamException if the XML cannot be written
+     */
+    public void writeXml(T value, String elementName, XMLStreamWriter out) throws XMLStreamException;
+
+    /**
+     * Reads one entity. The reader must be on the start tag of the entity, and
+     * is left on its end tag.
+     *
+     * @param in the reader
+     * @return the entity
+     * @throws XMLStreamException if the XML is malformed
+     */
+    public T readXml(XMLStreamReader in) throws XMLStreamException;
+
+    public void writeBinary(T value, DataOutput out) throws IOException;
+
+    public T readBinary(DataInput in) throws IOException;
+}
@@ -0,0 +1,54 @@
+package serialization;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Finds the generated {@link EntitySerializer}s. They are discovered once,
+ * through the service file the annotation processor writes next to them.
+ */
+public final class Serializers {
+
+    private static final Map<Class<?>, EntitySerializer<?>> BY_TYPE = new HashMap<>();
+    private static final Map<String, EntitySerializer<?>> BY_ELEMENT = new HashMap<>();
+
+    static {
+        for (EntitySerializer<?> serializer : ServiceLoader.load(EntitySerializer.class,
+                Serializers.class.getClassLoader())) {
+            BY_TYPE.put(serializer.getType(), serializer);
+            BY_ELEMENT.put(serializer.getElementName(), serializer);
+        }
+    }
+
+    private Serializers() {
+    }
+
+    /**
+     * Returns the serializer of an entity type.
+     *
+     * @param <T>  the entity type
+     * @param type the entity class
+     * @return the serializer
+     * @throws IllegalArgumentException if no serializer was generated for the
+     *                                  type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntitySerializer<T> get(Class<T> type) throws IllegalArgumentException {
+        EntitySerializer<T> serializer = (EntitySerializer<T>) BY_TYPE.get(type);
+        if (serializer == null) {
+            throw new IllegalArgumentException("No serializer generated for " + type.getName());
+        }
+        return serializer;
+    }
+
+    /**
+     * Returns the serializer whose XML root element has the given name.
+     *
+     * @param elementName the element name
+     * @return the serializer, or null if there is none
+     */
+    public static EntitySerializer<?> forElement(String elementName) {
+        return BY_ELEMENT.get(elementName);
+    }
+}
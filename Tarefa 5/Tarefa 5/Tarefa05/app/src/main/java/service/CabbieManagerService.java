@@ -0,0 +1,235 @@
+package service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import databaseManager.Database;
+import exceptions.VersionConflictException;
+import logging.Log;
+import logging.Logger;
+import metrics.Metrics;
+import settlement.SettlementPipeline;
+import subscriptions.RideStatusHub;
+
+/**
+ * Asynchronous facade of the ride life cycle, meant to be called by many
+ * clients at once.
+ *
+ * Every operation runs on its own virtual thread and returns a
+ * {@link CompletableFuture}. Rides that are not paid yet are kept in a
+ * concurrent map and move through CHAMADA, ACEITA, EM_PROGRESSO and
+ * FINALIZADA. Each transition changes a copy of the ride and stores it with
+ * the version check of {@link Database#update(Object)}, so the stored
+ * instances are never changed in place and two clients can never take the
+ * same ride through the same step. A cabbie can only be in one ride at a time.
+ * The {@link Database} only uses
+ * {@link java.util.concurrent.locks.ReentrantLock}s, so file I/O never pins a
+ * carrier thread.
+ *
+ * An operation that does not fit the current state of the ride fails its
+ * future with an {@link IllegalStateException}, or with a
+ * {@link VersionConflictException} when another client changed the ride at
+ * the same time. The committed status changes are published to the default
+ * {@link RideStatusHub}.
+ */
+public class CabbieManagerService implements AutoCloseable {
+
+    private static final Logger LOG = Log.getLogger(CabbieManagerService.class);
+
+    private final Database database;
+    private final SettlementPipeline settlement;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Corridas ainda não pagas, por id, e a corrida em que cada motorista está
+    private final ConcurrentHashMap<String, Ride> rides = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> rideIdByCabbieId = new ConcurrentHashMap<>();
+
+    public CabbieManagerService(Database database) {
+        this(database, null);
+    }
+
+    /**
+     * Creates a service that also queues every payment for settlement.
+     *
+     * @param database   the store of the rides and payments
+     * @param settlement the pipeline that settles the payments, or null; it is
+     *                   not closed by {@link #close()}
+     */
+    public CabbieManagerService(Database database, SettlementPipeline settlement) {
+        this.database = database;
+        this.settlement = settlement;
+        database.addChangeListener(RideStatusHub.getDefault());
+        Metrics.gauge("cabbie_rides_in_flight", "Corridas pedidas e ainda não pagas", this.rides::size);
+    }
+
+    /**
+     * Requests a ride and stores it.
+     *
+     * @param passengerId    the id of the passenger
+     * @param pickupLocation the name of the pickup location
+     * @param dropLocation   the name of the drop location
+     * @return the ride, with status CHAMADA
+     */
+    public CompletableFuture<Ride> requestRide(String passengerId, String pickupLocation, String dropLocation) {
+        return this.submit(() -> {
+            Ride ride = new Ride(passengerId);
+            ride.requestRide(pickupLocation, dropLocation);
+            this.database.insert(ride);
+            this.rides.put(ride.getRideId(), ride);
+            return ride;
+        });
+    }
+
+    /**
+     * Assigns a requested ride to a free cabbie and marks the cabbie as busy.
+     *
+     * @param rideId    the id of a ride with status CHAMADA
+     * @param cabbieId  the id of a cabbie that is in no other ride
+     * @param vehicleId the id of the vehicle of the cabbie
+     * @return the ride, with status ACEITA
+     */
+    public CompletableFuture<Ride> acceptRide(String rideId, String cabbieId, String vehicleId) {
+        return this.submit(() -> {
+            String current = this.rideIdByCabbieId.putIfAbsent(cabbieId, rideId);
+            if (current != null) {
+                throw new IllegalStateException("Cabbie " + cabbieId + " is already in ride " + current);
+            }
+
+            Ride ride;
+            try {
+                ride = this.transition(rideId, "CHAMADA", "ACEITA", cabbieId, vehicleId);
+            } catch (RuntimeException | VersionConflictException e) {
+                this.rideIdByCabbieId.remove(cabbieId, rideId);
+                throw e;
+            }
+
+            this.setBusy(cabbieId, true);
+            return ride;
+        });
+    }
+
+    /**
+     * Starts an accepted ride.
+     *
+     * @param rideId the id of a ride with status ACEITA
+     * @return the ride, with status EM_PROGRESSO
+     */
+    public CompletableFuture<Ride> startRide(String rideId) {
+        return this.submit(() -> {
+            return this.transition(rideId, "ACEITA", "EM_PROGRESSO", null, null);
+        });
+    }
+
+    /**
+     * Finishes a ride in progress and frees its cabbie.
+     *
+     * @param rideId the id of a ride with status EM_PROGRESSO
+     * @return the ride, with status FINALIZADA
+     */
+    public CompletableFuture<Ride> completeRide(String rideId) {
+        return this.submit(() -> {
+            Ride ride = this.transition(rideId, "EM_PROGRESSO", "FINALIZADA", null, null);
+            ride.completeRide();
+
+            this.rideIdByCabbieId.remove(ride.getCabbieId(), rideId);
+            this.setBusy(ride.getCabbieId(), false);
+            return ride;
+        });
+    }
+
+    /**
+     * Pays a finished ride and stores the payment. A ride is paid only once;
+     * after that it is no longer tracked by the service.
+     *
+     * @param rideId        the id of a ride with status FINALIZADA
+     * @param paymentMethod the name of the payment option
+     * @return the payment
+     */
+    public CompletableFuture<RidePayment> pay(String rideId, String paymentMethod) {
+        return this.submit(() -> {
+            Ride ride = this.rides.get(rideId);
+            if (ride == null || !"FINALIZADA".equals(ride.getStatus())) {
+                throw new IllegalStateException("Ride " + rideId + " is not waiting for payment");
+            }
+
+            RidePayment payment = new RidePayment(rideId, ride.getStartTime(), ride.getRideDistance(),
+                    paymentMethod);
+            // Só quem remove a corrida do mapa grava o pagamento
+            if (!this.rides.remove(rideId, ride)) {
+                throw new IllegalStateException("Ride " + rideId + " was already paid");
+            }
+
+            payment.processPayment();
+            this.database.insert(payment);
+            if (this.settlement != null) {
+                this.settlement.submit(payment);
+            }
+            return payment;
+        });
+    }
+
+    /**
+     * Returns the number of rides that were requested and not paid yet.
+     *
+     * @return the number of rides in flight
+     */
+    public int getRidesInFlight() {
+        return this.rides.size();
+    }
+
+    /**
+     * Waits for the running operations and stops accepting new ones.
+     */
+    @Override
+    public void close() {
+        this.executor.close();
+    }
+
+    // Grava uma cópia da corrida com o novo status; se outra transição gravar antes, a versão não confere
+    private Ride transition(String rideId, String from, String to, String cabbieId, String vehicleId)
+            throws VersionConflictException {
+        Ride current = this.rides.get(rideId);
+        if (current == null) {
+            throw new IllegalStateException("Ride " + rideId + " is not in flight");
+        }
+        if (!from.equals(current.getStatus())) {
+            throw new IllegalStateException("Ride " + rideId + " is " + current.getStatus() + ", expected " + from);
+        }
+
+        Ride next = new Ride(current);
+        next.updateRideStatus(to, cabbieId, vehicleId);
+        this.database.update(next);
+        // Só a transição que gravou chega aqui, então a troca no mapa sempre vale
+        this.rides.replace(rideId, current, next);
+        return next;
+    }
+
+    private void setBusy(String cabbieId, boolean busy) throws VersionConflictException {
+        Cabbie stored = this.database.findCabbie(cabbieId);
+        if (stored == null) {
+            LOG.warn(() -> "Motorista " + cabbieId + " não está cadastrado");
+            return;
+        }
+        Cabbie cabbie = new Cabbie(stored);
+        cabbie.setIsBusy(busy);
+        this.database.update(cabbie);
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        this.executor.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+}
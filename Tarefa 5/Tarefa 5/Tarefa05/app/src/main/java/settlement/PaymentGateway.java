@@ -0,0 +1,27 @@
+package settlement;
+
+import java.io.IOException;
+import java.util.List;
+
+import cabbieManager.RidePayment;
+
+/**
+ * External service that charges ride payments in batches.
+ *
+ * Implementations must deduplicate by payment id: a batch is sent again after
+ * an {@link IOException}, and the earlier attempt may already have charged
+ * some of its payments. A payment seen before must get its earlier answer and
+ * must not be charged again.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Charges a batch of payments.
+     *
+     * @param batch the payments to charge
+     * @return one flag per payment, in the same order, true if it was accepted
+     * @throws IOException if the gateway could not be reached or did not answer;
+     *                     the whole batch is retried
+     */
+    public boolean[] settle(List<RidePayment> batch) throws IOException;
+}
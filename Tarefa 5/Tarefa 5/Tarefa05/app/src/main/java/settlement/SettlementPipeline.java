@@ -0,0 +1,294 @@
+package settlement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import cabbieManager.RidePayment;
+import logging.Log;
+import logging.Logger;
+
+/**
+ * Queues ride payments and settles them in batches on a background thread.
+ *
+ * Payments are deduplicated on submission: a payment id is only queued once,
+ * and a ride can only have one payment queued or settled. A payment that is
+ * declined or fails frees its ride, so a new payment can be submitted for it;
+ * a payment whose outcome is {@link SettlementStatus#UNKNOWN} keeps its ride
+ * blocked, since it may have been charged. {@link #submit(RidePayment)} never
+ * waits for the gateway.
+ *
+ * Only the last {@link #DEFAULT_HISTORY_SIZE} finished payments are remembered
+ * by default, and an older one is reported as unknown. The settled and
+ * blocked rides are never forgotten.
+ */
+public class SettlementPipeline implements AutoCloseable {
+
+    private static final Logger LOG = Log.getLogger(SettlementPipeline.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final int DEFAULT_HISTORY_SIZE = 100_000;
+
+    private static final long RETRY_BACKOFF_MILLIS = 50;
+
+    private final PaymentGateway gateway;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    private final LinkedBlockingQueue<RidePayment> queue = new LinkedBlockingQueue<>();
+    // Pagamentos na fila ou no gateway, e as corridas deles; saem quando o lote termina
+    private final Map<String, SettlementStatus> statusInFlight = new HashMap<>();
+    private final Map<String, String> paymentIdByRideInFlight = new HashMap<>();
+    // Pagamentos já concluídos, limitados aos mais recentes
+    private final Map<String, SettlementStatus> finishedStatus;
+    // Corridas liquidadas ou com resultado desconhecido; nunca saem, para não cobrar duas vezes
+    private final Set<String> settledRideIds = new HashSet<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition idle = this.lock.newCondition();
+    private int pending;
+    private volatile boolean closed;
+
+    private final Thread worker;
+
+    public SettlementPipeline(PaymentGateway gateway) {
+        this(gateway, DEFAULT_BATCH_SIZE, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public SettlementPipeline(PaymentGateway gateway, int batchSize, int maxAttempts) {
+        this(gateway, batchSize, maxAttempts, DEFAULT_HISTORY_SIZE);
+    }
+
+    /**
+     * Creates a pipeline and starts its worker thread.
+     *
+     * @param gateway     the gateway that charges the payments
+     * @param batchSize   the maximum number of payments per batch
+     * @param maxAttempts the attempts per batch before its payments fail
+     * @param historySize the finished payments to remember
+     */
+    public SettlementPipeline(PaymentGateway gateway, int batchSize, int maxAttempts, int historySize) {
+        if (batchSize <= 0 || maxAttempts <= 0 || historySize <= 0) {
+            throw new IllegalArgumentException("Batch size, attempts and history size must be greater than zero");
+        }
+        this.gateway = gateway;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.finishedStatus = bounded(historySize);
+
+        this.worker = new Thread(this::run, "settlement-worker");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues a payment for settlement.
+     *
+     * @param payment the payment to settle
+     * @return {@link SettlementStatus#QUEUED} if it was queued,
+     *         {@link SettlementStatus#DUPLICATE} if its ride already has a
+     *         payment queued, settled or of unknown outcome, or the current status if this payment was already
+     *         submitted
+     * @throws IllegalStateException if the pipeline was closed
+     */
+    public SettlementStatus submit(RidePayment payment) throws IllegalStateException {
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                throw new IllegalStateException("Settlement pipeline is closed");
+            }
+
+            SettlementStatus current = this.status(payment.getPaymentId());
+            if (current != null) {
+                return current;
+            }
+
+            String rideId = payment.getRideId();
+            if (this.paymentIdByRideInFlight.containsKey(rideId) || this.settledRideIds.contains(rideId)) {
+                this.finishedStatus.put(payment.getPaymentId(), SettlementStatus.DUPLICATE);
+                return SettlementStatus.DUPLICATE;
+            }
+
+            this.paymentIdByRideInFlight.put(rideId, payment.getPaymentId());
+            this.statusInFlight.put(payment.getPaymentId(), SettlementStatus.QUEUED);
+            this.pending++;
+        } finally {
+            this.lock.unlock();
+        }
+
+        this.queue.add(payment);
+        return SettlementStatus.QUEUED;
+    }
+
+    /**
+     * Returns the settlement status of a payment.
+     *
+     * @param paymentId the id of the payment
+     * @return the status, or null if the payment was never submitted or is no
+     *         longer remembered
+     */
+    public SettlementStatus getStatus(String paymentId) {
+        this.lock.lock();
+        try {
+            return this.status(paymentId);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // Chamado com lock
+    private SettlementStatus status(String paymentId) {
+        SettlementStatus status = this.statusInFlight.get(paymentId);
+        return status != null ? status : this.finishedStatus.get(paymentId);
+    }
+
+    /**
+     * Waits until every queued payment has left the pipeline.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of {@code timeout}
+     * @return true if the pipeline is idle, false if the timeout elapsed first
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        this.lock.lock();
+        try {
+            while (this.pending > 0) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = this.idle.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting payments, settles what is already queued and stops the
+     * worker thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        this.closed = true;
+        this.flush(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        this.worker.interrupt();
+        this.worker.join();
+    }
+
+    private void run() {
+        List<RidePayment> batch = new ArrayList<>(this.batchSize);
+        while (true) {
+            try {
+                RidePayment first = this.queue.take();
+                batch.add(first);
+                this.queue.drainTo(batch, this.batchSize - 1);
+                this.settle(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // O lote já foi concluído como falho; a thread segue com os próximos
+                LOG.error(() -> "Erro ao liquidar lote", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void settle(List<RidePayment> batch) throws InterruptedException {
+        SettlementStatus[] statuses = null;
+        try {
+            this.setStatus(batch, SettlementStatus.SUBMITTED);
+            statuses = this.attempt(batch);
+        } finally {
+            // Sempre conclui o lote, para flush e close não esperarem para sempre
+            this.finish(batch, statuses);
+        }
+    }
+
+    private SettlementStatus[] attempt(List<RidePayment> batch) throws InterruptedException {
+        for (int attempt = 1; attempt <= this.maxAttempts; attempt++) {
+            try {
+                boolean[] accepted = this.gateway.settle(batch);
+                if (accepted == null || accepted.length != batch.size()) {
+                    throw new IllegalStateException("Gateway answered " + (accepted == null ? "null" : accepted.length
+                            + " flags") + " for a batch of " + batch.size());
+                }
+                SettlementStatus[] statuses = new SettlementStatus[accepted.length];
+                for (int i = 0; i < accepted.length; i++) {
+                    statuses[i] = accepted[i] ? SettlementStatus.SETTLED : SettlementStatus.DECLINED;
+                }
+                return statuses;
+            } catch (IOException e) {
+                int failedAttempt = attempt;
+                LOG.warn(() -> "Falha ao liquidar lote (tentativa " + failedAttempt + "): " + e.getMessage());
+                if (attempt < this.maxAttempts) {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+                }
+            } catch (RuntimeException e) {
+                // Erro do próprio gateway, não de rede: tentar de novo não adianta
+                LOG.error(() -> "Erro do gateway ao liquidar lote de " + batch.size() + " pagamentos", e);
+                return null;
+            }
+        }
+        // O gateway pode ter cobrado parte do lote antes de falhar; as corridas ficam bloqueadas
+        LOG.warn(() -> "Resultado desconhecido para lote de " + batch.size() + " pagamentos");
+        SettlementStatus[] statuses = new SettlementStatus[batch.size()];
+        Arrays.fill(statuses, SettlementStatus.UNKNOWN);
+        return statuses;
+    }
+
+    private void finish(List<RidePayment> batch, SettlementStatus[] statuses) {
+        this.lock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                RidePayment payment = batch.get(i);
+                SettlementStatus status = statuses == null ? SettlementStatus.FAILED : statuses[i];
+                this.statusInFlight.remove(payment.getPaymentId());
+                this.finishedStatus.put(payment.getPaymentId(), status);
+                this.paymentIdByRideInFlight.remove(payment.getRideId());
+                if (status == SettlementStatus.SETTLED || status == SettlementStatus.UNKNOWN) {
+                    this.settledRideIds.add(payment.getRideId());
+                }
+            }
+            this.pending -= batch.size();
+            this.idle.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void setStatus(List<RidePayment> batch, SettlementStatus status) {
+        this.lock.lock();
+        try {
+            for (RidePayment payment : batch) {
+                this.statusInFlight.put(payment.getPaymentId(), status);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // Mapa que descarta a entrada mais antiga ao passar do limite
+    private static <K, V> Map<K, V> bounded(int maxSize) {
+        return new LinkedHashMap<K, V>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+    }
+}
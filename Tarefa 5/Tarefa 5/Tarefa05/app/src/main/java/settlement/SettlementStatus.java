@@ -0,0 +1,21 @@
+package settlement;
+
+/**
+ * Lifecycle of a payment in the {@link SettlementPipeline}.
+ */
+public enum SettlementStatus {
+    /** Na fila, aguardando o próximo lote. */
+    QUEUED,
+    /** Enviado ao gateway, aguardando resposta. */
+    SUBMITTED,
+    /** Aceito pelo gateway. */
+    SETTLED,
+    /** Recusado pelo gateway. */
+    DECLINED,
+    /** Erro do gateway antes de cobrar; a corrida fica livre para outro pagamento. */
+    FAILED,
+    /** O gateway ficou inacessível em todas as tentativas e pode ter cobrado; a corrida fica bloqueada. */
+    UNKNOWN,
+    /** Já existe outro pagamento para a mesma corrida; não foi enfileirado. */
+    DUPLICATE
+}
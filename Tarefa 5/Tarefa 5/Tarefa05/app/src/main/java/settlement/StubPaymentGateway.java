@@ -0,0 +1,72 @@
+package settlement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import cabbieManager.RidePayment;
+
+/**
+ * In-process gateway for tests and local runs. Accepts every payment unless a
+ * decline rule is given, and can be told to fail the next few calls. A payment
+ * sent again gets its first answer and is not charged twice.
+ */
+public class StubPaymentGateway implements PaymentGateway {
+    private final Predicate<RidePayment> declineRule;
+    private final List<RidePayment> settled = new ArrayList<>();
+    private final Map<String, Boolean> answers = new HashMap<>();
+    private int batches;
+    private int failuresLeft;
+
+    public StubPaymentGateway() {
+        this(payment -> false);
+    }
+
+    public StubPaymentGateway(Predicate<RidePayment> declineRule) {
+        this.declineRule = declineRule;
+    }
+
+    @Override
+    public synchronized boolean[] settle(List<RidePayment> batch) throws IOException {
+        this.batches++;
+        if (this.failuresLeft > 0) {
+            this.failuresLeft--;
+            throw new IOException("Gateway indisponível");
+        }
+
+        boolean[] accepted = new boolean[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            RidePayment payment = batch.get(i);
+            Boolean answer = this.answers.get(payment.getPaymentId());
+            if (answer == null) {
+                answer = !this.declineRule.test(payment);
+                this.answers.put(payment.getPaymentId(), answer);
+                if (answer) {
+                    this.settled.add(payment);
+                }
+            }
+            accepted[i] = answer;
+        }
+        return accepted;
+    }
+
+    /**
+     * Makes the next {@code count} calls fail with an {@link IOException}.
+     *
+     * @param count the number of calls to fail
+     */
+    public synchronized void failNext(int count) {
+        this.failuresLeft = count;
+    }
+
+    public synchronized List<RidePayment> getSettled() {
+        return new ArrayList<>(this.settled);
+    }
+
+    public synchronized int getBatches() {
+        return this.batches;
+    }
+}
@@ -0,0 +1,451 @@
+package simulation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Location;
+import cabbieManager.Passenger;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import cabbieManager.Vehicle;
+import databaseManager.Database;
+import exceptions.CabbieManagerException;
+import exceptions.InvalidPaymentMethodException;
+import exceptions.VersionConflictException;
+import logging.Log;
+import logging.Logger;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import subscriptions.RideStatusHub;
+
+/**
+ * City simulation for capacity planning. Passengers request rides between
+ * {@link Location}s, cabbies accept, drive and charge them, and every step
+ * goes through the real {@link Ride}, {@link RidePayment} and {@link Database}
+ * code.
+ *
+ * In {@link SimulationConfig.Mode#VIRTUAL_THREADS} each passenger and cabbie
+ * is a virtual thread and simulated minutes pass in real time. In
+ * {@link SimulationConfig.Mode#DISCRETE_EVENT} a single thread processes the
+ * events in the order of a simulated clock, so a day of traffic runs as fast
+ * as the code under test allows.
+ *
+ * Every step stores a copy of the ride or cabbie with the version check of
+ * {@link Database#update(Object)}, and the committed status changes are
+ * published to the default {@link RideStatusHub}. A trip whose ride was
+ * changed by another client in the meantime is counted as failed.
+ *
+ * The latency histograms are shared through {@link Metrics}, so only one
+ * simulation should run at a time.
+ */
+public class Simulation {
+
+    private static final Logger LOG = Log.getLogger(Simulation.class);
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+    // Sorteios do destino antes de escolher entre os outros locais
+    private static final int DROP_ATTEMPTS = 16;
+    // Gravações do motorista, relendo a cópia do banco quando a versão não confere
+    private static final int UPDATE_ATTEMPTS = 3;
+    private static final LocalDateTime CLOCK_START = LocalDateTime.of(2024, 1, 1, 6, 0);
+
+    private static final LatencyHistogram WAIT_LATENCY = Metrics.histogram("cabbie_simulation_wait_seconds",
+            "Espera entre o pedido e o aceite da corrida na simulação");
+    private static final LatencyHistogram RIDE_LATENCY = Metrics.histogram("cabbie_simulation_ride_seconds",
+            "Tempo entre o pedido e o pagamento da corrida na simulação");
+    private static final LatencyHistogram SERVICE_LATENCY = Metrics.histogram("cabbie_simulation_service_seconds",
+            "Tempo real gasto no código de corrida, pagamento e banco de dados por corrida");
+
+    private final SimulationConfig config;
+    private final Database database;
+
+    private final List<Passenger> passengers = new ArrayList<>();
+    // Última cópia gravada de cada motorista; cada posição só é usada pela thread do seu motorista
+    private final List<Cabbie> cabbies = new ArrayList<>();
+    private final List<Vehicle> vehicles = new ArrayList<>();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public Simulation(SimulationConfig config, Database database) {
+        this.config = config;
+        this.database = database;
+        database.addChangeListener(RideStatusHub.getDefault());
+    }
+
+    /**
+     * Registers the passengers, cabbies and vehicles, then runs every passenger
+     * until it has taken its rides.
+     *
+     * @return the report of the run
+     * @throws CabbieManagerException if the database rejects the participants
+     * @throws InterruptedException   if the current thread is interrupted
+     */
+    public SimulationReport run() throws CabbieManagerException, InterruptedException {
+        List<Object> participants = new ArrayList<>();
+        for (int i = 0; i < this.config.getPassengers(); i++) {
+            Passenger passenger = new Passenger();
+            passenger.register();
+            this.passengers.add(passenger);
+            participants.add(passenger);
+        }
+        for (int i = 0; i < this.config.getCabbies(); i++) {
+            Cabbie cabbie = new Cabbie();
+            cabbie.register();
+            Vehicle vehicle = new Vehicle(cabbie.getCabbieId());
+            vehicle.registerVehicle();
+            this.cabbies.add(cabbie);
+            this.vehicles.add(vehicle);
+            participants.add(cabbie);
+            participants.add(vehicle);
+        }
+        this.database.insertAll(participants);
+
+        WAIT_LATENCY.snapshotAndReset();
+        RIDE_LATENCY.snapshotAndReset();
+        SERVICE_LATENCY.snapshotAndReset();
+
+        long start = System.nanoTime();
+        if (this.config.getMode() == SimulationConfig.Mode.VIRTUAL_THREADS) {
+            this.runVirtualThreads();
+        } else {
+            this.runDiscreteEvents();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        SimulationReport report = new SimulationReport(this.config.getMode(), this.completed.get(),
+                this.failed.get(), elapsed, WAIT_LATENCY.snapshot(), RIDE_LATENCY.snapshot(),
+                SERVICE_LATENCY.snapshot());
+        LOG.info(report::toString);
+        return report;
+    }
+
+    // ---------------------------------------------------------------------
+    // Threads virtuais
+    // ---------------------------------------------------------------------
+
+    private void runVirtualThreads() throws InterruptedException {
+        LinkedBlockingQueue<Trip> requests = new LinkedBlockingQueue<>();
+        CountDownLatch passengersDone = new CountDownLatch(this.passengers.size());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            SplittableRandom root = new SplittableRandom(this.config.getSeed());
+            List<Future<?>> tasks = new ArrayList<>();
+            for (Passenger passenger : this.passengers) {
+                SplittableRandom random = root.split();
+                tasks.add(executor.submit(() -> {
+                    try {
+                        this.passengerLoop(passenger, random, requests);
+                    } finally {
+                        passengersDone.countDown();
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < this.cabbies.size(); i++) {
+                int cabbie = i;
+                tasks.add(executor.submit(() -> {
+                    this.cabbieLoop(cabbie, requests, passengersDone);
+                    return null;
+                }));
+            }
+
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    LOG.error(() -> "Erro na simulação", e.getCause());
+                }
+            }
+        }
+    }
+
+    private void passengerLoop(Passenger passenger, SplittableRandom random, LinkedBlockingQueue<Trip> requests)
+            throws InterruptedException {
+        for (int i = 0; i < this.config.getRidesPerPassenger(); i++) {
+            this.sleepMinutes(this.nextRequestMinutes(random));
+
+            Trip trip = this.request(passenger, random, System.nanoTime(), null);
+            if (trip == null) {
+                continue;
+            }
+            requests.put(trip);
+            trip.done.await();
+        }
+    }
+
+    private void cabbieLoop(int cabbie, LinkedBlockingQueue<Trip> requests, CountDownLatch passengersDone)
+            throws InterruptedException {
+        while (true) {
+            Trip trip = requests.poll(10, TimeUnit.MILLISECONDS);
+            if (trip == null) {
+                if (passengersDone.getCount() == 0 && requests.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+
+            try {
+                if (this.accept(trip, cabbie, System.nanoTime())) {
+                    this.sleepMinutes(trip.ride.estimateDuration());
+                    this.complete(trip, cabbie, System.nanoTime());
+                }
+            } finally {
+                trip.done.countDown();
+            }
+        }
+    }
+
+    private void sleepMinutes(double minutes) throws InterruptedException {
+        long nanos = (long) (minutes * this.config.getMillisPerMinute() * 1_000_000);
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Eventos discretos
+    // ---------------------------------------------------------------------
+
+    private void runDiscreteEvents() {
+        PriorityQueue<Event> events = new PriorityQueue<>();
+        ArrayDeque<Trip> waiting = new ArrayDeque<>();
+        ArrayDeque<Integer> freeCabbies = new ArrayDeque<>();
+        for (int i = 0; i < this.cabbies.size(); i++) {
+            freeCabbies.add(i);
+        }
+
+        SplittableRandom root = new SplittableRandom(this.config.getSeed());
+        SplittableRandom[] randoms = new SplittableRandom[this.passengers.size()];
+        int[] remaining = new int[this.passengers.size()];
+        long sequence = 0;
+        for (int i = 0; i < randoms.length; i++) {
+            randoms[i] = root.split();
+            remaining[i] = this.config.getRidesPerPassenger();
+            if (remaining[i] > 0) {
+                events.add(new Event(this.minutesToNanos(this.nextRequestMinutes(randoms[i])), sequence++, i, -1,
+                        null));
+            }
+        }
+
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            long now = event.time;
+
+            if (event.trip == null) {
+                // Pedido de corrida
+                int passenger = event.passenger;
+                remaining[passenger]--;
+                Trip trip = this.request(this.passengers.get(passenger), randoms[passenger], now,
+                        CLOCK_START.plusNanos(now));
+                if (trip != null) {
+                    trip.passenger = passenger;
+                    waiting.add(trip);
+                } else if (remaining[passenger] > 0) {
+                    events.add(new Event(now + this.minutesToNanos(this.nextRequestMinutes(randoms[passenger])),
+                            sequence++, passenger, -1, null));
+                }
+            } else {
+                // Fim de corrida
+                Trip trip = event.trip;
+                this.complete(trip, event.cabbie, now);
+                freeCabbies.add(event.cabbie);
+                if (remaining[trip.passenger] > 0) {
+                    events.add(new Event(now + this.minutesToNanos(this.nextRequestMinutes(randoms[trip.passenger])),
+                            sequence++, trip.passenger, -1, null));
+                }
+            }
+
+            while (!waiting.isEmpty() && !freeCabbies.isEmpty()) {
+                Trip trip = waiting.poll();
+                int cabbie = freeCabbies.poll();
+                if (this.accept(trip, cabbie, now)) {
+                    events.add(new Event(now + this.minutesToNanos(trip.ride.estimateDuration()), sequence++,
+                            trip.passenger, cabbie, trip));
+                } else {
+                    freeCabbies.add(cabbie);
+                    if (remaining[trip.passenger] > 0) {
+                        events.add(new Event(
+                                now + this.minutesToNanos(this.nextRequestMinutes(randoms[trip.passenger])),
+                                sequence++, trip.passenger, -1, null));
+                    }
+                }
+            }
+        }
+    }
+
+    private long minutesToNanos(double minutes) {
+        return (long) (minutes * NANOS_PER_MINUTE);
+    }
+
+    // ---------------------------------------------------------------------
+    // Etapas de uma corrida, iguais nos dois modos
+    // ---------------------------------------------------------------------
+
+    // Tempo até o próximo pedido, com distribuição exponencial
+    private double nextRequestMinutes(SplittableRandom random) {
+        return -Math.log(1 - random.nextDouble()) / this.config.getRequestsPerMinute();
+    }
+
+    // Um local sorteado entre todos, menos o dado
+    private static Location otherLocation(Location location, SplittableRandom random) {
+        Location[] locations = Location.values();
+        int index = random.nextInt(locations.length - 1);
+        return locations[index >= location.ordinal() ? index + 1 : index];
+    }
+
+    private Trip request(Passenger passenger, SplittableRandom random, long now, LocalDateTime startTime) {
+        Location pickup = this.config.getPickupDistribution().sample(random);
+        Location drop = this.config.getDropDistribution().sample(random);
+        for (int attempt = 1; attempt < DROP_ATTEMPTS && drop == pickup; attempt++) {
+            drop = this.config.getDropDistribution().sample(random);
+        }
+        if (drop == pickup) {
+            // A distribuição de destino (quase) só devolve a origem
+            drop = otherLocation(pickup, random);
+        }
+        String paymentMethod = this.config.getPaymentDistribution().sample(random).getName();
+
+        long serviceStart = System.nanoTime();
+        try {
+            Ride ride = new Ride(passenger.getPassengerId());
+            ride.requestRide(pickup.getName(), drop.getName());
+            if (startTime != null) {
+                ride.setStartTime(startTime);
+            }
+            this.database.insert(ride);
+
+            Trip trip = new Trip(ride, paymentMethod, now);
+            trip.serviceNanos = System.nanoTime() - serviceStart;
+            return trip;
+        } catch (CabbieManagerException | IllegalArgumentException e) {
+            this.failed.incrementAndGet();
+            LOG.warn(() -> "Pedido de corrida falhou: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Devolve false se a corrida foi alterada por outro cliente; o motorista continua livre
+    private boolean accept(Trip trip, int cabbie, long now) {
+        long serviceStart = System.nanoTime();
+        WAIT_LATENCY.record(now - trip.requestedAt);
+        try {
+            // Aceite e início gravados juntos, numa cópia da corrida
+            Ride ride = new Ride(trip.ride);
+            ride.updateRideStatus("ACEITA", this.cabbies.get(cabbie).getCabbieId(),
+                    this.vehicles.get(cabbie).getVehicleId());
+            ride.updateRideStatus("EM_PROGRESSO", null, null);
+            this.database.update(ride);
+            trip.ride = ride;
+            this.setBusy(cabbie, true);
+            return true;
+        } catch (VersionConflictException e) {
+            this.failed.incrementAndGet();
+            LOG.warn(() -> "Aceite da corrida " + trip.ride.getRideId() + " falhou: " + e.getMessage());
+            return false;
+        } finally {
+            trip.serviceNanos += System.nanoTime() - serviceStart;
+        }
+    }
+
+    private void complete(Trip trip, int cabbie, long now) {
+        long serviceStart = System.nanoTime();
+        try {
+            Ride ride = new Ride(trip.ride);
+            RidePayment payment = new RidePayment(ride.getRideId(), ride.getStartTime(), ride.getRideDistance(),
+                    trip.paymentMethod);
+            payment.processPayment();
+            ride.completeRide();
+            ride.updateRideStatus(RideStatusHub.FINAL_STATUS, null, null);
+            // A corrida é gravada antes do pagamento, para não cobrar uma corrida alterada por outro cliente
+            this.database.update(ride);
+            trip.ride = ride;
+            this.database.insert(payment);
+
+            this.completed.incrementAndGet();
+            RIDE_LATENCY.record(now - trip.requestedAt);
+        } catch (CabbieManagerException | InvalidPaymentMethodException e) {
+            this.failed.incrementAndGet();
+            LOG.warn(() -> "Pagamento da corrida " + trip.ride.getRideId() + " falhou: " + e.getMessage());
+        }
+        try {
+            this.setBusy(cabbie, false);
+        } catch (VersionConflictException e) {
+            LOG.warn(() -> "Motorista " + this.cabbies.get(cabbie).getCabbieId() + " não foi liberado: "
+                    + e.getMessage());
+        }
+        SERVICE_LATENCY.record(trip.serviceNanos + System.nanoTime() - serviceStart);
+    }
+
+    // Grava uma cópia do motorista; se outro cliente o alterou, aplica a mudança sobre a cópia do banco
+    private void setBusy(int cabbie, boolean busy) throws VersionConflictException {
+        Cabbie current = this.cabbies.get(cabbie);
+        for (int attempt = 1;; attempt++) {
+            Cabbie next = new Cabbie(current);
+            next.setIsBusy(busy);
+            try {
+                this.database.update(next);
+                this.cabbies.set(cabbie, next);
+                return;
+            } catch (VersionConflictException e) {
+                Cabbie stored = this.database.findCabbie(current.getCabbieId());
+                if (attempt == UPDATE_ATTEMPTS || stored == null) {
+                    throw e;
+                }
+                current = stored;
+            }
+        }
+    }
+
+    private static class Trip {
+        // Última cópia gravada da corrida
+        private Ride ride;
+        private final String paymentMethod;
+        private final long requestedAt;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private long serviceNanos;
+        private int passenger;
+
+        Trip(Ride ride, String paymentMethod, long requestedAt) {
+            this.ride = ride;
+            this.paymentMethod = paymentMethod;
+            this.requestedAt = requestedAt;
+        }
+    }
+
+    // Pedido de corrida quando trip é nulo, fim de corrida caso contrário
+    private static class Event implements Comparable<Event> {
+        private final long time;
+        private final long sequence;
+        private final int passenger;
+        private final int cabbie;
+        private final Trip trip;
+
+        Event(long time, long sequence, int passenger, int cabbie, Trip trip) {
+            this.time = time;
+            this.sequence = sequence;
+            this.passenger = passenger;
+            this.cabbie = cabbie;
+            this.trip = trip;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(this.time, other.time);
+            return byTime != 0 ? byTime : Long.compare(this.sequence, other.sequence);
+        }
+    }
+}
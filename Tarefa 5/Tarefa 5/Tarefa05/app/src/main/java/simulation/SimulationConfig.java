@@ -0,0 +1,133 @@
+package simulation;
+
+import cabbieManager.Location;
+import cabbieManager.PaymentOption;
+import datagen.BulkDataGenerator;
+import datagen.Distribution;
+
+/**
+ * Settings of a {@link Simulation} run.
+ *
+ * Times are in simulated minutes. In {@link Mode#VIRTUAL_THREADS} every
+ * simulated minute takes {@link #getMillisPerMinute()} real milliseconds; in
+ * {@link Mode#DISCRETE_EVENT} the clock jumps from event to event and no real
+ * time passes between them.
+ */
+public class SimulationConfig {
+
+    /**
+     * How passengers and cabbies are scheduled.
+     */
+    public enum Mode {
+        // Uma thread virtual por passageiro e por motorista, com relógio real
+        VIRTUAL_THREADS,
+        // Uma única thread processando eventos em ordem de um relógio simulado
+        DISCRETE_EVENT
+    }
+
+    private Mode mode = Mode.VIRTUAL_THREADS;
+    private int passengers = 100;
+    private int cabbies = 20;
+    private int ridesPerPassenger = 5;
+    private double requestsPerMinute = 0.1;
+    private double millisPerMinute = 1;
+    private long seed = 1;
+    private Distribution<Location> pickupDistribution = Distribution.uniform(Location.values());
+    private Distribution<Location> dropDistribution = Distribution.uniform(Location.values());
+    private Distribution<PaymentOption> paymentDistribution = BulkDataGenerator.defaultPaymentOptions();
+
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getPassengers() {
+        return this.passengers;
+    }
+
+    public void setPassengers(int passengers) {
+        if (passengers <= 0) {
+            throw new IllegalArgumentException("The simulation needs at least one passenger");
+        }
+        this.passengers = passengers;
+    }
+
+    public int getCabbies() {
+        return this.cabbies;
+    }
+
+    public void setCabbies(int cabbies) {
+        if (cabbies <= 0) {
+            throw new IllegalArgumentException("The simulation needs at least one cabbie");
+        }
+        this.cabbies = cabbies;
+    }
+
+    public int getRidesPerPassenger() {
+        return this.ridesPerPassenger;
+    }
+
+    public void setRidesPerPassenger(int ridesPerPassenger) {
+        this.ridesPerPassenger = ridesPerPassenger;
+    }
+
+    /**
+     * Returns how many rides each idle passenger requests per simulated minute,
+     * on average. The time between requests is exponentially distributed.
+     *
+     * @return the request rate of one passenger
+     */
+    public double getRequestsPerMinute() {
+        return this.requestsPerMinute;
+    }
+
+    public void setRequestsPerMinute(double requestsPerMinute) {
+        if (requestsPerMinute <= 0) {
+            throw new IllegalArgumentException("The request rate must be greater than zero");
+        }
+        this.requestsPerMinute = requestsPerMinute;
+    }
+
+    public double getMillisPerMinute() {
+        return this.millisPerMinute;
+    }
+
+    public void setMillisPerMinute(double millisPerMinute) {
+        this.millisPerMinute = millisPerMinute;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public Distribution<Location> getPickupDistribution() {
+        return this.pickupDistribution;
+    }
+
+    public void setPickupDistribution(Distribution<Location> pickupDistribution) {
+        this.pickupDistribution = pickupDistribution;
+    }
+
+    public Distribution<Location> getDropDistribution() {
+        return this.dropDistribution;
+    }
+
+    public void setDropDistribution(Distribution<Location> dropDistribution) {
+        this.dropDistribution = dropDistribution;
+    }
+
+    public Distribution<PaymentOption> getPaymentDistribution() {
+        return this.paymentDistribution;
+    }
+
+    public void setPaymentDistribution(Distribution<PaymentOption> paymentDistribution) {
+        this.paymentDistribution = paymentDistribution;
+    }
+}
@@ -0,0 +1,87 @@
+package simulation;
+
+import metrics.LatencyHistogram;
+
+/**
+ * Outcome of a {@link Simulation} run.
+ *
+ * Wait and ride latencies are measured on the simulation clock: real time in
+ * {@link SimulationConfig.Mode#VIRTUAL_THREADS}, simulated time in
+ * {@link SimulationConfig.Mode#DISCRETE_EVENT}. Service latency is always the
+ * real time spent in the ride, payment and database code for one ride.
+ */
+public class SimulationReport {
+
+    private final SimulationConfig.Mode mode;
+    private final long completedRides;
+    private final long failedRides;
+    private final long elapsedNanos;
+    private final LatencyHistogram.Snapshot waitLatency;
+    private final LatencyHistogram.Snapshot rideLatency;
+    private final LatencyHistogram.Snapshot serviceLatency;
+
+    SimulationReport(SimulationConfig.Mode mode, long completedRides, long failedRides, long elapsedNanos,
+            LatencyHistogram.Snapshot waitLatency, LatencyHistogram.Snapshot rideLatency,
+            LatencyHistogram.Snapshot serviceLatency) {
+        this.mode = mode;
+        this.completedRides = completedRides;
+        this.failedRides = failedRides;
+        this.elapsedNanos = elapsedNanos;
+        this.waitLatency = waitLatency;
+        this.rideLatency = rideLatency;
+        this.serviceLatency = serviceLatency;
+    }
+
+    public long getCompletedRides() {
+        return this.completedRides;
+    }
+
+    public long getFailedRides() {
+        return this.failedRides;
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Returns the completed rides per real second.
+     *
+     * @return the throughput of the run
+     */
+    public double getThroughput() {
+        return this.elapsedNanos == 0 ? 0 : this.completedRides * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Returns the time from a ride request until a cabbie accepted it.
+     *
+     * @return the wait percentiles
+     */
+    public LatencyHistogram.Snapshot getWaitLatency() {
+        return this.waitLatency;
+    }
+
+    /**
+     * Returns the time from a ride request until its payment.
+     *
+     * @return the end-to-end ride percentiles
+     */
+    public LatencyHistogram.Snapshot getRideLatency() {
+        return this.rideLatency;
+    }
+
+    public LatencyHistogram.Snapshot getServiceLatency() {
+        return this.serviceLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "Simulação " + this.mode + ": " + this.completedRides + " corridas concluídas, " + this.failedRides
+                + " com erro, em " + (this.elapsedNanos / 1_000_000) + " ms ("
+                + String.format("%.1f", this.getThroughput()) + " corridas/s)\n"
+                + "  espera:      " + this.waitLatency + "\n"
+                + "  corrida:     " + this.rideLatency + "\n"
+                + "  atendimento: " + this.serviceLatency;
+    }
+}
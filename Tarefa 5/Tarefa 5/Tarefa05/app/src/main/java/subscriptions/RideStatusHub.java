@@ -0,0 +1,236 @@
+package subscriptions;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import cabbieManager.Ride;
+import databaseManager.ChangeListener;
+import databaseManager.Database;
+import metrics.Metrics;
+
+/**
+ * Pushes ride status changes to subscribers of a ride or of a cabbie, instead
+ * of having clients poll the database.
+ *
+ * A hub registered as the {@link ChangeListener} of a {@link Database}
+ * publishes the status changes committed by {@link Database#update(Object)},
+ * so an update rejected by its version check is never seen by subscribers.
+ * Updates of the stored instance itself carry no previous copy to compare
+ * with and are not published. A ride subscription receives the changes of that ride
+ * and completes once the ride reaches a final status; a cabbie subscription
+ * receives the changes of every ride the cabbie accepted, until it is
+ * cancelled. A final status removes the ride topic from the hub at once, even
+ * if its subscribers have not taken the last update yet, and a ride
+ * subscription that gets no update for the idle timeout of the hub fails with
+ * a {@link java.util.concurrent.TimeoutException} when {@link #expireIdle()}
+ * runs, which the default hub does every minute.
+ *
+ * Each subscriber has a bounded buffer and only receives as many updates as it
+ * requested. A subscriber that falls behind gets the newest status of each
+ * ride, merged into one {@link RideStatusUpdate}, rather than every
+ * intermediate one. Publishing never blocks: it only queues the update and
+ * schedules a delivery task on the executor of the hub.
+ */
+public class RideStatusHub implements ChangeListener {
+
+    public static final int DEFAULT_CAPACITY = 16;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofHours(2);
+    public static final String FINAL_STATUS = "FINALIZADA";
+    public static final String CANCELLED_STATUS = "CANCELADA";
+
+    private static final RideStatusHub DEFAULT = new RideStatusHub(Executors.newVirtualThreadPerTaskExecutor(),
+            DEFAULT_CAPACITY, DEFAULT_IDLE_TIMEOUT);
+
+    static {
+        Metrics.gauge("cabbie_status_subscribers", "Assinaturas de status de corrida ativas",
+                DEFAULT::getSubscriberCount);
+        ScheduledExecutorService expiry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "status-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiry.scheduleWithFixedDelay(DEFAULT::expireIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    private final Executor executor;
+    private final int capacity;
+    private final long idleTimeoutNanos;
+
+    private final ConcurrentHashMap<String, Set<StatusSubscription>> byRide = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<StatusSubscription>> byCabbie = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a hub.
+     *
+     * @param executor runs the delivery of the updates
+     * @param capacity the number of rides whose updates each subscriber can
+     *                 have pending
+     */
+    public RideStatusHub(Executor executor, int capacity) {
+        this(executor, capacity, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Creates a hub whose ride subscriptions expire after the given time
+     * without updates.
+     *
+     * @param executor    runs the delivery of the updates
+     * @param capacity    the number of rides whose updates each subscriber can
+     *                    have pending
+     * @param idleTimeout how long a ride subscription may go without updates
+     */
+    public RideStatusHub(Executor executor, int capacity, Duration idleTimeout) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Idle timeout must be positive: " + idleTimeout);
+        }
+        this.executor = executor;
+        this.capacity = capacity;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    public static RideStatusHub getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a publisher of the status changes of a ride.
+     *
+     * @param rideId the id of the ride
+     * @return the publisher
+     */
+    public Flow.Publisher<RideStatusUpdate> rideUpdates(String rideId) {
+        return subscriber -> this.subscribe(this.byRide, rideId, subscriber);
+    }
+
+    /**
+     * Returns a publisher of the status changes of the rides of a cabbie.
+     *
+     * @param cabbieId the id of the cabbie
+     * @return the publisher
+     */
+    public Flow.Publisher<RideStatusUpdate> cabbieUpdates(String cabbieId) {
+        return subscriber -> this.subscribe(this.byCabbie, cabbieId, subscriber);
+    }
+
+    /**
+     * Publishes the current status of a ride to its subscribers and to the
+     * subscribers of its cabbie.
+     *
+     * @param ride           the ride, already in its new status
+     * @param previousStatus the status it had before
+     */
+    public void publish(Ride ride, String previousStatus) {
+        String rideId = ride.getRideId();
+        String cabbieId = ride.getCabbieId();
+        Set<StatusSubscription> rideSubscribers = rideId == null ? null : this.byRide.get(rideId);
+        Set<StatusSubscription> cabbieSubscribers = cabbieId == null ? null : this.byCabbie.get(cabbieId);
+        if (rideSubscribers == null && cabbieSubscribers == null) {
+            return;
+        }
+
+        RideStatusUpdate update = new RideStatusUpdate(rideId, ride.getPassengerId(), cabbieId, previousStatus,
+                ride.getStatus());
+        boolean last = isFinal(update.getStatus());
+        if (rideSubscribers != null) {
+            if (last) {
+                // Sai do hub já, mesmo que o assinante ainda não tenha pedido a última atualização
+                this.byRide.remove(rideId, rideSubscribers);
+            }
+            for (StatusSubscription subscription : rideSubscribers) {
+                subscription.offer(update, last);
+            }
+        }
+        if (cabbieSubscribers != null) {
+            for (StatusSubscription subscription : cabbieSubscribers) {
+                subscription.offer(update, false);
+            }
+        }
+    }
+
+    @Override
+    public void onChange(Type type, Object entity) {
+    }
+
+    // Chamado com a trava de escrita do banco, depois da gravação valer; publish não bloqueia
+    @Override
+    public void onChange(Type type, Object previous, Object entity) {
+        if (type == Type.UPDATE && previous instanceof Ride && entity instanceof Ride) {
+            String previousStatus = ((Ride) previous).getStatus();
+            if (!Objects.equals(previousStatus, ((Ride) entity).getStatus())) {
+                this.publish((Ride) entity, previousStatus);
+            }
+        }
+    }
+
+    /**
+     * Fails the ride subscriptions that got no update for longer than the idle
+     * timeout of this hub, and removes them from it.
+     *
+     * @return the number of subscriptions expired
+     */
+    public int expireIdle() {
+        long now = System.nanoTime();
+        int expired = 0;
+        for (Set<StatusSubscription> subscriptions : this.byRide.values()) {
+            for (StatusSubscription subscription : subscriptions) {
+                if (subscription.expire(now, this.idleTimeoutNanos)) {
+                    expired++;
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Tells whether a ride in this status will not change any more.
+     *
+     * @param status the status
+     * @return whether the status is final
+     */
+    public static boolean isFinal(String status) {
+        return FINAL_STATUS.equals(status) || CANCELLED_STATUS.equals(status);
+    }
+
+    public int getSubscriberCount() {
+        int count = 0;
+        for (Set<StatusSubscription> subscriptions : this.byRide.values()) {
+            count += subscriptions.size();
+        }
+        for (Set<StatusSubscription> subscriptions : this.byCabbie.values()) {
+            count += subscriptions.size();
+        }
+        return count;
+    }
+
+    private void subscribe(ConcurrentHashMap<String, Set<StatusSubscription>> topics, String key,
+            Flow.Subscriber<? super RideStatusUpdate> subscriber) {
+        StatusSubscription subscription = new StatusSubscription(subscriber, this.executor, this.capacity,
+                terminated -> topics.computeIfPresent(key, (k, subscriptions) -> {
+                    subscriptions.remove(terminated);
+                    return subscriptions.isEmpty() ? null : subscriptions;
+                }));
+
+        // O assinante é avisado antes de entrar no tópico, então nenhuma entrega chega antes de onSubscribe
+        subscriber.onSubscribe(subscription);
+        topics.compute(key, (k, subscriptions) -> {
+            if (subscriptions == null) {
+                subscriptions = ConcurrentHashMap.newKeySet();
+            }
+            // Quem cancelou dentro de onSubscribe não entra no tópico
+            if (!subscription.isTerminated()) {
+                subscriptions.add(subscription);
+            }
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+}
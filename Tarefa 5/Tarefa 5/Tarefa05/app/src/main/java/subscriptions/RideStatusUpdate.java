@@ -0,0 +1,74 @@
+package subscriptions;
+
+/**
+ * A change of status of a ride, as delivered to subscribers.
+ *
+ * When a subscriber falls behind, consecutive changes of the same ride are
+ * merged into one update that goes from the status it saw last to the newest
+ * one; {@link #getSkipped()} tells how many intermediate statuses it missed.
+ */
+public class RideStatusUpdate {
+    private final String rideId;
+    private final String passengerId;
+    private final String cabbieId;
+    private final String previousStatus;
+    private final String status;
+    private final int skipped;
+
+    public RideStatusUpdate(String rideId, String passengerId, String cabbieId, String previousStatus,
+            String status) {
+        this(rideId, passengerId, cabbieId, previousStatus, status, 0);
+    }
+
+    private RideStatusUpdate(String rideId, String passengerId, String cabbieId, String previousStatus,
+            String status, int skipped) {
+        this.rideId = rideId;
+        this.passengerId = passengerId;
+        this.cabbieId = cabbieId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Merges this pending update with a newer one of the same ride.
+     *
+     * @param newer the newer update
+     * @return an update from the previous status of this one to the status of
+     *         the newer one
+     */
+    RideStatusUpdate merge(RideStatusUpdate newer) {
+        return new RideStatusUpdate(this.rideId, newer.passengerId, newer.cabbieId, this.previousStatus,
+                newer.status, this.skipped + newer.skipped + 1);
+    }
+
+    public String getRideId() {
+        return this.rideId;
+    }
+
+    public String getPassengerId() {
+        return this.passengerId;
+    }
+
+    public String getCabbieId() {
+        return this.cabbieId;
+    }
+
+    public String getPreviousStatus() {
+        return this.previousStatus;
+    }
+
+    public String getStatus() {
+        return this.status;
+    }
+
+    public int getSkipped() {
+        return this.skipped;
+    }
+
+    @Override
+    public String toString() {
+        return "Corrida " + this.rideId + ": " + this.previousStatus + " -> " + this.status
+                + (this.skipped > 0 ? " (" + this.skipped + " estados intermediários)" : "");
+    }
+}
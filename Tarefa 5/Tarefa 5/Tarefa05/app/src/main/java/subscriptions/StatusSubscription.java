@@ -0,0 +1,226 @@
+package subscriptions;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import metrics.Counter;
+import metrics.Metrics;
+
+/**
+ * Subscription of one subscriber to a {@link RideStatusHub} topic.
+ *
+ * Pending updates are kept per ride, so a new update of a ride that was not
+ * delivered yet replaces it instead of taking another slot. At most
+ * {@code capacity} rides can be pending; past that the oldest one is dropped.
+ * Updates are only delivered on demand, by a drain task that runs on the
+ * executor of the hub whenever there is something to deliver, so no thread is
+ * kept per subscriber.
+ */
+class StatusSubscription implements Flow.Subscription {
+
+    private static final Counter COALESCED = Metrics.counter("cabbie_status_updates_coalesced_total",
+            "Atualizações de status juntadas com uma mais nova antes da entrega");
+    private static final Counter DROPPED = Metrics.counter("cabbie_status_updates_dropped_total",
+            "Atualizações de status descartadas por buffer cheio");
+
+    private final Flow.Subscriber<? super RideStatusUpdate> subscriber;
+    private final Executor executor;
+    private final int capacity;
+    private final Consumer<StatusSubscription> onTerminate;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Protegidos por lock
+    private final LinkedHashMap<String, RideStatusUpdate> pending = new LinkedHashMap<>();
+    private long demand;
+    private boolean completing;
+    private boolean terminated;
+    private boolean draining;
+    private Throwable error;
+    private long lastUpdate = System.nanoTime();
+
+    StatusSubscription(Flow.Subscriber<? super RideStatusUpdate> subscriber, Executor executor, int capacity,
+            Consumer<StatusSubscription> onTerminate) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.onTerminate = onTerminate;
+    }
+
+    /**
+     * Queues an update, merging it with a pending update of the same ride.
+     *
+     * @param update the update
+     * @param last   whether the subscription completes after this update
+     */
+    void offer(RideStatusUpdate update, boolean last) {
+        boolean schedule;
+        this.lock.lock();
+        try {
+            if (this.terminated || this.completing) {
+                return;
+            }
+            RideStatusUpdate previous = this.pending.remove(update.getRideId());
+            if (previous != null) {
+                update = previous.merge(update);
+                COALESCED.inc();
+            } else if (this.pending.size() >= this.capacity) {
+                Iterator<String> eldest = this.pending.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                DROPPED.inc();
+            }
+            this.pending.put(update.getRideId(), update);
+            this.completing = last;
+            this.lastUpdate = System.nanoTime();
+            schedule = this.shouldDrain();
+        } finally {
+            this.lock.unlock();
+        }
+        if (schedule) {
+            this.executor.execute(this::drain);
+        }
+    }
+
+    @Override
+    public void request(long n) {
+        boolean schedule;
+        this.lock.lock();
+        try {
+            if (this.terminated) {
+                return;
+            }
+            if (n <= 0) {
+                this.error = new IllegalArgumentException("Demand must be greater than zero: " + n);
+                this.pending.clear();
+            } else {
+                this.demand = this.demand + n < 0 ? Long.MAX_VALUE : this.demand + n;
+            }
+            schedule = this.shouldDrain();
+        } finally {
+            this.lock.unlock();
+        }
+        if (schedule) {
+            this.executor.execute(this::drain);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        this.lock.lock();
+        try {
+            if (this.terminated) {
+                return;
+            }
+            this.terminated = true;
+            this.pending.clear();
+        } finally {
+            this.lock.unlock();
+        }
+        this.onTerminate.accept(this);
+    }
+
+    /**
+     * Fails the subscription with a {@link TimeoutException} if it got no
+     * update for the given time and is not already completing.
+     *
+     * @param now          the current {@link System#nanoTime()}
+     * @param timeoutNanos the idle timeout
+     * @return whether the subscription expired
+     */
+    boolean expire(long now, long timeoutNanos) {
+        boolean schedule;
+        this.lock.lock();
+        try {
+            if (this.terminated || this.completing || this.error != null || now - this.lastUpdate < timeoutNanos) {
+                return false;
+            }
+            this.error = new TimeoutException("No ride status update for " + timeoutNanos / 1_000_000 + " ms");
+            this.pending.clear();
+            schedule = this.shouldDrain();
+        } finally {
+            this.lock.unlock();
+        }
+        // O erro vai pela drenagem; tira do tópico já, mesmo se uma drenagem em curso demorar
+        this.onTerminate.accept(this);
+        if (schedule) {
+            this.executor.execute(this::drain);
+        }
+        return true;
+    }
+
+    boolean isTerminated() {
+        this.lock.lock();
+        try {
+            return this.terminated;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // Chamado com lock; marca a drenagem como agendada se houver algo a entregar
+    private boolean shouldDrain() {
+        if (this.draining || this.terminated) {
+            return false;
+        }
+        boolean work = this.error != null || (this.demand > 0 && !this.pending.isEmpty())
+                || (this.completing && this.pending.isEmpty());
+        this.draining = work;
+        return work;
+    }
+
+    // Entrega as atualizações fora da trava; só uma drenagem roda por vez
+    private void drain() {
+        while (true) {
+            RideStatusUpdate next = null;
+            boolean complete = false;
+            Throwable failure = null;
+
+            this.lock.lock();
+            try {
+                if (this.terminated) {
+                    this.draining = false;
+                    return;
+                }
+                if (this.error != null) {
+                    failure = this.error;
+                    this.terminated = true;
+                } else if (this.demand > 0 && !this.pending.isEmpty()) {
+                    Iterator<RideStatusUpdate> first = this.pending.values().iterator();
+                    next = first.next();
+                    first.remove();
+                    this.demand--;
+                } else if (this.completing && this.pending.isEmpty()) {
+                    complete = true;
+                    this.terminated = true;
+                } else {
+                    this.draining = false;
+                    return;
+                }
+            } finally {
+                this.lock.unlock();
+            }
+
+            if (failure != null) {
+                this.onTerminate.accept(this);
+                this.subscriber.onError(failure);
+                return;
+            }
+            if (complete) {
+                this.onTerminate.accept(this);
+                this.subscriber.onComplete();
+                return;
+            }
+            try {
+                this.subscriber.onNext(next);
+            } catch (RuntimeException e) {
+                this.cancel();
+                return;
+            }
+        }
+    }
+}
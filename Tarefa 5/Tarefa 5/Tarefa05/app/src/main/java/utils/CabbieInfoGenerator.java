@@ -1,14 +1,15 @@
 package utils;
-import java.util.*;
+import java.util.Random;
+import java.util.random.RandomGenerator;
 
 
 public class CabbieInfoGenerator implements InfoGenerator{
 
-    private String[] names = {"Tiago", "Sofia", "Felipe", "Isabela", "Rodrigo", "Carolina", "Henrique", "Fernanda", "Mateus", "Gabriela"};
-    private String[] emails = {"tiago.silva@email.com", "sofia.almeida@email.com", "felipe.oliveira@email.com", "isabela.ferreira@email.com", "rodrigo.santos@email.com", "carolina.martins@email.com", "henrique.costa@email.com", "fernanda.lima@email.com", "mateus.pereira@email.com", "gabriela.souza@email.com"};
-    private String[] phones = {"+55 13 91234-5678", "+55 27 92345-6789", "+55 85 93456-7890", "+55 47 94567-8901", "+55 62 95678-9012", "+55 98 96789-0123", "+55 95 97890-1234", "+55 67 98901-2345", "+55 84 99012-3456", "+55 12 90123-4567"};
     private String[] licenseNumbers = {"1A2bC3dE", "FgH4IjK5", "L6mNopQr", "StUvWxYz", "A7bC8dEf", "GhI9JkLm", "NoPqRsTu", "VwXyZ123", "456AbCdE", "FgH7IjKl"};
 
+    private final RandomGenerator random;
+    private final IdGenerator ids;
+
     private String name;
     private String email;
     private String phone;
@@ -17,6 +18,19 @@ public class CabbieInfoGenerator implements InfoGenerator{
     private String licenseNumber;
 
     public CabbieInfoGenerator() {
+        this(new Random(), Ids.getGenerator());
+    }
+
+    /**
+     * Creates a generator that draws every value from the given source, so the
+     * same seed always produces the same cabbie.
+     *
+     * @param random the source of random values
+     * @param ids    the source of the cabbie id
+     */
+    public CabbieInfoGenerator(RandomGenerator random, IdGenerator ids) {
+        this.random = random;
+        this.ids = ids;
         this.generateRandomInfo();
     }
 
@@ -28,15 +42,15 @@ public class CabbieInfoGenerator implements InfoGenerator{
      */
     public void generateRandomInfo() {
 
-        Random ran = new Random();
-        int idx = ran.nextInt(10);
-        String cabbieId = UUID.randomUUID().toString();
+        int idx = this.random.nextInt(10);
+        String cabbieId = this.ids.nextId();
         float rate  = idx/2.0f;
 
 
-        this.name = names[idx];
-        this.email = emails[idx];
-        this.phone = phones[idx];
+        PersonNames person = new PersonNames(this.random);
+        this.name = person.getName();
+        this.email = person.getEmail();
+        this.phone = person.getPhone();
         this.cabbieId = cabbieId;
         this.rate = rate;
         this.licenseNumber = licenseNumbers[idx];
@@ -0,0 +1,135 @@
+package utils;
+
+import java.util.UUID;
+
+/**
+ * Stores entity ids as two longs instead of a 36-character string.
+ *
+ * An entity keeps each id in three fields: the high and low bits of the UUID,
+ * and the original text for ids that are not canonical lowercase UUIDs (such
+ * as ids typed by hand), which are kept as they are. The string form is only
+ * built when a getter is called, so every id renders back exactly as it was
+ * set. A null id is stored as no text and both longs zero; the nil UUID is
+ * therefore kept as text.
+ */
+public final class CompactId {
+
+    private CompactId() {
+    }
+
+    /**
+     * Returns whether an id can be stored as two longs: a non-nil UUID in the
+     * lowercase form of {@link UUID#toString()}.
+     *
+     * @param id the id
+     * @return whether the id is compact
+     */
+    public static boolean isCompact(String id) {
+        if (id == null || id.length() != 36) {
+            return false;
+        }
+        boolean zero = true;
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (digit(c) < 0) {
+                return false;
+            } else if (c != '0') {
+                zero = false;
+            }
+        }
+        return !zero;
+    }
+
+    /**
+     * Returns the most significant bits of a compact id.
+     *
+     * @param id the id
+     * @return the high bits, or 0 if the id is not compact
+     */
+    public static long high(String id) {
+        return isCompact(id) ? parse(id, 0, 18) : 0;
+    }
+
+    /**
+     * Returns the least significant bits of a compact id.
+     *
+     * @param id the id
+     * @return the low bits, or 0 if the id is not compact
+     */
+    public static long low(String id) {
+        return isCompact(id) ? parse(id, 19, 36) : 0;
+    }
+
+    /**
+     * Returns the text to keep for an id.
+     *
+     * @param id the id
+     * @return the id itself if it is not compact, otherwise null
+     */
+    public static String text(String id) {
+        return isCompact(id) ? null : id;
+    }
+
+    /**
+     * Rebuilds the string form of a stored id.
+     *
+     * @param high the high bits
+     * @param low  the low bits
+     * @param text the text kept for ids that are not compact
+     * @return the id as it was set
+     */
+    public static String toString(long high, long low, String text) {
+        if (text != null) {
+            return text;
+        }
+        if (high == 0 && low == 0) {
+            return null;
+        }
+        return new UUID(high, low).toString();
+    }
+
+    /**
+     * Compares a stored id with a string without building its string form.
+     *
+     * @param high the high bits
+     * @param low  the low bits
+     * @param text the text kept for ids that are not compact
+     * @param id   the id to compare with
+     * @return whether the stored id is equal to the given one
+     */
+    public static boolean matches(long high, long low, String text, String id) {
+        if (text != null) {
+            return text.equals(id);
+        }
+        if (id == null) {
+            return high == 0 && low == 0;
+        }
+        return isCompact(id) && parse(id, 0, 18) == high && parse(id, 19, 36) == low;
+    }
+
+    // Lê os dígitos hexadecimais entre from e to, pulando os hífens
+    private static long parse(String id, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = id.charAt(i);
+            if (c != '-') {
+                value = (value << 4) | digit(c);
+            }
+        }
+        return value;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,10 @@
+package utils;
+
+/**
+ * Source of entity ids.
+ */
+public interface IdGenerator {
+
+    public String nextId();
+
+}
@@ -0,0 +1,25 @@
+package utils;
+
+/**
+ * Holds the {@link IdGenerator} used for every entity id. Defaults to
+ * {@link TimeOrderedIdGenerator}.
+ */
+public final class Ids {
+
+    private static volatile IdGenerator generator = new TimeOrderedIdGenerator();
+
+    private Ids() {
+    }
+
+    public static String next() {
+        return generator.nextId();
+    }
+
+    public static IdGenerator getGenerator() {
+        return generator;
+    }
+
+    public static void setGenerator(IdGenerator newGenerator) {
+        generator = newGenerator;
+    }
+}
@@ -0,0 +1,90 @@
+package utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import metrics.Counter;
+import metrics.Metrics;
+
+/**
+ * Bounded pool of canonical strings, for text fields with few distinct values
+ * such as vehicle models and ride status. Entities read from a file or a
+ * stream get a new copy of every string; passing them through the pool makes
+ * equal values share one instance. Values that are nearly unique per entity,
+ * such as names, emails, phones and license numbers, must not go through it:
+ * they would fill it for good and keep the values that do repeat out.
+ *
+ * Unlike {@link String#intern()}, the pool stops admitting strings once it
+ * holds {@link #getCapacity()} of them, so a field with unexpectedly many
+ * values cannot grow it without limit: later strings are just returned as
+ * they are.
+ */
+public final class InternPool {
+
+    private static final Counter HITS = Metrics.counter("cabbie_intern_pool_hits_total",
+            "Textos substituídos pela cópia já guardada no pool");
+    private static final Counter REJECTED = Metrics.counter("cabbie_intern_pool_rejected_total",
+            "Textos não guardados porque o pool estava cheio ou eram longos demais");
+
+    private static final InternPool DEFAULT = new InternPool(1 << 16, 64);
+
+    static {
+        Metrics.gauge("cabbie_intern_pool_strings", "Textos guardados no pool", DEFAULT::size);
+    }
+
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final int maxLength;
+
+    /**
+     * Creates a pool.
+     *
+     * @param capacity  the maximum number of strings kept
+     * @param maxLength the length above which strings are not kept
+     */
+    public InternPool(int capacity, int maxLength) {
+        this.capacity = capacity;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns the pool shared by the entities.
+     *
+     * @return the default pool
+     */
+    public static InternPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the canonical instance of a string.
+     *
+     * @param value the string
+     * @return the instance kept by the pool, or the string itself if the pool
+     *         does not keep it
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = this.strings.get(value);
+        if (canonical != null) {
+            HITS.inc();
+            return canonical;
+        }
+        if (value.length() > this.maxLength || this.strings.size() >= this.capacity) {
+            REJECTED.inc();
+            return value;
+        }
+        canonical = this.strings.putIfAbsent(value, value);
+        return canonical == null ? value : canonical;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public int size() {
+        return this.strings.size();
+    }
+}
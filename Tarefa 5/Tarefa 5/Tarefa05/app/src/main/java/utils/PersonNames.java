@@ -0,0 +1,66 @@
+package utils;
+
+import java.text.Normalizer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Random people for the info generators. A name is a first name and two
+ * surnames drawn independently, so there are tens of thousands of distinct
+ * names instead of one per first name; the email and phone are drawn for each
+ * person.
+ */
+class PersonNames {
+
+    private static final String[] FIRST_NAMES = { "Tiago", "Sofia", "Felipe", "Isabela", "Rodrigo", "Carolina",
+            "Henrique", "Fernanda", "Mateus", "Gabriela", "Lucas", "Mariana", "Pedro", "Beatriz", "Rafael", "Larissa",
+            "Gustavo", "Camila", "Bruno", "Juliana", "André", "Letícia", "Vinícius", "Aline", "Diego", "Patrícia",
+            "Eduardo", "Renata", "Caio", "Vitória", "Daniel", "Natália" };
+    private static final String[] SURNAMES = { "Silva", "Almeida", "Oliveira", "Ferreira", "Santos", "Martins",
+            "Costa", "Lima", "Pereira", "Souza", "Rodrigues", "Gomes", "Ribeiro", "Carvalho", "Araújo", "Barbosa",
+            "Rocha", "Dias", "Nascimento", "Moreira", "Cardoso", "Teixeira", "Mendes", "Freitas", "Castro", "Pinto",
+            "Monteiro", "Correia", "Vieira", "Nunes", "Moura", "Campos" };
+    // Sem acentos e em minúsculas, para os e-mails
+    private static final String[] PLAIN_FIRST_NAMES = plain(FIRST_NAMES);
+    private static final String[] PLAIN_SURNAMES = plain(SURNAMES);
+    private static final int[] AREA_CODES = { 11, 12, 13, 19, 21, 27, 31, 41, 47, 51, 61, 62, 67, 71, 81, 84, 85,
+            91, 95, 98 };
+
+    private final String name;
+    private final String email;
+    private final String phone;
+
+    PersonNames(RandomGenerator random) {
+        int first = random.nextInt(FIRST_NAMES.length);
+        int middle = random.nextInt(SURNAMES.length);
+        int last = random.nextInt(SURNAMES.length);
+        this.name = FIRST_NAMES[first] + " " + SURNAMES[middle] + " " + SURNAMES[last];
+        this.email = PLAIN_FIRST_NAMES[first] + "." + PLAIN_SURNAMES[last] + random.nextInt(1000) + "@email.com";
+        this.phone = "+55 " + AREA_CODES[random.nextInt(AREA_CODES.length)] + " 9" + digits(random.nextInt(10_000))
+                + "-" + digits(random.nextInt(10_000));
+    }
+
+    String getName() {
+        return this.name;
+    }
+
+    String getEmail() {
+        return this.email;
+    }
+
+    String getPhone() {
+        return this.phone;
+    }
+
+    private static String digits(int value) {
+        String text = Integer.toString(value);
+        return "0000".substring(text.length()) + text;
+    }
+
+    private static String[] plain(String[] names) {
+        String[] plain = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            plain[i] = Normalizer.normalize(names[i], Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase();
+        }
+        return plain;
+    }
+}
@@ -0,0 +1,15 @@
+package utils;
+
+import java.util.UUID;
+
+/**
+ * Random (version 4) UUIDs from {@link UUID#randomUUID()}, the original id
+ * scheme.
+ */
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,63 @@
+package utils;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered (version 7) UUIDs.
+ *
+ * The first 48 bits are the Unix time in milliseconds and the next 12 bits a
+ * per-thread counter, so ids created by one thread are strictly increasing and
+ * ids from different threads sort by creation time to the millisecond. The
+ * remaining 62 bits come from {@link ThreadLocalRandom}, so threads never
+ * contend on a shared random source.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    // Último milissegundo e contador usados por cada thread
+    private final ThreadLocal<long[]> state = ThreadLocal.withInitial(() -> new long[2]);
+
+    @Override
+    public String nextId() {
+        return this.nextUuid().toString();
+    }
+
+    /**
+     * Returns the next id as a {@link UUID}.
+     *
+     * @return a version 7 UUID
+     */
+    public UUID nextUuid() {
+        long[] last = this.state.get();
+        long millis = System.currentTimeMillis();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (millis > last[0]) {
+            last[0] = millis;
+            // Começa em um ponto aleatório da primeira metade para não repetir o prefixo entre threads
+            last[1] = random.nextLong(COUNTER_MASK >>> 1);
+        } else if (++last[1] > COUNTER_MASK) {
+            // Contador esgotado neste milissegundo: avança o relógio lógico
+            last[0]++;
+            last[1] = 0;
+        }
+
+        long msb = (last[0] << 16) | (0x7L << 12) | last[1];
+        long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Returns the creation time, in Unix milliseconds, of an id produced by this
+     * generator.
+     *
+     * @param id a version 7 UUID
+     * @return the embedded timestamp
+     */
+    public static long timestampOf(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
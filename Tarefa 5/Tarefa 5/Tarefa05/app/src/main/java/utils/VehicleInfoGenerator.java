@@ -1,5 +1,6 @@
 package utils;
-import java.util.*;
+import java.util.Random;
+import java.util.random.RandomGenerator;
 
 
 public class VehicleInfoGenerator implements InfoGenerator{
@@ -7,12 +8,28 @@ public class VehicleInfoGenerator implements InfoGenerator{
     private String[] models = {"Toyota", "Honda", "Ford", "Chevrolet", "Nissan", "Hyundai", "Volkswagen", "Subaru", "Mazda", "Kia"};
     private String[] registrationNumbers = {"ABC123", "DEF456", "GHI789", "JKL012", "MNO345", "PQR678", "STU901", "VWX234", "YZA567", "BCD890"};
 
+    private final RandomGenerator random;
+    private final IdGenerator ids;
+
     private String vehicleId;
     private String registrationNumber;
     private String model;
     private int year;
 
     public VehicleInfoGenerator() {
+        this(new Random(), Ids.getGenerator());
+    }
+
+    /**
+     * Creates a generator that draws every value from the given source, so the
+     * same seed always produces the same vehicle.
+     *
+     * @param random the source of random values
+     * @param ids    the source of the vehicle id
+     */
+    public VehicleInfoGenerator(RandomGenerator random, IdGenerator ids) {
+        this.random = random;
+        this.ids = ids;
         this.generateRandomInfo();
     }
 
@@ -24,13 +41,12 @@ public class VehicleInfoGenerator implements InfoGenerator{
      */
     public void generateRandomInfo() {
 
-        Random ran = new Random();
-        int idx = ran.nextInt(10);
+        int idx = this.random.nextInt(10);
 
         this.model = models[idx];
         this.registrationNumber = registrationNumbers[idx];
-        this.vehicleId = UUID.randomUUID().toString();
-        this.year = ran.nextInt(34) + 1990;
+        this.vehicleId = this.ids.nextId();
+        this.year = this.random.nextInt(34) + 1990;
 
         return;
 
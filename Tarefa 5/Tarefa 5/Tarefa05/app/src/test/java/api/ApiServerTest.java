@@ -0,0 +1,98 @@
+package api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import databaseManager.Database;
+import service.CabbieManagerService;
+
+public class ApiServerTest {
+
+    private Database database() throws Exception {
+        return new Database(new File(Files.createTempDirectory("api").toFile(), "database.xml"), false);
+    }
+
+    private HttpResponse<String> send(int port, String method, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testJsonWriter_EscapesStrings() throws Exception {
+        StringWriter out = new StringWriter();
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject().name("a").value("x\"y\\z\n\u0001").name("b").beginArray().value(1).value(true)
+                .value((String) null).endArray().name("c").value(Double.NaN).name("d").value(11.31f).endObject()
+                .flush();
+
+        assertEquals("{\"a\":\"x\\\"y\\\\z\\n\\u0001\",\"b\":[1,true,null],\"c\":null,\"d\":11.31}",
+                out.toString());
+    }
+
+    @Test
+    public void testLoadTest_CompletesEveryRide() throws Exception {
+        Database database = database();
+        try (CabbieManagerService service = new CabbieManagerService(database);
+                ApiServer server = ApiServer.start(0, service, database)) {
+            LoadTestClient.Result result = new LoadTestClient(server.getPort()).run(8, 5);
+
+            assertEquals(0, result.getErrors());
+            // Cadastro do passageiro e do motorista, mais cinco requisições por corrida
+            assertEquals(8 * (2 + 5 * 5), result.getRequests());
+            assertEquals(result.getRequests(), result.getLatency().getCount());
+            assertTrue(result.getRequestsPerSecond() > 0);
+        }
+        assertEquals(40, database.getRides().size());
+        assertEquals(40, database.getPayments().size());
+    }
+
+    @Test
+    public void testErrors_MapToStatusCodes() throws Exception {
+        Database database = database();
+        try (CabbieManagerService service = new CabbieManagerService(database);
+                ApiServer server = ApiServer.start(0, service, database)) {
+            int port = server.getPort();
+
+            assertEquals(404, send(port, "GET", "/rides/nenhuma").statusCode());
+            assertEquals(404, send(port, "GET", "/nada").statusCode());
+            assertEquals(405, send(port, "DELETE", "/rides").statusCode());
+            assertEquals(400, send(port, "POST", "/rides?passengerId=p").statusCode());
+
+            HttpResponse<String> created = send(port, "POST", "/rides?passengerId=p&pickup=Shopping&drop=Parque");
+            assertEquals(201, created.statusCode());
+            String rideId = created.body().replaceAll(".*\"rideId\":\"([^\"]*)\".*", "$1");
+
+            HttpResponse<String> early = send(port, "POST", "/rides/" + rideId + "/start");
+            assertEquals(409, early.statusCode());
+            assertTrue(early.body().startsWith("{\"error\":"));
+
+            HttpResponse<String> status = send(port, "GET", "/rides/" + rideId);
+            assertEquals(200, status.statusCode());
+            assertTrue(status.body().contains("\"status\":\"CHAMADA\""));
+
+            HttpResponse<String> history = send(port, "GET", "/passengers/p/rides");
+            assertEquals(200, history.statusCode());
+            assertTrue(history.body().startsWith("[{\"rideId\":\"" + rideId + "\""));
+
+            HttpResponse<String> before = send(port, "GET", "/passengers/p/rides?to=2000-01-01T00:00");
+            assertEquals("[]", before.body());
+            HttpResponse<String> invalid = send(port, "GET", "/passengers/p/rides?from=ontem");
+            assertEquals(400, invalid.statusCode());
+
+            // Um erro inesperado, aqui o executor já encerrado, vira 500
+            service.close();
+            HttpResponse<String> closed = send(port, "POST", "/rides?passengerId=p&pickup=Shopping&drop=Parque");
+            assertEquals(500, closed.statusCode());
+        }
+    }
+}
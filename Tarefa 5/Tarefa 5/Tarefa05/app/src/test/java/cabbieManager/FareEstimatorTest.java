@@ -0,0 +1,38 @@
+package cabbieManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class FareEstimatorTest {
+
+    @Test
+    public void testFareEstimator_QuoteAll() {
+        LocalDateTime morning = LocalDateTime.of(2022, 1, 1, 10, 0);
+        long[] quotes = FareEstimator.quoteAll(Location.HOSPITAL, morning, PaymentOption.CASH);
+
+        assertEquals(Location.values().length, quotes.length);
+        assertEquals(FareTable.NO_ROUTE, quotes[Location.HOSPITAL.ordinal()]);
+        assertEquals(1348, quotes[Location.ESTACAO_DE_TREM.ordinal()]);
+    }
+
+    @Test
+    public void testFareEstimator_RepriceAll() throws Exception {
+        List<RidePayment> payments = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            payments.add(new RidePayment("ride" + i, LocalDateTime.of(2022, 1, 1, i % 24, 0), 1 + i % 30, "Pix"));
+        }
+
+        long[] current = FareEstimator.repriceAll(payments);
+        long[] flat = FareEstimator.repriceAll(payments, (distance, night, option) -> 1000);
+
+        for (int i = 0; i < payments.size(); i++) {
+            assertEquals(payments.get(i).getAmountCents(), current[i]);
+            assertEquals(1000, flat[i]);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package cabbieManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import exceptions.InvalidPaymentMethodException;
+import exceptions.InvalidRideDistanceException;
+
+public class FareTableTest {
+
+    @Test
+    public void testRidePayment_OverflowBand()
+            throws NullPointerException, InvalidRideDistanceException, InvalidPaymentMethodException {
+        RidePayment ridePayment = new RidePayment("rideId", LocalDateTime.of(2022, 1, 1, 10, 0), 30.0f, "Dinheiro");
+        assertEquals(107.50f, ridePayment.calculateValue(), 0);
+    }
+
+    @Test
+    public void testFareTable_QuoteMatchesRidePayment()
+            throws NullPointerException, InvalidRideDistanceException, InvalidPaymentMethodException {
+        LocalDateTime night = LocalDateTime.of(2022, 1, 1, 22, 30);
+        RidePayment ridePayment = new RidePayment("rideId", night, 18.38f, "Pix");
+
+        long quote = FareTable.getDefault().quote(Location.AEROPORTO, Location.ESTADIO, FareTable.isNight(night),
+                PaymentOption.PIX);
+        assertEquals(ridePayment.calculateValueCents(), quote);
+        assertFalse(FareTable.isNight(LocalDateTime.of(2022, 1, 1, 18, 0)));
+    }
+}
@@ -0,0 +1,18 @@
+package cabbieManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class RideTest {
+
+    @Test
+    public void testRequestRide_FromCoordinates() throws Exception {
+        Ride ride = new Ride("testPassengerId");
+        ride.requestRide(4.6, 17.8, 21.7, 24.2);
+
+        assertEquals(Location.AEROPORTO, ride.getPickLocation());
+        assertEquals(Location.ESTADIO, ride.getDropLocation());
+        assertEquals(18.38f, ride.getDistance(), 0);
+    }
+}
@@ -0,0 +1,175 @@
+package cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Cabbie;
+import databaseManager.Database;
+import exceptions.VersionConflictException;
+import metrics.Metrics;
+
+public class EntityCacheTest {
+
+    // Armazenamento em memória que conta as leituras
+    private static class MapStore implements BackingStore<String, String> {
+        final Map<String, String> data = new ConcurrentHashMap<>();
+        final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public String load(String key) {
+            this.loads.incrementAndGet();
+            return this.data.containsKey(key) ? this.data.get(key) : "valor-" + key;
+        }
+
+        @Override
+        public void store(String key, String value) {
+            this.data.put(key, value);
+        }
+    }
+
+    @Test
+    public void testEntityCache_ReadThroughAndWriteThrough() throws Exception {
+        MapStore store = new MapStore();
+        EntityCache<String, String> cache = new EntityCache<>(100, store);
+
+        assertNull(cache.getIfPresent("a"));
+        assertEquals("valor-a", cache.get("a"));
+        assertEquals("valor-a", cache.get("a"));
+        assertEquals(1, store.loads.get());
+
+        cache.put("b", "novo");
+        assertEquals("novo", store.data.get("b"));
+        assertEquals("novo", cache.get("b"));
+        assertEquals(1, store.loads.get());
+
+        cache.invalidate("b");
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("novo", cache.get("b"));
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.getLoads());
+        assertEquals(2, stats.getHits());
+        assertEquals(4, stats.getMisses());
+    }
+
+    @Test
+    public void testEntityCache_StaysWithinItsWeight() throws Exception {
+        EntityCache<String, String> cache = new EntityCache<>(100, new MapStore());
+        for (int i = 0; i < 1000; i++) {
+            cache.get("chave-" + i);
+        }
+        assertTrue(cache.size() <= 100);
+        assertEquals(1000 - cache.size(), cache.stats().getEvictions());
+
+        EntityCache<String, String> weighted = new EntityCache<>(1000, (key, value) -> value.length(),
+                new MapStore());
+        for (int i = 0; i < 1000; i++) {
+            weighted.get("chave-" + i);
+        }
+        assertTrue(weighted.weight() <= 1000);
+        assertTrue(weighted.weight() > 500);
+    }
+
+    @Test
+    public void testEntityCache_ScanDoesNotEvictHotEntries() throws Exception {
+        EntityCache<String, String> cache = new EntityCache<>(1000, new MapStore());
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 500; i++) {
+                cache.get("motorista-" + i);
+            }
+        }
+        // Uma varredura de chaves usadas uma única vez, como um relatório
+        for (int i = 0; i < 100_000; i++) {
+            cache.get("corrida-" + i);
+        }
+
+        int kept = 0;
+        for (int i = 0; i < 500; i++) {
+            kept += cache.getIfPresent("motorista-" + i) != null ? 1 : 0;
+        }
+        assertTrue(kept > 450, "Entradas frequentes mantidas: " + kept);
+        assertTrue(cache.stats().getRejections() > 90_000);
+    }
+
+    @Test
+    public void testEntityCache_OverDatabase() throws Exception {
+        Database database = new Database(new File(Files.createTempDirectory("cache").toFile(), "database.xml"),
+                false);
+        EntityCache<String, Cabbie> cabbies = new EntityCache<>(10, DatabaseStore.cabbies(database));
+
+        Cabbie cabbie = new Cabbie();
+        cabbie.register();
+        cabbies.put(cabbie.getCabbieId(), cabbie);
+        assertEquals(1, database.getCabbies().size());
+
+        cabbie.setIsBusy(true);
+        cabbies.put(cabbie.getCabbieId(), cabbie);
+        assertEquals(1, database.getCabbies().size());
+        assertEquals(1, cabbie.getVersion());
+
+        cabbies.invalidate(cabbie.getCabbieId());
+        assertSame(cabbie, cabbies.get(cabbie.getCabbieId()));
+        assertNull(cabbies.get("inexistente"));
+    }
+
+    @Test
+    public void testEntityCache_ConcurrentPutsInsertOnce() throws Exception {
+        Database database = new Database(new File(Files.createTempDirectory("cache").toFile(), "database.xml"),
+                false);
+        EntityCache<String, Cabbie> cabbies = new EntityCache<>(10, DatabaseStore.cabbies(database));
+        Cabbie cabbie = new Cabbie();
+        cabbie.register();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> puts = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                puts.add(executor.submit(() -> {
+                    cabbies.put(cabbie.getCabbieId(), new Cabbie(cabbie));
+                    return null;
+                }));
+            }
+            for (Future<?> put : puts) {
+                try {
+                    put.get();
+                } catch (ExecutionException e) {
+                    // Uma cópia velha é recusada, mas nunca vira outra linha
+                    assertTrue(e.getCause() instanceof VersionConflictException);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, database.getCabbies().size());
+    }
+
+    @Test
+    public void testEntityCache_MetricsAreCounters() throws Exception {
+        EntityCache<String, String> cache = new EntityCache<>(100, new MapStore());
+        cache.registerMetrics("teste");
+        cache.get("a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+
+        String scrape = Metrics.scrape();
+        assertTrue(scrape.contains("# TYPE cabbie_cache_hits_total counter"));
+        assertTrue(scrape.contains("cabbie_cache_hits_total{cache=\"teste\"} 2"));
+        assertTrue(scrape.contains("cabbie_cache_misses_total{cache=\"teste\"} 2"));
+        assertTrue(scrape.contains("# TYPE cabbie_cache_evictions_total counter"));
+        assertTrue(scrape.contains("cabbie_cache_hit_ratio_permille{cache=\"teste\"} 500"));
+    }
+}
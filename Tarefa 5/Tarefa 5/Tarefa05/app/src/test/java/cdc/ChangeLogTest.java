@@ -0,0 +1,165 @@
+package cdc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import databaseManager.ChangeListener;
+import databaseManager.Database;
+
+public class ChangeLogTest {
+
+    private Ride ride(String rideId, String status) {
+        Ride ride = new Ride("passageiro");
+        ride.setRideId(rideId);
+        ride.setStatus(status);
+        return ride;
+    }
+
+    @Test
+    public void testChangeLog_RecordsBeforeAndAfter() throws Exception {
+        File directory = Files.createTempDirectory("cdc").toFile();
+        File logFile = new File(directory, "changes.log");
+        Database db = new Database(new File(directory, "database.xml"), false);
+
+        try (ChangeLog log = new ChangeLog(logFile)) {
+            db.addChangeListener(log);
+            Ride ride = ride("corrida", "CHAMADA");
+            db.insert(ride);
+            Ride accepted = new Ride(ride);
+            accepted.setStatus("ACEITA");
+            db.update(accepted);
+            db.removeChangeListener(log);
+            log.flush();
+            assertEquals(2, log.getSequence());
+        }
+
+        try (ChangeLogReader reader = new ChangeLogReader(logFile)) {
+            ChangeEvent insert = reader.next();
+            assertEquals(1, insert.getSequence());
+            assertEquals(ChangeListener.Type.INSERT, insert.getType());
+            assertEquals("ride", insert.getEntityType());
+            assertEquals("corrida", insert.getEntityId());
+            assertNull(insert.getBefore());
+
+            ChangeEvent update = reader.next();
+            assertEquals(ChangeListener.Type.UPDATE, update.getType());
+            assertEquals("CHAMADA", ((Ride) update.getBefore()).getStatus());
+            assertEquals("ACEITA", ((Ride) update.getAfter()).getStatus());
+            assertEquals(1, ((Ride) update.getAfter()).getVersion());
+            assertNull(reader.next());
+        }
+
+        // Reaberto, o log continua a sequência e a imagem anterior vem da entidade substituída
+        try (ChangeLog log = new ChangeLog(logFile)) {
+            db.addChangeListener(log);
+            Ride ride = new Ride(db.findRide("corrida"));
+            ride.setStatus("EM_PROGRESSO");
+            db.update(ride);
+            Ride inPlace = db.findRide("corrida");
+            inPlace.setStatus("FINALIZADA");
+            db.update(inPlace);
+            db.removeChangeListener(log);
+            log.flush();
+            assertEquals(4, log.getSequence());
+        }
+        try (ChangeLogReader reader = new ChangeLogReader(logFile)) {
+            reader.next();
+            reader.next();
+            ChangeEvent update = reader.next();
+            assertEquals(3, update.getSequence());
+            assertEquals("ACEITA", ((Ride) update.getBefore()).getStatus());
+            assertEquals("EM_PROGRESSO", ((Ride) update.getAfter()).getStatus());
+            // Atualizada no lugar, a corrida não tem imagem anterior
+            ChangeEvent inPlace = reader.next();
+            assertNull(inPlace.getBefore());
+            assertEquals("FINALIZADA", ((Ride) inPlace.getAfter()).getStatus());
+        }
+    }
+
+    @Test
+    public void testChangeLog_UnserializableEntityFailsTheLog() throws Exception {
+        File directory = Files.createTempDirectory("cdc").toFile();
+        Database db = new Database(new File(directory, "database.xml"), false);
+
+        ChangeLog log = new ChangeLog(new File(directory, "changes.log"));
+        db.addChangeListener(log);
+        db.insert(ride("antes", "FINALIZADA"));
+
+        // Sem serializador a alteração não pode ir para o log, então ele para em vez de pular um número
+        assertThrows(IllegalStateException.class, () -> log.onChange(ChangeListener.Type.INSERT, null, "desconhecido"));
+        assertEquals(1, log.getSequence());
+        assertThrows(IOException.class, log::flush);
+        assertThrows(IllegalStateException.class, () -> db.insert(ride("depois", "FINALIZADA")));
+        db.removeChangeListener(log);
+        assertThrows(IOException.class, log::close);
+    }
+
+    @Test
+    public void testChangeLog_WriterFailure() throws Exception {
+        File directory = Files.createTempDirectory("cdc").toFile();
+        File logFile = new File(directory, "changes.log");
+        Database db = new Database(new File(directory, "database.xml"), false);
+
+        ChangeLog log = new ChangeLog(logFile);
+        db.addChangeListener(log);
+        for (int i = 0; i < 50; i++) {
+            db.insert(ride("corrida-" + i, "FINALIZADA"));
+        }
+        log.flush();
+        assertEquals(50, log.getSequence());
+
+        // Uma imagem anterior sem serializador derruba a thread de gravação
+        log.onChange(ChangeListener.Type.UPDATE, "desconhecido", db.findRide("corrida-0"));
+        assertThrows(IOException.class, log::flush);
+        assertThrows(IllegalStateException.class, () -> db.insert(ride("depois", "FINALIZADA")));
+        db.removeChangeListener(log);
+        assertThrows(IOException.class, log::close);
+    }
+
+    @Test
+    public void testReadReplica_TailsThePrimary() throws Exception {
+        File directory = Files.createTempDirectory("cdc").toFile();
+        File logFile = new File(directory, "changes.log");
+        Database db = new Database(new File(directory, "database.xml"), false);
+
+        try (ChangeLog log = new ChangeLog(logFile); ReadReplica replica = new ReadReplica(logFile)) {
+            db.addChangeListener(log);
+            Cabbie cabbie = new Cabbie();
+            cabbie.register();
+            db.insert(cabbie);
+            for (int i = 0; i < 100; i++) {
+                db.insert(ride("corrida-" + i, "FINALIZADA"));
+            }
+            log.flush();
+            assertEquals(101, replica.catchUp());
+            assertEquals(101, replica.getAppliedSequence());
+            assertEquals(0, replica.getLagBytes());
+            assertEquals(100, replica.countRides());
+            assertEquals(cabbie.getName(), replica.getCabbie(cabbie.getCabbieId()).getName());
+
+            replica.start(1);
+            RidePayment payment = new RidePayment("corrida-0", LocalDateTime.of(2024, 1, 1, 10, 0), 5, "Pix");
+            payment.setPaymentId("pagamento");
+            db.insert(payment);
+            Ride ride = db.findRide("corrida-1");
+            ride.setStatus("CANCELADA");
+            db.update(ride);
+
+            assertTrue(replica.awaitSequence(log.getSequence(), 5, TimeUnit.SECONDS));
+            assertEquals("CANCELADA", replica.getRide("corrida-1").getStatus());
+            assertEquals(payment.getAmountCents(), replica.totalRevenueCents());
+            assertEquals(100, replica.ridesOfPassenger("passageiro").size());
+            db.removeChangeListener(log);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package databaseManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Passenger;
+import cabbieManager.PaymentOption;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import cabbieManager.Vehicle;
+import exceptions.VersionConflictException;
+
+public class DatabaseTest {
+
+    private File file() throws Exception {
+        return new File(Files.createTempDirectory("database").toFile(), "database.xml");
+    }
+
+    @Test
+    public void testDatabase_SavesAndLoadsEveryEntity() throws Exception {
+        File file = file();
+        Database database = new Database(file, false);
+        Cabbie cabbie = new Cabbie();
+        cabbie.register();
+        database.insert(cabbie);
+        Passenger passenger = new Passenger();
+        passenger.register();
+        database.insert(passenger);
+        Vehicle vehicle = new Vehicle(cabbie.getCabbieId());
+        vehicle.registerVehicle();
+        database.insert(vehicle);
+        Ride ride = new Ride(passenger.getPassengerId());
+        ride.setRideId("corrida");
+        ride.setStatus("FINALIZADA");
+        ride.setStartTime(LocalDateTime.of(2024, 1, 1, 8, 0));
+        ride.setDistance(12.5f);
+        database.insert(ride);
+        database.insert(new RidePayment("corrida", ride.getStartTime(), 12.5f, "PIX"));
+
+        Database loaded = new Database(file, true);
+        assertEquals(cabbie.getName(), loaded.getCabbies().get(0).getName());
+        assertEquals(cabbie.getLicenseNumber(), loaded.getCabbies().get(0).getLicenseNumber());
+        assertEquals(passenger.getEmail(), loaded.getPassengers().get(0).getEmail());
+        assertEquals(vehicle.getModel(), loaded.getVehicles().get(0).getModel());
+        assertEquals(ride.getStartTime(), loaded.findRide("corrida").getStartTime());
+        assertEquals("FINALIZADA", loaded.findRide("corrida").getStatus());
+        assertEquals(database.getPayments().get(0).getAmountCents(), loaded.getPayments().get(0).getAmountCents());
+        assertEquals(database.getPayments().get(0).getPaymentId(), loaded.getPayments().get(0).getPaymentId());
+    }
+
+    @Test
+    public void testDatabase_LoadsFileWrittenByJaxb() throws Exception {
+        File file = file();
+        Files.write(file.toPath(), String.join("\n",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>",
+                "<database>",
+                "    <cabbies>",
+                "        <cabbie>",
+                "            <cabbieId>motorista</cabbieId>",
+                "            <isBusy>false</isBusy>",
+                "            <name>Martina</name>",
+                "        </cabbie>",
+                "    </cabbies>",
+                "    <passengers/>",
+                "    <rides>",
+                "        <ride>",
+                "            <passengerId>ana</passengerId>",
+                "            <rideId>corrida</rideId>",
+                "            <Status>EM_PROGRESSO</Status>",
+                "        </ride>",
+                "    </rides>",
+                "</database>").getBytes(StandardCharsets.UTF_8));
+
+        Database database = new Database(file, true);
+        assertEquals("Martina", database.findCabbie("motorista").getName());
+        assertTrue(database.getPassengers().isEmpty());
+        assertEquals("EM_PROGRESSO", database.findRide("corrida").getStatus());
+        assertEquals("ana", database.findRide("corrida").getPassengerId());
+    }
+
+    @Test
+    public void testDatabase_RevenueIsExactInCents() throws Exception {
+        Database db = new Database();
+        RidePayment payment = new RidePayment("rideId", LocalDateTime.of(2022, 1, 1, 10, 0), 3.33f,
+                "Cartão de Crédito");
+        for (int i = 0; i < 1000; i++) {
+            db.getPayments().add(payment);
+        }
+
+        assertEquals(1236, payment.getAmountCents());
+        assertEquals(1236000, db.totalRevenueCents());
+        assertEquals(1236000, db.revenueCentsByOption()[PaymentOption.CREDIT_CARD.ordinal()]);
+        assertEquals("R$ 12.36", RidePayment.formatCents(payment.getAmountCents()));
+    }
+
+    @Test
+    public void testDatabaseUpdate_RejectsStaleCopy() throws Exception {
+        Database db = new Database(new File(Files.createTempDirectory("versions").toFile(), "database.xml"), false);
+        Cabbie stored = new Cabbie();
+        stored.register();
+        db.insert(stored);
+
+        // Duas cópias lidas na mesma versão
+        Cabbie first = new Cabbie();
+        first.setCabbieId(stored.getCabbieId());
+        first.setName("Primeira");
+        Cabbie second = new Cabbie();
+        second.setCabbieId(stored.getCabbieId());
+        second.setName("Segunda");
+
+        db.update(first);
+        assertEquals(1, first.getVersion());
+        assertThrows(VersionConflictException.class, () -> db.update(second));
+        assertEquals("Primeira", db.findCabbie(stored.getCabbieId()).getName());
+
+        // Relida na versão atual, a segunda cópia é aceita
+        second.setVersion(first.getVersion());
+        db.update(second);
+        assertEquals(2, second.getVersion());
+        assertEquals("Segunda", db.getCabbies().get(0).getName());
+        assertEquals(1, db.getCabbies().size());
+    }
+
+    @Test
+    public void testDatabaseUpdate_CopiesAndUnknownEntities() throws Exception {
+        File file = new File(Files.createTempDirectory("versions").toFile(), "database.xml");
+        Database db = new Database(file, false);
+        Cabbie unknown = new Cabbie();
+        unknown.register();
+        db.update(unknown);
+        assertEquals(0, unknown.getVersion());
+        assertFalse(file.exists());
+
+        db.insert(unknown);
+        Cabbie copy = new Cabbie(unknown);
+        copy.setIsBusy(true);
+        db.update(copy);
+        assertFalse(unknown.getIsBusy());
+        assertSame(copy, db.findCabbie(unknown.getCabbieId()));
+        assertEquals(unknown.getName(), copy.getName());
+        assertThrows(VersionConflictException.class, () -> db.update(new Cabbie(unknown)));
+    }
+
+    @Test
+    public void testDatabaseUpdate_ConcurrentWritersLoseNoUpdate() throws Exception {
+        Database db = new Database(new File(Files.createTempDirectory("versions").toFile(), "database.xml"), false);
+        Vehicle vehicle = new Vehicle("cabbie");
+        vehicle.setVehicleId("vehicle");
+        db.insert(vehicle);
+
+        // Cada escritor lê uma cópia, soma um ao ano e tenta gravar, repetindo em caso de conflito
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 25; i++) {
+                    while (true) {
+                        Vehicle current = db.getVehicles().get(0);
+                        Vehicle copy = new Vehicle(current.getCabbieId());
+                        copy.setVehicleId(current.getVehicleId());
+                        copy.setVersion(current.getVersion());
+                        copy.setYear(current.getYear() + 1);
+                        try {
+                            db.update(copy);
+                            break;
+                        } catch (VersionConflictException e) {
+                            // Outro escritor gravou antes; tenta de novo
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(200, db.getVehicles().get(0).getYear());
+        assertEquals(200, db.getVehicles().get(0).getVersion());
+    }
+}
@@ -0,0 +1,118 @@
+package databaseManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Ride;
+
+public class RideHistoryIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private Ride ride(String rideId, String passengerId, int minutes) {
+        Ride ride = new Ride(passengerId);
+        ride.setRideId(rideId);
+        ride.setStatus("CHAMADA");
+        ride.setStartTime(START.plusMinutes(minutes));
+        return ride;
+    }
+
+    private Database database() throws Exception {
+        return new Database(new File(Files.createTempDirectory("history").toFile(), "database.xml"), false);
+    }
+
+    @Test
+    public void testRideHistoryIndex_OrdersAndFiltersByTime() throws Exception {
+        Database database = database();
+        // Corridas já existentes antes do índice
+        database.insert(ride("c", "ana", 30));
+        database.insert(ride("a", "ana", 10));
+        RideHistoryIndex index = RideHistoryIndex.attach(database);
+
+        database.insert(ride("b", "ana", 20));
+        database.insert(ride("d", "ana", 30));
+        database.insert(ride("x", "bia", 15));
+
+        assertEquals(List.of("a", "b", "c", "d"), ids(index.ridesOfPassenger("ana")));
+        assertEquals(List.of("b", "c", "d"),
+                ids(index.ridesOfPassenger("ana", START.plusMinutes(20), START.plusMinutes(31))));
+        assertEquals(List.of("a", "b"), ids(index.ridesOfPassenger("ana", START, START.plusMinutes(30))));
+        assertEquals(List.of("c", "d"), ids(index.ridesOfPassenger("ana", START.plusMinutes(30), null)));
+        assertTrue(index.ridesOfPassenger("ana", START.plusMinutes(30), START).isEmpty());
+        assertTrue(index.ridesOfPassenger("ninguem").isEmpty());
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    public void testRideHistoryIndex_FollowsUpdates() throws Exception {
+        Database database = database();
+        RideHistoryIndex index = RideHistoryIndex.attach(database);
+        Ride ride = ride("corrida", "ana", 0);
+        database.insert(ride);
+        assertTrue(index.ridesOfCabbie("motorista").isEmpty());
+
+        ride.updateRideStatus("ACEITA", "motorista", "veiculo");
+        database.update(ride);
+        assertEquals(List.of("corrida"), ids(index.ridesOfCabbie("motorista")));
+
+        ride.setStatus("FINALIZADA");
+        database.update(ride);
+        assertEquals("FINALIZADA", index.ridesOfCabbie("motorista").get(0).getStatus());
+
+        // Uma cópia com outro horário substitui a entrada anterior
+        Ride copy = ride("corrida", "ana", 60);
+        copy.setCabbieId("outro");
+        copy.setVersion(ride.getVersion());
+        database.update(copy);
+        assertTrue(index.ridesOfCabbie("motorista").isEmpty());
+        assertEquals(List.of("corrida"), ids(index.ridesOfCabbie("outro", START.plusMinutes(60), null)));
+        assertSame(copy, index.ridesOfPassenger("ana").get(0));
+        assertEquals(1, index.ridesOfPassenger("ana").size());
+    }
+
+    @Test
+    public void testRideHistoryIndex_AttachWhileRidesAreUpdated() throws Exception {
+        Database database = database();
+        database.insert(ride("corrida", "ana", 0));
+        // Cópias gravadas enquanto os índices são criados
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; !done.get(); i++) {
+                Ride copy = new Ride(database.findRide("corrida"));
+                copy.setCabbieId("motorista" + i);
+                database.update(copy);
+            }
+            return null;
+        });
+        List<RideHistoryIndex> indexes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            indexes.add(RideHistoryIndex.attach(database));
+        }
+        done.set(true);
+        writer.get();
+        executor.shutdown();
+
+        Ride stored = database.findRide("corrida");
+        for (RideHistoryIndex index : indexes) {
+            assertSame(stored, index.ridesOfPassenger("ana").get(0));
+            assertEquals(List.of("corrida"), ids(index.ridesOfCabbie(stored.getCabbieId())));
+            assertEquals(1, index.size());
+        }
+    }
+
+    private static List<String> ids(List<Ride> rides) {
+        return rides.stream().map(Ride::getRideId).toList();
+    }
+}
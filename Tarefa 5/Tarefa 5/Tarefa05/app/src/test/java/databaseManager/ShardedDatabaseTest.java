@@ -0,0 +1,167 @@
+package databaseManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Passenger;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import cabbieManager.Vehicle;
+import exceptions.UnsupportedObjectTypeException;
+import exceptions.VersionConflictException;
+
+public class ShardedDatabaseTest {
+
+    private ShardedDatabase database(int shards) throws Exception {
+        return new ShardedDatabase(Files.createTempDirectory("shards").toFile(), shards, false);
+    }
+
+    @Test
+    public void testShardedDatabase_KeepsPassengerDataTogether() throws Exception {
+        try (ShardedDatabase database = database(4)) {
+            List<Object> entities = new ArrayList<>();
+            List<RidePayment> payments = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                Passenger passenger = new Passenger();
+                passenger.setPassengerId("passageiro-" + i);
+                entities.add(passenger);
+                Ride ride = new Ride(passenger.getPassengerId());
+                ride.setRideId("corrida-" + i);
+                entities.add(ride);
+                RidePayment payment = new RidePayment(ride.getRideId(), LocalDateTime.of(2024, 1, 1, 10, 0), 5, "Pix");
+                payment.setPaymentId("pagamento-" + i);
+                payments.add(payment);
+            }
+            database.insertAll(entities);
+            for (RidePayment payment : payments) {
+                database.insert(payment);
+            }
+
+            int used = 0;
+            for (int i = 0; i < database.getShardCount(); i++) {
+                Database shard = database.getShard(i);
+                for (Ride ride : shard.getRides()) {
+                    assertEquals(i, database.shardOf(ride));
+                    assertTrue(shard.getPassengers().stream()
+                            .anyMatch(p -> p.getPassengerId().equals(ride.getPassengerId())));
+                }
+                for (RidePayment payment : shard.getPayments()) {
+                    assertNotNull(shard.findRide(payment.getRideId()));
+                }
+                used += shard.getRides().isEmpty() ? 0 : 1;
+            }
+            assertTrue(used > 1);
+
+            assertEquals("passageiro-7", database.findRide("corrida-7").getPassengerId());
+            assertNull(database.findRide("inexistente"));
+            assertEquals(1, database.findRidesOfPassenger("passageiro-3").size());
+            assertEquals(40, database.findRides(ride -> true).size());
+
+            long expected = 0;
+            for (RidePayment payment : payments) {
+                expected += payment.getAmountCents();
+            }
+            assertEquals(expected, database.totalRevenueCents());
+            long byOption = 0;
+            for (long revenue : database.revenueCentsByOption()) {
+                byOption += revenue;
+            }
+            assertEquals(expected, byOption);
+        }
+    }
+
+    @Test
+    public void testShardedDatabase_RoutesCabbiesAndUpdates() throws Exception {
+        try (ShardedDatabase database = database(3)) {
+            Cabbie cabbie = new Cabbie();
+            cabbie.register();
+            Vehicle vehicle = new Vehicle(cabbie.getCabbieId());
+            database.insert(cabbie);
+            database.insert(vehicle);
+            assertEquals(database.shardOf(cabbie), database.shardOf(vehicle));
+            assertSame(cabbie, database.findCabbie(cabbie.getCabbieId()));
+
+            cabbie.setIsBusy(true);
+            database.update(cabbie);
+            assertEquals(1, cabbie.getVersion());
+
+            Cabbie stale = new Cabbie();
+            stale.setCabbieId(cabbie.getCabbieId());
+            assertThrows(VersionConflictException.class, () -> database.update(stale));
+            assertThrows(UnsupportedObjectTypeException.class, () -> database.insert("texto"));
+        }
+    }
+
+    @Test
+    public void testShardedDatabase_PaymentFollowsRideWrittenToAShard() throws Exception {
+        try (ShardedDatabase database = database(4)) {
+            Ride ride = new Ride("passageiro");
+            ride.setRideId("corrida");
+            int home = database.shardOf(ride);
+            // Gravada direto no shard, sem passar pelo roteador
+            database.getShard(home).insert(ride);
+            assertSame(ride, database.findRide("corrida"));
+
+            RidePayment payment = new RidePayment("corrida", LocalDateTime.of(2024, 1, 1, 10, 0), 5, "Pix");
+            database.insert(payment);
+            assertEquals(home, database.shardOf(payment));
+            assertEquals(1, database.getShard(home).getPayments().size());
+
+            RidePayment known = new RidePayment("corrida", LocalDateTime.of(2024, 1, 1, 10, 0), 5, "Pix");
+            database.insertPaymentAsync(known, "passageiro").join();
+            assertEquals(2, database.getShard(home).getPayments().size());
+        }
+    }
+
+    @Test
+    public void testShardedDatabase_ConcurrentInserts() throws Exception {
+        try (ShardedDatabase database = database(4)) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                Passenger passenger = new Passenger();
+                passenger.setPassengerId("passageiro-" + i);
+                futures.add(database.insertAsync(passenger));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            int total = 0;
+            for (int i = 0; i < database.getShardCount(); i++) {
+                total += database.getShard(i).getPassengers().size();
+            }
+            assertEquals(1000, total);
+        }
+    }
+
+    @Test
+    public void testShardedDatabase_SurvivesFailedOperationsAndRejectsAfterClose() throws Exception {
+        ShardedDatabase database = database(1);
+        Passenger passenger = new Passenger();
+        passenger.setPassengerId("passageiro");
+        Ride ride = new Ride(passenger.getPassengerId());
+        ride.setRideId("corrida");
+        database.insertAll(List.of(passenger, ride));
+
+        // Um Error na consulta não pode derrubar a thread do shard
+        assertThrows(CompletionException.class, () -> database.findRides(r -> {
+            throw new AssertionError("falha");
+        }));
+        assertEquals(1, database.findRides(r -> true).size());
+
+        database.close();
+        Passenger late = new Passenger();
+        late.setPassengerId("atrasado");
+        CompletionException closed = assertThrows(CompletionException.class, () -> database.insert(late));
+        assertTrue(closed.getCause() instanceof IllegalStateException);
+        assertThrows(CompletionException.class, () -> database.findRide("corrida"));
+    }
+}
@@ -0,0 +1,124 @@
+package datagen;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Location;
+import cabbieManager.Passenger;
+import cabbieManager.PaymentOption;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import databaseManager.Database;
+
+public class BulkDataGeneratorTest {
+
+    private List<String> fingerprint(BulkDataGenerator generator) {
+        List<String> rows = Collections.synchronizedList(new ArrayList<>());
+        generator.generate(50, 80, 1000, chunk -> {
+            for (RidePayment payment : chunk.getPayments()) {
+                rows.add(chunk.getIndex() + " " + payment.getPaymentId() + " " + payment.getRideStartTime() + " "
+                        + payment.getAmountCents());
+            }
+            chunk.getCabbies().forEach(cabbie -> rows.add(chunk.getIndex() + " " + cabbie));
+        });
+        Collections.sort(rows);
+        return rows;
+    }
+
+    @Test
+    public void testGenerate_SameSeedSameData() {
+        BulkDataGenerator first = new BulkDataGenerator(42);
+        first.setChunkSize(64);
+        BulkDataGenerator second = new BulkDataGenerator(42);
+        second.setChunkSize(64);
+        BulkDataGenerator other = new BulkDataGenerator(43);
+        other.setChunkSize(64);
+
+        List<String> rows = fingerprint(first);
+        assertEquals(1050, rows.size());
+        assertEquals(rows, fingerprint(second));
+        assertNotEquals(rows, fingerprint(other));
+    }
+
+    @Test
+    public void testGenerate_FollowsDistributions() throws Exception {
+        BulkDataGenerator generator = new BulkDataGenerator(7);
+        generator.setChunkSize(100);
+        generator.setPickupDistribution(new Distribution<>(new Location[] { Location.AEROPORTO, Location.PARQUE },
+                new double[] { 1, 0 }));
+        generator.setHourDistribution(new Distribution<>(new Integer[] { 8, 22 }, new double[] { 3, 1 }));
+        generator.setPaymentDistribution(Distribution.uniform(new PaymentOption[] { PaymentOption.PIX }));
+
+        Database database = new Database(new File(Files.createTempDirectory("bulk").toFile(), "db.xml"), false);
+        long count = generator.generateInto(database, 10, 20, 2000);
+
+        assertEquals(10 + 10 + 20 + 2000 + 2000, count);
+        assertEquals(2000, database.getRides().size());
+        assertEquals(10, database.getVehicles().size());
+
+        int morning = 0;
+        for (Ride ride : database.getRides()) {
+            assertEquals(Location.AEROPORTO, ride.getPickLocation());
+            assertNotEquals(Location.AEROPORTO, ride.getDropLocation());
+            int hour = ride.getStartTime().getHour();
+            assertTrue(hour == 8 || hour == 22);
+            if (hour == 8) {
+                morning++;
+            }
+        }
+        assertTrue(morning > 1300 && morning < 1700);
+        for (RidePayment payment : database.getPayments()) {
+            assertEquals(PaymentOption.PIX, payment.getPaymentMethod());
+        }
+    }
+
+    @Test
+    public void testGenerateInto_ChunkOrderAndVariedNames() throws Exception {
+        BulkDataGenerator generator = new BulkDataGenerator(11);
+        generator.setChunkSize(50);
+        Database database = new Database(new File(Files.createTempDirectory("bulk").toFile(), "db.xml"), false);
+        long count = generator.generateInto(database, 20, 2000, 500);
+        assertEquals(20 + 20 + 2000 + 500 + 500, count);
+
+        // Mesma ordem de fatias que generate, mesmo gerando várias ao mesmo tempo
+        Map<Integer, List<String>> byChunk = new ConcurrentHashMap<>();
+        generator.generate(20, 2000, 500, chunk -> byChunk.put(chunk.getIndex(),
+                chunk.getPassengers().stream().map(Passenger::getPassengerId).toList()));
+        List<String> expected = new ArrayList<>();
+        new TreeMap<>(byChunk).values().forEach(expected::addAll);
+        assertEquals(expected, database.getPassengers().stream().map(Passenger::getPassengerId).toList());
+
+        Set<String> names = new HashSet<>();
+        database.getPassengers().forEach(passenger -> names.add(passenger.getName()));
+        assertTrue(names.size() > 1500);
+    }
+
+    @Test
+    public void testDistribution_Sample() {
+        Distribution<String> distribution = new Distribution<>(new String[] { "a", "b", "c" },
+                new double[] { 0, 1, 3 });
+        SplittableRandom random = new SplittableRandom(1);
+        int[] counts = new int[3];
+        for (int i = 0; i < 40000; i++) {
+            counts[distribution.sample(random).charAt(0) - 'a']++;
+        }
+        assertEquals(0, counts[0]);
+        assertTrue(Math.abs(counts[2] - 30000) < 1000);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new Distribution<>(new String[] { "a" }, new double[] { 0 }));
+    }
+}
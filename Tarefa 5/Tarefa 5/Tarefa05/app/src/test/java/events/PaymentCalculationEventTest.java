@@ -0,0 +1,37 @@
+package events;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.RidePayment;
+
+public class PaymentCalculationEventTest {
+
+    @Test
+    public void testPaymentCalculationEvent_Recorded() throws Exception {
+        Path file = Files.createTempFile("payments", ".jfr");
+        RidePayment payment;
+        try (Recording recording = new Recording()) {
+            recording.enable("cabbieManager.PaymentCalculation");
+            recording.start();
+            payment = new RidePayment("jfrRide", LocalDateTime.of(2022, 1, 1, 20, 0), 5.0f, "Dinheiro");
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assertTrue(events.stream().anyMatch(e -> "jfrRide".equals(e.getString("rideId"))
+                && e.getLong("amountCents") == payment.getAmountCents() && e.getBoolean("night")));
+    }
+}
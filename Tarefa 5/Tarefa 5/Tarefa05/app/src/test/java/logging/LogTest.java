@@ -0,0 +1,45 @@
+package logging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class LogTest {
+
+    @Test
+    public void testDisabledLevel_DoesNotFormat() {
+        Level previous = Log.getLevel();
+        Log.setLevel(Level.INFO);
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            Logger logger = Log.getLogger(LogTest.class);
+            logger.debug(() -> "mensagem " + calls.incrementAndGet());
+
+            assertEquals(0, calls.get());
+            assertFalse(logger.isEnabled(Level.DEBUG));
+            assertTrue(logger.isEnabled(Level.WARN));
+        } finally {
+            Log.setLevel(previous);
+        }
+    }
+
+    @Test
+    public void testAsyncAppender_WritesAndFlushes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        AsyncAppender appender = new AsyncAppender(16, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+
+        appender.append(new LogRecord(0, Level.INFO, "main", "Ride", "Corrida finalizada", null));
+        appender.append(new LogRecord(0, Level.WARN, "main", "Ride", "Erro", null));
+        appender.flush();
+
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("INFO [main] Ride - Corrida finalizada"));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("WARN [main] Ride - Erro"));
+    }
+}
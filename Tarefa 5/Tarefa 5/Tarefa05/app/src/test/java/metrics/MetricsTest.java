@@ -0,0 +1,77 @@
+package metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.PaymentOption;
+import cabbieManager.RidePayment;
+
+public class MetricsTest {
+
+    @Test
+    public void testScrape_PrometheusFormat() throws Exception {
+        long before = Metrics.revenueCents(PaymentOption.VOUCHER).get();
+        RidePayment payment = new RidePayment("rideId", LocalDateTime.of(2022, 1, 1, 10, 0), 5.0f, "Voucher");
+        payment.processPayment();
+
+        assertEquals(before + payment.getAmountCents(), Metrics.revenueCents(PaymentOption.VOUCHER).get());
+
+        Metrics.gauge("test_gauge", "Gauge de teste", () -> 42);
+        String text = Metrics.scrape();
+        assertTrue(text.contains("# TYPE cabbie_revenue_cents_total counter\n"));
+        assertTrue(text.contains("cabbie_revenue_cents_total{payment_option=\"VOUCHER\"} "));
+        assertTrue(text.contains("test_gauge 42\n"));
+        assertEquals(text.indexOf("# HELP cabbie_revenue_cents_total"),
+                text.lastIndexOf("# HELP cabbie_revenue_cents_total"));
+    }
+
+    @Test
+    public void testMetricsServer_ServesScrape() throws Exception {
+        try (MetricsServer server = MetricsServer.start(0)) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("cabbie_rides_requested_total"));
+        }
+    }
+
+    @Test
+    public void testLatencyHistogram_Percentiles() {
+        LatencyHistogram histogram = Metrics.histogram("test_latency_seconds", "Histograma de teste");
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500_000, snapshot.getP50(), 500_000 * 0.016);
+        assertEquals(990_000, snapshot.getP99(), 990_000 * 0.016);
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(500_500_000, snapshot.getSum());
+        assertEquals(0, histogram.snapshot().getCount());
+        assertTrue(Metrics.scrape().contains("test_latency_seconds_count 0\n"));
+
+        histogram.record(1_500_000_000);
+        assertTrue(Metrics.scrape().contains("test_latency_seconds_sum 1.5\ntest_latency_seconds_count 1\n"));
+        histogram.snapshotAndReset();
+    }
+
+    @Test
+    public void testLatencyHistogram_BucketsCoverWholeRange() {
+        long[] values = { 0, 1, 127, 128, 129, 1_000_003, Long.MAX_VALUE };
+        for (long value : values) {
+            long highest = LatencyHistogram.highestValue(LatencyHistogram.index(value));
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= Math.max(1, value / 64));
+        }
+    }
+}
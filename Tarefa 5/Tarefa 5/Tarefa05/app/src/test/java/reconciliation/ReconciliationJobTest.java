@@ -0,0 +1,135 @@
+package reconciliation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import databaseManager.Database;
+
+public class ReconciliationJobTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private final List<Ride> rides = new ArrayList<>();
+    private final List<RidePayment> payments = new ArrayList<>();
+
+    private Ride ride(String rideId, float distance) {
+        Ride ride = new Ride("passageiro");
+        ride.setRideId(rideId);
+        ride.setStatus("FINALIZADA");
+        ride.setStartTime(START);
+        ride.setDistance(distance);
+        this.rides.add(ride);
+        return ride;
+    }
+
+    private RidePayment pay(Ride ride) throws Exception {
+        RidePayment payment = new RidePayment(ride.getRideId(), ride.getStartTime(), ride.getDistance(), "Pix");
+        this.payments.add(payment);
+        return payment;
+    }
+
+    // Corridas pagas corretamente, e uma de cada tipo de divergência
+    private void dataset() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            this.pay(this.ride("corrida-" + i, 1 + i % 20));
+        }
+        RidePayment wrong = this.pay(this.ride("valor", 5));
+        wrong.setAmountCents(wrong.getAmountCents() + 1);
+        this.pay(this.rides.get(0));
+        this.ride("sem-pagamento", 3);
+        this.pay(this.ride("inexistente", 4));
+        this.rides.remove(this.rides.size() - 1);
+        // Cobrada por outra distância, mas com o valor certo para ela
+        RidePayment distance = this.pay(this.ride("distancia", 6));
+        distance.setRideDistance(7);
+        distance.setAmountCents(distance.calculateValueCents());
+        RidePayment invalid = this.pay(this.ride("invalido", 2));
+        invalid.setPaymentMethod(null);
+    }
+
+    @Test
+    public void testReconciliation_FindsEveryMismatch() throws Exception {
+        this.dataset();
+        ReconciliationReport report = new ReconciliationJob().run(this.rides::stream, this.payments::stream,
+                this.rides.size());
+
+        assertEquals(this.payments.size(), report.getPayments());
+        assertEquals(1, report.getCount(MismatchType.AMOUNT_MISMATCH));
+        assertEquals(1, report.getCount(MismatchType.DUPLICATE_PAYMENT));
+        assertEquals(1, report.getCount(MismatchType.UNPAID_RIDE));
+        assertEquals(1, report.getCount(MismatchType.UNKNOWN_RIDE));
+        assertEquals(1, report.getCount(MismatchType.DISTANCE_MISMATCH));
+        assertEquals(1, report.getCount(MismatchType.INVALID_PAYMENT));
+        assertEquals(0, report.getCount(MismatchType.START_TIME_MISMATCH));
+        assertEquals(report.getMismatches(), report.getSamples().size());
+        assertEquals(this.payments.stream().mapToLong(RidePayment::getAmountCents).sum(), report.getPaidCents());
+
+        Mismatch amount = report.getSamples().stream().filter(m -> m.getType() == MismatchType.AMOUNT_MISMATCH)
+                .findFirst().get();
+        assertEquals("valor", amount.getRideId());
+        assertEquals(amount.getExpectedCents() + 1, amount.getPaidCents());
+    }
+
+    @Test
+    public void testReconciliation_PassesDoNotChangeTheResult() throws Exception {
+        this.dataset();
+        ReconciliationJob job = new ReconciliationJob();
+        job.setParallelism(3);
+        job.setRidesPerPass(16);
+        job.setMaxSamples(2);
+        ReconciliationReport report = job.run(this.rides::stream, this.payments::stream, this.rides.size());
+        ReconciliationReport single = new ReconciliationJob().run(this.rides::stream, this.payments::stream,
+                this.rides.size());
+
+        assertEquals((this.rides.size() + 15) / 16, report.getPasses());
+        assertEquals(1, single.getPasses());
+        assertEquals(single.getPayments(), report.getPayments());
+        assertEquals(single.getPaidCents(), report.getPaidCents());
+        assertEquals(single.getExpectedCents(), report.getExpectedCents());
+        for (MismatchType type : MismatchType.values()) {
+            assertEquals(single.getCount(type), report.getCount(type), type.name());
+        }
+        assertEquals(2, report.getSamples().size());
+        assertTrue(report.getThroughput() > 0);
+    }
+
+    @Test
+    public void testReconciliation_OverDatabase() throws Exception {
+        Database database = new Database(new File(Files.createTempDirectory("reconciliation").toFile(),
+                "database.xml"), false);
+        Ride ride = this.ride("corrida", 5);
+        database.insert(ride);
+        database.insert(this.pay(ride));
+        database.insert(this.pay(ride));
+
+        ReconciliationReport report = new ReconciliationJob().run(database);
+        assertEquals(2, report.getPayments());
+        assertEquals(1, report.getMismatches());
+        assertEquals(1, report.getCount(MismatchType.DUPLICATE_PAYMENT));
+
+        // Mais corridas que um bloco do stream do banco, em várias passadas
+        this.rides.clear();
+        this.payments.clear();
+        for (int i = 0; i < 5000; i++) {
+            this.pay(this.ride("lote-" + i, 1 + i % 20));
+        }
+        database.insertAll(this.rides);
+        database.insertAll(this.payments);
+        ReconciliationJob job = new ReconciliationJob();
+        job.setRidesPerPass(1500);
+        report = job.run(database);
+        assertEquals(5002, report.getPayments());
+        assertEquals(4, report.getPasses());
+        assertEquals(1, report.getMismatches());
+        assertEquals(1, report.getCount(MismatchType.DUPLICATE_PAYMENT));
+    }
+}
@@ -0,0 +1,33 @@
+package routing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Location;
+
+public class LocationRegistryTest {
+
+    @Test
+    public void testLocationRegistry_NearestAndAutocomplete() throws Exception {
+        LocationRegistry registry = LocationRegistry.withLocations();
+        registry.register("Escola Municipal", 40.5, 41.0);
+
+        assertEquals("Escola Municipal", registry.nearest(39.0, 39.0).getName());
+        assertEquals(Location.HOSPITAL, registry.nearest(14.2, 12.9).getLocation());
+
+        NamedPoint free = registry.register(null, 100, 100);
+        assertSame(free, registry.nearest(98, 97));
+        assertEquals(Location.ESTADIO, free.getLocation());
+        // Coordenadas muito distantes vão direto à área ocupada
+        assertSame(free, registry.nearest(1e9, 1e9));
+        assertSame(free, registry.nearest(1e300, 100));
+        assertEquals(Location.PARQUE, registry.nearest(0, -1e12).getLocation());
+
+        List<NamedPoint> suggestions = registry.autocomplete("esc", 10);
+        assertEquals(2, suggestions.size());
+        assertEquals("Escola", suggestions.get(0).getName());
+    }
+}
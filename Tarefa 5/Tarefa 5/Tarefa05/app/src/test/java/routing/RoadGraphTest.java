@@ -0,0 +1,43 @@
+package routing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Location;
+
+public class RoadGraphTest {
+
+    @Test
+    public void testRoadGraph_LoadFromFile() throws Exception {
+        File file = File.createTempFile("roads", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), ("# origem;destino;km;minutos\n"
+                + "Aeroporto;Escola;6\n"
+                + "Escola;Estadio;17.5;20\n").getBytes(StandardCharsets.UTF_8));
+
+        RoadGraph graph = RoadGraph.load(file);
+
+        assertEquals(23.5f, graph.distance(Location.AEROPORTO, Location.ESTADIO), 0);
+        assertEquals(32.0, graph.eta(Location.ESTADIO, Location.AEROPORTO), 0.0001);
+        assertTrue(Float.isInfinite(graph.distance(Location.AEROPORTO, Location.PARQUE)));
+    }
+
+    @Test
+    public void testRoadGraph_SetEdgeUpdatesShortestPaths() {
+        RoadGraph graph = RoadGraph.euclidean();
+
+        graph.setEdge(Location.PARQUE, Location.HOSPITAL, 1.0, 2.0);
+        assertEquals(1.0f, graph.distance(Location.HOSPITAL, Location.PARQUE), 0);
+        assertEquals(5.24f, graph.distance(Location.ESTACAO_DE_TREM, Location.PARQUE), 0);
+
+        // Estrada direta fica mais longa que um desvio: a tabela é recalculada
+        graph.setEdge(Location.PARQUE, Location.HOSPITAL, 100.0, 200.0);
+        float detour = graph.distance(Location.PARQUE, Location.HOSPITAL);
+        assertTrue(detour > 17.0f && detour < 100.0f);
+    }
+}
@@ -0,0 +1,122 @@
+package serialization;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Location;
+import cabbieManager.PaymentOption;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import cabbieManager.Vehicle;
+
+public class SerializersTest {
+
+    private <T> String toXml(EntitySerializer<T> serializer, T value) throws Exception {
+        StringWriter text = new StringWriter();
+        XMLStreamWriter out = XMLOutputFactory.newInstance().createXMLStreamWriter(text);
+        serializer.writeXml(value, out);
+        out.close();
+        return text.toString();
+    }
+
+    private <T> T fromXml(EntitySerializer<T> serializer, String xml) throws Exception {
+        XMLStreamReader in = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        in.nextTag();
+        return serializer.readXml(in);
+    }
+
+    private <T> T binaryRoundTrip(EntitySerializer<T> serializer, T value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serializer.writeBinary(value, new DataOutputStream(bytes));
+        return serializer.readBinary(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void testVehicle_XmlMatchesJaxbLayout() throws Exception {
+        Vehicle vehicle = new Vehicle("cabbie1");
+        vehicle.setVehicleId("vehicle1");
+        vehicle.setModel("Honda");
+        vehicle.setRegistrationNumber("ABD123");
+        vehicle.setYear(2018);
+
+        EntitySerializer<Vehicle> serializer = Serializers.get(Vehicle.class);
+        assertSame(serializer, Serializers.forElement("vehicle"));
+        assertEquals("<vehicle><cabbieId>cabbie1</cabbieId><model>Honda</model>"
+                + "<registrationNumber>ABD123</registrationNumber><vehicleId>vehicle1</vehicleId><version>0</version>"
+                + "<year>2018</year></vehicle>", toXml(serializer, vehicle));
+    }
+
+    @Test
+    public void testRide_RoundTrips() throws Exception {
+        Ride ride = new Ride("passenger1");
+        ride.setRideId("ride1");
+        ride.setPickupLocation(Location.SHOPPING);
+        ride.setDropLocation(Location.ESTACAO_DE_TREM);
+        ride.setStartTime(LocalDateTime.of(2024, 9, 30, 14, 42, 42, 375942600));
+        ride.setDistance(11.31f);
+        ride.setStatus("EM_PROGRESSO");
+
+        EntitySerializer<Ride> serializer = Serializers.get(Ride.class);
+        String xml = toXml(serializer, ride);
+        assertTrue(xml.contains("<pickupLocation>SHOPPING</pickupLocation>"));
+        assertTrue(xml.contains("<Status>EM_PROGRESSO</Status>"));
+        assertFalse(xml.contains("cabbieId"));
+
+        for (Ride copy : new Ride[] { fromXml(serializer, xml), binaryRoundTrip(serializer, ride) }) {
+            assertEquals("ride1", copy.getRideId());
+            assertEquals("passenger1", copy.getPassengerId());
+            assertNull(copy.getCabbieId());
+            assertEquals(Location.SHOPPING, copy.getPickLocation());
+            assertEquals(Location.ESTACAO_DE_TREM, copy.getDropLocation());
+            assertEquals(ride.getStartTime(), copy.getStartTime());
+            assertEquals(11.31f, copy.getDistance());
+            assertEquals("EM_PROGRESSO", copy.getStatus());
+        }
+    }
+
+    @Test
+    public void testBinaryStrings_PastTheWriteUtfLimit() throws Exception {
+        Vehicle vehicle = new Vehicle("cabbie1");
+        vehicle.setVehicleId("vehicle1");
+        vehicle.setModel("Fusca ".repeat(20_000) + "ção");
+        vehicle.setRegistrationNumber(null);
+
+        Vehicle copy = binaryRoundTrip(Serializers.get(Vehicle.class), vehicle);
+        assertEquals(vehicle.getModel(), copy.getModel());
+        assertNull(copy.getRegistrationNumber());
+        assertEquals("cabbie1", copy.getCabbieId());
+    }
+
+    @Test
+    public void testRidePayment_RoundTrips() throws Exception {
+        RidePayment payment = new RidePayment("ride1", LocalDateTime.of(2022, 1, 1, 10, 0), 3.33f,
+                "Cartão de Crédito");
+
+        EntitySerializer<RidePayment> serializer = Serializers.get(RidePayment.class);
+        String xml = toXml(serializer, payment);
+        assertTrue(xml.startsWith("<PaymentMethod><amountCents>1236</amountCents>"));
+        assertFalse(xml.contains("<amount>"));
+
+        for (RidePayment copy : new RidePayment[] { fromXml(serializer, xml), binaryRoundTrip(serializer, payment) }) {
+            assertEquals(payment.getPaymentId(), copy.getPaymentId());
+            assertEquals(1236, copy.getAmountCents());
+            assertEquals(PaymentOption.CREDIT_CARD, copy.getPaymentMethod());
+            assertEquals(payment.getRideStartTime(), copy.getRideStartTime());
+            assertEquals(3.33f, copy.getRideDistance());
+        }
+    }
+}
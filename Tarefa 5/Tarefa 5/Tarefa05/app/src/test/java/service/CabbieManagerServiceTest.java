@@ -0,0 +1,135 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Cabbie;
+import cabbieManager.Passenger;
+import cabbieManager.Ride;
+import cabbieManager.RidePayment;
+import databaseManager.Database;
+import exceptions.VersionConflictException;
+
+public class CabbieManagerServiceTest {
+
+    private Database database() throws Exception {
+        return new Database(new File(Files.createTempDirectory("service").toFile(), "database.xml"), false);
+    }
+
+    private Cabbie cabbie(Database database) throws Exception {
+        Cabbie cabbie = new Cabbie();
+        cabbie.register();
+        database.insert(cabbie);
+        return cabbie;
+    }
+
+    @Test
+    public void testRideLifeCycle_ManyConcurrentRides() throws Exception {
+        Database database = database();
+        Passenger passenger = new Passenger();
+        passenger.register();
+        database.insert(passenger);
+
+        int rides = 100;
+        List<Cabbie> cabbies = new ArrayList<>();
+        for (int i = 0; i < rides; i++) {
+            cabbies.add(cabbie(database));
+        }
+
+        List<CompletableFuture<RidePayment>> payments = new ArrayList<>();
+        try (CabbieManagerService service = new CabbieManagerService(database)) {
+            for (int i = 0; i < rides; i++) {
+                String cabbieId = cabbies.get(i).getCabbieId();
+                payments.add(service.requestRide(passenger.getPassengerId(), "Shopping", "Parque")
+                        .thenCompose(ride -> service.acceptRide(ride.getRideId(), cabbieId, "veiculo-" + cabbieId))
+                        .thenCompose(ride -> service.startRide(ride.getRideId()))
+                        .thenCompose(ride -> service.completeRide(ride.getRideId()))
+                        .thenCompose(ride -> service.pay(ride.getRideId(), "Pix")));
+            }
+            CompletableFuture.allOf(payments.toArray(new CompletableFuture[0])).get();
+            assertEquals(0, service.getRidesInFlight());
+        }
+
+        assertEquals(rides, database.getRides().size());
+        assertEquals(rides, database.getPayments().size());
+        assertTrue(database.getRides().stream().allMatch(ride -> "FINALIZADA".equals(ride.getStatus())));
+        assertTrue(database.getCabbies().stream().noneMatch(cabbie -> cabbie.getIsBusy()));
+    }
+
+    @Test
+    public void testInvalidTransitions_AreRejected() throws Exception {
+        Database database = database();
+        Cabbie cabbie = cabbie(database);
+
+        try (CabbieManagerService service = new CabbieManagerService(database)) {
+            Ride ride = service.requestRide("passageiro", "Shopping", "Parque").get();
+            Ride other = service.requestRide("passageiro", "Parque", "Biblioteca").get();
+
+            ExecutionException early = assertThrows(ExecutionException.class,
+                    () -> service.startRide(ride.getRideId()).get());
+            assertTrue(early.getCause() instanceof IllegalStateException);
+            assertThrows(ExecutionException.class, () -> service.pay(ride.getRideId(), "Pix").get());
+
+            service.acceptRide(ride.getRideId(), cabbie.getCabbieId(), "veiculo").get();
+            assertTrue(database.findCabbie(cabbie.getCabbieId()).getIsBusy());
+            // O motorista guardado é trocado por uma cópia, não alterado
+            assertFalse(cabbie.getIsBusy());
+
+            // O motorista já está em uma corrida e a corrida já foi aceita
+            assertThrows(ExecutionException.class,
+                    () -> service.acceptRide(other.getRideId(), cabbie.getCabbieId(), "veiculo").get());
+            assertThrows(ExecutionException.class,
+                    () -> service.acceptRide(ride.getRideId(), "outro", "veiculo").get());
+
+            service.startRide(ride.getRideId()).get();
+            service.completeRide(ride.getRideId()).get();
+            assertFalse(database.findCabbie(cabbie.getCabbieId()).getIsBusy());
+            assertEquals("FINALIZADA", database.findRide(ride.getRideId()).getStatus());
+            assertEquals("CHAMADA", ride.getStatus());
+
+            service.pay(ride.getRideId(), "Pix").get();
+            assertThrows(ExecutionException.class, () -> service.pay(ride.getRideId(), "Pix").get());
+
+            // Livre de novo, o motorista pode aceitar outra corrida
+            service.acceptRide(other.getRideId(), cabbie.getCabbieId(), "veiculo").get();
+            assertEquals(1, service.getRidesInFlight());
+        }
+        assertEquals(1, database.getPayments().size());
+    }
+
+    @Test
+    public void testConcurrentTransitions_OnlyOneWins() throws Exception {
+        Database database = database();
+        Cabbie cabbie = cabbie(database);
+
+        try (CabbieManagerService service = new CabbieManagerService(database)) {
+            Ride ride = service.requestRide("passageiro", "Shopping", "Parque").get();
+            service.acceptRide(ride.getRideId(), cabbie.getCabbieId(), "veiculo").get();
+
+            List<CompletableFuture<Ride>> starts = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                starts.add(service.startRide(ride.getRideId()));
+            }
+            int started = 0;
+            for (CompletableFuture<Ride> start : starts) {
+                try {
+                    start.get();
+                    started++;
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException
+                            || e.getCause() instanceof VersionConflictException);
+                }
+            }
+            assertEquals(1, started);
+            assertEquals(2, database.findRide(ride.getRideId()).getVersion());
+        }
+    }
+}
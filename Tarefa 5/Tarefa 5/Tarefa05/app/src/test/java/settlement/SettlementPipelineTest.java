@@ -0,0 +1,124 @@
+package settlement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.RidePayment;
+
+public class SettlementPipelineTest {
+
+    private RidePayment payment(String rideId) throws Exception {
+        return new RidePayment(rideId, LocalDateTime.of(2022, 1, 1, 10, 0), 5.0f, "Pix");
+    }
+
+    @Test
+    public void testSubmit_DeduplicatesByRideAndPayment() throws Exception {
+        StubPaymentGateway gateway = new StubPaymentGateway();
+        SettlementPipeline pipeline = new SettlementPipeline(gateway, 10, 1);
+
+        RidePayment first = payment("ride1");
+        RidePayment sameRide = payment("ride1");
+
+        assertEquals(SettlementStatus.QUEUED, pipeline.submit(first));
+        assertEquals(SettlementStatus.DUPLICATE, pipeline.submit(sameRide));
+        assertTrue(pipeline.flush(5, TimeUnit.SECONDS));
+
+        assertEquals(SettlementStatus.SETTLED, pipeline.submit(first));
+        assertEquals(SettlementStatus.DUPLICATE, pipeline.getStatus(sameRide.getPaymentId()));
+        assertEquals(1, gateway.getSettled().size());
+        pipeline.close();
+    }
+
+    @Test
+    public void testSettle_BatchesAndTracksStatus() throws Exception {
+        StubPaymentGateway gateway = new StubPaymentGateway(p -> p.getRideId().equals("ride7"));
+        SettlementPipeline pipeline = new SettlementPipeline(gateway, 50, 1);
+
+        RidePayment[] payments = new RidePayment[200];
+        for (int i = 0; i < payments.length; i++) {
+            payments[i] = payment("ride" + i);
+            pipeline.submit(payments[i]);
+        }
+        pipeline.close();
+
+        assertEquals(199, gateway.getSettled().size());
+        assertTrue(gateway.getBatches() >= 4);
+        assertEquals(SettlementStatus.DECLINED, pipeline.getStatus(payments[7].getPaymentId()));
+        assertEquals(SettlementStatus.SETTLED, pipeline.getStatus(payments[8].getPaymentId()));
+    }
+
+    @Test
+    public void testSettle_RetriesAndSettles() throws Exception {
+        StubPaymentGateway gateway = new StubPaymentGateway();
+        gateway.failNext(1);
+        SettlementPipeline pipeline = new SettlementPipeline(gateway, 10, 2);
+
+        RidePayment payment = payment("ride1");
+        pipeline.submit(payment);
+        pipeline.close();
+        assertEquals(SettlementStatus.SETTLED, pipeline.getStatus(payment.getPaymentId()));
+        assertEquals(2, gateway.getBatches());
+    }
+
+    @Test
+    public void testSettle_UnreachableGatewayKeepsRideBlocked() throws Exception {
+        StubPaymentGateway gateway = new StubPaymentGateway();
+        gateway.failNext(2);
+        SettlementPipeline pipeline = new SettlementPipeline(gateway, 10, 2);
+
+        RidePayment unknown = payment("ride1");
+        pipeline.submit(unknown);
+        assertTrue(pipeline.flush(5, TimeUnit.SECONDS));
+        assertEquals(SettlementStatus.UNKNOWN, pipeline.getStatus(unknown.getPaymentId()));
+
+        RidePayment retry = payment("ride1");
+        assertEquals(SettlementStatus.DUPLICATE, pipeline.submit(retry));
+        pipeline.close();
+        assertTrue(gateway.getSettled().isEmpty());
+    }
+
+    @Test
+    public void testSettle_GatewayErrorFailsBatchAndKeepsWorker() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PaymentGateway gateway = batch -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new IllegalStateException("gateway quebrado");
+            }
+            return new boolean[batch.size()];
+        };
+        SettlementPipeline pipeline = new SettlementPipeline(gateway, 10, 3);
+
+        RidePayment broken = payment("ride1");
+        pipeline.submit(broken);
+        assertTrue(pipeline.flush(5, TimeUnit.SECONDS));
+        assertEquals(SettlementStatus.FAILED, pipeline.getStatus(broken.getPaymentId()));
+        assertEquals(1, calls.get());
+
+        RidePayment next = payment("ride1");
+        assertEquals(SettlementStatus.QUEUED, pipeline.submit(next));
+        pipeline.close();
+        assertEquals(SettlementStatus.DECLINED, pipeline.getStatus(next.getPaymentId()));
+    }
+
+    @Test
+    public void testSettle_HistoryIsBoundedButSettledRidesAreKept() throws Exception {
+        SettlementPipeline pipeline = new SettlementPipeline(new StubPaymentGateway(), 10, 1, 5);
+        RidePayment[] payments = new RidePayment[20];
+        for (int i = 0; i < payments.length; i++) {
+            payments[i] = payment("ride" + i);
+            pipeline.submit(payments[i]);
+        }
+        assertTrue(pipeline.flush(5, TimeUnit.SECONDS));
+
+        assertNull(pipeline.getStatus(payments[0].getPaymentId()));
+        assertEquals(SettlementStatus.SETTLED, pipeline.getStatus(payments[19].getPaymentId()));
+        assertEquals(SettlementStatus.DUPLICATE, pipeline.submit(payment("ride0")));
+        assertEquals(SettlementStatus.DUPLICATE, pipeline.submit(payments[0]));
+        pipeline.close();
+    }
+}
@@ -0,0 +1,77 @@
+package simulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Location;
+import databaseManager.Database;
+import datagen.Distribution;
+
+public class SimulationTest {
+
+    private Database database() throws Exception {
+        return new Database(new File(Files.createTempDirectory("simulation").toFile(), "database.xml"), false);
+    }
+
+    @Test
+    public void testRun_VirtualThreads() throws Exception {
+        SimulationConfig config = new SimulationConfig();
+        config.setPassengers(20);
+        config.setCabbies(5);
+        config.setRidesPerPassenger(3);
+        config.setRequestsPerMinute(1);
+        config.setMillisPerMinute(0.1);
+
+        Database database = database();
+        SimulationReport report = new Simulation(config, database).run();
+
+        assertEquals(60, report.getCompletedRides());
+        assertEquals(0, report.getFailedRides());
+        assertEquals(60, database.getRides().size());
+        assertEquals(60, database.getPayments().size());
+        assertEquals(60, report.getRideLatency().getCount());
+        assertTrue(report.getRideLatency().getP50() >= report.getWaitLatency().getP50());
+        assertTrue(database.getCabbies().stream().noneMatch(cabbie -> cabbie.getIsBusy()));
+        // Aceite e fim gravados como cópias, cada um com a sua versão
+        assertTrue(database.getRides().stream()
+                .allMatch(ride -> "FINALIZADA".equals(ride.getStatus()) && ride.getVersion() == 2));
+    }
+
+    @Test
+    public void testRun_DiscreteEventsIsDeterministic() throws Exception {
+        SimulationConfig config = new SimulationConfig();
+        config.setMode(SimulationConfig.Mode.DISCRETE_EVENT);
+        config.setPassengers(200);
+        config.setCabbies(10);
+        config.setRidesPerPassenger(4);
+        config.setRequestsPerMinute(0.05);
+
+        SimulationReport first = new Simulation(config, database()).run();
+        SimulationReport second = new Simulation(config, database()).run();
+
+        assertEquals(800, first.getCompletedRides());
+        assertEquals(first.getRideLatency().getP50(), second.getRideLatency().getP50());
+        assertEquals(first.getWaitLatency().getMax(), second.getWaitLatency().getMax());
+        // Corridas simuladas levam minutos, não a duração real da execução
+        assertTrue(first.getRideLatency().getP50() > 60_000_000_000L);
+    }
+
+    @Test
+    public void testRun_DropDistributionOnlyReturnsPickup() throws Exception {
+        SimulationConfig config = new SimulationConfig();
+        config.setMode(SimulationConfig.Mode.DISCRETE_EVENT);
+        config.setPassengers(10);
+        config.setCabbies(2);
+        config.setRidesPerPassenger(2);
+        config.setRequestsPerMinute(0.05);
+        config.setPickupDistribution(Distribution.uniform(new Location[] { Location.PARQUE }));
+        config.setDropDistribution(Distribution.uniform(new Location[] { Location.PARQUE }));
+
+        SimulationReport report = new Simulation(config, database()).run();
+        assertEquals(20, report.getCompletedRides());
+    }
+}
@@ -0,0 +1,312 @@
+package subscriptions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Ride;
+import databaseManager.Database;
+import exceptions.VersionConflictException;
+
+public class RideStatusHubTest {
+
+    // Guarda o que recebeu e só pede mais quando o teste mandar
+    private static class Recorder implements Flow.Subscriber<RideStatusUpdate> {
+        private final long initialDemand;
+        private final List<RideStatusUpdate> received = new CopyOnWriteArrayList<>();
+        private final Semaphore arrived = new Semaphore(0);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final CountDownLatch failed = new CountDownLatch(1);
+        private volatile Throwable error;
+        private volatile Flow.Subscription subscription;
+        private int awaited;
+
+        Recorder(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (this.initialDemand > 0) {
+                subscription.request(this.initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(RideStatusUpdate item) {
+            this.received.add(item);
+            this.arrived.release();
+            if (RideStatusHub.FINAL_STATUS.equals(item.getStatus())) {
+                this.finished.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+            this.failed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed.countDown();
+        }
+    }
+
+    private Ride ride(String rideId) {
+        Ride ride = new Ride("passageiro");
+        ride.setRideId(rideId);
+        return ride;
+    }
+
+    // Grava uma cópia da corrida com o novo status, como o CabbieManagerService
+    private Ride transition(Database database, Ride current, String status, String cabbieId) throws Exception {
+        Ride next = new Ride(current);
+        next.updateRideStatus(status, cabbieId, cabbieId == null ? null : "veiculo");
+        database.update(next);
+        return next;
+    }
+
+    @Test
+    public void testRideUpdates_FromCommittedStatusChanges() throws Exception {
+        Database database = new Database(new File(Files.createTempDirectory("hub").toFile(), "database.xml"), false);
+        database.addChangeListener(RideStatusHub.getDefault());
+        Ride ride = ride("corrida-hub");
+        ride.setStatus("CHAMADA");
+        database.insert(ride);
+
+        Recorder passenger = new Recorder(Long.MAX_VALUE);
+        Recorder cabbie = new Recorder(Long.MAX_VALUE);
+        RideStatusHub.getDefault().rideUpdates("corrida-hub").subscribe(passenger);
+        RideStatusHub.getDefault().cabbieUpdates("motorista-hub").subscribe(cabbie);
+
+        ride = transition(database, ride, "ACEITA", "motorista-hub");
+        ride = transition(database, ride, "EM_PROGRESSO", null);
+        ride = transition(database, ride, "FINALIZADA", null);
+
+        assertTrue(passenger.completed.await(5, TimeUnit.SECONDS));
+        RideStatusUpdate last = passenger.received.get(passenger.received.size() - 1);
+        assertEquals("FINALIZADA", last.getStatus());
+        assertEquals("motorista-hub", last.getCabbieId());
+
+        // O motorista só vê a corrida a partir do aceite, e a assinatura continua aberta
+        assertTrue(cabbie.finished.await(5, TimeUnit.SECONDS));
+        assertEquals("CHAMADA", cabbie.received.get(0).getPreviousStatus());
+        assertEquals("FINALIZADA", cabbie.received.get(cabbie.received.size() - 1).getStatus());
+        assertEquals(1, cabbie.completed.getCount());
+        cabbie.subscription.cancel();
+    }
+
+    @Test
+    public void testRejectedUpdate_IsNotPublished() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            RideStatusHub hub = new RideStatusHub(executor, RideStatusHub.DEFAULT_CAPACITY);
+            Database database = new Database(new File(Files.createTempDirectory("hub").toFile(), "database.xml"),
+                    false);
+            database.addChangeListener(hub);
+            database.addChangeListener(hub);
+            Ride ride = ride("corrida");
+            ride.setStatus("CHAMADA");
+            database.insert(ride);
+
+            Recorder recorder = new Recorder(Long.MAX_VALUE);
+            hub.rideUpdates("corrida").subscribe(recorder);
+
+            Ride stale = new Ride(ride);
+            transition(database, ride, "ACEITA", "motorista");
+            waitFor(recorder, 1);
+            assertThrows(VersionConflictException.class, () -> transition(database, stale, "CANCELADA", null));
+
+            // Atualizações sem troca de status não são publicadas
+            Ride sameStatus = new Ride(database.findRide("corrida"));
+            database.update(sameStatus);
+            transition(database, sameStatus, "EM_PROGRESSO", null);
+
+            waitFor(recorder, 2);
+            assertEquals(List.of("ACEITA", "EM_PROGRESSO"),
+                    recorder.received.stream().map(RideStatusUpdate::getStatus).toList());
+            assertEquals("ACEITA", recorder.received.get(1).getPreviousStatus());
+            recorder.subscription.cancel();
+        }
+    }
+
+    @Test
+    public void testSlowSubscriber_GetsCoalescedUpdates() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            RideStatusHub hub = new RideStatusHub(executor, 2);
+            Recorder slow = new Recorder(1);
+            hub.cabbieUpdates("motorista").subscribe(slow);
+
+            Ride ride = ride("corrida");
+            ride.setCabbieId("motorista");
+            ride.setStatus("ACEITA");
+            hub.publish(ride, "CHAMADA");
+            waitFor(slow, 1);
+
+            ride.setStatus("EM_PROGRESSO");
+            hub.publish(ride, "ACEITA");
+            ride.setStatus("FINALIZADA");
+            hub.publish(ride, "EM_PROGRESSO");
+
+            // Buffer de duas corridas: a terceira derruba a mais antiga pendente
+            for (String other : new String[] { "a", "b", "c" }) {
+                Ride next = ride(other);
+                next.setCabbieId("motorista");
+                next.setStatus("ACEITA");
+                hub.publish(next, "CHAMADA");
+            }
+            assertEquals(1, slow.received.size());
+
+            slow.subscription.request(10);
+            waitFor(slow, 3);
+            assertEquals("b", slow.received.get(1).getRideId());
+            assertEquals("c", slow.received.get(2).getRideId());
+
+            ride.setStatus("EM_PROGRESSO");
+            hub.publish(ride, "ACEITA");
+            ride.setStatus("FINALIZADA");
+            hub.publish(ride, "EM_PROGRESSO");
+            assertTrue(slow.finished.await(5, TimeUnit.SECONDS));
+            slow.subscription.cancel();
+            assertEquals(0, hub.getSubscriberCount());
+        }
+    }
+
+    @Test
+    public void testCoalescing_KeepsFirstPreviousStatus() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            RideStatusHub hub = new RideStatusHub(executor, RideStatusHub.DEFAULT_CAPACITY);
+            Recorder slow = new Recorder(1);
+            hub.rideUpdates("corrida").subscribe(slow);
+
+            Ride ride = ride("corrida");
+            ride.setStatus("CHAMADA");
+            hub.publish(ride, null);
+            waitFor(slow, 1);
+
+            ride.setStatus("ACEITA");
+            hub.publish(ride, "CHAMADA");
+            ride.setStatus("EM_PROGRESSO");
+            hub.publish(ride, "ACEITA");
+            ride.setStatus("FINALIZADA");
+            hub.publish(ride, "EM_PROGRESSO");
+
+            slow.subscription.request(1);
+            assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+            assertEquals(2, slow.received.size());
+            RideStatusUpdate merged = slow.received.get(1);
+            assertEquals("CHAMADA", merged.getPreviousStatus());
+            assertEquals("FINALIZADA", merged.getStatus());
+            assertEquals(2, merged.getSkipped());
+            assertEquals(0, hub.getSubscriberCount());
+        }
+    }
+
+    @Test
+    public void testPublish_ToManySubscribers() throws Exception {
+        int subscribers = 100_000;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            RideStatusHub hub = new RideStatusHub(executor, 1);
+            CountDownLatch completed = new CountDownLatch(subscribers);
+            AtomicLong delivered = new AtomicLong();
+            for (int i = 0; i < subscribers; i++) {
+                hub.rideUpdates("corrida").subscribe(new Flow.Subscriber<RideStatusUpdate>() {
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        subscription.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(RideStatusUpdate item) {
+                        delivered.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completed.countDown();
+                    }
+                });
+            }
+            assertEquals(subscribers, hub.getSubscriberCount());
+
+            Ride ride = ride("corrida");
+            for (String status : new String[] { "ACEITA", "EM_PROGRESSO", "FINALIZADA" }) {
+                ride.setStatus(status);
+                hub.publish(ride, null);
+            }
+
+            assertTrue(completed.await(30, TimeUnit.SECONDS));
+            assertTrue(delivered.get() >= subscribers);
+            assertEquals(0, hub.getSubscriberCount());
+        }
+    }
+
+    @Test
+    public void testFinalStatus_RemovesRideTopicWithoutDemand() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            RideStatusHub hub = new RideStatusHub(executor, RideStatusHub.DEFAULT_CAPACITY);
+            Recorder idle = new Recorder(0);
+            hub.rideUpdates("corrida").subscribe(idle);
+            hub.rideUpdates("cancelada").subscribe(new Recorder(0));
+            assertEquals(2, hub.getSubscriberCount());
+
+            Ride ride = ride("corrida");
+            ride.setStatus("FINALIZADA");
+            hub.publish(ride, "EM_PROGRESSO");
+            Ride cancelled = ride("cancelada");
+            cancelled.setStatus("CANCELADA");
+            hub.publish(cancelled, "CHAMADA");
+            assertEquals(0, hub.getSubscriberCount());
+
+            // A última atualização continua guardada até ser pedida
+            idle.subscription.request(1);
+            assertTrue(idle.completed.await(5, TimeUnit.SECONDS));
+            assertEquals("FINALIZADA", idle.received.get(0).getStatus());
+        }
+    }
+
+    @Test
+    public void testIdleRideSubscription_Expires() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            RideStatusHub hub = new RideStatusHub(executor, RideStatusHub.DEFAULT_CAPACITY, Duration.ofNanos(1));
+            Recorder forgotten = new Recorder(Long.MAX_VALUE);
+            Recorder cabbie = new Recorder(Long.MAX_VALUE);
+            hub.rideUpdates("nunca-publicada").subscribe(forgotten);
+            hub.cabbieUpdates("motorista").subscribe(cabbie);
+
+            assertEquals(1, hub.expireIdle());
+            assertTrue(forgotten.failed.await(5, TimeUnit.SECONDS));
+            assertTrue(forgotten.error instanceof TimeoutException);
+            // Assinaturas de motorista só terminam quando canceladas
+            assertEquals(1, hub.getSubscriberCount());
+            assertEquals(0, hub.expireIdle());
+            cabbie.subscription.cancel();
+        }
+    }
+
+    private static void waitFor(Recorder recorder, int count) throws InterruptedException {
+        assertTrue(recorder.arrived.tryAcquire(count - recorder.awaited, 5, TimeUnit.SECONDS));
+        recorder.awaited = count;
+        assertEquals(count, recorder.received.size());
+    }
+}
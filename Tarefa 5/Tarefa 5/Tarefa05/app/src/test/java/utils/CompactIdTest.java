@@ -0,0 +1,68 @@
+package utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import cabbieManager.Ride;
+import cabbieManager.Vehicle;
+
+public class CompactIdTest {
+
+    @Test
+    public void testCompactId_RoundTrip() {
+        String uuid = new TimeOrderedIdGenerator().nextId();
+        assertTrue(CompactId.isCompact(uuid));
+        assertEquals(uuid, CompactId.toString(CompactId.high(uuid), CompactId.low(uuid), CompactId.text(uuid)));
+        assertEquals(UUID.fromString(uuid).getMostSignificantBits(), CompactId.high(uuid));
+        assertEquals(UUID.fromString(uuid).getLeastSignificantBits(), CompactId.low(uuid));
+
+        // Ids que não são UUIDs canônicos em minúsculas ficam como texto
+        for (String id : new String[] { "corrida-1", uuid.toUpperCase(), "00000000-0000-0000-0000-000000000000", "" }) {
+            assertFalse(CompactId.isCompact(id));
+            assertEquals(id, CompactId.toString(CompactId.high(id), CompactId.low(id), CompactId.text(id)));
+        }
+        assertNull(CompactId.toString(CompactId.high(null), CompactId.low(null), CompactId.text(null)));
+    }
+
+    @Test
+    public void testCompactId_EntitiesKeepTheirIds() {
+        String uuid = UUID.randomUUID().toString();
+        Ride ride = new Ride(uuid);
+        ride.setRideId("corrida");
+        assertEquals(uuid, ride.getPassengerId());
+        assertEquals("corrida", ride.getRideId());
+        assertNull(ride.getCabbieId());
+        assertTrue(ride.hasPassengerId(uuid));
+        assertFalse(ride.hasPassengerId(UUID.randomUUID().toString()));
+        assertFalse(ride.hasPassengerId(uuid.toUpperCase()));
+        assertTrue(ride.hasCabbieId(null));
+
+        Ride copy = new Ride();
+        copy.setRideId("corrida");
+        assertEquals(ride, copy);
+
+        Vehicle vehicle = new Vehicle(uuid);
+        vehicle.setVehicleId(uuid);
+        Vehicle other = new Vehicle();
+        other.setVehicleId(new String(uuid));
+        assertEquals(vehicle, other);
+        assertTrue(other.hasVehicleId(uuid));
+    }
+
+    @Test
+    public void testInternPool_IsBounded() {
+        InternPool pool = new InternPool(2, 8);
+        String first = pool.intern(new String("Sedan"));
+        assertSame(first, pool.intern(new String("Sedan")));
+        pool.intern("SUV");
+        String full = new String("Hatch");
+        assertSame(full, pool.intern(full));
+        String tooLong = new String("Caminhonete");
+        assertSame(tooLong, new InternPool(10, 8).intern(tooLong));
+        assertEquals(2, pool.size());
+        assertNull(pool.intern(null));
+    }
+}
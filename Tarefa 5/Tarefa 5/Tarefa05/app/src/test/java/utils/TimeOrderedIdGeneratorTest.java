@@ -0,0 +1,45 @@
+package utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+public class TimeOrderedIdGeneratorTest {
+
+    @Test
+    public void testTimeOrderedIdGenerator_SortedAndUnique() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        long before = System.currentTimeMillis();
+
+        String previous = generator.nextId();
+        for (int i = 0; i < 10000; i++) {
+            String next = generator.nextId();
+            assertTrue(next.compareTo(previous) > 0);
+            previous = next;
+        }
+
+        UUID id = UUID.fromString(previous);
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertTrue(TimeOrderedIdGenerator.timestampOf(id) >= before);
+
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, ids.size());
+    }
+}
@@ -0,0 +1,19 @@
+package codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity for which {@link SerializerProcessor} generates a
+ * {@code <Entity>Serializer} class in the same package.
+ *
+ * The serialized properties are the ones JAXB would bind: public getters
+ * annotated with {@code @XmlElement}, and public getter and setter pairs not
+ * annotated with {@code @XmlTransient}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateSerializer {
+}
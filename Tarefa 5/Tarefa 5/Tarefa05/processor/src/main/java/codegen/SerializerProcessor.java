@@ -0,0 +1,439 @@
+package codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a reflection-free XML and binary serializer for every class
+ * annotated with {@link GenerateSerializer}.
+ *
+ * The property model follows JAXB's defaults, so the generated XML matches
+ * what JAXB writes for the same entity: properties in alphabetical order of
+ * their name, element names from {@code @XmlElement}, the root name from
+ * {@code @XmlRootElement}, enums by constant name and {@code LocalDateTime} in
+ * ISO format. The generated classes are also listed as
+ * {@code serialization.EntitySerializer} services.
+ */
+public class SerializerProcessor extends AbstractProcessor {
+
+    private static final String XML_ROOT_ELEMENT = "javax.xml.bind.annotation.XmlRootElement";
+    private static final String XML_ELEMENT = "javax.xml.bind.annotation.XmlElement";
+    private static final String XML_TRANSIENT = "javax.xml.bind.annotation.XmlTransient";
+    private static final String LOCAL_DATE_TIME = "java.time.LocalDateTime";
+    private static final String SERVICE_FILE = "META-INF/services/serialization.EntitySerializer";
+
+    private final List<String> generated = new ArrayList<>();
+
+    // Tipos de propriedade suportados
+    private enum Kind {
+        BOOLEAN, INT, LONG, FLOAT, DOUBLE, STRING, ENUM, DATE_TIME
+    }
+
+    private static class Property {
+        private String name;
+        private String element;
+        private String getter;
+        private String setter;
+        private Kind kind;
+        private String type;
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(GenerateSerializer.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element element : round.getElementsAnnotatedWith(GenerateSerializer.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                this.error(element, "@GenerateSerializer só pode ser usada em classes");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            List<Property> properties = this.properties(type);
+            if (properties != null) {
+                this.generate(type, properties);
+            }
+        }
+
+        if (round.processingOver() && !this.generated.isEmpty()) {
+            this.writeServiceFile();
+        }
+        return true;
+    }
+
+    private List<Property> properties(TypeElement type) {
+        List<ExecutableElement> methods = ElementFilter
+                .methodsIn(this.processingEnv.getElementUtils().getAllMembers(type));
+        List<Property> properties = new ArrayList<>();
+        boolean valid = true;
+
+        for (ExecutableElement getter : methods) {
+            String methodName = getter.getSimpleName().toString();
+            if (!isPublicInstance(getter) || !getter.getParameters().isEmpty() || methodName.equals("getClass")
+                    || getter.getReturnType().getKind() == TypeKind.VOID) {
+                continue;
+            }
+
+            String name;
+            if (methodName.startsWith("get") && methodName.length() > 3) {
+                name = decapitalize(methodName.substring(3));
+            } else if (methodName.startsWith("is") && methodName.length() > 2
+                    && getter.getReturnType().getKind() == TypeKind.BOOLEAN) {
+                name = decapitalize(methodName.substring(2));
+            } else {
+                continue;
+            }
+            if (annotation(getter, XML_TRANSIENT) != null) {
+                continue;
+            }
+
+            AnnotationMirror xmlElement = annotation(getter, XML_ELEMENT);
+            String element = stringValue(xmlElement, "name");
+
+            Property property = new Property();
+            property.name = name;
+            property.element = element == null || element.equals("##default") ? name : element;
+            property.getter = methodName;
+            // O JAXB associa o setter pelo nome da propriedade; getPickLocation/setPickupLocation usa o do elemento
+            property.setter = findSetter(methods, getter.getReturnType(), "set" + capitalize(name));
+            if (property.setter == null) {
+                property.setter = findSetter(methods, getter.getReturnType(), "set" + capitalize(property.element));
+            }
+            if (xmlElement == null && property.setter == null) {
+                continue;
+            }
+
+            property.kind = this.kind(getter.getReturnType());
+            if (property.kind == null) {
+                this.error(getter, "Tipo não suportado pelo serializador gerado: " + getter.getReturnType());
+                valid = false;
+                continue;
+            }
+            property.type = getter.getReturnType().toString();
+            properties.add(property);
+        }
+
+        properties.sort(Comparator.comparing(property -> property.name));
+        return valid ? properties : null;
+    }
+
+    private static String findSetter(List<ExecutableElement> methods, TypeMirror type, String name) {
+        for (ExecutableElement method : methods) {
+            if (isPublicInstance(method) && method.getSimpleName().contentEquals(name)
+                    && method.getParameters().size() == 1
+                    && method.getParameters().get(0).asType().toString().equals(type.toString())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private Kind kind(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return Kind.BOOLEAN;
+            case INT:
+                return Kind.INT;
+            case LONG:
+                return Kind.LONG;
+            case FLOAT:
+                return Kind.FLOAT;
+            case DOUBLE:
+                return Kind.DOUBLE;
+            case DECLARED:
+                Element element = ((DeclaredType) type).asElement();
+                if (element.getKind() == ElementKind.ENUM) {
+                    return Kind.ENUM;
+                }
+                String name = ((TypeElement) element).getQualifiedName().toString();
+                if (name.equals("java.lang.String")) {
+                    return Kind.STRING;
+                }
+                if (name.equals(LOCAL_DATE_TIME)) {
+                    return Kind.DATE_TIME;
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private void generate(TypeElement type, List<Property> properties) {
+        String packageName = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String entity = type.getSimpleName().toString();
+        String className = entity + "Serializer";
+        String root = stringValue(annotation(type, XML_ROOT_ELEMENT), "name");
+        if (root == null || root.equals("##default")) {
+            root = decapitalize(entity);
+        }
+
+        StringBuilder out = new StringBuilder(8192);
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("import java.io.DataInput;\n");
+        out.append("import java.io.DataOutput;\n");
+        out.append("import java.io.IOException;\n\n");
+        out.append("import javax.annotation.processing.Generated;\n");
+        out.append("import javax.xml.stream.XMLStreamConstants;\n");
+        out.append("import javax.xml.stream.XMLStreamException;\n");
+        out.append("import javax.xml.stream.XMLStreamReader;\n");
+        out.append("import javax.xml.stream.XMLStreamWriter;\n\n");
+        out.append("import serialization.Codec;\n");
+        out.append("import serialization.EntitySerializer;\n\n");
+        out.append("/**\n * XML and binary serializer of {@link ").append(entity)
+                .append("}, generated at compile time.\n */\n");
+        out.append("@Generated(\"").append(SerializerProcessor.class.getName()).append("\")\n");
+        out.append("public final class ").append(className).append(" implements EntitySerializer<").append(entity)
+                .append("> {\n\n");
+
+        for (Property property : properties) {
+            if (property.kind == Kind.ENUM && property.setter != null) {
+                out.append("    private static final ").append(property.type).append("[] ")
+                        .append(constant(property.name)).append(" = ").append(property.type)
+                        .append(".values();\n");
+            }
+        }
+        out.append("\n    public static final ").append(className).append(" INSTANCE = new ").append(className)
+                .append("();\n\n");
+
+        out.append("    @Override\n    public Class<").append(entity).append("> getType() {\n        return ")
+                .append(entity).append(".class;\n    }\n\n");
+        out.append("    @Override\n    public String getElementName() {\n        return \"").append(root)
+                .append("\";\n    }\n\n");
+
+        // Escrita XML
+        out.append("    @Override\n    public void writeXml(").append(entity)
+                .append(" value, String elementName, XMLStreamWriter out) throws XMLStreamException {\n");
+        out.append("        out.writeStartElement(elementName);\n");
+        for (Property property : properties) {
+            out.append("        Codec.writeElement(out, \"").append(property.element).append("\", ")
+                    .append(xmlText(property)).append(");\n");
+        }
+        out.append("        out.writeEndElement();\n    }\n\n");
+
+        // Leitura XML
+        out.append("    @Override\n    public ").append(entity)
+                .append(" readXml(XMLStreamReader in) throws XMLStreamException {\n");
+        out.append("        ").append(entity).append(" value = new ").append(entity).append("();\n");
+        out.append("        while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {\n");
+        out.append("            switch (in.getLocalName()) {\n");
+        for (Property property : properties) {
+            if (property.setter == null) {
+                continue;
+            }
+            out.append("                case \"").append(property.element).append("\":\n");
+            out.append("                    value.").append(property.setter).append("(").append(xmlParse(property))
+                    .append(");\n");
+            out.append("                    break;\n");
+        }
+        out.append("                default:\n                    Codec.skipElement(in);\n            }\n        }\n");
+        out.append("        return value;\n    }\n\n");
+
+        // Escrita binária
+        out.append("    @Override\n    public void writeBinary(").append(entity)
+                .append(" value, DataOutput out) throws IOException {\n");
+        for (Property property : properties) {
+            out.append("        ").append(binaryWrite(property)).append(";\n");
+        }
+        out.append("    }\n\n");
+
+        // Leitura binária
+        out.append("    @Override\n    public ").append(entity)
+                .append(" readBinary(DataInput in) throws IOException {\n");
+        out.append("        ").append(entity).append(" value = new ").append(entity).append("();\n");
+        for (Property property : properties) {
+            if (property.setter == null) {
+                out.append("        ").append(binaryRead(property)).append(";\n");
+            } else {
+                out.append("        value.").append(property.setter).append("(").append(binaryRead(property))
+                        .append(");\n");
+            }
+        }
+        out.append("        return value;\n    }\n}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try {
+            JavaFileObject file = this.processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(out.toString());
+            }
+            this.generated.add(qualifiedName);
+        } catch (IOException e) {
+            this.error(type, "Erro ao gerar " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private static String xmlText(Property property) {
+        String value = "value." + property.getter + "()";
+        switch (property.kind) {
+            case STRING:
+                return value;
+            case ENUM:
+                return "Codec.name(" + value + ")";
+            case DATE_TIME:
+                return "Codec.text(" + value + ")";
+            default:
+                return "String.valueOf(" + value + ")";
+        }
+    }
+
+    private static String xmlParse(Property property) {
+        String text = "in.getElementText()";
+        switch (property.kind) {
+            case BOOLEAN:
+                return "Boolean.parseBoolean(" + text + ")";
+            case INT:
+                return "Integer.parseInt(" + text + ")";
+            case LONG:
+                return "Long.parseLong(" + text + ")";
+            case FLOAT:
+                return "Float.parseFloat(" + text + ")";
+            case DOUBLE:
+                return "Double.parseDouble(" + text + ")";
+            case ENUM:
+                return property.type + ".valueOf(" + text + ")";
+            case DATE_TIME:
+                return "Codec.parseDateTime(" + text + ")";
+            default:
+                return text;
+        }
+    }
+
+    private static String binaryWrite(Property property) {
+        String value = "value." + property.getter + "()";
+        switch (property.kind) {
+            case BOOLEAN:
+                return "out.writeBoolean(" + value + ")";
+            case INT:
+                return "out.writeInt(" + value + ")";
+            case LONG:
+                return "out.writeLong(" + value + ")";
+            case FLOAT:
+                return "out.writeFloat(" + value + ")";
+            case DOUBLE:
+                return "out.writeDouble(" + value + ")";
+            case ENUM:
+                return "Codec.writeEnum(out, " + value + ")";
+            case DATE_TIME:
+                return "Codec.writeDateTime(out, " + value + ")";
+            default:
+                return "Codec.writeString(out, " + value + ")";
+        }
+    }
+
+    private static String binaryRead(Property property) {
+        switch (property.kind) {
+            case BOOLEAN:
+                return "in.readBoolean()";
+            case INT:
+                return "in.readInt()";
+            case LONG:
+                return "in.readLong()";
+            case FLOAT:
+                return "in.readFloat()";
+            case DOUBLE:
+                return "in.readDouble()";
+            case ENUM:
+                return property.setter == null ? "Codec.readEnumOrdinal(in)"
+                        : "Codec.readEnum(in, " + constant(property.name) + ")";
+            case DATE_TIME:
+                return "Codec.readDateTime(in)";
+            default:
+                return "Codec.readString(in)";
+        }
+    }
+
+    private void writeServiceFile() {
+        try {
+            FileObject file = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String name : this.generated) {
+                    writer.write(name + "\n");
+                }
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Erro ao gravar " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isPublicInstance(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        return modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC);
+    }
+
+    private static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String stringValue(AnnotationMirror mirror, String attribute) {
+        if (mirror == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues()
+                .entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return entry.getValue().getValue().toString();
+            }
+        }
+        return null;
+    }
+
+    private static String constant(String property) {
+        return property.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase() + "_VALUES";
+    }
+
+    // Mesma regra do java.beans.Introspector usada pelo JAXB
+    private static String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private void error(Element element, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}